@@ -0,0 +1,14 @@
+package com.wangguangwu.nacosconsumerdemo.config;
+
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 为所有服务注册默认的负载均衡子上下文配置：以本地快照兜底的服务实例列表供应者。
+ *
+ * @author wangguangwu
+ */
+@Configuration
+@LoadBalancerClients(defaultConfiguration = ServiceInstanceListSupplierConfiguration.class)
+public class LoadBalancerClientsConfiguration {
+}
@@ -0,0 +1,29 @@
+package com.wangguangwu.nacosconsumerdemo.config;
+
+import com.wangguangwu.nacosconsumerdemo.manager.InstanceSnapshotManager;
+import com.wangguangwu.nacosconsumerdemo.supplier.SnapshotServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * 所有服务共用的服务实例列表供应者配置，通过
+ * {@link LoadBalancerClientsConfiguration} 作为默认配置注册到每个服务的子上下文中。
+ * <p>
+ * 在默认的“服务发现 + 缓存”供应者外层叠加 {@link SnapshotServiceInstanceListSupplier}：启动时先使用本地快照中的实例列表，
+ * Nacos 不可用时沿用最近一次已知的列表。负载均衡策略仍为 Spring Cloud LoadBalancer 默认的轮询。
+ *
+ * @author wangguangwu
+ */
+public class ServiceInstanceListSupplierConfiguration {
+
+    @Bean
+    public ServiceInstanceListSupplier serviceInstanceListSupplier(ConfigurableApplicationContext context,
+                                                                   InstanceSnapshotManager instanceSnapshotManager) {
+        ServiceInstanceListSupplier cachingSupplier = ServiceInstanceListSupplier.builder()
+                .withDiscoveryClient()
+                .withCaching()
+                .build(context);
+        return new SnapshotServiceInstanceListSupplier(cachingSupplier, instanceSnapshotManager);
+    }
+}
@@ -0,0 +1,28 @@
+package com.wangguangwu.nacosconsumerdemo.config;
+
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * WebClient 配置类。
+ * <p>
+ * 基于 Reactor Netty 的非阻塞调用，慢请求在等待响应期间不占用 Tomcat 工作线程。
+ *
+ * @author wangguangwu
+ */
+@Configuration
+public class WebClientConfig {
+
+    @LoadBalanced
+    @Bean
+    public WebClient.Builder webClientBuilder() {
+        return WebClient.builder();
+    }
+
+    @Bean
+    public WebClient webClient(WebClient.Builder webClientBuilder) {
+        return webClientBuilder.build();
+    }
+}
@@ -0,0 +1,32 @@
+package com.wangguangwu.nacosconsumerdemo.controller;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.Resource;
+
+/**
+ * 与 {@link ApiController} 对应的异步接口，通过 WebClient 非阻塞地调用服务。
+ *
+ * @author wangguangwu
+ */
+@RestController
+@RequestMapping("api/async")
+public class AsyncApiController {
+
+    private static final String SERVICE_NAME = "http://nacos-provider-serviceA";
+
+    @Resource
+    private WebClient webClient;
+
+    @GetMapping("/callService")
+    public Mono<String> hello() {
+        return webClient.get()
+                .uri(SERVICE_NAME + "/api/callService")
+                .retrieve()
+                .bodyToMono(String.class);
+    }
+}
@@ -0,0 +1,294 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import com.wangguangwu.nacosconsumerdemo.config.InstanceSnapshotProperties;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 服务实例列表的本地快照。
+ * <p>
+ * 启动时以内存映射方式读取快照文件，消费者不必等待 Nacos 返回即可用上次已知的实例列表发出请求；
+ * 从 Nacos 获取到新的实例列表后，由后台线程延迟写入快照，先写临时文件再原子替换，进程中断也不会留下半个文件。
+ * <p>
+ * 快照为紧凑的二进制格式：文件头（魔数、版本号、服务数），之后依次是每个服务的服务名、实例数，
+ * 以及每个实例的实例 Id、主机、端口、是否 HTTPS 和元数据。字符串以长度加 UTF-8 字节存储。
+ * 读取时所有长度和数量都先与文件剩余字节数比对，损坏或截断的快照按“没有快照”处理，不会影响启动。
+ * <p>
+ * nacos-consumer-demo-01、02、03 中的快照相关类（本类、{@code InstanceSnapshotProperties}、
+ * {@code SnapshotServiceInstanceListSupplier}）内容完全相同。各示例模块独立运行、互不依赖，
+ * 与 {@code RestTemplateConfig} 等类一样按模块复制而不抽取公共模块；修改时需同步修改三个模块。
+ *
+ * @author wangguangwu
+ */
+@Component
+public class InstanceSnapshotManager {
+
+    private static final Log log = LogFactory.getLog(InstanceSnapshotManager.class);
+
+    private static final int MAGIC = 0x4E534E50;
+
+    private static final int VERSION = 1;
+
+    /**
+     * 快照文件的大小上限，超过时视为损坏
+     */
+    private static final long MAX_FILE_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * 单个字符串的长度上限，超过时视为损坏
+     */
+    private static final int MAX_STRING_LENGTH = 64 * 1024;
+
+    /**
+     * 各类记录占用的最少字节数，用于在分配内存前校验读到的数量
+     */
+    private static final int MIN_SERVICE_BYTES = 8;
+
+    private static final int MIN_INSTANCE_BYTES = 17;
+
+    private static final int MIN_METADATA_BYTES = 8;
+
+    private final InstanceSnapshotProperties instanceSnapshotProperties;
+
+    /**
+     * 各服务最近一次已知的实例列表
+     */
+    private final Map<String, List<ServiceInstance>> services = new ConcurrentHashMap<>();
+
+    /**
+     * 是否已经安排了一次写入
+     */
+    private final AtomicBoolean writeScheduled = new AtomicBoolean();
+
+    private ScheduledExecutorService writer;
+
+    public InstanceSnapshotManager(InstanceSnapshotProperties instanceSnapshotProperties) {
+        this.instanceSnapshotProperties = instanceSnapshotProperties;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!instanceSnapshotProperties.isEnabled()) {
+            return;
+        }
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "instance-snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Path file = getFile();
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        try {
+            services.putAll(read(file));
+            if (log.isInfoEnabled()) {
+                log.info("Loaded instance snapshot of " + services.size() + " services from " + file);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable instance snapshot " + file, e);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (writer == null) {
+            return;
+        }
+        writer.shutdownNow();
+        if (writeScheduled.get()) {
+            write();
+        }
+    }
+
+    /**
+     * 获取快照中的实例列表。
+     *
+     * @param serviceId 服务名
+     * @return 实例列表，快照中没有该服务时返回空列表
+     */
+    public List<ServiceInstance> getInstances(String serviceId) {
+        if (!instanceSnapshotProperties.isEnabled()) {
+            return Collections.emptyList();
+        }
+        return services.getOrDefault(serviceId, Collections.emptyList());
+    }
+
+    /**
+     * 记录服务最新的实例列表，稍后写入快照文件。
+     *
+     * @param serviceId 服务名
+     * @param instances 从注册中心获取的实例列表
+     */
+    public void save(String serviceId, List<ServiceInstance> instances) {
+        if (writer == null || instances.isEmpty()) {
+            return;
+        }
+        services.put(serviceId, instances);
+        if (writeScheduled.compareAndSet(false, true)) {
+            writer.schedule(this::write, instanceSnapshotProperties.getWriteDelay().toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void write() {
+        writeScheduled.set(false);
+        Path file = getFile();
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temp, encode(new HashMap<>(services)));
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to write instance snapshot " + file, e);
+        }
+    }
+
+    private Path getFile() {
+        return Paths.get(instanceSnapshotProperties.getFile());
+    }
+
+    static byte[] encode(Map<String, List<ServiceInstance>> snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<String, List<ServiceInstance>> service : snapshot.entrySet()) {
+                writeString(out, service.getKey());
+                out.writeInt(service.getValue().size());
+                for (ServiceInstance instance : service.getValue()) {
+                    writeString(out, instance.getInstanceId());
+                    writeString(out, instance.getHost());
+                    out.writeInt(instance.getPort());
+                    out.writeBoolean(instance.isSecure());
+                    Map<String, String> metadata = instance.getMetadata() == null ? Collections.emptyMap() : instance.getMetadata();
+                    out.writeInt(metadata.size());
+                    for (Map.Entry<String, String> entry : metadata.entrySet()) {
+                        writeString(out, entry.getKey());
+                        writeString(out, entry.getValue());
+                    }
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    static Map<String, List<ServiceInstance>> read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > MAX_FILE_SIZE) {
+                throw new IOException("Instance snapshot is larger than " + MAX_FILE_SIZE + " bytes");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return decode(buffer);
+        }
+    }
+
+    private static Map<String, List<ServiceInstance>> decode(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < 12 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Not an instance snapshot");
+        }
+        int serviceCount = readCount(buffer, MIN_SERVICE_BYTES);
+        Map<String, List<ServiceInstance>> snapshot = new HashMap<>(serviceCount * 2);
+        for (int i = 0; i < serviceCount; i++) {
+            String serviceId = readString(buffer);
+            if (serviceId == null) {
+                throw new IOException("Corrupt instance snapshot: missing service id");
+            }
+            int instanceCount = readCount(buffer, MIN_INSTANCE_BYTES);
+            List<ServiceInstance> instances = new ArrayList<>(instanceCount);
+            for (int j = 0; j < instanceCount; j++) {
+                String instanceId = readString(buffer);
+                String host = readString(buffer);
+                int port = readInt(buffer);
+                boolean secure = readByte(buffer) != 0;
+                int metadataCount = readCount(buffer, MIN_METADATA_BYTES);
+                Map<String, String> metadata = new HashMap<>(metadataCount * 2);
+                for (int k = 0; k < metadataCount; k++) {
+                    metadata.put(readString(buffer), readString(buffer));
+                }
+                instances.add(new DefaultServiceInstance(instanceId, serviceId, host, port, secure, metadata));
+            }
+            snapshot.put(serviceId, Collections.unmodifiableList(instances));
+        }
+        return snapshot;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * 读取一个数量，并确认剩余字节足以容纳这么多条记录。
+     */
+    private static int readCount(ByteBuffer buffer, int minBytesPerItem) throws IOException {
+        int count = readInt(buffer);
+        if (count < 0 || (long) count * minBytesPerItem > buffer.remaining()) {
+            throw new IOException("Corrupt instance snapshot: count " + count + " exceeds remaining bytes");
+        }
+        return count;
+    }
+
+    private static int readInt(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < Integer.BYTES) {
+            throw new IOException("Truncated instance snapshot");
+        }
+        return buffer.getInt();
+    }
+
+    private static byte readByte(ByteBuffer buffer) throws IOException {
+        if (!buffer.hasRemaining()) {
+            throw new IOException("Truncated instance snapshot");
+        }
+        return buffer.get();
+    }
+
+    private static String readString(ByteBuffer buffer) throws IOException {
+        int length = readInt(buffer);
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > MAX_STRING_LENGTH || length > buffer.remaining()) {
+            throw new IOException("Corrupt instance snapshot: string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,94 @@
+package com.wangguangwu.nacosconsumerdemo.config;
+
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.ConsistentHashLoadBalancer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+
+/**
+ * {@link ConsistentHashLoadBalancer} 的配置项。
+ * <p>
+ * 例如：
+ * <pre>
+ * loadbalancer.consistent-hash.header=X-Hash-Key
+ * loadbalancer.consistent-hash.path-pattern=/api/items/{key}
+ * loadbalancer.consistent-hash.bounded-load=true
+ * loadbalancer.consistent-hash.load-factor=1.25
+ * </pre>
+ * 请求键优先从请求头中读取，没有时再按路径模板从请求路径中提取 {@code {key}} 变量。
+ *
+ * @author wangguangwu
+ */
+@Component
+@ConfigurationProperties(prefix = "loadbalancer.consistent-hash")
+public class ConsistentHashProperties {
+
+    /**
+     * 携带请求键的请求头
+     */
+    private String header = "X-Hash-Key";
+
+    /**
+     * 提取请求键的路径模板，模板中的 {@code {key}} 变量即请求键，不设置时只从请求头读取
+     */
+    private String pathPattern;
+
+    /**
+     * 是否开启有界负载：实例的在途请求数达到上限时，请求键顺延到下一个实例
+     */
+    private boolean boundedLoad = false;
+
+    /**
+     * 有界负载的系数，单个实例的在途请求数上限为平均值乘以该系数（向上取整）
+     */
+    private double loadFactor = 1.25;
+
+    /**
+     * Maglev 查找表的大小，必须是质数，且应远大于实例数量；绑定时校验，不是质数时启动失败
+     */
+    private int tableSize = 65537;
+
+    public String getHeader() {
+        return header;
+    }
+
+    public void setHeader(String header) {
+        this.header = header;
+    }
+
+    public String getPathPattern() {
+        return pathPattern;
+    }
+
+    public void setPathPattern(String pathPattern) {
+        this.pathPattern = pathPattern;
+    }
+
+    public boolean isBoundedLoad() {
+        return boundedLoad;
+    }
+
+    public void setBoundedLoad(boolean boundedLoad) {
+        this.boundedLoad = boundedLoad;
+    }
+
+    public double getLoadFactor() {
+        return loadFactor;
+    }
+
+    public void setLoadFactor(double loadFactor) {
+        this.loadFactor = loadFactor;
+    }
+
+    public int getTableSize() {
+        return tableSize;
+    }
+
+    public void setTableSize(int tableSize) {
+        if (tableSize < 2 || !BigInteger.valueOf(tableSize).isProbablePrime(64)) {
+            throw new IllegalArgumentException("loadbalancer.consistent-hash.table-size must be a prime number, got " + tableSize);
+        }
+        this.tableSize = tableSize;
+    }
+}
@@ -0,0 +1,35 @@
+package com.wangguangwu.nacosconsumerdemo.config;
+
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.ConsistentHashLoadBalancer;
+import com.wangguangwu.nacosconsumerdemo.manager.InFlightRequestCounter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClient;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * 配置 {@link ConsistentHashLoadBalancer} 作为自定义负载均衡策略，按请求键把请求固定到同一个实例。
+ * <p>
+ * 通常通过 {@code loadbalancer.routing.services.<服务名>=consistent-hash} 选择该策略，可在运行时切换，
+ * 见 {@link RoutingStrategyProperties}。需要在编译期固定策略时，通过 {@link LoadBalancerClient} 绑定到服务，例如：
+ * <pre>
+ * &#64;LoadBalancerClient(name = ServiceConstants.SERVICE_A_NAME, configuration = ConsistentHashRoutingConfiguration.class)
+ * </pre>
+ * 请求键的来源与有界负载见 {@link ConsistentHashProperties}。
+ *
+ * @author wangguangwu
+ */
+public class ConsistentHashRoutingConfiguration {
+
+    @Bean
+    public ConsistentHashLoadBalancer consistentHashLoadBalancer(Environment environment,
+                                                                 ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                                                                 ConsistentHashProperties consistentHashProperties,
+                                                                 InFlightRequestCounter inFlightRequestCounter) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new ConsistentHashLoadBalancer(serviceInstanceListSupplierProvider, serviceId,
+                consistentHashProperties, inFlightRequestCounter);
+    }
+}
@@ -0,0 +1,14 @@
+package com.wangguangwu.nacosconsumerdemo.config;
+
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 为所有服务注册默认的负载均衡子上下文配置：服务实例列表供应者链和可切换策略的负载均衡器。
+ *
+ * @author wangguangwu
+ */
+@Configuration
+@LoadBalancerClients(defaultConfiguration = {ServiceInstanceListSupplierConfiguration.class, SwitchableRoutingConfiguration.class})
+public class LoadBalancerClientsConfiguration {
+}
@@ -0,0 +1,153 @@
+package com.wangguangwu.nacosconsumerdemo.config;
+
+import com.wangguangwu.nacosconsumerdemo.manager.OutlierDetector;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * {@link OutlierDetector} 的配置项。
+ * <p>
+ * 例如：
+ * <pre>
+ * loadbalancer.outlier-detection.consecutive-failures=5
+ * loadbalancer.outlier-detection.max-ejection-percent=50
+ * </pre>
+ *
+ * @author wangguangwu
+ */
+@Component
+@ConfigurationProperties(prefix = "loadbalancer.outlier-detection")
+public class OutlierDetectionProperties {
+
+    /**
+     * 是否开启异常实例摘除
+     */
+    private boolean enabled = true;
+
+    /**
+     * 连续失败（5xx 或 IO 异常）达到该次数时摘除实例，0 表示不检查
+     */
+    private int consecutiveFailures = 5;
+
+    /**
+     * 滑动窗口内失败率达到该百分比时摘除实例，0 表示不检查
+     */
+    private int failureRatePercent = 50;
+
+    /**
+     * 滑动窗口内平均响应时间超过同服务实例中位数的倍数时摘除实例，0 表示不检查
+     */
+    private double latencyDeviationFactor = 3.0;
+
+    /**
+     * 失败率与响应时间检查要求的最少请求数
+     */
+    private int minimumRequests = 10;
+
+    /**
+     * 统计失败率与响应时间的滑动窗口
+     */
+    private Duration window = Duration.ofSeconds(10);
+
+    /**
+     * 失败率与响应时间检查的间隔
+     */
+    private Duration analysisInterval = Duration.ofSeconds(1);
+
+    /**
+     * 首次摘除的时长，之后每次摘除翻倍
+     */
+    private Duration baseEjectionTime = Duration.ofSeconds(5);
+
+    /**
+     * 单次摘除的最长时长
+     */
+    private Duration maxEjectionTime = Duration.ofMinutes(5);
+
+    /**
+     * 同一服务中最多同时摘除的实例百分比，按实例数向上取整，大于 0 时至少可以摘除一个实例
+     */
+    private int maxEjectionPercent = 50;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    public void setConsecutiveFailures(int consecutiveFailures) {
+        this.consecutiveFailures = consecutiveFailures;
+    }
+
+    public int getFailureRatePercent() {
+        return failureRatePercent;
+    }
+
+    public void setFailureRatePercent(int failureRatePercent) {
+        this.failureRatePercent = failureRatePercent;
+    }
+
+    public double getLatencyDeviationFactor() {
+        return latencyDeviationFactor;
+    }
+
+    public void setLatencyDeviationFactor(double latencyDeviationFactor) {
+        this.latencyDeviationFactor = latencyDeviationFactor;
+    }
+
+    public int getMinimumRequests() {
+        return minimumRequests;
+    }
+
+    public void setMinimumRequests(int minimumRequests) {
+        this.minimumRequests = minimumRequests;
+    }
+
+    public Duration getWindow() {
+        return window;
+    }
+
+    public void setWindow(Duration window) {
+        this.window = window;
+    }
+
+    public Duration getAnalysisInterval() {
+        return analysisInterval;
+    }
+
+    public void setAnalysisInterval(Duration analysisInterval) {
+        this.analysisInterval = analysisInterval;
+    }
+
+    public Duration getBaseEjectionTime() {
+        return baseEjectionTime;
+    }
+
+    public void setBaseEjectionTime(Duration baseEjectionTime) {
+        this.baseEjectionTime = baseEjectionTime;
+    }
+
+    public Duration getMaxEjectionTime() {
+        return maxEjectionTime;
+    }
+
+    public void setMaxEjectionTime(Duration maxEjectionTime) {
+        this.maxEjectionTime = maxEjectionTime;
+    }
+
+    public int getMaxEjectionPercent() {
+        return maxEjectionPercent;
+    }
+
+    public void setMaxEjectionPercent(int maxEjectionPercent) {
+        this.maxEjectionPercent = maxEjectionPercent;
+    }
+}
@@ -0,0 +1,78 @@
+package com.wangguangwu.nacosconsumerdemo.config;
+
+import com.wangguangwu.nacosconsumerdemo.manager.LoadBalancerWarmUpManager;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link LoadBalancerWarmUpManager} 的配置项。
+ * <p>
+ * 例如：
+ * <pre>
+ * # 除 &#64;LoadBalancerClient 声明的服务外，额外预热 serviceC，并对每个服务执行 1000 次实例选择
+ * loadbalancer.warm-up.services=nacos-provider-serviceC
+ * loadbalancer.warm-up.choose-iterations=1000
+ * </pre>
+ *
+ * @author wangguangwu
+ */
+@Component
+@ConfigurationProperties(prefix = "loadbalancer.warm-up")
+public class WarmUpProperties {
+
+    /**
+     * 是否在启动时预热
+     */
+    private boolean enabled = true;
+
+    /**
+     * &#64;LoadBalancerClient 声明的服务之外需要预热的服务
+     */
+    private List<String> services = new ArrayList<>();
+
+    /**
+     * 获取单个服务实例列表的最长等待时间
+     */
+    private Duration timeout = Duration.ofSeconds(5);
+
+    /**
+     * 每个服务执行实例选择的次数，用于触发 JIT 编译，为 0 时不执行
+     */
+    private int chooseIterations = 0;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<String> getServices() {
+        return services;
+    }
+
+    public void setServices(List<String> services) {
+        this.services = services;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    public int getChooseIterations() {
+        return chooseIterations;
+    }
+
+    public void setChooseIterations(int chooseIterations) {
+        this.chooseIterations = chooseIterations;
+    }
+}
@@ -0,0 +1,17 @@
+package com.wangguangwu.nacosconsumerdemo.constant;
+
+/**
+ * Nacos 服务发现写入实例元数据的键。
+ *
+ * @author wangguangwu
+ */
+public final class NacosMetadataConstants {
+
+    /**
+     * 实例权重，取值为非负小数，默认 1.0
+     */
+    public static final String WEIGHT = "nacos.weight";
+
+    private NacosMetadataConstants() {
+    }
+}
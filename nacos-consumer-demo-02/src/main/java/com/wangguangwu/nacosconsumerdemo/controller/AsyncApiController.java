@@ -0,0 +1,40 @@
+package com.wangguangwu.nacosconsumerdemo.controller;
+
+import com.wangguangwu.nacosconsumerdemo.constant.HttpProtocolConstants;
+import com.wangguangwu.nacosconsumerdemo.constant.ServiceConstants;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.Resource;
+
+/**
+ * 与 {@link ApiController} 对应的异步接口，通过 WebClient 非阻塞地调用服务。
+ *
+ * @author wangguangwu
+ */
+@RestController
+@RequestMapping("api/async")
+public class AsyncApiController {
+
+    @Resource
+    private WebClient webClient;
+
+    @GetMapping("/callServiceA")
+    public Mono<String> callServiceA() {
+        return webClient.get()
+                .uri(HttpProtocolConstants.HTTP_PROTOCOL + ServiceConstants.SERVICE_A_NAME + "/api/callService")
+                .retrieve()
+                .bodyToMono(String.class);
+    }
+
+    @GetMapping("/callServiceB")
+    public Mono<String> callServiceB() {
+        return webClient.get()
+                .uri(HttpProtocolConstants.HTTP_PROTOCOL + ServiceConstants.SERVICE_B_NAME + "/api/callService")
+                .retrieve()
+                .bodyToMono(String.class);
+    }
+}
@@ -0,0 +1,56 @@
+package com.wangguangwu.nacosconsumerdemo.lifecycle;
+
+import com.wangguangwu.nacosconsumerdemo.config.ConsistentHashProperties;
+import com.wangguangwu.nacosconsumerdemo.manager.InFlightRequestCounter;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+
+/**
+ * 开启一致性哈希的有界负载时，在 {@link InFlightRequestCounter} 中统计每个实例的在途请求数。
+ * <p>
+ * 计数在选中实例、即将发送请求时增加，在请求完成（收到响应或失败）时减少。
+ *
+ * @author wangguangwu
+ */
+@Component
+public class InFlightCountingLoadBalancerLifecycle implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    @Resource
+    private InFlightRequestCounter inFlightRequestCounter;
+
+    @Resource
+    private ConsistentHashProperties consistentHashProperties;
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+        // 选择实例之前无需处理
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (consistentHashProperties.isBoundedLoad() && lbResponse.hasServer()) {
+            inFlightRequestCounter.increment(lbResponse.getServer());
+        }
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (!consistentHashProperties.isBoundedLoad() || completionContext.status() == CompletionContext.Status.DISCARD
+                || lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+        inFlightRequestCounter.decrement(lbResponse.getServer());
+    }
+}
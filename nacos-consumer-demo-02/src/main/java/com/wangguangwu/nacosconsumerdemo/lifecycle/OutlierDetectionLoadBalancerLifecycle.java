@@ -0,0 +1,72 @@
+package com.wangguangwu.nacosconsumerdemo.lifecycle;
+
+import com.wangguangwu.nacosconsumerdemo.manager.OutlierDetector;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+
+/**
+ * 把每次请求的结果与响应时间交给 {@link OutlierDetector}。
+ * <p>
+ * 5xx 响应和请求异常（包括 IO 异常、超时）记为失败，被丢弃的请求不计入。
+ *
+ * @author wangguangwu
+ */
+@Component
+public class OutlierDetectionLoadBalancerLifecycle implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    @Resource
+    private OutlierDetector outlierDetector;
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+        // 选择实例之前无需处理
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (request.getContext() instanceof TimedRequestContext) {
+            TimedRequestContext context = (TimedRequestContext) request.getContext();
+            if (context.getRequestStartTime() == 0L) {
+                context.setRequestStartTime(System.nanoTime());
+            }
+        }
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        if (!outlierDetector.isEnabled() || completionContext.status() == CompletionContext.Status.DISCARD) {
+            return;
+        }
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+        Object context = completionContext.getLoadBalancerRequest().getContext();
+        long startNanos = context instanceof TimedRequestContext ? ((TimedRequestContext) context).getRequestStartTime() : 0L;
+        long latencyNanos = startNanos == 0L ? 0L : System.nanoTime() - startNanos;
+        outlierDetector.recordOutcome(lbResponse.getServer(), isFailure(completionContext), latencyNanos);
+    }
+
+    private static boolean isFailure(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        if (completionContext.status() == CompletionContext.Status.FAILED) {
+            return true;
+        }
+        Object clientResponse = completionContext.getClientResponse();
+        return clientResponse instanceof ResponseData
+                && ((ResponseData) clientResponse).getHttpStatus() != null
+                && ((ResponseData) clientResponse).getHttpStatus().is5xxServerError();
+    }
+}
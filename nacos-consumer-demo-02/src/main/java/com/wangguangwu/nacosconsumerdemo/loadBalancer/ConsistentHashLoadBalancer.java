@@ -0,0 +1,208 @@
+package com.wangguangwu.nacosconsumerdemo.loadBalancer;
+
+import com.wangguangwu.nacosconsumerdemo.config.ConsistentHashProperties;
+import com.wangguangwu.nacosconsumerdemo.manager.InFlightRequestCounter;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 自定义负载均衡策略实现，按请求键做一致性哈希，同一个键总是落到同一个实例上，适合提供者按键缓存数据的场景。
+ * <p>
+ * 请求键取自 {@link ConsistentHashProperties#getHeader() 请求头}或按
+ * {@link ConsistentHashProperties#getPathPattern() 路径模板}提取的路径变量；没有请求键的请求随机选择实例。
+ * 键到实例的映射由 {@link MaglevTable} 在实例列表变化时预先算好，查找代价为 O(1)，
+ * 实例加入或离开时只有少量键会换实例。
+ * <p>
+ * 开启{@link ConsistentHashProperties#isBoundedLoad() 有界负载}后，单个实例的在途请求数上限为
+ * 平均值乘以负载系数，键对应的实例达到上限时顺延到查找表中的下一个实例，避免热点键压垮单个实例。
+ *
+ * @author wangguangwu
+ */
+public class ConsistentHashLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private static final Log log = LogFactory.getLog(ConsistentHashLoadBalancer.class);
+
+    /**
+     * 路径模板中表示请求键的变量名
+     */
+    private static final String KEY_VARIABLE = "key";
+
+    /**
+     * 服务 Id，用于标识当前的服务实例
+     */
+    private final String serviceId;
+
+    /**
+     * 提供服务实例列表的供应者
+     */
+    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+
+    private final ConsistentHashProperties properties;
+
+    /**
+     * 本服务的在途请求计数
+     */
+    private final InFlightRequestCounter.ServiceCounters inFlightCounters;
+
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+
+    /**
+     * 当前实例列表对应的查找表
+     */
+    private volatile MaglevTable table;
+
+    /**
+     * 构造函数，初始化负载均衡器。
+     *
+     * @param serviceInstanceListSupplierProvider 服务实例列表的供应者
+     * @param serviceId                           服务标识符
+     * @param properties                          一致性哈希配置项
+     * @param inFlightRequestCounter              在途请求计数
+     */
+    public ConsistentHashLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                                      String serviceId, ConsistentHashProperties properties,
+                                      InFlightRequestCounter inFlightRequestCounter) {
+        this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.serviceId = serviceId;
+        this.properties = properties;
+        this.inFlightCounters = inFlightRequestCounter.getServiceCounters(serviceId);
+    }
+
+    /**
+     * 按请求键选择一个服务实例。
+     *
+     * @param request 当前的负载均衡请求
+     * @return 包含选择的服务实例的响应
+     */
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider
+                .getIfAvailable(NoopServiceInstanceListSupplier::new);
+        String key = getRequestKey(request);
+        return supplier.get(request).next()
+                .map(serviceInstances -> processInstanceResponse(supplier, serviceInstances, key));
+    }
+
+    /**
+     * 处理服务实例列表，返回请求键对应的服务实例。
+     *
+     * @param supplier         服务实例列表供应者
+     * @param serviceInstances 服务实例列表
+     * @param key              请求键，可能为 null
+     * @return 包含选择的服务实例的响应
+     */
+    private Response<ServiceInstance> processInstanceResponse(ServiceInstanceListSupplier supplier,
+                                                              List<ServiceInstance> serviceInstances, String key) {
+        Response<ServiceInstance> serviceInstanceResponse = getInstanceResponse(serviceInstances, key);
+        if (supplier instanceof SelectedInstanceCallback && serviceInstanceResponse.hasServer()) {
+            ((SelectedInstanceCallback) supplier).selectedServiceInstance(serviceInstanceResponse.getServer());
+        }
+        return serviceInstanceResponse;
+    }
+
+    /**
+     * 从服务实例列表中选择请求键对应的实例。
+     *
+     * @param instances 服务实例列表
+     * @param key       请求键，为 null 时随机选择
+     * @return 包含选择的服务实例的响应
+     */
+    Response<ServiceInstance> getInstanceResponse(List<ServiceInstance> instances, String key) {
+        if (instances.isEmpty()) {
+            if (log.isWarnEnabled()) {
+                log.warn("No servers available for service: " + serviceId);
+            }
+            return new EmptyResponse();
+        }
+        MaglevTable current = getTable(instances);
+        if (key == null) {
+            return current.getResponse(ThreadLocalRandom.current().nextInt(current.instanceCount()));
+        }
+        int slot = current.slotOf(MaglevTable.hashKey(key));
+        if (!properties.isBoundedLoad()) {
+            return current.getResponse(current.indexAt(slot));
+        }
+        return current.getResponse(findBoundedIndex(current, slot));
+    }
+
+    /**
+     * 有界负载：从请求键的表项开始顺延，找到第一个在途请求数未达到上限的实例。
+     * <p>
+     * 上限不低于平均值，总有实例未达到上限，顺延通常只需几步。
+     * 在途请求总数和各实例的计数都直接读取计数器，不随实例数量增长。
+     */
+    private int findBoundedIndex(MaglevTable current, int slot) {
+        int count = current.instanceCount();
+        double capacity = Math.ceil((inFlightCounters.total() + 1) * properties.getLoadFactor() / count);
+        for (int step = 0; step < current.tableSize(); step++) {
+            int index = current.indexAt(slot + step);
+            if (current.inFlightAt(index) < capacity) {
+                return index;
+            }
+        }
+        return current.indexAt(slot);
+    }
+
+    /**
+     * 获取实例列表对应的查找表，列表对象变化时重建，并回收已下线实例的计数器。
+     * <p>
+     * 并发重建时以最后写入的表为准，各个表对同一列表的结果相同。
+     */
+    private MaglevTable getTable(List<ServiceInstance> instances) {
+        MaglevTable current = table;
+        if (current != null && current.isBuiltFrom(instances)) {
+            return current;
+        }
+        MaglevTable rebuilt = MaglevTable.build(instances, properties.getTableSize(), inFlightCounters);
+        table = rebuilt;
+        inFlightCounters.retain(rebuilt.getInstanceKeys());
+        return rebuilt;
+    }
+
+    /**
+     * 从负载均衡请求中提取请求键。
+     *
+     * @param request 负载均衡请求
+     * @return 请求键，没有时返回 null
+     */
+    private String getRequestKey(Request request) {
+        if (!(request.getContext() instanceof RequestDataContext)) {
+            return null;
+        }
+        RequestData clientRequest = ((RequestDataContext) request.getContext()).getClientRequest();
+        if (clientRequest == null) {
+            return null;
+        }
+        if (clientRequest.getHeaders() != null) {
+            String key = clientRequest.getHeaders().getFirst(properties.getHeader());
+            if (key != null) {
+                return key;
+            }
+        }
+        String pathPattern = properties.getPathPattern();
+        if (pathPattern != null && clientRequest.getUrl() != null) {
+            String path = clientRequest.getUrl().getPath();
+            if (path != null && pathMatcher.match(pathPattern, path)) {
+                return pathMatcher.extractUriTemplateVariables(pathPattern, path).get(KEY_VARIABLE);
+            }
+        }
+        return null;
+    }
+}
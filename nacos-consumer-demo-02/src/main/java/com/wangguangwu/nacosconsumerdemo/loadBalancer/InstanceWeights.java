@@ -0,0 +1,99 @@
+package com.wangguangwu.nacosconsumerdemo.loadBalancer;
+
+import com.wangguangwu.nacosconsumerdemo.constant.NacosMetadataConstants;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.List;
+
+/**
+ * 实例列表的地址与 Nacos 权重快照。
+ * <p>
+ * 加权负载均衡器在实例列表变化时重建选择结构；缓存刷新时实例列表会换成新对象，
+ * 内容不变时可以通过 {@link #matches} 判断出来并复用已有结构，避免无谓地重建。
+ *
+ * @author wangguangwu
+ */
+final class InstanceWeights {
+
+    /**
+     * Nacos 允许的最大权重
+     */
+    private static final double MAX_WEIGHT = 10000.0D;
+
+    /**
+     * 各实例的 host:port
+     */
+    private final String[] keys;
+
+    private final double[] weights;
+
+    private InstanceWeights(String[] keys, double[] weights) {
+        this.keys = keys;
+        this.weights = weights;
+    }
+
+    /**
+     * 读取实例列表的地址与权重。
+     *
+     * @param instances 服务实例列表
+     * @return 快照
+     */
+    static InstanceWeights of(List<ServiceInstance> instances) {
+        int size = instances.size();
+        String[] keys = new String[size];
+        double[] weights = new double[size];
+        for (int i = 0; i < size; i++) {
+            ServiceInstance instance = instances.get(i);
+            keys[i] = instance.getHost() + ":" + instance.getPort();
+            weights[i] = getWeight(instance);
+        }
+        return new InstanceWeights(keys, weights);
+    }
+
+    /**
+     * 判断指定列表是否逐一具有相同的实例地址与权重。
+     *
+     * @param instances 服务实例列表
+     * @return 地址与权重都相同时返回 true
+     */
+    boolean matches(List<ServiceInstance> instances) {
+        if (instances.size() != keys.length) {
+            return false;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            ServiceInstance instance = instances.get(i);
+            if (Double.compare(getWeight(instance), weights[i]) != 0
+                    || !keys[i].equals(instance.getHost() + ":" + instance.getPort())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int size() {
+        return weights.length;
+    }
+
+    double get(int index) {
+        return weights[index];
+    }
+
+    /**
+     * 读取实例的 Nacos 权重，缺失或无法解析时按 1.0 处理，负数按 0 处理，超过 Nacos 上限时按上限处理。
+     *
+     * @param instance 服务实例
+     * @return 实例权重
+     */
+    static double getWeight(ServiceInstance instance) {
+        String weight = instance.getMetadata() == null ? null : instance.getMetadata().get(NacosMetadataConstants.WEIGHT);
+        if (weight == null) {
+            return 1.0D;
+        }
+        try {
+            double value = Double.parseDouble(weight);
+            return Double.isNaN(value) ? 1.0D : Math.min(MAX_WEIGHT, Math.max(0.0D, value));
+        } catch (NumberFormatException e) {
+            return 1.0D;
+        }
+    }
+}
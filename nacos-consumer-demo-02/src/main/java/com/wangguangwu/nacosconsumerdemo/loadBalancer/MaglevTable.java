@@ -0,0 +1,207 @@
+package com.wangguangwu.nacosconsumerdemo.loadBalancer;
+
+import com.wangguangwu.nacosconsumerdemo.manager.InFlightRequestCounter;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Response;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Maglev 一致性哈希查找表，由 {@link ConsistentHashLoadBalancer} 在实例列表变化时重建。
+ * <p>
+ * 每个实例按自身地址算出一个偏移量和步长，依次在大小为质数 M 的表中认领自己排列里下一个空位，
+ * 直到填满。查找时对请求键取哈希、对 M 取模即可得到实例，代价为 O(1)。
+ * 表项在实例之间近乎均分；实例加入或离开时，大部分表项的归属保持不变，只有少量请求键会换实例。
+ * 实例按 host:port 排序后构建，同一组实例无论列表顺序如何都得到相同的表。
+ * <p>
+ * 表大小必须是质数：步长与表大小互质，每个实例的排列才能遍历全部表项，否则认领空位时可能在同一组表项上无限循环。
+ *
+ * @author wangguangwu
+ */
+final class MaglevTable {
+
+    /**
+     * 构建时使用的实例列表，列表对象不变时直接复用本表
+     */
+    private final List<ServiceInstance> source;
+
+    /**
+     * 表项对应的实例序号
+     */
+    private final int[] entries;
+
+    /**
+     * 按序号排列的实例地址与响应对象
+     */
+    private final String[] instanceKeys;
+
+    private final Response<ServiceInstance>[] responses;
+
+    /**
+     * 按序号排列的实例在途请求计数器
+     */
+    private final AtomicInteger[] inFlight;
+
+    private MaglevTable(List<ServiceInstance> source, int[] entries, String[] instanceKeys,
+                        Response<ServiceInstance>[] responses, AtomicInteger[] inFlight) {
+        this.source = source;
+        this.entries = entries;
+        this.instanceKeys = instanceKeys;
+        this.responses = responses;
+        this.inFlight = inFlight;
+    }
+
+    /**
+     * 为实例列表构建查找表。
+     *
+     * @param source    非空的服务实例列表
+     * @param tableSize 表大小，必须是质数
+     * @param counters  服务的在途请求计数
+     * @return 新的查找表
+     */
+    @SuppressWarnings("unchecked")
+    static MaglevTable build(List<ServiceInstance> source, int tableSize, InFlightRequestCounter.ServiceCounters counters) {
+        if (!isPrime(tableSize)) {
+            throw new IllegalArgumentException("Maglev table size must be a prime number, got " + tableSize);
+        }
+        ServiceInstance[] instances = source.stream()
+                .sorted(Comparator.comparing(InFlightRequestCounter::getInstanceKey))
+                .toArray(ServiceInstance[]::new);
+        int size = instances.length;
+        String[] instanceKeys = new String[size];
+        long[] offset = new long[size];
+        long[] skip = new long[size];
+        for (int i = 0; i < size; i++) {
+            instanceKeys[i] = InFlightRequestCounter.getInstanceKey(instances[i]);
+            byte[] key = instanceKeys[i].getBytes(StandardCharsets.UTF_8);
+            offset[i] = Long.remainderUnsigned(hash(key, 0x9E3779B97F4A7C15L), tableSize);
+            skip[i] = Long.remainderUnsigned(hash(key, 0xC2B2AE3D27D4EB4FL), tableSize - 1) + 1;
+        }
+
+        int[] entries = new int[tableSize];
+        Arrays.fill(entries, -1);
+        long[] next = new long[size];
+        int filled = 0;
+        while (filled < tableSize) {
+            for (int i = 0; i < size && filled < tableSize; i++) {
+                int slot = (int) ((offset[i] + next[i] * skip[i]) % tableSize);
+                while (entries[slot] >= 0) {
+                    next[i]++;
+                    slot = (int) ((offset[i] + next[i] * skip[i]) % tableSize);
+                }
+                entries[slot] = i;
+                next[i]++;
+                filled++;
+            }
+        }
+
+        Response<ServiceInstance>[] responses = new Response[size];
+        AtomicInteger[] inFlight = new AtomicInteger[size];
+        for (int i = 0; i < size; i++) {
+            responses[i] = new DefaultResponse(instances[i]);
+            inFlight[i] = counters.counterOf(instanceKeys[i]);
+        }
+        return new MaglevTable(source, entries, instanceKeys, responses, inFlight);
+    }
+
+    /**
+     * 判断表大小是否可用：不小于 2 的质数。
+     *
+     * @param tableSize 表大小
+     * @return 可用时返回 true
+     */
+    static boolean isPrime(int tableSize) {
+        if (tableSize < 2) {
+            return false;
+        }
+        for (int divisor = 2; (long) divisor * divisor <= tableSize; divisor++) {
+            if (tableSize % divisor == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean isBuiltFrom(List<ServiceInstance> instances) {
+        return source == instances;
+    }
+
+    /**
+     * 查找请求键哈希值对应的表项位置。
+     *
+     * @param keyHash 请求键的哈希值
+     * @return 表项位置
+     */
+    int slotOf(long keyHash) {
+        return (int) Long.remainderUnsigned(keyHash, entries.length);
+    }
+
+    /**
+     * 获取指定表项位置上的实例序号，位置超出表大小时回绕。
+     *
+     * @param slot 表项位置
+     * @return 实例序号
+     */
+    int indexAt(int slot) {
+        return entries[slot % entries.length];
+    }
+
+    /**
+     * 获取实例的在途请求数。
+     *
+     * @param index 实例序号
+     * @return 在途请求数
+     */
+    int inFlightAt(int index) {
+        return inFlight[index].get();
+    }
+
+    Set<String> getInstanceKeys() {
+        return Set.of(instanceKeys);
+    }
+
+    Response<ServiceInstance> getResponse(int index) {
+        return responses[index];
+    }
+
+    int instanceCount() {
+        return instanceKeys.length;
+    }
+
+    int tableSize() {
+        return entries.length;
+    }
+
+    /**
+     * 对请求键取 64 位哈希。
+     *
+     * @param key 请求键
+     * @return 哈希值
+     */
+    static long hashKey(String key) {
+        return hash(key.getBytes(StandardCharsets.UTF_8), 0L);
+    }
+
+    /**
+     * 带种子的 FNV-1a 哈希，再经 MurmurHash3 的末尾混合使各位充分扩散。
+     */
+    private static long hash(byte[] bytes, long seed) {
+        long h = 0xCBF29CE484222325L ^ seed;
+        for (byte b : bytes) {
+            h ^= b & 0xFF;
+            h *= 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
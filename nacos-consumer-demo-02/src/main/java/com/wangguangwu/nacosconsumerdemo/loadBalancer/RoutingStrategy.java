@@ -0,0 +1,34 @@
+package com.wangguangwu.nacosconsumerdemo.loadBalancer;
+
+/**
+ * 可在运行时切换的负载均衡策略，见 {@link SwitchableLoadBalancer}。
+ *
+ * @author wangguangwu
+ */
+public enum RoutingStrategy {
+
+    /**
+     * Spring Cloud LoadBalancer 默认的轮询
+     */
+    ROUND_ROBIN,
+
+    /**
+     * 随机
+     */
+    RANDOM,
+
+    /**
+     * 平滑加权轮询，见 {@link SmoothWeightedRoundRobinLoadBalancer}
+     */
+    WEIGHTED_ROUND_ROBIN,
+
+    /**
+     * 加权随机，见 {@link WeightedRandomLoadBalancer}
+     */
+    WEIGHTED_RANDOM,
+
+    /**
+     * 一致性哈希，见 {@link ConsistentHashLoadBalancer}
+     */
+    CONSISTENT_HASH
+}
@@ -0,0 +1,132 @@
+package com.wangguangwu.nacosconsumerdemo.loadBalancer;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 自定义负载均衡策略实现，按 Nacos 实例权重（元数据 {@code nacos.weight}）进行平滑加权轮询。
+ * <p>
+ * 与 nginx 的平滑加权轮询一致：权重 5:1:1 的三个实例按 {@code a a b a c a a} 交错选择，
+ * 而不是连续五次选中同一个实例。权重为 0 的实例不会被选中；所有实例权重都为 0 时退化为普通轮询。
+ * <p>
+ * 一个完整周期的选择顺序由 {@link WeightedRoundRobinSchedule} 在实例列表或权重变化时预先排好，
+ * 选择时只做一次原子自增和数组读取，不加锁、不分配对象；实例过多、无法预排周期时改为加锁在线选择。
+ *
+ * @author wangguangwu
+ */
+public class SmoothWeightedRoundRobinLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private static final Log log = LogFactory.getLog(SmoothWeightedRoundRobinLoadBalancer.class);
+
+    /**
+     * 服务 Id，用于标识当前的服务实例
+     */
+    private final String serviceId;
+
+    /**
+     * 提供服务实例列表的供应者
+     */
+    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+
+    /**
+     * 全局选择序号，初始值随机，避免多个消费者同时从同一个实例开始
+     */
+    private final AtomicInteger position = new AtomicInteger(ThreadLocalRandom.current().nextInt(1000));
+
+    /**
+     * 当前实例列表对应的选择周期
+     */
+    private volatile WeightedRoundRobinSchedule schedule;
+
+    /**
+     * 构造函数，初始化负载均衡器。
+     *
+     * @param serviceInstanceListSupplierProvider 服务实例列表的供应者
+     * @param serviceId                           服务标识符
+     */
+    public SmoothWeightedRoundRobinLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                                                String serviceId) {
+        this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.serviceId = serviceId;
+    }
+
+    /**
+     * 按权重平滑地轮询选择一个服务实例。
+     *
+     * @param request 当前的负载均衡请求
+     * @return 包含选择的服务实例的响应
+     */
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider
+                .getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next()
+                .map(serviceInstances -> processInstanceResponse(supplier, serviceInstances));
+    }
+
+    /**
+     * 处理服务实例列表，返回本次轮到的服务实例。
+     *
+     * @param supplier         服务实例列表供应者
+     * @param serviceInstances 服务实例列表
+     * @return 包含选择的服务实例的响应
+     */
+    private Response<ServiceInstance> processInstanceResponse(ServiceInstanceListSupplier supplier,
+                                                              List<ServiceInstance> serviceInstances) {
+        Response<ServiceInstance> serviceInstanceResponse = getInstanceResponse(serviceInstances);
+        if (supplier instanceof SelectedInstanceCallback && serviceInstanceResponse.hasServer()) {
+            ((SelectedInstanceCallback) supplier).selectedServiceInstance(serviceInstanceResponse.getServer());
+        }
+        return serviceInstanceResponse;
+    }
+
+    /**
+     * 从服务实例列表中取出本次轮到的实例。
+     *
+     * @param instances 服务实例列表
+     * @return 包含选择的服务实例的响应
+     */
+    Response<ServiceInstance> getInstanceResponse(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            if (log.isWarnEnabled()) {
+                log.warn("No servers available for service: " + serviceId);
+            }
+            return new EmptyResponse();
+        }
+        return getSchedule(instances).get(position.getAndIncrement() & Integer.MAX_VALUE);
+    }
+
+    /**
+     * 获取实例列表对应的选择周期，列表对象或权重变化时重建。
+     * <p>
+     * 并发重建时以最后写入的周期为准，各个周期对同一列表的结果相同。
+     *
+     * @param instances 服务实例列表
+     * @return 选择周期
+     */
+    private WeightedRoundRobinSchedule getSchedule(List<ServiceInstance> instances) {
+        WeightedRoundRobinSchedule current = schedule;
+        if (current != null && current.isBuiltFrom(instances)) {
+            return current;
+        }
+        WeightedRoundRobinSchedule rebuilt = current != null && current.hasSameWeights(instances)
+                ? current.withSource(instances)
+                : WeightedRoundRobinSchedule.build(instances);
+        schedule = rebuilt;
+        return rebuilt;
+    }
+}
@@ -0,0 +1,54 @@
+package com.wangguangwu.nacosconsumerdemo.loadBalancer;
+
+import com.wangguangwu.nacosconsumerdemo.manager.InFlightRequestCounter;
+import com.wangguangwu.nacosconsumerdemo.manager.RoutingStrategyManager;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import reactor.core.publisher.Mono;
+
+/**
+ * 可在运行时切换策略的负载均衡器，把选择实例委托给当前策略对应的负载均衡器，
+ * 由 {@link RoutingStrategyManager} 在配置变更时整体替换。
+ * <p>
+ * 在途请求数保存在 {@link InFlightRequestCounter} 中，由负载均衡生命周期统计，与当前策略无关，不随策略切换丢失。
+ *
+ * @author wangguangwu
+ */
+public class SwitchableLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private final String serviceId;
+
+    /**
+     * 当前策略对应的负载均衡器
+     */
+    private volatile ReactorServiceInstanceLoadBalancer delegate;
+
+    public SwitchableLoadBalancer(String serviceId, ReactorServiceInstanceLoadBalancer delegate) {
+        this.serviceId = serviceId;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        return delegate.choose(request);
+    }
+
+    /**
+     * 切换到新的负载均衡器，之后的选择都由它完成。
+     *
+     * @param delegate 新策略对应的负载均衡器
+     */
+    public void switchTo(ReactorServiceInstanceLoadBalancer delegate) {
+        this.delegate = delegate;
+    }
+
+    public ReactorServiceInstanceLoadBalancer getDelegate() {
+        return delegate;
+    }
+
+    public String getServiceId() {
+        return serviceId;
+    }
+}
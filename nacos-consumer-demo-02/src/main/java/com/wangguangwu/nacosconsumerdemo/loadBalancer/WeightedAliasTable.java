@@ -0,0 +1,154 @@
+package com.wangguangwu.nacosconsumerdemo.loadBalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Response;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 加权随机选择的别名表（Walker / Vose alias method），由 {@link WeightedRandomLoadBalancer}
+ * 在实例列表或权重变化时重建。
+ * <p>
+ * 构建代价为 O(N)；每次选择先均匀地抽一个槽位，再按该槽位的概率决定取槽位本身还是它的别名，
+ * 代价为 O(1)，与实例数量无关。表构建完成后不再修改，可以被任意多个线程同时读取。
+ *
+ * @author wangguangwu
+ */
+final class WeightedAliasTable {
+
+    /**
+     * 构建时使用的实例列表，列表对象不变时直接复用本表
+     */
+    private final List<ServiceInstance> source;
+
+    private final InstanceWeights weights;
+
+    /**
+     * 各槽位取自身的概率
+     */
+    private final double[] probability;
+
+    /**
+     * 各槽位的别名
+     */
+    private final int[] alias;
+
+    /**
+     * 各实例的响应对象
+     */
+    private final Response<ServiceInstance>[] responses;
+
+    private WeightedAliasTable(List<ServiceInstance> source, InstanceWeights weights, double[] probability,
+                               int[] alias, Response<ServiceInstance>[] responses) {
+        this.source = source;
+        this.weights = weights;
+        this.probability = probability;
+        this.alias = alias;
+        this.responses = responses;
+    }
+
+    /**
+     * 按 Vose 算法为实例列表构建别名表。所有实例权重都为 0 时退化为均匀随机。
+     *
+     * @param instances 非空的服务实例列表
+     * @return 新的别名表
+     */
+    @SuppressWarnings("unchecked")
+    static WeightedAliasTable build(List<ServiceInstance> instances) {
+        InstanceWeights weights = InstanceWeights.of(instances);
+        int size = weights.size();
+        double total = 0.0D;
+        for (int i = 0; i < size; i++) {
+            total += weights.get(i);
+        }
+
+        // 把权重缩放为均值 1，小于 1 的槽位需要别名补足
+        double[] scaled = new double[size];
+        int[] small = new int[size];
+        int[] large = new int[size];
+        int smallSize = 0;
+        int largeSize = 0;
+        for (int i = 0; i < size; i++) {
+            scaled[i] = total > 0.0D ? weights.get(i) * size / total : 1.0D;
+            if (scaled[i] < 1.0D) {
+                small[smallSize++] = i;
+            } else {
+                large[largeSize++] = i;
+            }
+        }
+        double[] probability = new double[size];
+        int[] alias = new int[size];
+        while (smallSize > 0 && largeSize > 0) {
+            int less = small[--smallSize];
+            int more = large[--largeSize];
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1.0D;
+            if (scaled[more] < 1.0D) {
+                small[smallSize++] = more;
+            } else {
+                large[largeSize++] = more;
+            }
+        }
+        // 剩余槽位的概率理论上为 1，浮点误差导致的残留也按 1 处理
+        while (largeSize > 0) {
+            int index = large[--largeSize];
+            probability[index] = 1.0D;
+            alias[index] = index;
+        }
+        while (smallSize > 0) {
+            int index = small[--smallSize];
+            probability[index] = 1.0D;
+            alias[index] = index;
+        }
+
+        Response<ServiceInstance>[] responses = new Response[size];
+        for (int i = 0; i < size; i++) {
+            responses[i] = new DefaultResponse(instances.get(i));
+        }
+        return new WeightedAliasTable(instances, weights, probability, alias, responses);
+    }
+
+    /**
+     * 判断本表是否由指定的列表对象构建。
+     *
+     * @param instances 服务实例列表
+     * @return 列表对象相同时返回 true
+     */
+    boolean isBuiltFrom(List<ServiceInstance> instances) {
+        return source == instances;
+    }
+
+    /**
+     * 判断指定列表与构建本表的列表是否逐一具有相同的实例地址与权重。
+     *
+     * @param instances 服务实例列表
+     * @return 地址与权重都相同时返回 true
+     */
+    boolean hasSameWeights(List<ServiceInstance> instances) {
+        return weights.matches(instances);
+    }
+
+    /**
+     * 以新的列表对象复用本表。
+     *
+     * @param instances 新的服务实例列表
+     * @return 复用本表的新对象
+     */
+    WeightedAliasTable withSource(List<ServiceInstance> instances) {
+        return new WeightedAliasTable(instances, weights, probability, alias, responses);
+    }
+
+    /**
+     * 按权重随机选择一个实例。
+     *
+     * @return 选中的实例
+     */
+    Response<ServiceInstance> next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int index = random.nextInt(probability.length);
+        return random.nextDouble() < probability[index] ? responses[index] : responses[alias[index]];
+    }
+}
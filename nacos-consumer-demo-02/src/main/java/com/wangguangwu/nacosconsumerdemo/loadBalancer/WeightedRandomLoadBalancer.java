@@ -0,0 +1,124 @@
+package com.wangguangwu.nacosconsumerdemo.loadBalancer;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 自定义负载均衡策略实现，按 Nacos 实例权重（元数据 {@code nacos.weight}）进行加权随机选择。
+ * <p>
+ * 逐个累加权重的朴素做法每次选择都要 O(N)；这里在实例列表或权重变化时构建一次 {@link WeightedAliasTable 别名表}，
+ * 之后每次选择只需从 {@link ThreadLocalRandom} 取两个随机数，代价为 O(1)，适合单个服务有上千个实例的场景。
+ * 别名表构建完成后整体替换，选择线程不会被阻塞。权重为 0 的实例不会被选中；所有实例权重都为 0 时退化为均匀随机。
+ *
+ * @author wangguangwu
+ */
+public class WeightedRandomLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private static final Log log = LogFactory.getLog(WeightedRandomLoadBalancer.class);
+
+    /**
+     * 服务 Id，用于标识当前的服务实例
+     */
+    private final String serviceId;
+
+    /**
+     * 提供服务实例列表的供应者
+     */
+    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+
+    /**
+     * 当前实例列表对应的别名表
+     */
+    private volatile WeightedAliasTable aliasTable;
+
+    /**
+     * 构造函数，初始化负载均衡器。
+     *
+     * @param serviceInstanceListSupplierProvider 服务实例列表的供应者
+     * @param serviceId                           服务标识符
+     */
+    public WeightedRandomLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                                      String serviceId) {
+        this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.serviceId = serviceId;
+    }
+
+    /**
+     * 按权重随机选择一个服务实例。
+     *
+     * @param request 当前的负载均衡请求
+     * @return 包含选择的服务实例的响应
+     */
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider
+                .getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next()
+                .map(serviceInstances -> processInstanceResponse(supplier, serviceInstances));
+    }
+
+    /**
+     * 处理服务实例列表，返回按权重随机选中的服务实例。
+     *
+     * @param supplier         服务实例列表供应者
+     * @param serviceInstances 服务实例列表
+     * @return 包含选择的服务实例的响应
+     */
+    private Response<ServiceInstance> processInstanceResponse(ServiceInstanceListSupplier supplier,
+                                                              List<ServiceInstance> serviceInstances) {
+        Response<ServiceInstance> serviceInstanceResponse = getInstanceResponse(serviceInstances);
+        if (supplier instanceof SelectedInstanceCallback && serviceInstanceResponse.hasServer()) {
+            ((SelectedInstanceCallback) supplier).selectedServiceInstance(serviceInstanceResponse.getServer());
+        }
+        return serviceInstanceResponse;
+    }
+
+    /**
+     * 从服务实例列表中按权重随机选择一个实例。
+     *
+     * @param instances 服务实例列表
+     * @return 包含选择的服务实例的响应
+     */
+    Response<ServiceInstance> getInstanceResponse(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            if (log.isWarnEnabled()) {
+                log.warn("No servers available for service: " + serviceId);
+            }
+            return new EmptyResponse();
+        }
+        return getAliasTable(instances).next();
+    }
+
+    /**
+     * 获取实例列表对应的别名表，列表对象或权重变化时重建。
+     * <p>
+     * 并发重建时以最后写入的表为准，各个表对同一列表的结果相同。
+     *
+     * @param instances 服务实例列表
+     * @return 别名表
+     */
+    private WeightedAliasTable getAliasTable(List<ServiceInstance> instances) {
+        WeightedAliasTable current = aliasTable;
+        if (current != null && current.isBuiltFrom(instances)) {
+            return current;
+        }
+        WeightedAliasTable rebuilt = current != null && current.hasSameWeights(instances)
+                ? current.withSource(instances)
+                : WeightedAliasTable.build(instances);
+        aliasTable = rebuilt;
+        return rebuilt;
+    }
+}
@@ -0,0 +1,215 @@
+package com.wangguangwu.nacosconsumerdemo.loadBalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Response;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 平滑加权轮询的一个完整周期，由 {@link SmoothWeightedRoundRobinLoadBalancer} 在实例列表或权重变化时重建。
+ * <p>
+ * 构建时按 nginx 的平滑加权轮询算法（每轮所有实例的当前值加上各自权重，选出当前值最大的实例并减去总权重）
+ * 预先排出一个周期内的选择顺序，选择时只需按序号取出，不再修改任何共享状态。
+ * 权重按千分之一精度取整并约去最大公约数，大于 0 的权重至少取 1；周期过长时按比例压缩，权重大于 0 的实例至少保留一次。
+ * <p>
+ * 实例过多时（压缩后的周期仍超过 {@link #MAX_CYCLE_LENGTH}，或预排的计算量超过 {@link #MAX_BUILD_STEPS}），
+ * 不再预排周期，改为在选择时在线执行同一算法，每次选择加锁并遍历一次实例列表。
+ *
+ * @author wangguangwu
+ */
+final class WeightedRoundRobinSchedule {
+
+    /**
+     * 一个周期的最大长度
+     */
+    static final int MAX_CYCLE_LENGTH = 4096;
+
+    /**
+     * 预排周期的最大计算量（周期长度 × 实例数）
+     */
+    static final long MAX_BUILD_STEPS = 1L << 22;
+
+    /**
+     * 权重取整的精度
+     */
+    private static final int WEIGHT_SCALE = 1000;
+
+    /**
+     * 构建时使用的实例列表，列表对象不变时直接复用本周期
+     */
+    private final List<ServiceInstance> source;
+
+    private final InstanceWeights weights;
+
+    /**
+     * 按序号排列的选择结果，同一实例共用一个响应对象；在线选择时为 null
+     */
+    private final Response<ServiceInstance>[] cycle;
+
+    /**
+     * 在线选择的状态，预排周期时为 null
+     */
+    private final OnlineSelector online;
+
+    private WeightedRoundRobinSchedule(List<ServiceInstance> source, InstanceWeights weights,
+                                       Response<ServiceInstance>[] cycle, OnlineSelector online) {
+        this.source = source;
+        this.weights = weights;
+        this.cycle = cycle;
+        this.online = online;
+    }
+
+    /**
+     * 为实例列表构建平滑加权轮询周期。
+     *
+     * @param instances 非空的服务实例列表
+     * @return 新的周期
+     */
+    @SuppressWarnings("unchecked")
+    static WeightedRoundRobinSchedule build(List<ServiceInstance> instances) {
+        InstanceWeights weights = InstanceWeights.of(instances);
+        int size = weights.size();
+        long[] scaled = new long[size];
+        long gcd = 0L;
+        for (int i = 0; i < size; i++) {
+            double weight = weights.get(i);
+            // 小于取整精度的正权重仍保留最小的份额，不会因取整为 0 而被摘除
+            scaled[i] = weight > 0.0 ? Math.max(1L, Math.round(weight * WEIGHT_SCALE)) : 0L;
+            gcd = gcd(gcd, scaled[i]);
+        }
+        if (gcd == 0L) {
+            // 所有实例权重都为 0 时退化为普通轮询
+            Arrays.fill(scaled, 1L);
+            gcd = 1L;
+        }
+        long total = 0L;
+        for (int i = 0; i < size; i++) {
+            scaled[i] /= gcd;
+            total += scaled[i];
+        }
+        Response<ServiceInstance>[] responses = new Response[size];
+        for (int i = 0; i < size; i++) {
+            responses[i] = new DefaultResponse(instances.get(i));
+        }
+
+        long[] compressed = scaled;
+        long cycleLength = total;
+        if (total > MAX_CYCLE_LENGTH) {
+            compressed = new long[size];
+            cycleLength = 0L;
+            for (int i = 0; i < size; i++) {
+                if (scaled[i] > 0L) {
+                    compressed[i] = Math.max(1L, scaled[i] * MAX_CYCLE_LENGTH / total);
+                }
+                cycleLength += compressed[i];
+            }
+        }
+        if (cycleLength > MAX_CYCLE_LENGTH || cycleLength * size > MAX_BUILD_STEPS) {
+            return new WeightedRoundRobinSchedule(instances, weights, null, new OnlineSelector(scaled, total, responses));
+        }
+
+        OnlineSelector selector = new OnlineSelector(compressed, cycleLength, responses);
+        Response<ServiceInstance>[] cycle = new Response[(int) cycleLength];
+        for (int position = 0; position < cycle.length; position++) {
+            cycle[position] = selector.next();
+        }
+        return new WeightedRoundRobinSchedule(instances, weights, cycle, null);
+    }
+
+    /**
+     * 判断本周期是否由指定的列表对象构建。
+     *
+     * @param instances 服务实例列表
+     * @return 列表对象相同时返回 true
+     */
+    boolean isBuiltFrom(List<ServiceInstance> instances) {
+        return source == instances;
+    }
+
+    /**
+     * 判断指定列表与构建本周期的列表是否逐一具有相同的实例地址与权重。
+     *
+     * @param instances 服务实例列表
+     * @return 地址与权重都相同时返回 true
+     */
+    boolean hasSameWeights(List<ServiceInstance> instances) {
+        return weights.matches(instances);
+    }
+
+    /**
+     * 以新的列表对象复用本周期。
+     * <p>
+     * 周期中的响应仍然指向旧列表中的实例对象，它们与新列表中的实例地址和权重一致。
+     *
+     * @param instances 新的服务实例列表
+     * @return 复用本周期的新对象
+     */
+    WeightedRoundRobinSchedule withSource(List<ServiceInstance> instances) {
+        return new WeightedRoundRobinSchedule(instances, weights, cycle, online);
+    }
+
+    /**
+     * 按序号取出本周期中的选择结果，在线选择时忽略序号、按调用顺序选择。
+     *
+     * @param sequence 非负的全局序号
+     * @return 选中的实例
+     */
+    Response<ServiceInstance> get(int sequence) {
+        return cycle != null ? cycle[sequence % cycle.length] : online.next();
+    }
+
+    /**
+     * 预排的周期长度，在线选择时为 0。
+     *
+     * @return 周期长度
+     */
+    int length() {
+        return cycle != null ? cycle.length : 0;
+    }
+
+    /**
+     * 平滑加权轮询的一步：所有实例的当前值加上各自权重，选出当前值最大的实例并减去总权重。
+     * <p>
+     * 预排周期时由构建线程独占使用；在线选择时由多个线程共享，因此加锁。
+     */
+    private static final class OnlineSelector {
+
+        private final long[] weights;
+
+        private final long total;
+
+        private final long[] current;
+
+        private final Response<ServiceInstance>[] responses;
+
+        OnlineSelector(long[] weights, long total, Response<ServiceInstance>[] responses) {
+            this.weights = weights;
+            this.total = total;
+            this.current = new long[weights.length];
+            this.responses = responses;
+        }
+
+        synchronized Response<ServiceInstance> next() {
+            int best = -1;
+            for (int i = 0; i < weights.length; i++) {
+                current[i] += weights[i];
+                if (weights[i] > 0L && (best < 0 || current[i] > current[best])) {
+                    best = i;
+                }
+            }
+            current[best] -= total;
+            return responses[best];
+        }
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0L) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
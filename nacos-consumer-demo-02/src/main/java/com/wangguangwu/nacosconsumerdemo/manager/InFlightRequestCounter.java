@@ -0,0 +1,133 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按服务实例统计在途请求数，供有界负载的一致性哈希使用。
+ * <p>
+ * 每个服务对应一组 {@link ServiceCounters}：实例的计数器在实例在线期间保持不变，
+ * 查找表可以直接持有计数器，选择实例时无需再按地址查找；服务的在途请求总数单独维护，读取代价为 O(1)。
+ *
+ * @author wangguangwu
+ */
+@Component
+public class InFlightRequestCounter {
+
+    /**
+     * 以服务名为键的计数器
+     */
+    private final Map<String, ServiceCounters> services = new ConcurrentHashMap<>();
+
+    /**
+     * 获取服务的计数器。
+     *
+     * @param serviceId 服务名
+     * @return 服务的计数器
+     */
+    public ServiceCounters getServiceCounters(String serviceId) {
+        return services.computeIfAbsent(String.valueOf(serviceId), key -> new ServiceCounters());
+    }
+
+    public void increment(ServiceInstance instance) {
+        getServiceCounters(instance.getServiceId()).increment(getInstanceKey(instance));
+    }
+
+    public void decrement(ServiceInstance instance) {
+        getServiceCounters(instance.getServiceId()).decrement(getInstanceKey(instance));
+    }
+
+    public static String getInstanceKey(ServiceInstance instance) {
+        return instance.getHost() + ":" + instance.getPort();
+    }
+
+    /**
+     * 单个服务的在途请求计数。
+     * <p>
+     * 计数的增减都在 {@link ConcurrentHashMap#compute} 中完成，与 {@link #retain 回收}互斥，
+     * 不会出现计数落在已被移除的计数器上的情况。计数器不会在归零时移除，只有实例下线且没有在途请求时才回收。
+     */
+    public static final class ServiceCounters {
+
+        /**
+         * 以 host:port 为键的在途请求数
+         */
+        private final ConcurrentHashMap<String, AtomicInteger> counters = new ConcurrentHashMap<>();
+
+        /**
+         * 服务的在途请求总数
+         */
+        private final AtomicInteger total = new AtomicInteger();
+
+        /**
+         * 获取实例的计数器，不存在时创建。
+         *
+         * @param instanceKey 实例的 host:port
+         * @return 计数器
+         */
+        public AtomicInteger counterOf(String instanceKey) {
+            return counters.computeIfAbsent(instanceKey, key -> new AtomicInteger());
+        }
+
+        /**
+         * 获取实例的在途请求数。
+         *
+         * @param instanceKey 实例的 host:port
+         * @return 在途请求数
+         */
+        public int get(String instanceKey) {
+            AtomicInteger counter = counters.get(instanceKey);
+            return counter == null ? 0 : counter.get();
+        }
+
+        /**
+         * 获取服务的在途请求总数。
+         *
+         * @return 在途请求总数
+         */
+        public int total() {
+            return total.get();
+        }
+
+        void increment(String instanceKey) {
+            counters.compute(instanceKey, (key, counter) -> {
+                AtomicInteger current = counter == null ? new AtomicInteger() : counter;
+                current.incrementAndGet();
+                return current;
+            });
+            total.incrementAndGet();
+        }
+
+        void decrement(String instanceKey) {
+            boolean[] decremented = new boolean[1];
+            counters.computeIfPresent(instanceKey, (key, counter) -> {
+                if (counter.get() > 0) {
+                    counter.decrementAndGet();
+                    decremented[0] = true;
+                }
+                return counter;
+            });
+            if (decremented[0]) {
+                total.decrementAndGet();
+            }
+        }
+
+        /**
+         * 回收已下线且没有在途请求的实例的计数器，仍有在途请求的计数器保留到下次回收。
+         *
+         * @param liveInstanceKeys 在线实例的 host:port
+         */
+        public void retain(Set<String> liveInstanceKeys) {
+            for (String instanceKey : counters.keySet()) {
+                if (!liveInstanceKeys.contains(instanceKey)) {
+                    counters.computeIfPresent(instanceKey, (key, counter) -> counter.get() == 0 ? null : counter);
+                }
+            }
+        }
+    }
+}
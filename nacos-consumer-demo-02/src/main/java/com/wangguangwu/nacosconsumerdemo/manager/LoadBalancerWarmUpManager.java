@@ -0,0 +1,138 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import com.wangguangwu.nacosconsumerdemo.config.WarmUpProperties;
+import com.wangguangwu.nacosconsumerdemo.supplier.SnapshotServiceInstanceListSupplier;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClientSpecification;
+import org.springframework.cloud.loadbalancer.core.DelegatingServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.Resource;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 启动时预热负载均衡，避免每次发布后的首批请求承担子上下文创建、实例拉取和类加载的开销。
+ * <p>
+ * 对 &#64;LoadBalancerClient 声明的服务以及 {@link WarmUpProperties#getServices()} 中的服务依次执行：
+ * <ul>
+ *     <li>创建负载均衡子上下文；</li>
+ *     <li>通过子上下文的实例列表供应者拉取实例列表，填充缓存和本地快照；有本地快照时先向注册中心对账，
+ *     预热注册中心当前的实例而不是快照中可能已经过期的实例；</li>
+ *     <li>可选地多次执行实例选择，让选择路径尽早被 JIT 编译。</li>
+ * </ul>
+ * 预热在 {@link ApplicationRunner} 中执行，Spring Boot 在所有 Runner 结束后才把就绪状态切换为
+ * {@code ACCEPTING_TRAFFIC}。单个服务预热失败（例如 Nacos 暂不可用）只记录日志，不阻止应用启动。
+ *
+ * @author wangguangwu
+ */
+@Component
+public class LoadBalancerWarmUpManager implements ApplicationRunner {
+
+    private static final Log log = LogFactory.getLog(LoadBalancerWarmUpManager.class);
+
+    /**
+     * 默认配置（&#64;LoadBalancerClients 的 defaultConfiguration）的名称前缀
+     */
+    private static final String DEFAULT_CONFIGURATION_PREFIX = "default.";
+
+    @Resource
+    private WarmUpProperties warmUpProperties;
+
+    @Resource
+    private LoadBalancerClientFactory loadBalancerClientFactory;
+
+    @Resource
+    private List<LoadBalancerClientSpecification> loadBalancerClientSpecifications;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!warmUpProperties.isEnabled()) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        Set<String> serviceIds = new LinkedHashSet<>();
+        for (LoadBalancerClientSpecification specification : loadBalancerClientSpecifications) {
+            if (!specification.getName().startsWith(DEFAULT_CONFIGURATION_PREFIX)) {
+                serviceIds.add(specification.getName());
+            }
+        }
+        serviceIds.addAll(warmUpProperties.getServices());
+        for (String serviceId : serviceIds) {
+            try {
+                warmUp(serviceId);
+            } catch (RuntimeException e) {
+                log.warn("Failed to warm up load balancer of service " + serviceId, e);
+            }
+        }
+        log.info("Warmed up load balancers of " + serviceIds.size() + " services in "
+                + (System.nanoTime() - startNanos) / 1_000_000 + " ms");
+    }
+
+    /**
+     * 预热单个服务。
+     *
+     * @param serviceId 服务名
+     */
+    public void warmUp(String serviceId) {
+        // 获取负载均衡器的同时创建子上下文
+        ReactorServiceInstanceLoadBalancer loadBalancer = loadBalancerClientFactory.getInstance(serviceId, ReactorServiceInstanceLoadBalancer.class);
+        List<ServiceInstance> instances = fetchInstances(serviceId);
+        if (instances.isEmpty()) {
+            log.warn("No instances of service " + serviceId + " available for warm-up");
+            return;
+        }
+        if (loadBalancer != null) {
+            for (int i = 0; i < warmUpProperties.getChooseIterations(); i++) {
+                Mono.from(loadBalancer.choose(new DefaultRequest<>())).block(warmUpProperties.getTimeout());
+            }
+        }
+        if (log.isInfoEnabled()) {
+            log.info("Warmed up service " + serviceId + ": " + instances.size() + " instances, "
+                    + warmUpProperties.getChooseIterations() + " chooses");
+        }
+    }
+
+    private List<ServiceInstance> fetchInstances(String serviceId) {
+        ServiceInstanceListSupplier supplier = loadBalancerClientFactory.getInstance(serviceId, ServiceInstanceListSupplier.class);
+        if (supplier == null) {
+            return Collections.emptyList();
+        }
+        reconcileSnapshot(serviceId, supplier);
+        List<ServiceInstance> instances = supplier.get().next().block(warmUpProperties.getTimeout());
+        return instances == null ? Collections.emptyList() : instances;
+    }
+
+    /**
+     * 有本地快照时，供应者在对账前返回的是快照中的实例列表，先向注册中心查询一次，让预热作用于注册中心当前的实例。
+     * 查询失败时按快照中的实例列表预热。
+     *
+     * @param serviceId 服务名
+     * @param supplier  子上下文的实例列表供应者
+     */
+    private void reconcileSnapshot(String serviceId, ServiceInstanceListSupplier supplier) {
+        ServiceInstanceListSupplier current = supplier;
+        while (current instanceof DelegatingServiceInstanceListSupplier) {
+            if (current instanceof SnapshotServiceInstanceListSupplier) {
+                try {
+                    ((SnapshotServiceInstanceListSupplier) current).reconcile().block(warmUpProperties.getTimeout());
+                } catch (RuntimeException e) {
+                    log.warn("Failed to fetch instances of service " + serviceId + " from registry, warming up with the snapshot", e);
+                }
+                return;
+            }
+            current = ((DelegatingServiceInstanceListSupplier) current).getDelegate();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import com.wangguangwu.nacosconsumerdemo.config.ConsistentHashProperties;
+import com.wangguangwu.nacosconsumerdemo.config.RoutingStrategyProperties;
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.ConsistentHashLoadBalancer;
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.RoutingStrategy;
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.SmoothWeightedRoundRobinLoadBalancer;
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.SwitchableLoadBalancer;
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.WeightedRandomLoadBalancer;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.cloud.loadbalancer.core.RandomLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.RoundRobinLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 负载均衡策略管理类，为每个服务创建 {@link SwitchableLoadBalancer}，并在配置变更时切换策略。
+ * <p>
+ * 策略来自 {@link RoutingStrategyProperties}。配置中心推送变更后，只有策略发生变化的服务才会换上新的负载均衡器；
+ * 负载均衡子上下文、实例列表缓存和在途请求计数都保持不变，也不需要重建 {@code RefreshScope} 中的 Bean。
+ * 一致性哈希的参数在重建查找表时读取，不需要切换负载均衡器。
+ * <p>
+ * 刷新时从 {@link Environment} 重新绑定一份策略配置并整体替换：配置属性的重新绑定只会合并 Map，
+ * 配置中心删除某个服务的策略后，该服务需要回到默认策略。
+ *
+ * @author wangguangwu
+ */
+@Component
+public class RoutingStrategyManager implements ApplicationListener<RefreshScopeRefreshedEvent> {
+
+    private static final Log log = LogFactory.getLog(RoutingStrategyManager.class);
+
+    /**
+     * 策略配置的前缀，与 {@link RoutingStrategyProperties} 一致
+     */
+    private static final String ROUTING_PREFIX = "loadbalancer.routing";
+
+    private final RoutingStrategyProperties routingStrategyProperties;
+
+    private final ConsistentHashProperties consistentHashProperties;
+
+    private final InFlightRequestCounter inFlightRequestCounter;
+
+    private final Environment environment;
+
+    /**
+     * 已创建的负载均衡器，按服务名索引
+     */
+    private final Map<String, Registration> registrations = new ConcurrentHashMap<>();
+
+    public RoutingStrategyManager(RoutingStrategyProperties routingStrategyProperties,
+                                  ConsistentHashProperties consistentHashProperties,
+                                  InFlightRequestCounter inFlightRequestCounter,
+                                  Environment environment) {
+        this.routingStrategyProperties = routingStrategyProperties;
+        this.consistentHashProperties = consistentHashProperties;
+        this.inFlightRequestCounter = inFlightRequestCounter;
+        this.environment = environment;
+    }
+
+    /**
+     * 按当前配置为服务创建可切换策略的负载均衡器。
+     *
+     * @param serviceId                           服务名
+     * @param serviceInstanceListSupplierProvider 提供服务实例列表的供应者
+     * @return 可切换策略的负载均衡器
+     */
+    public synchronized SwitchableLoadBalancer create(String serviceId,
+                                                      ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider) {
+        RoutingStrategy strategy = routingStrategyProperties.getStrategy(serviceId);
+        SwitchableLoadBalancer loadBalancer = new SwitchableLoadBalancer(serviceId,
+                build(serviceId, serviceInstanceListSupplierProvider, strategy));
+        registrations.put(serviceId, new Registration(loadBalancer, serviceInstanceListSupplierProvider, strategy));
+        return loadBalancer;
+    }
+
+    /**
+     * 配置刷新后按最新配置切换策略。
+     */
+    @Override
+    public void onApplicationEvent(RefreshScopeRefreshedEvent event) {
+        refresh();
+    }
+
+    /**
+     * 重新绑定策略配置，检查每个服务的策略，发生变化时换上新的负载均衡器。
+     */
+    public synchronized void refresh() {
+        reloadRoutingStrategies();
+        registrations.forEach((serviceId, registration) -> {
+            RoutingStrategy strategy = routingStrategyProperties.getStrategy(serviceId);
+            if (strategy == registration.strategy) {
+                return;
+            }
+            registration.loadBalancer.switchTo(build(serviceId, registration.serviceInstanceListSupplierProvider, strategy));
+            if (log.isInfoEnabled()) {
+                log.info("Switched load balancing strategy of service " + serviceId + " from " + registration.strategy + " to " + strategy);
+            }
+            registration.strategy = strategy;
+        });
+    }
+
+    /**
+     * 以新绑定的配置替换策略配置，已删除的服务不再保留旧的策略。
+     */
+    private void reloadRoutingStrategies() {
+        RoutingStrategyProperties fresh = Binder.get(environment)
+                .bind(ROUTING_PREFIX, RoutingStrategyProperties.class)
+                .orElseGet(RoutingStrategyProperties::new);
+        routingStrategyProperties.setDefaultStrategy(fresh.getDefaultStrategy());
+        routingStrategyProperties.setServices(fresh.getServices());
+    }
+
+    private ReactorServiceInstanceLoadBalancer build(String serviceId,
+                                                     ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                                                     RoutingStrategy strategy) {
+        switch (strategy) {
+            case RANDOM:
+                return new RandomLoadBalancer(serviceInstanceListSupplierProvider, serviceId);
+            case WEIGHTED_ROUND_ROBIN:
+                return new SmoothWeightedRoundRobinLoadBalancer(serviceInstanceListSupplierProvider, serviceId);
+            case WEIGHTED_RANDOM:
+                return new WeightedRandomLoadBalancer(serviceInstanceListSupplierProvider, serviceId);
+            case CONSISTENT_HASH:
+                return new ConsistentHashLoadBalancer(serviceInstanceListSupplierProvider, serviceId,
+                        consistentHashProperties, inFlightRequestCounter);
+            case ROUND_ROBIN:
+            default:
+                return new RoundRobinLoadBalancer(serviceInstanceListSupplierProvider, serviceId);
+        }
+    }
+
+    /**
+     * 单个服务的负载均衡器及创建它所需的信息。
+     */
+    private static final class Registration {
+
+        private final SwitchableLoadBalancer loadBalancer;
+
+        private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+
+        private RoutingStrategy strategy;
+
+        Registration(SwitchableLoadBalancer loadBalancer,
+                     ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                     RoutingStrategy strategy) {
+            this.loadBalancer = loadBalancer;
+            this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+            this.strategy = strategy;
+        }
+    }
+}
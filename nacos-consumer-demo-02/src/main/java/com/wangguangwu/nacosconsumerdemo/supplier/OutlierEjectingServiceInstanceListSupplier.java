@@ -0,0 +1,111 @@
+package com.wangguangwu.nacosconsumerdemo.supplier;
+
+import com.wangguangwu.nacosconsumerdemo.manager.OutlierDetector;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.loadbalancer.core.DelegatingServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 过滤掉被 {@link OutlierDetector} 摘除实例的服务实例列表供应者，
+ * 对轮询、随机等所有负载均衡策略生效。
+ * <p>
+ * 过滤结果会被缓存，直到实例列表变化、有新的实例被摘除或最早的摘除到期，
+ * 因此同一份实例列表返回的是同一个列表对象，不影响负载均衡器按列表对象复用的计数表。
+ * 所有实例都被摘除时返回原列表。
+ *
+ * @author wangguangwu
+ */
+public class OutlierEjectingServiceInstanceListSupplier extends DelegatingServiceInstanceListSupplier {
+
+    private final OutlierDetector outlierDetector;
+
+    /**
+     * 最近一次的过滤结果
+     */
+    private volatile Selection selection;
+
+    public OutlierEjectingServiceInstanceListSupplier(ServiceInstanceListSupplier delegate, OutlierDetector outlierDetector) {
+        super(delegate);
+        this.outlierDetector = outlierDetector;
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get() {
+        return delegate.get().map(this::select);
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get(Request request) {
+        return delegate.get(request).map(this::select);
+    }
+
+    private List<ServiceInstance> select(List<ServiceInstance> instances) {
+        if (!outlierDetector.isEnabled()) {
+            return instances;
+        }
+        long nowNanos = System.nanoTime();
+        long version = outlierDetector.getEjectionVersion(getServiceId());
+        Selection current = selection;
+        if (current != null && current.isValid(instances, version, nowNanos)) {
+            return current.instances;
+        }
+        if (current == null || current.source != instances) {
+            outlierDetector.retain(getServiceId(), instances);
+        }
+
+        List<ServiceInstance> healthy = null;
+        long validUntilNanos = Selection.NO_EXPIRY;
+        for (int i = 0; i < instances.size(); i++) {
+            ServiceInstance instance = instances.get(i);
+            long ejectedUntilNanos = outlierDetector.getEjectedUntilNanos(instance, nowNanos);
+            if (ejectedUntilNanos == 0L) {
+                if (healthy != null) {
+                    healthy.add(instance);
+                }
+                continue;
+            }
+            if (healthy == null) {
+                healthy = new ArrayList<>(instances.subList(0, i));
+            }
+            if (validUntilNanos == Selection.NO_EXPIRY || ejectedUntilNanos - validUntilNanos < 0) {
+                validUntilNanos = ejectedUntilNanos;
+            }
+        }
+        List<ServiceInstance> result = healthy == null || healthy.isEmpty() ? instances : healthy;
+        selection = new Selection(instances, version, validUntilNanos, result);
+        return result;
+    }
+
+    /**
+     * 过滤结果及其有效条件。
+     */
+    private static class Selection {
+
+        private static final long NO_EXPIRY = Long.MIN_VALUE;
+
+        private final List<ServiceInstance> source;
+
+        private final long version;
+
+        private final long validUntilNanos;
+
+        private final List<ServiceInstance> instances;
+
+        Selection(List<ServiceInstance> source, long version, long validUntilNanos, List<ServiceInstance> instances) {
+            this.source = source;
+            this.version = version;
+            this.validUntilNanos = validUntilNanos;
+            this.instances = instances;
+        }
+
+        boolean isValid(List<ServiceInstance> instances, long version, long nowNanos) {
+            return source == instances && this.version == version
+                    && (validUntilNanos == NO_EXPIRY || nowNanos - validUntilNanos < 0);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.wangguangwu.nacosconsumerdemo.supplier;
+
+import com.wangguangwu.nacosconsumerdemo.manager.InstanceSnapshotManager;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.DelegatingServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 以本地快照兜底的服务实例列表供应者，见 {@link InstanceSnapshotManager}。
+ * <p>
+ * 启动后在第一次从注册中心拿到非空的实例列表之前，直接返回快照中的实例列表，同时在后台向注册中心查询；
+ * 之后始终使用注册中心的结果并写回快照。注册中心返回空列表（例如 Nacos 不可用）时，继续使用最近一次已知的实例列表。
+ * <p>
+ * 该供应者必须位于缓存之外：后台查询的结果写入下层缓存，对账完成后的请求直接命中缓存。
+ *
+ * @author wangguangwu
+ */
+public class SnapshotServiceInstanceListSupplier extends DelegatingServiceInstanceListSupplier {
+
+    private static final Log log = LogFactory.getLog(SnapshotServiceInstanceListSupplier.class);
+
+    private final InstanceSnapshotManager instanceSnapshotManager;
+
+    /**
+     * 最近一次已知的非空实例列表，初始为快照中的列表
+     */
+    private volatile List<ServiceInstance> lastKnown;
+
+    /**
+     * 是否已经从注册中心拿到过非空的实例列表
+     */
+    private volatile boolean reconciled;
+
+    /**
+     * 是否有正在进行的后台查询
+     */
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+
+    public SnapshotServiceInstanceListSupplier(ServiceInstanceListSupplier delegate, InstanceSnapshotManager instanceSnapshotManager) {
+        super(delegate);
+        this.instanceSnapshotManager = instanceSnapshotManager;
+        this.lastKnown = instanceSnapshotManager.getInstances(delegate.getServiceId());
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get() {
+        List<ServiceInstance> known = lastKnown;
+        if (!reconciled && !known.isEmpty()) {
+            reconcileInBackground();
+            return Flux.just(known);
+        }
+        return delegate.get().map(this::onInstances);
+    }
+
+    /**
+     * 立即向注册中心查询一次实例列表并完成对账，供启动预热使用，之后的请求不再返回快照中的实例列表。
+     * 注册中心返回空列表时仍使用最近一次已知的实例列表。
+     *
+     * @return 对账后的实例列表
+     */
+    public Mono<List<ServiceInstance>> reconcile() {
+        return delegate.get().next().map(this::onInstances);
+    }
+
+    private void reconcileInBackground() {
+        if (!reconciling.compareAndSet(false, true)) {
+            return;
+        }
+        delegate.get().take(1).subscribe(this::onInstances,
+                error -> {
+                    reconciling.set(false);
+                    if (log.isDebugEnabled()) {
+                        log.debug("Failed to reconcile instance snapshot of service " + getServiceId(), error);
+                    }
+                },
+                () -> reconciling.set(false));
+    }
+
+    private List<ServiceInstance> onInstances(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            return lastKnown.isEmpty() ? instances : lastKnown;
+        }
+        if (instances != lastKnown) {
+            lastKnown = instances;
+            instanceSnapshotManager.save(getServiceId(), instances);
+        }
+        reconciled = true;
+        return instances;
+    }
+}
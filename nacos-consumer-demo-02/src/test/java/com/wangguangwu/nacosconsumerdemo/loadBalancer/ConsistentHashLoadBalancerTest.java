@@ -0,0 +1,95 @@
+package com.wangguangwu.nacosconsumerdemo.loadBalancer;
+
+import com.wangguangwu.nacosconsumerdemo.config.ConsistentHashProperties;
+import com.wangguangwu.nacosconsumerdemo.manager.InFlightRequestCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+import org.springframework.cloud.loadbalancer.support.SimpleObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.LinkedMultiValueMap;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author wangguangwu
+ */
+class ConsistentHashLoadBalancerTest {
+
+    private static final String SERVICE_ID = "nacos-provider-serviceA";
+
+    private final List<ServiceInstance> instances = List.of(
+            new DefaultServiceInstance("a-1", SERVICE_ID, "10.0.0.1", 8091, false),
+            new DefaultServiceInstance("a-2", SERVICE_ID, "10.0.0.2", 8091, false),
+            new DefaultServiceInstance("a-3", SERVICE_ID, "10.0.0.3", 8091, false));
+
+    private final ConsistentHashProperties properties = new ConsistentHashProperties();
+
+    private InFlightRequestCounter inFlightRequestCounter;
+
+    private ConsistentHashLoadBalancer loadBalancer;
+
+    @BeforeEach
+    void setUp() {
+        properties.setTableSize(101);
+        inFlightRequestCounter = new InFlightRequestCounter();
+        loadBalancer = new ConsistentHashLoadBalancer(
+                new SimpleObjectProvider<>(ServiceInstanceListSuppliers.from(SERVICE_ID, instances.toArray(new ServiceInstance[0]))),
+                SERVICE_ID, properties, inFlightRequestCounter);
+    }
+
+    @Test
+    void sameKeyAlwaysChoosesSameInstance() {
+        ServiceInstance first = choose("user-42");
+        for (int i = 0; i < 10; i++) {
+            assertThat(choose("user-42")).isSameAs(first);
+        }
+    }
+
+    @Test
+    void boundedLoadMovesKeyOffOverloadedInstance() {
+        properties.setBoundedLoad(true);
+        ServiceInstance owner = choose("user-42");
+
+        // 5 个在途请求时上限为 ceil(6 * 1.25 / 3) = 3，键对应的实例已超出上限
+        for (int i = 0; i < 5; i++) {
+            inFlightRequestCounter.increment(owner);
+        }
+        ServiceInstance fallback = choose("user-42");
+        assertThat(fallback).isNotSameAs(owner);
+
+        for (int i = 0; i < 5; i++) {
+            inFlightRequestCounter.decrement(owner);
+        }
+        assertThat(choose("user-42")).isSameAs(owner);
+    }
+
+    @Test
+    void tableSizeMustBePrime() {
+        assertThatThrownBy(() -> properties.setTableSize(65536)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> properties.setTableSize(1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private ServiceInstance choose(String key) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(properties.getHeader(), key);
+        RequestData requestData = new RequestData(HttpMethod.GET, URI.create("http://" + SERVICE_ID + "/api/callService"),
+                headers, new LinkedMultiValueMap<>(), new HashMap<>());
+        Response<ServiceInstance> response = loadBalancer.choose(new DefaultRequest<>(new RequestDataContext(requestData))).block();
+        assertThat(response).isNotNull();
+        assertThat(response.hasServer()).isTrue();
+        return response.getServer();
+    }
+}
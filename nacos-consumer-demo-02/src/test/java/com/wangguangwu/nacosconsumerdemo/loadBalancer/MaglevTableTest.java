@@ -0,0 +1,98 @@
+package com.wangguangwu.nacosconsumerdemo.loadBalancer;
+
+import com.wangguangwu.nacosconsumerdemo.manager.InFlightRequestCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author wangguangwu
+ */
+class MaglevTableTest {
+
+    private static final String SERVICE_ID = "nacos-provider-serviceA";
+
+    private static final int TABLE_SIZE = 65537;
+
+    private final InFlightRequestCounter.ServiceCounters counters = new InFlightRequestCounter().getServiceCounters(SERVICE_ID);
+
+    @Test
+    void everySlotIsFilledAndSharedEvenly() {
+        List<ServiceInstance> instances = instances(7);
+        MaglevTable table = MaglevTable.build(instances, TABLE_SIZE, counters);
+
+        int[] owned = new int[instances.size()];
+        for (int slot = 0; slot < TABLE_SIZE; slot++) {
+            int index = table.indexAt(slot);
+            assertThat(index).isBetween(0, instances.size() - 1);
+            owned[index]++;
+        }
+        // 实例轮流认领空位，各实例的表项数最多相差 1
+        int expected = TABLE_SIZE / instances.size();
+        for (int count : owned) {
+            assertThat(count).isBetween(expected, expected + 1);
+        }
+    }
+
+    @Test
+    void removingAnInstanceKeepsMostOtherSlots() {
+        List<ServiceInstance> instances = instances(10);
+        MaglevTable before = MaglevTable.build(instances, TABLE_SIZE, counters);
+        ServiceInstance removed = instances.remove(4);
+        MaglevTable after = MaglevTable.build(instances, TABLE_SIZE, counters);
+
+        int kept = 0;
+        int moved = 0;
+        for (int slot = 0; slot < TABLE_SIZE; slot++) {
+            ServiceInstance owner = before.getResponse(before.indexAt(slot)).getServer();
+            if (owner == removed) {
+                continue;
+            }
+            if (after.getResponse(after.indexAt(slot)).getServer() == owner) {
+                kept++;
+            } else {
+                moved++;
+            }
+        }
+        // 只有极少数不属于被移除实例的表项会换实例
+        assertThat((double) moved / (kept + moved)).isLessThan(0.05);
+    }
+
+    @Test
+    void sameInstancesInAnyOrderBuildSameTable() {
+        List<ServiceInstance> instances = instances(5);
+        List<ServiceInstance> reversed = new ArrayList<>(instances);
+        Collections.reverse(reversed);
+
+        MaglevTable table = MaglevTable.build(instances, 101, counters);
+        MaglevTable other = MaglevTable.build(reversed, 101, counters);
+
+        for (int slot = 0; slot < 101; slot++) {
+            assertThat(other.getResponse(other.indexAt(slot)).getServer())
+                    .isSameAs(table.getResponse(table.indexAt(slot)).getServer());
+        }
+    }
+
+    @Test
+    void rejectsTableSizeThatIsNotPrime() {
+        assertThatThrownBy(() -> MaglevTable.build(instances(3), 100, counters)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MaglevTable.build(instances(3), 1, counters)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(MaglevTable.isPrime(2)).isTrue();
+        assertThat(MaglevTable.isPrime(65537)).isTrue();
+    }
+
+    private static List<ServiceInstance> instances(int count) {
+        List<ServiceInstance> instances = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            instances.add(new DefaultServiceInstance("a-" + i, SERVICE_ID, "10.0.0." + (i + 1), 8091, false));
+        }
+        return instances;
+    }
+}
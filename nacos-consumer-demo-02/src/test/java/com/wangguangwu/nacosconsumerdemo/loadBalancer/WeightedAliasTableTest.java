@@ -0,0 +1,85 @@
+package com.wangguangwu.nacosconsumerdemo.loadBalancer;
+
+import com.wangguangwu.nacosconsumerdemo.constant.NacosMetadataConstants;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author wangguangwu
+ */
+class WeightedAliasTableTest {
+
+    private static final String SERVICE_ID = "nacos-provider-serviceA";
+
+    private static final int DRAWS = 200_000;
+
+    /**
+     * 自由度为 4、显著性水平约 1e-6 的卡方临界值，正确实现几乎不会误报
+     */
+    private static final double CHI_SQUARE_LIMIT = 33.4D;
+
+    @Test
+    void frequenciesFollowWeights() {
+        String[] weights = {"1", "2", "3", "4", "0.5", "0"};
+        List<ServiceInstance> instances = instances(weights);
+        int[] counts = draw(instances, WeightedAliasTable.build(instances));
+
+        double total = 0.0D;
+        for (String weight : weights) {
+            total += Double.parseDouble(weight);
+        }
+        double chiSquare = 0.0D;
+        for (int i = 0; i < weights.length; i++) {
+            double expected = DRAWS * Double.parseDouble(weights[i]) / total;
+            if (expected == 0.0D) {
+                assertThat(counts[i]).isZero();
+                continue;
+            }
+            chiSquare += (counts[i] - expected) * (counts[i] - expected) / expected;
+        }
+        assertThat(chiSquare).isLessThan(CHI_SQUARE_LIMIT);
+    }
+
+    @Test
+    void allZeroWeightsFallBackToUniform() {
+        String[] weights = {"0", "0", "0", "0", "0"};
+        List<ServiceInstance> instances = instances(weights);
+        int[] counts = draw(instances, WeightedAliasTable.build(instances));
+
+        double expected = (double) DRAWS / weights.length;
+        double chiSquare = 0.0D;
+        for (int count : counts) {
+            chiSquare += (count - expected) * (count - expected) / expected;
+        }
+        assertThat(chiSquare).isLessThan(CHI_SQUARE_LIMIT);
+    }
+
+    private static int[] draw(List<ServiceInstance> instances, WeightedAliasTable table) {
+        Map<ServiceInstance, Integer> index = new HashMap<>();
+        for (int i = 0; i < instances.size(); i++) {
+            index.put(instances.get(i), i);
+        }
+        int[] counts = new int[instances.size()];
+        for (int i = 0; i < DRAWS; i++) {
+            counts[index.get(table.next().getServer())]++;
+        }
+        return counts;
+    }
+
+    private static List<ServiceInstance> instances(String... weights) {
+        ServiceInstance[] instances = new ServiceInstance[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            Map<String, String> metadata = new HashMap<>();
+            metadata.put(NacosMetadataConstants.WEIGHT, weights[i]);
+            instances[i] = new DefaultServiceInstance("a-" + i, SERVICE_ID, "10.0.0." + (i + 1), 8091, false, metadata);
+        }
+        return List.of(instances);
+    }
+}
@@ -0,0 +1,78 @@
+package com.wangguangwu.nacosconsumerdemo.loadBalancer;
+
+import com.wangguangwu.nacosconsumerdemo.constant.NacosMetadataConstants;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author wangguangwu
+ */
+class WeightedRoundRobinScheduleTest {
+
+    private static final String SERVICE_ID = "nacos-provider-serviceA";
+
+    @Test
+    void interleavesLikeNginx() {
+        List<ServiceInstance> instances = List.of(instance(0, "5"), instance(1, "1"), instance(2, "1"));
+        WeightedRoundRobinSchedule schedule = WeightedRoundRobinSchedule.build(instances);
+
+        StringBuilder order = new StringBuilder();
+        for (int i = 0; i < schedule.length(); i++) {
+            order.append((char) ('a' + instances.indexOf(schedule.get(i).getServer())));
+        }
+        assertThat(order.toString()).isEqualTo("aabacaa");
+    }
+
+    @Test
+    void tinyPositiveWeightIsNotDropped() {
+        List<ServiceInstance> instances = List.of(instance(0, "1"), instance(1, "0.0001"), instance(2, "0"));
+        WeightedRoundRobinSchedule schedule = WeightedRoundRobinSchedule.build(instances);
+
+        int[] counts = count(instances, schedule, schedule.length());
+        assertThat(counts[1]).isEqualTo(1);
+        assertThat(counts[0]).isEqualTo(schedule.length() - 1);
+        assertThat(counts[2]).isZero();
+    }
+
+    @Test
+    void largeServiceFallsBackToOnlineSelection() {
+        List<ServiceInstance> instances = new ArrayList<>();
+        for (int i = 0; i < WeightedRoundRobinSchedule.MAX_CYCLE_LENGTH + 1000; i++) {
+            instances.add(instance(i, i % 2 == 0 ? "2" : "1"));
+        }
+        WeightedRoundRobinSchedule schedule = WeightedRoundRobinSchedule.build(instances);
+        assertThat(schedule.length()).isZero();
+
+        // 在线选择同样按权重轮询：一个完整周期内每个实例被选中的次数等于其权重
+        int[] counts = count(instances, schedule, instances.size() / 2 * 3);
+        for (int i = 0; i < instances.size(); i++) {
+            assertThat(counts[i]).isEqualTo(i % 2 == 0 ? 2 : 1);
+        }
+    }
+
+    private static int[] count(List<ServiceInstance> instances, WeightedRoundRobinSchedule schedule, int picks) {
+        Map<ServiceInstance, Integer> index = new HashMap<>();
+        for (int i = 0; i < instances.size(); i++) {
+            index.put(instances.get(i), i);
+        }
+        int[] counts = new int[instances.size()];
+        for (int i = 0; i < picks; i++) {
+            counts[index.get(schedule.get(i).getServer())]++;
+        }
+        return counts;
+    }
+
+    private static ServiceInstance instance(int index, String weight) {
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put(NacosMetadataConstants.WEIGHT, weight);
+        return new DefaultServiceInstance("a-" + index, SERVICE_ID, "10.0." + index / 250 + "." + index % 250, 8091, false, metadata);
+    }
+}
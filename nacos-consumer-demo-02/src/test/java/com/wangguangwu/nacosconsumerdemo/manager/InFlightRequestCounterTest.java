@@ -0,0 +1,66 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author wangguangwu
+ */
+class InFlightRequestCounterTest {
+
+    private static final String SERVICE_ID = "nacos-provider-serviceA";
+
+    private final ServiceInstance instance = new DefaultServiceInstance("a-1", SERVICE_ID, "10.0.0.1", 8091, false);
+
+    private final InFlightRequestCounter counter = new InFlightRequestCounter();
+
+    @Test
+    void concurrentUpdatesWithRetainDoNotDrift() throws InterruptedException {
+        InFlightRequestCounter.ServiceCounters counters = counter.getServiceCounters(SERVICE_ID);
+        String instanceKey = InFlightRequestCounter.getInstanceKey(instance);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    counter.increment(instance);
+                    // 实例暂时不在实例列表中，计数归零时可能被回收
+                    counters.retain(Set.of());
+                    counter.decrement(instance);
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(counters.get(instanceKey)).isZero();
+        assertThat(counters.total()).isZero();
+    }
+
+    @Test
+    void retainKeepsCountersOfLiveOrBusyInstances() {
+        InFlightRequestCounter.ServiceCounters counters = counter.getServiceCounters(SERVICE_ID);
+        String instanceKey = InFlightRequestCounter.getInstanceKey(instance);
+        AtomicInteger held = counters.counterOf(instanceKey);
+
+        counters.retain(Set.of(instanceKey));
+        counter.increment(instance);
+        assertThat(held.get()).isEqualTo(1);
+
+        // 已下线但仍有在途请求，保留到请求结束
+        counters.retain(Set.of());
+        assertThat(counters.get(instanceKey)).isEqualTo(1);
+        counter.decrement(instance);
+        counters.retain(Set.of());
+        assertThat(counters.counterOf(instanceKey)).isNotSameAs(held);
+        assertThat(counters.total()).isZero();
+    }
+}
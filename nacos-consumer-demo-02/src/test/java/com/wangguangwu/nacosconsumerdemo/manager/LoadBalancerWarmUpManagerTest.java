@@ -0,0 +1,189 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import com.wangguangwu.nacosconsumerdemo.config.InstanceSnapshotProperties;
+import com.wangguangwu.nacosconsumerdemo.config.WarmUpProperties;
+import com.wangguangwu.nacosconsumerdemo.supplier.SnapshotServiceInstanceListSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClientsProperties;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClientSpecification;
+import org.springframework.cloud.loadbalancer.core.DelegatingServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * @author wangguangwu
+ */
+class LoadBalancerWarmUpManagerTest {
+
+    private static final String SERVICE_ID = "nacos-provider-serviceA";
+
+    private static final String BROKEN_SERVICE_ID = "nacos-provider-serviceB";
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final ServiceInstance live = new DefaultServiceInstance("a-1", SERVICE_ID, "10.0.0.1", 8091, false);
+
+    private final ServiceInstance stale = new DefaultServiceInstance("a-9", SERVICE_ID, "10.0.0.9", 8091, false);
+
+    private final Map<String, ServiceInstanceListSupplier> suppliers = new ConcurrentHashMap<>();
+
+    private final LoadBalancerWarmUpManager warmUpManager = new LoadBalancerWarmUpManager();
+
+    private InstanceSnapshotManager instanceSnapshotManager;
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void setUp() {
+        LoadBalancerClientFactory loadBalancerClientFactory = new LoadBalancerClientFactory(new LoadBalancerClientsProperties()) {
+            @Override
+            public <T> T getInstance(String name, Class<T> type) {
+                if (BROKEN_SERVICE_ID.equals(name)) {
+                    throw new IllegalStateException("Failed to create load balancer of " + name);
+                }
+                return type == ServiceInstanceListSupplier.class ? type.cast(suppliers.get(name)) : null;
+            }
+        };
+        // 失败的服务排在前面，验证它不会影响后续服务的预热；默认配置不对应具体服务
+        List<LoadBalancerClientSpecification> specifications = List.of(
+                new LoadBalancerClientSpecification(BROKEN_SERVICE_ID, new Class<?>[0]),
+                new LoadBalancerClientSpecification(SERVICE_ID, new Class<?>[0]),
+                new LoadBalancerClientSpecification("default.loadBalancerClientsConfiguration", new Class<?>[0]));
+        WarmUpProperties warmUpProperties = new WarmUpProperties();
+        warmUpProperties.setTimeout(TIMEOUT);
+        ReflectionTestUtils.setField(warmUpManager, "warmUpProperties", warmUpProperties);
+        ReflectionTestUtils.setField(warmUpManager, "loadBalancerClientFactory", loadBalancerClientFactory);
+        ReflectionTestUtils.setField(warmUpManager, "loadBalancerClientSpecifications", specifications);
+
+        InstanceSnapshotProperties snapshotProperties = new InstanceSnapshotProperties();
+        snapshotProperties.setFile(dir.resolve("instances.snapshot").toString());
+        snapshotProperties.setWriteDelay(Duration.ofMinutes(1));
+        instanceSnapshotManager = new InstanceSnapshotManager(snapshotProperties);
+        instanceSnapshotManager.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        instanceSnapshotManager.destroy();
+    }
+
+    @Test
+    void readinessWaitsForWarmUp() {
+        AtomicBoolean fetched = new AtomicBoolean();
+        suppliers.put(SERVICE_ID, supplier(Flux.just(List.of(live))
+                .delayElements(Duration.ofMillis(200))
+                .doOnNext(instances -> fetched.set(true))));
+        AtomicReference<Boolean> fetchedWhenReady = new AtomicReference<>();
+        ApplicationListener<ApplicationEvent> readinessListener = event -> {
+            if (event instanceof AvailabilityChangeEvent
+                    && ((AvailabilityChangeEvent<?>) event).getState() == ReadinessState.ACCEPTING_TRAFFIC) {
+                fetchedWhenReady.set(fetched.get());
+            }
+        };
+
+        try (ConfigurableApplicationContext ignored = new SpringApplicationBuilder(WarmUpApplication.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .initializers(context -> context.getBeanFactory().registerSingleton("loadBalancerWarmUpManager", warmUpManager))
+                .listeners(readinessListener)
+                .run()) {
+            // 就绪状态在所有 ApplicationRunner 结束后才切换，此时预热已经拿到实例列表
+            assertThat(fetchedWhenReady.get()).isTrue();
+        }
+    }
+
+    @Test
+    void failingServiceDoesNotBlockOtherServices() {
+        AtomicBoolean fetched = new AtomicBoolean();
+        suppliers.put(SERVICE_ID, supplier(Flux.just(List.of(live)).doOnNext(instances -> fetched.set(true))));
+
+        assertThatCode(() -> warmUpManager.run(null)).doesNotThrowAnyException();
+
+        assertThat(fetched).isTrue();
+    }
+
+    @Test
+    void snapshotIsReconciledWithRegistryBeforeWarmUp() {
+        instanceSnapshotManager.save(SERVICE_ID, List.of(stale));
+        ServiceInstanceListSupplier supplier = decorate(new SnapshotServiceInstanceListSupplier(
+                ServiceInstanceListSuppliers.from(SERVICE_ID, live), instanceSnapshotManager));
+        suppliers.put(SERVICE_ID, supplier);
+
+        warmUpManager.warmUp(SERVICE_ID);
+
+        assertThat(instanceSnapshotManager.getInstances(SERVICE_ID)).containsExactly(live);
+        assertThat(supplier.get().blockFirst(TIMEOUT)).containsExactly(live);
+    }
+
+    @Test
+    void unavailableRegistryFallsBackToSnapshot() {
+        instanceSnapshotManager.save(SERVICE_ID, List.of(stale));
+        ServiceInstanceListSupplier supplier = decorate(new SnapshotServiceInstanceListSupplier(
+                supplier(Flux.error(new IllegalStateException("Nacos unavailable"))), instanceSnapshotManager));
+        suppliers.put(SERVICE_ID, supplier);
+
+        assertThatCode(() -> warmUpManager.warmUp(SERVICE_ID)).doesNotThrowAnyException();
+
+        assertThat(supplier.get().blockFirst(TIMEOUT)).containsExactly(stale);
+    }
+
+    private static ServiceInstanceListSupplier supplier(Flux<List<ServiceInstance>> instances) {
+        return new ServiceInstanceListSupplier() {
+            @Override
+            public String getServiceId() {
+                return SERVICE_ID;
+            }
+
+            @Override
+            public Flux<List<ServiceInstance>> get() {
+                return instances;
+            }
+        };
+    }
+
+    /**
+     * 模拟子上下文中叠加在快照供应者外层的装饰器
+     */
+    private static ServiceInstanceListSupplier decorate(ServiceInstanceListSupplier delegate) {
+        return new DelegatingServiceInstanceListSupplier(delegate) {
+            @Override
+            public Flux<List<ServiceInstance>> get() {
+                return delegate.get();
+            }
+        };
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    static class WarmUpApplication {
+    }
+}
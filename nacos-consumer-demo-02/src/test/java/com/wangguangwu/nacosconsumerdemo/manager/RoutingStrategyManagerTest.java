@@ -0,0 +1,102 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import com.wangguangwu.nacosconsumerdemo.config.ConsistentHashProperties;
+import com.wangguangwu.nacosconsumerdemo.config.RoutingStrategyProperties;
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.ConsistentHashLoadBalancer;
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.SmoothWeightedRoundRobinLoadBalancer;
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.SwitchableLoadBalancer;
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.WeightedRandomLoadBalancer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.RandomLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.support.ResourcePropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author wangguangwu
+ */
+class RoutingStrategyManagerTest {
+
+    private static final String SERVICE_ID = "nacos-provider-serviceA";
+
+    private static final String CONFIG_SOURCE = "nacos-consumer-serviceB-loadbalancer.properties";
+
+    @TempDir
+    Path configDir;
+
+    private final RoutingStrategyProperties routingStrategyProperties = new RoutingStrategyProperties();
+
+    private final InFlightRequestCounter inFlightRequestCounter = new InFlightRequestCounter();
+
+    private final StandardEnvironment environment = new StandardEnvironment();
+
+    private final RoutingStrategyManager routingStrategyManager = new RoutingStrategyManager(routingStrategyProperties,
+            new ConsistentHashProperties(), inFlightRequestCounter, environment);
+
+    @Test
+    void switchesStrategyWithoutLosingInFlightCounts() throws IOException {
+        publish("loadbalancer.routing.services." + SERVICE_ID + "=weighted-round-robin");
+        SwitchableLoadBalancer loadBalancer = create();
+        assertThat(loadBalancer.getDelegate()).isInstanceOf(SmoothWeightedRoundRobinLoadBalancer.class);
+
+        ServiceInstance instance = new DefaultServiceInstance("instance-1", SERVICE_ID, "10.0.0.1", 8080, false);
+        inFlightRequestCounter.increment(instance);
+
+        publish("loadbalancer.routing.services." + SERVICE_ID + "=consistent-hash");
+        assertThat(loadBalancer.getDelegate()).isInstanceOf(ConsistentHashLoadBalancer.class);
+        assertThat(inFlightRequestCounter.getServiceCounters(SERVICE_ID)
+                .get(InFlightRequestCounter.getInstanceKey(instance))).isEqualTo(1);
+    }
+
+    @Test
+    void keepsLoadBalancerWhenStrategyIsUnchanged() throws IOException {
+        publish("loadbalancer.routing.services." + SERVICE_ID + "=weighted-random");
+        SwitchableLoadBalancer loadBalancer = create();
+        ReactorServiceInstanceLoadBalancer delegate = loadBalancer.getDelegate();
+        assertThat(delegate).isInstanceOf(WeightedRandomLoadBalancer.class);
+
+        publish("loadbalancer.routing.services." + SERVICE_ID + "=weighted-random");
+        assertThat(loadBalancer.getDelegate()).isSameAs(delegate);
+    }
+
+    @Test
+    void removedServiceFallsBackToDefaultStrategy() throws IOException {
+        publish("loadbalancer.routing.services." + SERVICE_ID + "=weighted-round-robin");
+        SwitchableLoadBalancer loadBalancer = create();
+
+        publish("loadbalancer.routing.default-strategy=random");
+        assertThat(loadBalancer.getDelegate()).isInstanceOf(RandomLoadBalancer.class);
+        assertThat(routingStrategyProperties.getServices()).doesNotContainKey(SERVICE_ID);
+    }
+
+    private SwitchableLoadBalancer create() {
+        return routingStrategyManager.create(SERVICE_ID,
+                new StaticListableBeanFactory().getBeanProvider(ServiceInstanceListSupplier.class));
+    }
+
+    /**
+     * 以本地文件代替 Nacos 配置：替换配置来源后重新绑定配置项并刷新，与配置中心推送变更后的流程一致。
+     */
+    private void publish(String content) throws IOException {
+        Path file = configDir.resolve(CONFIG_SOURCE);
+        Files.writeString(file, content);
+        environment.getPropertySources().remove(CONFIG_SOURCE);
+        environment.getPropertySources().addFirst(new ResourcePropertySource(CONFIG_SOURCE, new FileSystemResource(file)));
+        Binder.get(environment).bind("loadbalancer.routing", Bindable.ofInstance(routingStrategyProperties));
+        routingStrategyManager.refresh();
+    }
+}
@@ -0,0 +1,153 @@
+package com.wangguangwu.nacosconsumerdemo.config;
+
+import com.wangguangwu.nacosconsumerdemo.manager.ConcurrencyLimiterManager;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * {@link ConcurrencyLimiterManager} 的配置项，对每个下游服务分别生效。
+ * <p>
+ * 例如：
+ * <pre>
+ * loadbalancer.concurrency-limit.initial-limit=20
+ * loadbalancer.concurrency-limit.max-queue-wait=100ms
+ * </pre>
+ *
+ * @author wangguangwu
+ */
+@Component
+@ConfigurationProperties(prefix = "loadbalancer.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    /**
+     * 是否开启自适应并发限制
+     */
+    private boolean enabled = true;
+
+    /**
+     * 初始并发上限
+     */
+    private int initialLimit = 20;
+
+    /**
+     * 并发上限的最小值
+     */
+    private int minLimit = 5;
+
+    /**
+     * 并发上限的最大值
+     */
+    private int maxLimit = 1000;
+
+    /**
+     * 超过并发上限时允许排队等待的最大请求数，0 表示直接拒绝
+     */
+    private int maxQueueSize = 50;
+
+    /**
+     * 排队等待的最长时间，超时后拒绝
+     */
+    private Duration maxQueueWait = Duration.ofMillis(100);
+
+    /**
+     * 短期响应时间可以超过长期响应时间的倍数，超过后开始收缩并发上限
+     */
+    private double rttTolerance = 1.5;
+
+    /**
+     * 长期响应时间均值的样本窗口
+     */
+    private int longWindow = 600;
+
+    /**
+     * 并发上限变化的平滑系数
+     */
+    private double smoothing = 0.2;
+
+    /**
+     * 请求超时或 IO 异常时并发上限的收缩比例
+     */
+    private double backoffRatio = 0.9;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public void setInitialLimit(int initialLimit) {
+        this.initialLimit = initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public void setMinLimit(int minLimit) {
+        this.minLimit = minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+    }
+
+    public int getMaxQueueSize() {
+        return maxQueueSize;
+    }
+
+    public void setMaxQueueSize(int maxQueueSize) {
+        this.maxQueueSize = maxQueueSize;
+    }
+
+    public Duration getMaxQueueWait() {
+        return maxQueueWait;
+    }
+
+    public void setMaxQueueWait(Duration maxQueueWait) {
+        this.maxQueueWait = maxQueueWait;
+    }
+
+    public double getRttTolerance() {
+        return rttTolerance;
+    }
+
+    public void setRttTolerance(double rttTolerance) {
+        this.rttTolerance = rttTolerance;
+    }
+
+    public int getLongWindow() {
+        return longWindow;
+    }
+
+    public void setLongWindow(int longWindow) {
+        this.longWindow = longWindow;
+    }
+
+    public double getSmoothing() {
+        return smoothing;
+    }
+
+    public void setSmoothing(double smoothing) {
+        this.smoothing = smoothing;
+    }
+
+    public double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    public void setBackoffRatio(double backoffRatio) {
+        this.backoffRatio = backoffRatio;
+    }
+}
@@ -0,0 +1,86 @@
+package com.wangguangwu.nacosconsumerdemo.config;
+
+import com.wangguangwu.nacosconsumerdemo.filter.HedgingExchangeFilterFunction;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link HedgingExchangeFilterFunction} 的配置项，按服务名开启。
+ * <p>
+ * 例如：
+ * <pre>
+ * # 固定 200ms 未响应时发起对冲请求
+ * loadbalancer.hedging.services.nacos-provider-serviceC.delay=200ms
+ * # 超过最近响应时间的 P95 时发起对冲请求，对冲请求不超过总请求数的 10%
+ * loadbalancer.hedging.services.nacos-provider-serviceC.percentile=0.95
+ * loadbalancer.hedging.services.nacos-provider-serviceC.budget-percent=10
+ * </pre>
+ *
+ * @author wangguangwu
+ */
+@Component
+@ConfigurationProperties(prefix = "loadbalancer.hedging")
+public class HedgingProperties {
+
+    /**
+     * 开启对冲请求的服务及其策略
+     */
+    private Map<String, Policy> services = new HashMap<>();
+
+    public Map<String, Policy> getServices() {
+        return services;
+    }
+
+    public void setServices(Map<String, Policy> services) {
+        this.services = services;
+    }
+
+    /**
+     * 单个服务的对冲策略。
+     */
+    public static class Policy {
+
+        /**
+         * 固定的对冲等待时间，未设置时使用最近响应时间的分位数
+         */
+        private Duration delay;
+
+        /**
+         * 未设置固定等待时间时使用的响应时间分位数
+         */
+        private double percentile = 0.95;
+
+        /**
+         * 对冲请求占总请求数的最大百分比
+         */
+        private double budgetPercent = 10;
+
+        public Duration getDelay() {
+            return delay;
+        }
+
+        public void setDelay(Duration delay) {
+            this.delay = delay;
+        }
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public void setPercentile(double percentile) {
+            this.percentile = percentile;
+        }
+
+        public double getBudgetPercent() {
+            return budgetPercent;
+        }
+
+        public void setBudgetPercent(double budgetPercent) {
+            this.budgetPercent = budgetPercent;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.wangguangwu.nacosconsumerdemo.config;
+
+import com.wangguangwu.nacosconsumerdemo.manager.HttpClientConnectionPoolManager;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * {@link HttpClientConnectionPoolManager} 的配置项。
+ * <p>
+ * 例如：
+ * <pre>
+ * http-client.pool.max-connections-per-instance=50
+ * http-client.pool.read-timeout=15s
+ * </pre>
+ *
+ * @author wangguangwu
+ */
+@Component
+@ConfigurationProperties(prefix = "http-client.pool")
+public class HttpClientPoolProperties {
+
+    /**
+     * 连接池的最大连接数
+     */
+    private int maxConnections = 400;
+
+    /**
+     * 每个服务实例（即每个路由）的最大连接数
+     */
+    private int maxConnectionsPerInstance = 50;
+
+    /**
+     * 建立连接的超时时间
+     */
+    private Duration connectTimeout = Duration.ofSeconds(1);
+
+    /**
+     * 读取响应的超时时间，需要大于服务提供者的最长处理时间
+     */
+    private Duration readTimeout = Duration.ofSeconds(15);
+
+    /**
+     * 从连接池获取连接的超时时间
+     */
+    private Duration connectionRequestTimeout = Duration.ofSeconds(1);
+
+    /**
+     * 空闲连接的最长保留时间，超过后关闭
+     */
+    private Duration idleTimeout = Duration.ofSeconds(30);
+
+    /**
+     * 连接的最长存活时间，超过后不再复用
+     */
+    private Duration timeToLive = Duration.ofMinutes(5);
+
+    /**
+     * 清理过期、空闲及已下线实例连接的间隔
+     */
+    private Duration evictionInterval = Duration.ofSeconds(5);
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getMaxConnectionsPerInstance() {
+        return maxConnectionsPerInstance;
+    }
+
+    public void setMaxConnectionsPerInstance(int maxConnectionsPerInstance) {
+        this.maxConnectionsPerInstance = maxConnectionsPerInstance;
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public Duration getReadTimeout() {
+        return readTimeout;
+    }
+
+    public void setReadTimeout(Duration readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    public Duration getConnectionRequestTimeout() {
+        return connectionRequestTimeout;
+    }
+
+    public void setConnectionRequestTimeout(Duration connectionRequestTimeout) {
+        this.connectionRequestTimeout = connectionRequestTimeout;
+    }
+
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public Duration getTimeToLive() {
+        return timeToLive;
+    }
+
+    public void setTimeToLive(Duration timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    public Duration getEvictionInterval() {
+        return evictionInterval;
+    }
+
+    public void setEvictionInterval(Duration evictionInterval) {
+        this.evictionInterval = evictionInterval;
+    }
+}
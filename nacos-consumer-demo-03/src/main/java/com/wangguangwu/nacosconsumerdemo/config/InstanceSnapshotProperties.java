@@ -0,0 +1,61 @@
+package com.wangguangwu.nacosconsumerdemo.config;
+
+import com.wangguangwu.nacosconsumerdemo.manager.InstanceSnapshotManager;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * {@link InstanceSnapshotManager} 的配置项。
+ * <p>
+ * 例如：
+ * <pre>
+ * loadbalancer.instance-snapshot.file=${user.home}/nacos/snapshot/${spring.application.name}.instances
+ * </pre>
+ *
+ * @author wangguangwu
+ */
+@Component
+@ConfigurationProperties(prefix = "loadbalancer.instance-snapshot")
+public class InstanceSnapshotProperties {
+
+    /**
+     * 是否使用本地快照中的实例列表
+     */
+    private boolean enabled = true;
+
+    /**
+     * 快照文件路径
+     */
+    private String file = "snapshot/instances.snapshot";
+
+    /**
+     * 实例列表变化后延迟写入快照的时间，合并短时间内的多次变化
+     */
+    private Duration writeDelay = Duration.ofSeconds(1);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public Duration getWriteDelay() {
+        return writeDelay;
+    }
+
+    public void setWriteDelay(Duration writeDelay) {
+        this.writeDelay = writeDelay;
+    }
+}
@@ -0,0 +1,63 @@
+package com.wangguangwu.nacosconsumerdemo.config;
+
+import com.wangguangwu.nacosconsumerdemo.manager.MicroBatchManager;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * {@link MicroBatchManager} 的配置项。
+ * <p>
+ * 例如：
+ * <pre>
+ * # 发往同一实例的调用最多等待 2ms 或凑满 16 个后合并为一次批量请求
+ * loadbalancer.micro-batch.window=2ms
+ * loadbalancer.micro-batch.max-batch-size=16
+ * </pre>
+ *
+ * @author wangguangwu
+ */
+@Component
+@ConfigurationProperties(prefix = "loadbalancer.micro-batch")
+public class MicroBatchProperties {
+
+    /**
+     * 第一个调用到达后等待其他调用加入的最长时间
+     */
+    private Duration window = Duration.ofMillis(2);
+
+    /**
+     * 单个批量请求包含的最大调用数，凑满后立即发送
+     */
+    private int maxBatchSize = 16;
+
+    /**
+     * 服务提供方的批量接口路径
+     */
+    private String path = "/api/batch/callService";
+
+    public Duration getWindow() {
+        return window;
+    }
+
+    public void setWindow(Duration window) {
+        this.window = window;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+}
@@ -0,0 +1,61 @@
+package com.wangguangwu.nacosconsumerdemo.config;
+
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.PeakEwmaLoadBalancer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link PeakEwmaLoadBalancer} 的配置项。
+ * <p>
+ * 例如：
+ * <pre>
+ * loadbalancer.peak-ewma.decay-window=10s
+ * loadbalancer.peak-ewma.service-decay-windows.nacos-provider-serviceC=30s
+ * </pre>
+ *
+ * @author wangguangwu
+ */
+@Component
+@ConfigurationProperties(prefix = "loadbalancer.peak-ewma")
+public class PeakEwmaProperties {
+
+    /**
+     * 默认的响应时间衰减窗口
+     */
+    private Duration decayWindow = Duration.ofSeconds(10);
+
+    /**
+     * 按服务名单独设置的衰减窗口
+     */
+    private Map<String, Duration> serviceDecayWindows = new HashMap<>();
+
+    /**
+     * 获取指定服务的衰减窗口，未单独设置时使用默认值。
+     *
+     * @param serviceId 服务名
+     * @return 衰减窗口
+     */
+    public Duration getDecayWindow(String serviceId) {
+        return serviceDecayWindows.getOrDefault(serviceId, decayWindow);
+    }
+
+    public Duration getDecayWindow() {
+        return decayWindow;
+    }
+
+    public void setDecayWindow(Duration decayWindow) {
+        this.decayWindow = decayWindow;
+    }
+
+    public Map<String, Duration> getServiceDecayWindows() {
+        return serviceDecayWindows;
+    }
+
+    public void setServiceDecayWindows(Map<String, Duration> serviceDecayWindows) {
+        this.serviceDecayWindows = serviceDecayWindows;
+    }
+}
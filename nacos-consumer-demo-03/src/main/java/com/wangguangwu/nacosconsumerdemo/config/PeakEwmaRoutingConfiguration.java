@@ -0,0 +1,44 @@
+package com.wangguangwu.nacosconsumerdemo.config;
+
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.PeakEwmaLoadBalancer;
+import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounterManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClient;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * 配置 {@link PeakEwmaLoadBalancer} 作为自定义负载均衡策略，
+ * 按“响应时间均值 ×（在途请求数 + 1）”选择得分最低的实例。
+ * <p>
+ * 通过 {@link LoadBalancerClient} 绑定到服务，例如：
+ * <pre>
+ * &#64;LoadBalancerClient(name = ServiceConstants.SERVICE_C_NAME, configuration = PeakEwmaRoutingConfiguration.class)
+ * </pre>
+ * 衰减窗口按服务名从 {@link PeakEwmaProperties} 中读取。
+ *
+ * @author wangguangwu
+ */
+public class PeakEwmaRoutingConfiguration {
+
+    /**
+     * 注册自定义的 {@link PeakEwmaLoadBalancer}。
+     *
+     * @param environment                         子上下文环境，用于获取服务名
+     * @param serviceInstanceListSupplierProvider 提供服务实例列表的供应者
+     * @param connectionCounterManager            连接计数管理器
+     * @param peakEwmaProperties                  Peak EWMA 配置项
+     * @return 自定义的 {@link PeakEwmaLoadBalancer} 实例
+     */
+    @Bean
+    public PeakEwmaLoadBalancer peakEwmaLoadBalancer(Environment environment,
+                                                     ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                                                     ConnectionCounterManager connectionCounterManager,
+                                                     PeakEwmaProperties peakEwmaProperties) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new PeakEwmaLoadBalancer(serviceInstanceListSupplierProvider, serviceId, connectionCounterManager,
+                peakEwmaProperties.getDecayWindow(serviceId));
+    }
+}
@@ -0,0 +1,42 @@
+package com.wangguangwu.nacosconsumerdemo.config;
+
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.PowerOfTwoChoicesLoadBalancer;
+import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounterManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClient;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * 配置 {@link PowerOfTwoChoicesLoadBalancer} 作为自定义负载均衡策略，
+ * 从随机抽取的两个实例中选择连接数较少的一个。
+ * <p>
+ * 通过 {@link LoadBalancerClient} 绑定到服务后固定使用该策略，不再受 {@link RoutingStrategyProperties} 控制，例如：
+ * <pre>
+ * &#64;LoadBalancerClient(name = ServiceConstants.SERVICE_C_NAME, configuration = PowerOfTwoChoicesRoutingConfiguration.class)
+ * </pre>
+ * 此类不标注 {@code @Configuration}，避免被主应用上下文扫描后作用于所有服务；
+ * 服务名从子上下文的 {@link LoadBalancerClientFactory#PROPERTY_NAME} 属性中读取，可以绑定到任意服务。
+ *
+ * @author wangguangwu
+ */
+public class PowerOfTwoChoicesRoutingConfiguration {
+
+    /**
+     * 注册自定义的 {@link PowerOfTwoChoicesLoadBalancer}。
+     *
+     * @param environment                         子上下文环境，用于获取服务名
+     * @param serviceInstanceListSupplierProvider 提供服务实例列表的供应者
+     * @param connectionCounterManager            连接计数管理器
+     * @return 自定义的 {@link PowerOfTwoChoicesLoadBalancer} 实例
+     */
+    @Bean
+    public PowerOfTwoChoicesLoadBalancer powerOfTwoChoicesLoadBalancer(Environment environment,
+                                                                       ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                                                                       ConnectionCounterManager connectionCounterManager) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new PowerOfTwoChoicesLoadBalancer(serviceInstanceListSupplierProvider, serviceId, connectionCounterManager);
+    }
+}
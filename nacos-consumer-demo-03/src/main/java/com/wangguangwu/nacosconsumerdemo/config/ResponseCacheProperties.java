@@ -0,0 +1,117 @@
+package com.wangguangwu.nacosconsumerdemo.config;
+
+import com.wangguangwu.nacosconsumerdemo.interceptor.ResponseCachingInterceptor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * {@link ResponseCachingInterceptor} 的配置项，按服务名开启。
+ * <p>
+ * 例如：
+ * <pre>
+ * # 响应缓存 1 秒，过期后 5 秒内先返回旧响应、由其中一个请求负责刷新，最多缓存 1000 个路径
+ * loadbalancer.response-cache.services.nacos-provider-serviceC.ttl=1s
+ * loadbalancer.response-cache.services.nacos-provider-serviceC.stale-while-revalidate=5s
+ * loadbalancer.response-cache.services.nacos-provider-serviceC.max-entries=1000
+ * </pre>
+ *
+ * @author wangguangwu
+ */
+@Component
+@ConfigurationProperties(prefix = "loadbalancer.response-cache")
+public class ResponseCacheProperties {
+
+    /**
+     * 开启响应缓存的服务及其缓存规则
+     */
+    private Map<String, Policy> services = new HashMap<>();
+
+    public Map<String, Policy> getServices() {
+        return services;
+    }
+
+    public void setServices(Map<String, Policy> services) {
+        this.services = services;
+    }
+
+    /**
+     * 单个服务的缓存规则。
+     */
+    public static class Policy {
+
+        /**
+         * 响应的有效期
+         */
+        private Duration ttl = Duration.ofSeconds(1);
+
+        /**
+         * 过期后仍可先返回旧响应、同时由一个请求刷新的时长，0 表示过期后立即刷新
+         */
+        private Duration staleWhileRevalidate = Duration.ZERO;
+
+        /**
+         * 最多缓存的路径数
+         */
+        private int maxEntries = 1000;
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public Duration getStaleWhileRevalidate() {
+            return staleWhileRevalidate;
+        }
+
+        public void setStaleWhileRevalidate(Duration staleWhileRevalidate) {
+            this.staleWhileRevalidate = staleWhileRevalidate;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        /**
+         * 复制当前的缓存规则，之后重新绑定配置项不会影响副本。
+         *
+         * @return 缓存规则的副本
+         */
+        public Policy copy() {
+            Policy copy = new Policy();
+            copy.setTtl(ttl);
+            copy.setStaleWhileRevalidate(staleWhileRevalidate);
+            copy.setMaxEntries(maxEntries);
+            return copy;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Policy)) {
+                return false;
+            }
+            Policy other = (Policy) o;
+            return maxEntries == other.maxEntries && Objects.equals(ttl, other.ttl)
+                    && Objects.equals(staleWhileRevalidate, other.staleWhileRevalidate);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(ttl, staleWhileRevalidate, maxEntries);
+        }
+    }
+}
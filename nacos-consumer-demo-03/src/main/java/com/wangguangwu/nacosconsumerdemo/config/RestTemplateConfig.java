@@ -1,6 +1,9 @@
 package com.wangguangwu.nacosconsumerdemo.config;
 
+import com.wangguangwu.nacosconsumerdemo.interceptor.ConcurrencyLimitInterceptor;
 import com.wangguangwu.nacosconsumerdemo.interceptor.ConnectionCountingInterceptor;
+import com.wangguangwu.nacosconsumerdemo.interceptor.ResponseCachingInterceptor;
+import com.wangguangwu.nacosconsumerdemo.manager.HttpClientConnectionPoolManager;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -18,18 +21,38 @@ import java.util.List;
 @Configuration
 public class RestTemplateConfig {
 
+    /**
+     * 自定义的响应缓存拦截器，位于最外层，命中缓存的请求不占用并发额度、不进入负载均衡。
+     */
+    @Resource
+    private ResponseCachingInterceptor responseCachingInterceptor;
+
+    /**
+     * 自定义的自适应并发限制拦截器，位于连接计数拦截器之前，被拒绝的请求不会进入负载均衡。
+     */
+    @Resource
+    private ConcurrencyLimitInterceptor concurrencyLimitInterceptor;
+
     /**
      * 自定义的连接计数拦截器，用于在每次请求时记录和管理连接计数。
      */
     @Resource
     private ConnectionCountingInterceptor connectionCountingInterceptor;
 
+    /**
+     * HTTP 连接池管理类，提供复用长连接的请求工厂。
+     */
+    @Resource
+    private HttpClientConnectionPoolManager httpClientConnectionPoolManager;
+
     @LoadBalanced
     @Bean
     public RestTemplate restTemplate() {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = new RestTemplate(httpClientConnectionPoolManager.getRequestFactory());
         // 配置拦截器
         List<ClientHttpRequestInterceptor> interceptors = restTemplate.getInterceptors();
+        interceptors.add(responseCachingInterceptor);
+        interceptors.add(concurrencyLimitInterceptor);
         interceptors.add(connectionCountingInterceptor);
         restTemplate.setInterceptors(interceptors);
         return restTemplate;
@@ -0,0 +1,64 @@
+package com.wangguangwu.nacosconsumerdemo.config;
+
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.RoutingStrategy;
+import com.wangguangwu.nacosconsumerdemo.manager.RoutingStrategyManager;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 按服务名选择负载均衡策略的配置项，修改后由 {@link RoutingStrategyManager} 在运行时切换。
+ * <p>
+ * 例如在 Nacos 配置中：
+ * <pre>
+ * loadbalancer.routing.services.nacos-provider-serviceC=peak-ewma
+ * # 策略的调优参数沿用各自的配置项，同样支持热更新
+ * loadbalancer.peak-ewma.service-decay-windows.nacos-provider-serviceC=30s
+ * loadbalancer.hedging.services.nacos-provider-serviceC.delay=200ms
+ * loadbalancer.concurrency-limit.max-limit=100
+ * </pre>
+ *
+ * @author wangguangwu
+ */
+@Component
+@ConfigurationProperties(prefix = "loadbalancer.routing")
+public class RoutingStrategyProperties {
+
+    /**
+     * 未单独配置的服务使用的策略
+     */
+    private RoutingStrategy defaultStrategy = RoutingStrategy.ROUND_ROBIN;
+
+    /**
+     * 按服务名单独设置的策略
+     */
+    private Map<String, RoutingStrategy> services = new HashMap<>();
+
+    /**
+     * 获取指定服务的策略，未单独设置时使用默认策略。
+     *
+     * @param serviceId 服务名
+     * @return 负载均衡策略
+     */
+    public RoutingStrategy getStrategy(String serviceId) {
+        return services.getOrDefault(serviceId, defaultStrategy);
+    }
+
+    public RoutingStrategy getDefaultStrategy() {
+        return defaultStrategy;
+    }
+
+    public void setDefaultStrategy(RoutingStrategy defaultStrategy) {
+        this.defaultStrategy = defaultStrategy;
+    }
+
+    public Map<String, RoutingStrategy> getServices() {
+        return services;
+    }
+
+    public void setServices(Map<String, RoutingStrategy> services) {
+        this.services = services;
+    }
+}
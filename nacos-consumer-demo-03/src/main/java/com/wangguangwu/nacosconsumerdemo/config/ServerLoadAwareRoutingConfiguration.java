@@ -0,0 +1,43 @@
+package com.wangguangwu.nacosconsumerdemo.config;
+
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.ServerLoadAwareLoadBalancer;
+import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounterManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClient;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * 配置 {@link ServerLoadAwareLoadBalancer} 作为自定义负载均衡策略，
+ * 结合本地在途请求数与服务提供者上报的负载选择实例，适用于消费者有多个副本的场景。
+ * <p>
+ * 通过 {@link LoadBalancerClient} 绑定到服务，例如：
+ * <pre>
+ * &#64;LoadBalancerClient(name = ServiceConstants.SERVICE_C_NAME, configuration = ServerLoadAwareRoutingConfiguration.class)
+ * </pre>
+ *
+ * @author wangguangwu
+ */
+public class ServerLoadAwareRoutingConfiguration {
+
+    /**
+     * 注册自定义的 {@link ServerLoadAwareLoadBalancer}。
+     *
+     * @param environment                         子上下文环境，用于获取服务名
+     * @param serviceInstanceListSupplierProvider 提供服务实例列表的供应者
+     * @param connectionCounterManager            连接计数管理器
+     * @param serverLoadProperties                上报负载的配置项
+     * @return 自定义的 {@link ServerLoadAwareLoadBalancer} 实例
+     */
+    @Bean
+    public ServerLoadAwareLoadBalancer serverLoadAwareLoadBalancer(Environment environment,
+                                                                   ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                                                                   ConnectionCounterManager connectionCounterManager,
+                                                                   ServerLoadProperties serverLoadProperties) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new ServerLoadAwareLoadBalancer(serviceInstanceListSupplierProvider, serviceId, connectionCounterManager,
+                serverLoadProperties.getHalfLife());
+    }
+}
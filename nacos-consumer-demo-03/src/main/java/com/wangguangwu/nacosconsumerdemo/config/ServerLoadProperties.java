@@ -0,0 +1,35 @@
+package com.wangguangwu.nacosconsumerdemo.config;
+
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.ServerLoadAwareLoadBalancer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * {@link ServerLoadAwareLoadBalancer} 的配置项。
+ * <p>
+ * 例如：
+ * <pre>
+ * loadbalancer.server-load.half-life=2s
+ * </pre>
+ *
+ * @author wangguangwu
+ */
+@Component
+@ConfigurationProperties(prefix = "loadbalancer.server-load")
+public class ServerLoadProperties {
+
+    /**
+     * 提供者上报负载的半衰期，上报越旧权重越低
+     */
+    private Duration halfLife = Duration.ofSeconds(2);
+
+    public Duration getHalfLife() {
+        return halfLife;
+    }
+
+    public void setHalfLife(Duration halfLife) {
+        this.halfLife = halfLife;
+    }
+}
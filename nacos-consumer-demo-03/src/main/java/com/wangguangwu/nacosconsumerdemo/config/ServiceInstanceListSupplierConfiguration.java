@@ -0,0 +1,65 @@
+package com.wangguangwu.nacosconsumerdemo.config;
+
+import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounterManager;
+import com.wangguangwu.nacosconsumerdemo.manager.InstanceSnapshotManager;
+import com.wangguangwu.nacosconsumerdemo.manager.OutlierDetector;
+import com.wangguangwu.nacosconsumerdemo.supplier.HedgeAwareServiceInstanceListSupplier;
+import com.wangguangwu.nacosconsumerdemo.supplier.InstanceReconcilingServiceInstanceListSupplier;
+import com.wangguangwu.nacosconsumerdemo.supplier.OutlierEjectingServiceInstanceListSupplier;
+import com.wangguangwu.nacosconsumerdemo.supplier.SnapshotServiceInstanceListSupplier;
+import com.wangguangwu.nacosconsumerdemo.supplier.ZoneAffinityServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * 所有服务共用的服务实例列表供应者配置，通过
+ * {@link LoadBalancerClientsConfiguration} 作为默认配置注册到每个服务的子上下文中。
+ * <p>
+ * 在默认的“服务发现 + 缓存”供应者外层依次叠加：
+ * <ul>
+ *     <li>{@link SnapshotServiceInstanceListSupplier}：启动时先使用本地快照中的实例列表，Nacos 不可用时沿用最近一次已知的列表；</li>
+ *     <li>{@link InstanceReconcilingServiceInstanceListSupplier}：按完整的实例列表对账连接计数表和异常检测的实例统计；</li>
+ *     <li>{@link ZoneAffinityServiceInstanceListSupplier}：优先选择同集群的实例，容量不足时溢出到其他集群；</li>
+ *     <li>{@link OutlierEjectingServiceInstanceListSupplier}：过滤被摘除的异常实例；</li>
+ *     <li>{@link HedgeAwareServiceInstanceListSupplier}：为对冲请求排除首次请求的实例。</li>
+ * </ul>
+ * 装饰器必须位于缓存之外，否则会丢失请求上下文，也无法及时反映实例的摘除与恢复。
+ * 同集群优先位于异常摘除之内，异常摘除只过滤同集群优先选出的实例。
+ * 按实例维护的状态只在过滤之前对账，外层的过滤不会让被过滤掉的实例被当作已下线。
+ *
+ * @author wangguangwu
+ */
+public class ServiceInstanceListSupplierConfiguration {
+
+    /**
+     * 消费者自身的 Nacos 集群名
+     */
+    private static final String CLUSTER_NAME_PROPERTY = "spring.cloud.nacos.discovery.cluster-name";
+
+    /**
+     * Nacos 的默认集群名
+     */
+    private static final String DEFAULT_CLUSTER_NAME = "DEFAULT";
+
+    @Bean
+    public ServiceInstanceListSupplier serviceInstanceListSupplier(ConfigurableApplicationContext context,
+                                                                   OutlierDetector outlierDetector,
+                                                                   ZoneAffinityProperties zoneAffinityProperties,
+                                                                   ConnectionCounterManager connectionCounterManager,
+                                                                   InstanceSnapshotManager instanceSnapshotManager) {
+        ServiceInstanceListSupplier cachingSupplier = ServiceInstanceListSupplier.builder()
+                .withDiscoveryClient()
+                .withCaching()
+                .build(context);
+        ServiceInstanceListSupplier snapshotSupplier = new SnapshotServiceInstanceListSupplier(cachingSupplier, instanceSnapshotManager);
+        ServiceInstanceListSupplier reconcilingSupplier = new InstanceReconcilingServiceInstanceListSupplier(
+                snapshotSupplier, connectionCounterManager, outlierDetector);
+        String localCluster = zoneAffinityProperties.getCluster() != null ? zoneAffinityProperties.getCluster()
+                : context.getEnvironment().getProperty(CLUSTER_NAME_PROPERTY, DEFAULT_CLUSTER_NAME);
+        ServiceInstanceListSupplier zoneAffinitySupplier = new ZoneAffinityServiceInstanceListSupplier(
+                reconcilingSupplier, localCluster, zoneAffinityProperties, outlierDetector, connectionCounterManager);
+        return new HedgeAwareServiceInstanceListSupplier(
+                new OutlierEjectingServiceInstanceListSupplier(zoneAffinitySupplier, outlierDetector));
+    }
+}
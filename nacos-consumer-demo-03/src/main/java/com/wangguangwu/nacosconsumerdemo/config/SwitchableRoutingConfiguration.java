@@ -0,0 +1,39 @@
+package com.wangguangwu.nacosconsumerdemo.config;
+
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.SwitchableLoadBalancer;
+import com.wangguangwu.nacosconsumerdemo.manager.RoutingStrategyManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * 为所有服务注册 {@link SwitchableLoadBalancer}，策略由 {@link RoutingStrategyProperties} 决定，可在运行时切换。
+ * <p>
+ * 作为 {@link LoadBalancerClientsConfiguration} 的默认配置注册到每个负载均衡子上下文；
+ * 通过 {@code @LoadBalancerClient} 单独绑定了负载均衡器的服务仍使用各自固定的策略。
+ *
+ * @author wangguangwu
+ */
+public class SwitchableRoutingConfiguration {
+
+    /**
+     * 注册可切换策略的负载均衡器。
+     *
+     * @param environment                         子上下文环境，用于获取服务名
+     * @param serviceInstanceListSupplierProvider 提供服务实例列表的供应者
+     * @param routingStrategyManager              负载均衡策略管理类
+     * @return 可切换策略的负载均衡器
+     */
+    @Bean
+    @ConditionalOnMissingBean(ReactorServiceInstanceLoadBalancer.class)
+    public SwitchableLoadBalancer switchableLoadBalancer(Environment environment,
+                                                         ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                                                         RoutingStrategyManager routingStrategyManager) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return routingStrategyManager.create(serviceId, serviceInstanceListSupplierProvider);
+    }
+}
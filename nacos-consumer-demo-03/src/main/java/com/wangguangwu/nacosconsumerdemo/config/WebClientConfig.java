@@ -0,0 +1,46 @@
+package com.wangguangwu.nacosconsumerdemo.config;
+
+import com.wangguangwu.nacosconsumerdemo.filter.ConnectionCountingExchangeFilterFunction;
+import com.wangguangwu.nacosconsumerdemo.filter.HedgingExchangeFilterFunction;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import javax.annotation.Resource;
+
+/**
+ * WebClient 配置类。
+ * <p>
+ * 基于 Reactor Netty 的非阻塞调用，慢请求在等待响应期间不占用 Tomcat 工作线程。
+ *
+ * @author wangguangwu
+ */
+@Configuration
+public class WebClientConfig {
+
+    /**
+     * 自定义的连接计数过滤器，将连接计数的释放与响应式信号的生命周期绑定。
+     */
+    @Resource
+    private ConnectionCountingExchangeFilterFunction connectionCountingExchangeFilterFunction;
+
+    /**
+     * 对冲请求过滤器，位于连接计数过滤器之前，使每次尝试单独计数。
+     */
+    @Resource
+    private HedgingExchangeFilterFunction hedgingExchangeFilterFunction;
+
+    @LoadBalanced
+    @Bean
+    public WebClient.Builder webClientBuilder() {
+        return WebClient.builder()
+                .filter(hedgingExchangeFilterFunction)
+                .filter(connectionCountingExchangeFilterFunction);
+    }
+
+    @Bean
+    public WebClient webClient(WebClient.Builder webClientBuilder) {
+        return webClientBuilder.build();
+    }
+}
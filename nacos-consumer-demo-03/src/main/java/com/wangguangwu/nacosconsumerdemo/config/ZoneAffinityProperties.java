@@ -0,0 +1,89 @@
+package com.wangguangwu.nacosconsumerdemo.config;
+
+import com.wangguangwu.nacosconsumerdemo.supplier.ZoneAffinityServiceInstanceListSupplier;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * {@link ZoneAffinityServiceInstanceListSupplier} 的配置项。
+ * <p>
+ * 例如：
+ * <pre>
+ * loadbalancer.zone-affinity.min-healthy-percent=70
+ * loadbalancer.zone-affinity.spillover-in-flight-margin=5
+ * </pre>
+ * 本地集群默认取 {@code spring.cloud.nacos.discovery.cluster-name}，即消费者注册到 Nacos 时使用的集群。
+ *
+ * @author wangguangwu
+ */
+@Component
+@ConfigurationProperties(prefix = "loadbalancer.zone-affinity")
+public class ZoneAffinityProperties {
+
+    /**
+     * 是否开启同集群优先
+     */
+    private boolean enabled = true;
+
+    /**
+     * 本地集群名，未设置时使用消费者自身的 Nacos 集群名
+     */
+    private String cluster;
+
+    /**
+     * 本地集群中未被摘除的实例占比低于该百分比时溢出到其他集群
+     */
+    private int minHealthyPercent = 70;
+
+    /**
+     * 本地实例的平均在途请求数比其他集群高出该值时溢出到其他集群
+     */
+    private double spilloverInFlightMargin = 5.0;
+
+    /**
+     * 重新评估是否溢出的间隔
+     */
+    private Duration evaluationInterval = Duration.ofMillis(200);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getCluster() {
+        return cluster;
+    }
+
+    public void setCluster(String cluster) {
+        this.cluster = cluster;
+    }
+
+    public int getMinHealthyPercent() {
+        return minHealthyPercent;
+    }
+
+    public void setMinHealthyPercent(int minHealthyPercent) {
+        this.minHealthyPercent = minHealthyPercent;
+    }
+
+    public double getSpilloverInFlightMargin() {
+        return spilloverInFlightMargin;
+    }
+
+    public void setSpilloverInFlightMargin(double spilloverInFlightMargin) {
+        this.spilloverInFlightMargin = spilloverInFlightMargin;
+    }
+
+    public Duration getEvaluationInterval() {
+        return evaluationInterval;
+    }
+
+    public void setEvaluationInterval(Duration evaluationInterval) {
+        this.evaluationInterval = evaluationInterval;
+    }
+}
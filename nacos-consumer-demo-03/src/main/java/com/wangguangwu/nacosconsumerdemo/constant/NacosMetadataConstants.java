@@ -0,0 +1,17 @@
+package com.wangguangwu.nacosconsumerdemo.constant;
+
+/**
+ * Nacos 服务发现写入实例元数据的键。
+ *
+ * @author wangguangwu
+ */
+public final class NacosMetadataConstants {
+
+    /**
+     * 实例所属的集群
+     */
+    public static final String CLUSTER = "nacos.cluster";
+
+    private NacosMetadataConstants() {
+    }
+}
@@ -0,0 +1,27 @@
+package com.wangguangwu.nacosconsumerdemo.constant;
+
+/**
+ * 服务提供者在响应中附带的负载信息响应头。
+ *
+ * @author wangguangwu
+ */
+public final class ServerLoadHeaderConstants {
+
+    /**
+     * 提供者正在处理的请求数
+     */
+    public static final String IN_FLIGHT = "X-Server-In-Flight";
+
+    /**
+     * 提供者工作线程池的使用率，0 ~ 1
+     */
+    public static final String UTILIZATION = "X-Server-Utilization";
+
+    /**
+     * 提供者最近请求的 P99 处理耗时，单位毫秒
+     */
+    public static final String P99_MILLIS = "X-Server-P99-Ms";
+
+    private ServerLoadHeaderConstants() {
+    }
+}
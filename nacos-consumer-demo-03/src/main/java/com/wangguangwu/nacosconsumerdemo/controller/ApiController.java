@@ -2,12 +2,14 @@ package com.wangguangwu.nacosconsumerdemo.controller;
 
 import com.wangguangwu.nacosconsumerdemo.constant.HttpProtocolConstants;
 import com.wangguangwu.nacosconsumerdemo.constant.ServiceConstants;
+import com.wangguangwu.nacosconsumerdemo.manager.MicroBatchManager;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.client.RestTemplate;
 
 import javax.annotation.Resource;
+import java.io.IOException;
 
 /**
  * @author wangguangwu
@@ -19,8 +21,19 @@ public class ApiController {
     @Resource
     private RestTemplate restTemplate;
 
+    @Resource
+    private MicroBatchManager microBatchManager;
+
     @GetMapping("/callService")
     public String callService() {
         return restTemplate.getForObject(HttpProtocolConstants.HTTP_PROTOCOL + ServiceConstants.SERVICE_C_NAME + "/api/callService", String.class);
     }
+
+    /**
+     * 与 {@link #callService()} 相同，但与发往同一实例的并发调用合并为一次批量请求。
+     */
+    @GetMapping("/batched/callService")
+    public String callServiceBatched() throws IOException {
+        return microBatchManager.callService(ServiceConstants.SERVICE_C_NAME);
+    }
 }
@@ -0,0 +1,76 @@
+package com.wangguangwu.nacosconsumerdemo.filter;
+
+import com.wangguangwu.nacosconsumerdemo.lifecycle.ConnectionCountingLoadBalancerLifecycle;
+import com.wangguangwu.nacosconsumerdemo.lifecycle.InFlightRequestScope;
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.LeastConnectionsRoutingLoadBalancer;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.Resource;
+
+/**
+ * WebClient 过滤器，适配 {@link LeastConnectionsRoutingLoadBalancer 自定义最小连接数策略}，
+ * 把连接计数的释放与响应式信号的生命周期绑定。
+ * <p>
+ * 与 RestTemplate 的拦截器相对应：计数仍由 {@link ConnectionCountingLoadBalancerLifecycle} 完成，
+ * 本过滤器通过请求属性传递 {@link InFlightRequestScope}，并在以下时机释放计数：
+ * <ul>
+ *     <li>收到响应时，不依赖调用方是否读取响应体，丢弃响应不会泄漏计数；</li>
+ *     <li>响应返回前请求被取消或没有返回响应时（负载均衡器自身的生命周期不会回调取消信号）。</li>
+ * </ul>
+ * 因此响应式调用的计数与耗时覆盖到收到响应头为止，不包括读取响应体的时间。
+ * 该过滤器必须位于负载均衡过滤器之前，即在 {@code @LoadBalanced} 生效前加入 WebClient.Builder。
+ *
+ * @author wangguangwu
+ */
+@Component
+public class ConnectionCountingExchangeFilterFunction implements ExchangeFilterFunction {
+
+    /**
+     * 连接计数生命周期回调
+     */
+    @Resource
+    private ConnectionCountingLoadBalancerLifecycle connectionCountingLoadBalancerLifecycle;
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        InFlightRequestScope scope = InFlightRequestScope.create();
+        ClientRequest scopedRequest = ClientRequest.from(request)
+                .attribute(InFlightRequestScope.ATTRIBUTE, scope)
+                .build();
+        return next.exchange(scopedRequest)
+                .doOnNext(response -> releaseDeferred(scope))
+                .doFinally(signal -> releaseRemaining(scope));
+    }
+
+    /**
+     * 收到响应时释放成功请求的连接计数。
+     *
+     * @param scope 当前请求的作用域
+     */
+    private void releaseDeferred(InFlightRequestScope scope) {
+        long startNanos = scope.getStartNanos();
+        ServiceInstance instance = scope.takeDeferredInstance();
+        if (instance != null) {
+            connectionCountingLoadBalancerLifecycle.release(instance, startNanos, true);
+        }
+    }
+
+    /**
+     * 请求被取消或没有返回响应时释放尚未释放的连接计数。
+     *
+     * @param scope 当前请求的作用域
+     */
+    private void releaseRemaining(InFlightRequestScope scope) {
+        long startNanos = scope.getStartNanos();
+        ServiceInstance instance = scope.cancel();
+        if (instance != null) {
+            connectionCountingLoadBalancerLifecycle.release(instance, startNanos, false);
+        }
+    }
+}
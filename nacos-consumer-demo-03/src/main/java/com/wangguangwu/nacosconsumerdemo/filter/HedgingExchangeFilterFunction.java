@@ -0,0 +1,106 @@
+package com.wangguangwu.nacosconsumerdemo.filter;
+
+import com.wangguangwu.nacosconsumerdemo.lifecycle.HedgeContext;
+import com.wangguangwu.nacosconsumerdemo.manager.HedgingManager;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.Resource;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * WebClient 对冲请求过滤器，用于降低慢实例带来的长尾延迟。
+ * <p>
+ * 对开启了对冲的服务，GET 请求在等待时间内没有响应时，向负载均衡器选出的另一个实例再发送一次相同的请求，
+ * 采用先返回的响应并取消另一个请求。等待时间为固定值或最近响应时间的分位数，
+ * 对冲请求数受 {@link HedgingManager} 的预算限制。
+ * <p>
+ * 首次请求在发起对冲前失败时直接返回错误；已发起对冲时，两次尝试都失败才返回错误。
+ * 所有尝试都没有返回响应也没有错误时，返回 {@link IllegalStateException}。
+ * 该过滤器必须位于连接计数过滤器与负载均衡过滤器之前，使每次尝试都单独选择实例并计数。
+ *
+ * @author wangguangwu
+ */
+@Component
+public class HedgingExchangeFilterFunction implements ExchangeFilterFunction {
+
+    @Resource
+    private HedgingManager hedgingManager;
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        String serviceId = request.url().getHost();
+        if (request.method() != HttpMethod.GET || !hedgingManager.isEnabled(serviceId)) {
+            return next.exchange(request);
+        }
+        return Mono.defer(() -> hedge(request, next, serviceId));
+    }
+
+    private Mono<ClientResponse> hedge(ClientRequest request, ExchangeFunction next, String serviceId) {
+        hedgingManager.onRequest(serviceId);
+        HedgeContext primaryContext = HedgeContext.primary();
+        long startNanos = System.nanoTime();
+        long delayNanos = hedgingManager.getHedgeDelayNanos(serviceId);
+
+        // 首次请求被对冲请求抢先时会被取消，此时已等待的时间作为响应时间的下限记录
+        Mono<ClientResponse> primary = next.exchange(withContext(request, primaryContext))
+                .doOnNext(response -> hedgingManager.recordLatency(serviceId, System.nanoTime() - startNanos))
+                .doOnCancel(() -> hedgingManager.recordLatency(serviceId, System.nanoTime() - startNanos));
+        if (delayNanos <= 0) {
+            return primary;
+        }
+
+        AtomicBoolean hedged = new AtomicBoolean();
+        AtomicBoolean settled = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Mono<ClientResponse> primaryAttempt = primary
+                .onErrorResume(e -> {
+                    if (!hedged.get()) {
+                        return Mono.error(e);
+                    }
+                    failure.compareAndSet(null, e);
+                    return Mono.empty();
+                });
+        Mono<ClientResponse> hedgeAttempt = Mono.delay(Duration.ofNanos(delayNanos))
+                .filter(tick -> hedgingManager.tryAcquireHedge(serviceId))
+                .flatMap(tick -> {
+                    hedged.set(true);
+                    return next.exchange(withContext(request, primaryContext.hedge()));
+                })
+                .onErrorResume(e -> {
+                    failure.compareAndSet(null, e);
+                    return Mono.empty();
+                });
+        return Flux.merge(settle(primaryAttempt, settled), settle(hedgeAttempt, settled))
+                .next()
+                .switchIfEmpty(Mono.defer(() -> Mono.error(failure.get() != null ? failure.get()
+                        : new IllegalStateException("No response received from " + serviceId + " for " + request.url()))));
+    }
+
+    /**
+     * 只让第一个返回的响应通过，其余响应释放后丢弃。
+     *
+     * @param attempt 一次尝试
+     * @param settled 是否已有响应返回
+     * @return 处理后的尝试
+     */
+    private static Mono<ClientResponse> settle(Mono<ClientResponse> attempt, AtomicBoolean settled) {
+        return attempt.flatMap(response -> settled.compareAndSet(false, true)
+                ? Mono.just(response)
+                : response.releaseBody().then(Mono.empty()));
+    }
+
+    private static ClientRequest withContext(ClientRequest request, HedgeContext hedgeContext) {
+        return ClientRequest.from(request)
+                .attribute(HedgeContext.ATTRIBUTE, hedgeContext)
+                .build();
+    }
+}
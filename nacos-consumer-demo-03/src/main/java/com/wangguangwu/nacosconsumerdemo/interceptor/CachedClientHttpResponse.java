@@ -0,0 +1,81 @@
+package com.wangguangwu.nacosconsumerdemo.interceptor;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 已完整读入内存的只读响应，可被多个请求重复读取，供 {@link ResponseCachingInterceptor} 缓存使用。
+ *
+ * @author wangguangwu
+ */
+class CachedClientHttpResponse implements ClientHttpResponse {
+
+    private final int rawStatusCode;
+
+    private final String statusText;
+
+    private final HttpHeaders headers;
+
+    private final byte[] body;
+
+    private CachedClientHttpResponse(int rawStatusCode, String statusText, HttpHeaders headers, byte[] body) {
+        this.rawStatusCode = rawStatusCode;
+        this.statusText = statusText;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    /**
+     * 读取并关闭原始响应，复制出可重复读取的响应。
+     *
+     * @param response 原始响应
+     * @return 缓存用的响应
+     * @throws IOException 读取响应体失败
+     */
+    static CachedClientHttpResponse copyOf(ClientHttpResponse response) throws IOException {
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.putAll(response.getHeaders());
+            return new CachedClientHttpResponse(response.getRawStatusCode(), response.getStatusText(),
+                    HttpHeaders.readOnlyHttpHeaders(headers), StreamUtils.copyToByteArray(response.getBody()));
+        } finally {
+            response.close();
+        }
+    }
+
+    @Override
+    public HttpStatus getStatusCode() {
+        return HttpStatus.valueOf(rawStatusCode);
+    }
+
+    @Override
+    public int getRawStatusCode() {
+        return rawStatusCode;
+    }
+
+    @Override
+    public String getStatusText() {
+        return statusText;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    @Override
+    public InputStream getBody() {
+        return new ByteArrayInputStream(body);
+    }
+
+    @Override
+    public void close() {
+        // 响应体在内存中，无需释放
+    }
+}
@@ -0,0 +1,17 @@
+package com.wangguangwu.nacosconsumerdemo.interceptor;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * 下游服务的在途请求达到自适应并发上限且排队超时时抛出。
+ *
+ * @author wangguangwu
+ */
+public class ConcurrencyLimitExceededException extends RestClientException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ConcurrencyLimitExceededException(String serviceId) {
+        super("Concurrency limit exceeded for service " + serviceId);
+    }
+}
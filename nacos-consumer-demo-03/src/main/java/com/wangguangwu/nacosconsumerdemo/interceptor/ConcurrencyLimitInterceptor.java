@@ -0,0 +1,63 @@
+package com.wangguangwu.nacosconsumerdemo.interceptor;
+
+import com.wangguangwu.nacosconsumerdemo.manager.AdaptiveConcurrencyLimiter;
+import com.wangguangwu.nacosconsumerdemo.manager.RoutingTableManager;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+/**
+ * 自定义拦截器，按下游服务名对请求做自适应并发限制，见 {@link AdaptiveConcurrencyLimiter}。
+ * <p>
+ * 并发额度在响应体关闭时归还，响应时间同样计算到响应体关闭为止；IO 异常视为请求被丢弃，使上限收缩。
+ * 超过上限且排队超时的请求直接抛出 {@link ConcurrencyLimitExceededException}，不再发往下游。
+ * <p>
+ * 该拦截器必须位于 {@link ConnectionCountingInterceptor} 与 {@code LoadBalancerInterceptor} 之前，
+ * 此时请求地址中的主机名仍是服务名。
+ *
+ * @author wangguangwu
+ */
+@Component
+public class ConcurrencyLimitInterceptor implements ClientHttpRequestInterceptor {
+
+    @Resource
+    private RoutingTableManager routingTableManager;
+
+    @Override
+    public ClientHttpResponse intercept(final HttpRequest request, final byte[] body,
+                                        ClientHttpRequestExecution execution) throws IOException {
+        String serviceId = request.getURI().getHost();
+        AdaptiveConcurrencyLimiter limiter = serviceId == null ? null : routingTableManager.getRoute(serviceId).getConcurrencyLimiter();
+        if (limiter == null) {
+            return execution.execute(request, body);
+        }
+        try {
+            if (!limiter.tryAcquire()) {
+                throw new ConcurrencyLimitExceededException(serviceId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for concurrency limit of service " + serviceId);
+        }
+
+        long startNanos = System.nanoTime();
+        ClientHttpResponse response;
+        try {
+            response = execution.execute(request, body);
+        } catch (IOException e) {
+            limiter.release(System.nanoTime() - startNanos, true);
+            throw e;
+        } catch (RuntimeException e) {
+            limiter.release(0L, false);
+            throw e;
+        }
+        return new ConnectionReleasingClientHttpResponse(response,
+                () -> limiter.release(System.nanoTime() - startNanos, false));
+    }
+}
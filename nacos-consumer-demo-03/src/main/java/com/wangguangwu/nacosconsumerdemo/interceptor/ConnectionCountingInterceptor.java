@@ -1,10 +1,9 @@
 package com.wangguangwu.nacosconsumerdemo.interceptor;
 
+import com.wangguangwu.nacosconsumerdemo.lifecycle.ConnectionCountingLoadBalancerLifecycle;
+import com.wangguangwu.nacosconsumerdemo.lifecycle.InFlightRequestScope;
 import com.wangguangwu.nacosconsumerdemo.loadBalancer.LeastConnectionsRoutingLoadBalancer;
-import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounterManager;
-import com.wangguangwu.nacosconsumerdemo.manager.LoadBalancerManager;
 import org.springframework.cloud.client.ServiceInstance;
-import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
 import org.springframework.http.HttpRequest;
 import org.springframework.http.client.ClientHttpRequestExecution;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
@@ -16,9 +15,13 @@ import java.io.IOException;
 
 /**
  * 自定义拦截器，适配 {@link LeastConnectionsRoutingLoadBalancer 自定义最小连接数策略}，
- * 在请求前后管理连接记录。
+ * 将连接计数的释放时机延长到响应体关闭。
  * <p>
- * 根据请求的服务名动态选择适当的 LoadBalancer 进行服务实例的选择。
+ * 实例的选择和计数都由负载均衡器完成，计数发生在 {@link ConnectionCountingLoadBalancerLifecycle} 中，
+ * 针对的是实际被调用的实例。本拦截器只为当前请求打开 {@link InFlightRequestScope}，
+ * 并在请求成功时包装响应，使计数在响应体关闭后才释放。
+ * <p>
+ * 该拦截器必须位于 {@code LoadBalancerInterceptor} 之前，即在 {@code @LoadBalanced} 生效前加入拦截器列表。
  *
  * @author wangguangwu
  */
@@ -26,72 +29,55 @@ import java.io.IOException;
 public class ConnectionCountingInterceptor implements ClientHttpRequestInterceptor {
 
     /**
-     * 负载均衡客户端，用于选择服务实例
-     */
-    @Resource
-    private LoadBalancerClient loadBalancerClient;
-
-    /**
-     * 连接计数器管理类
-     */
-    @Resource
-    private ConnectionCounterManager connectionCounterManager;
-
-    /**
-     * 负载均衡器实例管理器
+     * 连接计数生命周期回调
      */
     @Resource
-    private LoadBalancerManager loadBalancerManager;
+    private ConnectionCountingLoadBalancerLifecycle connectionCountingLoadBalancerLifecycle;
 
     /**
-     * 拦截 HTTP 请求，根据请求的服务名动态选择服务实例，并管理连接计数。
+     * 拦截 HTTP 请求，在负载均衡器选中实例并完成请求后接管连接计数的释放。
      *
      * @param request   当前的 HTTP 请求
      * @param body      请求体
      * @param execution 请求执行器
-     * @return HTTP 响应
+     * @return HTTP 响应，响应体关闭时释放连接计数
      * @throws IOException 如果请求执行失败
      */
     @Override
-    @SuppressWarnings("all")
     public ClientHttpResponse intercept(final HttpRequest request, final byte[] body,
                                         ClientHttpRequestExecution execution) throws IOException {
-        // 获取请求的服务名
-        String serviceName = request.getURI().getHost();
-
-        // 通过 LoadBalancerClient 动态选择服务实例
-        ServiceInstance serviceInstance = loadBalancerClient.choose(serviceName);
-
-        // 检查是否配置了 LeastConnectionsRoutingLoadBalancer 策略
-        if (serviceInstance == null) {
-            throw new UnsupportedOperationException("No available service instance found for request");
-        }
-
-        // 增加连接计数，如果该服务使用了 LeastConnectionsRoutingLoadBalancer
-        if (isUsingLeastConnectionsRoutingLoadBalancer(serviceName)) {
-            connectionCounterManager.incrementConnectionCount(serviceInstance);
-        }
-
+        InFlightRequestScope scope = InFlightRequestScope.open();
         ClientHttpResponse response;
         try {
-            // 发出请求
+            // 发出请求，负载均衡器在此期间选择实例并增加连接计数
             response = execution.execute(request, body);
+        } catch (IOException | RuntimeException e) {
+            releaseDeferred(scope);
+            throw e;
         } finally {
-            // 减少连接数，如果该服务使用了 LeastConnectionsRoutingLoadBalancer
-            if (isUsingLeastConnectionsRoutingLoadBalancer(serviceName)) {
-                connectionCounterManager.decrementConnectionCount(serviceInstance);
-            }
+            scope.close();
+        }
+
+        long startNanos = scope.getStartNanos();
+        ServiceInstance instance = scope.takeDeferredInstance();
+        if (instance == null) {
+            return response;
         }
-        return response;
+        // 响应体关闭时减少连接数
+        return new ConnectionReleasingClientHttpResponse(response,
+                () -> connectionCountingLoadBalancerLifecycle.release(instance, startNanos, true));
     }
 
     /**
-     * 检查指定的服务是否使用了 LeastConnectionsRoutingLoadBalancer。
+     * 请求异常时释放已移交给作用域的连接计数。
      *
-     * @param serviceName 服务名
-     * @return 如果服务使用了 LeastConnectionsRoutingLoadBalancer，返回 true，否则返回 false。
+     * @param scope 当前请求的作用域
      */
-    private boolean isUsingLeastConnectionsRoutingLoadBalancer(String serviceName) {
-        return loadBalancerManager.getLoadBalancer(serviceName) instanceof LeastConnectionsRoutingLoadBalancer;
+    private void releaseDeferred(InFlightRequestScope scope) {
+        long startNanos = scope.getStartNanos();
+        ServiceInstance instance = scope.takeDeferredInstance();
+        if (instance != null) {
+            connectionCountingLoadBalancerLifecycle.release(instance, startNanos, false);
+        }
     }
 }
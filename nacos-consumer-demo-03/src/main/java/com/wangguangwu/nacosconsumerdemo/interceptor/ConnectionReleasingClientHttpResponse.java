@@ -0,0 +1,73 @@
+package com.wangguangwu.nacosconsumerdemo.interceptor;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 在响应体关闭时执行释放动作（如释放连接计数、并发额度）的 {@link ClientHttpResponse} 包装类。
+ *
+ * @author wangguangwu
+ */
+class ConnectionReleasingClientHttpResponse implements ClientHttpResponse {
+
+    /**
+     * 被包装的响应
+     */
+    private final ClientHttpResponse delegate;
+
+    /**
+     * 响应关闭时执行的释放动作
+     */
+    private final Runnable releaseAction;
+
+    /**
+     * 是否已经释放，保证释放动作只执行一次
+     */
+    private boolean released;
+
+    ConnectionReleasingClientHttpResponse(ClientHttpResponse delegate, Runnable releaseAction) {
+        this.delegate = delegate;
+        this.releaseAction = releaseAction;
+    }
+
+    @Override
+    public HttpStatus getStatusCode() throws IOException {
+        return delegate.getStatusCode();
+    }
+
+    @Override
+    public int getRawStatusCode() throws IOException {
+        return delegate.getRawStatusCode();
+    }
+
+    @Override
+    public String getStatusText() throws IOException {
+        return delegate.getStatusText();
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return delegate.getHeaders();
+    }
+
+    @Override
+    public InputStream getBody() throws IOException {
+        return delegate.getBody();
+    }
+
+    @Override
+    public void close() {
+        try {
+            delegate.close();
+        } finally {
+            if (!released) {
+                released = true;
+                releaseAction.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.wangguangwu.nacosconsumerdemo.interceptor;
+
+import com.wangguangwu.nacosconsumerdemo.manager.ResponseCache;
+import com.wangguangwu.nacosconsumerdemo.manager.RoutingTableManager;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 自定义拦截器，对配置了缓存规则的服务的 GET 请求按路径和查询参数缓存响应，见 {@link ResponseCache}。
+ * <p>
+ * 同一路径的并发未命中请求只有一个发往下游，其余请求等待并共享它的结果；
+ * 只有 200 且未声明 {@code Cache-Control: no-store} 的响应会被缓存，不可缓存时等待者各自发出请求。
+ * 缓存过期但仍在 stale-while-revalidate 时长内时，抢到刷新权的请求同步刷新缓存，其余请求直接返回旧响应。
+ * <p>
+ * 该拦截器必须位于 {@link ConcurrencyLimitInterceptor} 之前，命中缓存的请求不占用并发额度，
+ * 也不会进入负载均衡。
+ *
+ * @author wangguangwu
+ */
+@Component
+public class ResponseCachingInterceptor implements ClientHttpRequestInterceptor {
+
+    @Resource
+    private RoutingTableManager routingTableManager;
+
+    @Override
+    public ClientHttpResponse intercept(final HttpRequest request, final byte[] body,
+                                        ClientHttpRequestExecution execution) throws IOException {
+        String serviceId = request.getURI().getHost();
+        ResponseCache cache = request.getMethod() != HttpMethod.GET || serviceId == null
+                ? null : routingTableManager.getRoute(serviceId).getResponseCache();
+        if (cache == null) {
+            return execution.execute(request, body);
+        }
+        String key = keyOf(request.getURI());
+        ResponseCache.Entry entry = cache.get(key, System.nanoTime());
+        if (entry != null && entry.isFresh(System.nanoTime())) {
+            cache.recordHit();
+            return entry.getResponse();
+        }
+
+        CompletableFuture<ClientHttpResponse> future = new CompletableFuture<>();
+        CompletableFuture<ClientHttpResponse> leader = cache.register(key, future);
+        if (leader != null) {
+            if (entry != null) {
+                // 已有请求在刷新，先返回旧响应
+                cache.recordStaleHit();
+                return entry.getResponse();
+            }
+            cache.recordCoalesced();
+            ClientHttpResponse shared = await(leader, serviceId);
+            return shared != null ? shared : execution.execute(request, body);
+        }
+
+        if (entry != null) {
+            cache.recordStaleHit();
+        } else {
+            cache.recordMiss();
+        }
+        ClientHttpResponse response;
+        try {
+            response = execution.execute(request, body);
+        } catch (IOException | RuntimeException e) {
+            cache.fail(key, future, e);
+            throw e;
+        }
+        if (!isCacheable(response)) {
+            cache.complete(key, future, null, System.nanoTime());
+            return response;
+        }
+        ClientHttpResponse cached;
+        try {
+            cached = CachedClientHttpResponse.copyOf(response);
+        } catch (IOException | RuntimeException e) {
+            cache.fail(key, future, e);
+            throw e;
+        }
+        cache.complete(key, future, cached, System.nanoTime());
+        return cached;
+    }
+
+    /**
+     * 等待同路径请求的结果，该请求失败时抛出同样的异常。
+     *
+     * @return 共享的响应，响应不可缓存时返回 null
+     */
+    private static ClientHttpResponse await(CompletableFuture<ClientHttpResponse> leader, String serviceId) throws IOException {
+        try {
+            return leader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for cached response of service " + serviceId);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static boolean isCacheable(ClientHttpResponse response) throws IOException {
+        if (response.getRawStatusCode() != HttpStatus.OK.value()) {
+            return false;
+        }
+        List<String> cacheControl = response.getHeaders().get(HttpHeaders.CACHE_CONTROL);
+        return cacheControl == null || cacheControl.stream()
+                .noneMatch(value -> value.toLowerCase().contains(CacheControl.noStore().getHeaderValue()));
+    }
+
+    private static String keyOf(URI uri) {
+        String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        return uri.getRawQuery() == null ? path : path + "?" + uri.getRawQuery();
+    }
+}
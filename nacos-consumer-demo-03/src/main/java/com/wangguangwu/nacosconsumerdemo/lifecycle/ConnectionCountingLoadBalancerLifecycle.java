@@ -0,0 +1,174 @@
+package com.wangguangwu.nacosconsumerdemo.lifecycle;
+
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.ConnectionCountingLoadBalancer;
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.LeastConnectionsRoutingLoadBalancer;
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.ResponseTimeAwareLoadBalancer;
+import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounterManager;
+import com.wangguangwu.nacosconsumerdemo.manager.RoutingTableManager;
+import com.wangguangwu.nacosconsumerdemo.manager.ServiceRoute;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+
+/**
+ * 基于 Spring Cloud LoadBalancer 生命周期的在途请求计数，适配
+ * {@link LeastConnectionsRoutingLoadBalancer 自定义最小连接数策略}等 {@link ConnectionCountingLoadBalancer}。
+ * <p>
+ * 计数发生在 {@link #onStartRequest} 中，针对的是负载均衡器本次实际选中并用于发送请求的实例，
+ * 因此被计数的实例与被调用的实例始终一致。RestTemplate、WebClient 等基于 Spring Cloud LoadBalancer
+ * 的客户端都会回调该生命周期。
+ * <p>
+ * 如果请求带有 {@link InFlightRequestScope}（阻塞调用绑定在当前线程上，响应式调用放在请求属性中），
+ * 请求成功时计数会移交给作用域持有者释放（阻塞调用在响应体关闭时，响应式调用在收到响应时）；
+ * 请求失败或被丢弃时立即释放。
+ * <p>
+ * 成功请求在释放计数时还会把往返耗时回传给 {@link ResponseTimeAwareLoadBalancer}。
+ *
+ * @author wangguangwu
+ */
+@Component
+public class ConnectionCountingLoadBalancerLifecycle implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    /**
+     * 连接计数器管理类
+     */
+    @Resource
+    private ConnectionCounterManager connectionCounterManager;
+
+    /**
+     * 预先解析的路由表，用于判断服务使用的负载均衡策略
+     */
+    @Resource
+    private RoutingTableManager routingTableManager;
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+        // 选择实例之前无需处理
+    }
+
+    /**
+     * 负载均衡器选中实例、即将发送请求时增加该实例的连接计数。
+     *
+     * @param request    负载均衡请求
+     * @param lbResponse 负载均衡器选中的实例
+     */
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (!lbResponse.hasServer()) {
+            return;
+        }
+        ServiceInstance instance = lbResponse.getServer();
+        if (!isUsingConnectionCountingLoadBalancer(instance.getServiceId())) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        if (request.getContext() instanceof TimedRequestContext) {
+            ((TimedRequestContext) request.getContext()).setRequestStartTime(startNanos);
+        }
+        connectionCounterManager.incrementConnectionCount(instance);
+        InFlightRequestScope scope = scopeOf(request);
+        if (scope != null && !scope.track(instance, startNanos)) {
+            // 请求在选中实例前已被取消
+            release(instance, startNanos, false);
+        }
+    }
+
+    /**
+     * 请求结束时释放连接计数。
+     * <p>
+     * 带有 {@link InFlightRequestScope} 的成功请求由作用域持有者释放。
+     *
+     * @param completionContext 请求完成上下文
+     */
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        if (completionContext.status() == CompletionContext.Status.DISCARD) {
+            return;
+        }
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+        ServiceInstance instance = lbResponse.getServer();
+        boolean success = completionContext.status() == CompletionContext.Status.SUCCESS;
+        InFlightRequestScope scope = scopeOf(completionContext.getLoadBalancerRequest());
+        if (scope != null) {
+            if (success && scope.defer(instance)) {
+                return;
+            }
+            if (!scope.untrack(instance)) {
+                // 计数已随请求取消释放
+                return;
+            }
+        }
+        Object context = completionContext.getLoadBalancerRequest().getContext();
+        long startNanos = context instanceof TimedRequestContext ? ((TimedRequestContext) context).getRequestStartTime() : 0L;
+        release(instance, startNanos, success);
+    }
+
+    /**
+     * 释放指定实例的一次连接计数并记录调用耗时，请求成功时回传往返耗时。
+     *
+     * @param instance   服务实例
+     * @param startNanos 请求开始时间，单位纳秒，未知时为 0
+     * @param success    请求是否成功
+     */
+    public void release(ServiceInstance instance, long startNanos, boolean success) {
+        ServiceRoute route = routingTableManager.getRoute(instance.getServiceId());
+        if (!route.isConnectionCounting()) {
+            return;
+        }
+        long elapsedNanos = startNanos == 0L ? 0L : System.nanoTime() - startNanos;
+        if (startNanos != 0L) {
+            // 先记录耗时再释放计数，已下线实例的计数槽可能随释放一并回收
+            connectionCounterManager.recordLatency(instance, elapsedNanos, success);
+        }
+        connectionCounterManager.decrementConnectionCount(instance);
+        ResponseTimeAwareLoadBalancer responseTimeAware = route.getResponseTimeAware();
+        if (success && startNanos != 0L && responseTimeAware != null) {
+            responseTimeAware.recordResponseTime(instance, elapsedNanos);
+        }
+    }
+
+    /**
+     * 获取请求的在途请求作用域，优先从响应式请求的属性中获取，其次从当前线程获取。
+     *
+     * @param request 负载均衡请求
+     * @return 在途请求作用域，不存在时返回 null
+     */
+    private InFlightRequestScope scopeOf(Request<?> request) {
+        Object context = request == null ? null : request.getContext();
+        if (context instanceof RequestDataContext) {
+            RequestData clientRequest = ((RequestDataContext) context).getClientRequest();
+            Object scope = clientRequest == null || clientRequest.getAttributes() == null
+                    ? null : clientRequest.getAttributes().get(InFlightRequestScope.ATTRIBUTE);
+            if (scope instanceof InFlightRequestScope) {
+                return (InFlightRequestScope) scope;
+            }
+        }
+        return InFlightRequestScope.current();
+    }
+
+    /**
+     * 检查指定的服务是否使用了依赖连接计数的负载均衡器。
+     *
+     * @param serviceName 服务名
+     * @return 如果服务使用了 ConnectionCountingLoadBalancer，返回 true，否则返回 false。
+     */
+    private boolean isUsingConnectionCountingLoadBalancer(String serviceName) {
+        return routingTableManager.getRoute(serviceName).isConnectionCounting();
+    }
+}
@@ -0,0 +1,46 @@
+package com.wangguangwu.nacosconsumerdemo.lifecycle;
+
+import com.wangguangwu.nacosconsumerdemo.manager.HttpClientConnectionPoolManager;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+
+/**
+ * 把负载均衡选中实例所属的服务登记到 {@link HttpClientConnectionPoolManager}，
+ * 使连接池只与实际调用过的服务对账。
+ *
+ * @author wangguangwu
+ */
+@Component
+public class ConnectionPoolLoadBalancerLifecycle implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    @Resource
+    private HttpClientConnectionPoolManager httpClientConnectionPoolManager;
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+        // 选择实例之前无需处理
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (lbResponse.hasServer()) {
+            httpClientConnectionPoolManager.registerService(lbResponse.getServer().getServiceId());
+        }
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        // 连接由连接池自行回收
+    }
+}
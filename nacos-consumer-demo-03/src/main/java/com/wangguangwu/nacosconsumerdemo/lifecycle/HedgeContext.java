@@ -0,0 +1,93 @@
+package com.wangguangwu.nacosconsumerdemo.lifecycle;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+
+/**
+ * 对冲请求中单次尝试的上下文，放在 WebClient 请求属性 {@link #ATTRIBUTE} 中传递。
+ * <p>
+ * 首次请求选中的实例由 {@link HedgeLoadBalancerLifecycle} 记录，
+ * 对冲请求在选择实例时据此排除该实例，保证两次尝试落在不同的实例上。
+ *
+ * @author wangguangwu
+ */
+public final class HedgeContext {
+
+    /**
+     * 保存上下文的请求属性名
+     */
+    public static final String ATTRIBUTE = HedgeContext.class.getName();
+
+    /**
+     * 首次请求的上下文，首次请求本身为 null
+     */
+    private final HedgeContext primary;
+
+    /**
+     * 本次尝试选中的实例
+     */
+    private volatile ServiceInstance instance;
+
+    private HedgeContext(HedgeContext primary) {
+        this.primary = primary;
+    }
+
+    /**
+     * 创建首次请求的上下文。
+     *
+     * @return 首次请求的上下文
+     */
+    public static HedgeContext primary() {
+        return new HedgeContext(null);
+    }
+
+    /**
+     * 创建对冲请求的上下文。
+     *
+     * @return 对冲请求的上下文
+     */
+    public HedgeContext hedge() {
+        return new HedgeContext(this);
+    }
+
+    /**
+     * 是否为对冲请求。
+     *
+     * @return 对冲请求返回 true，首次请求返回 false
+     */
+    public boolean isHedge() {
+        return primary != null;
+    }
+
+    /**
+     * 获取对冲请求需要排除的实例。
+     *
+     * @return 首次请求选中的实例，首次请求或尚未选中时返回 null
+     */
+    public ServiceInstance getExcludedInstance() {
+        return primary == null ? null : primary.instance;
+    }
+
+    void setInstance(ServiceInstance instance) {
+        this.instance = instance;
+    }
+
+    /**
+     * 获取负载均衡请求中的对冲上下文。
+     *
+     * @param request 负载均衡请求
+     * @return 对冲上下文，不存在时返回 null
+     */
+    public static HedgeContext from(Request<?> request) {
+        Object context = request == null ? null : request.getContext();
+        if (!(context instanceof RequestDataContext)) {
+            return null;
+        }
+        RequestData clientRequest = ((RequestDataContext) context).getClientRequest();
+        Object hedgeContext = clientRequest == null || clientRequest.getAttributes() == null
+                ? null : clientRequest.getAttributes().get(ATTRIBUTE);
+        return hedgeContext instanceof HedgeContext ? (HedgeContext) hedgeContext : null;
+    }
+}
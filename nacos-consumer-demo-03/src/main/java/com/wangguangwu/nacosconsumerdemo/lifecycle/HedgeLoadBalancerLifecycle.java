@@ -0,0 +1,40 @@
+package com.wangguangwu.nacosconsumerdemo.lifecycle;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.stereotype.Component;
+
+/**
+ * 记录对冲请求中每次尝试选中的实例，见 {@link HedgeContext}。
+ *
+ * @author wangguangwu
+ */
+@Component
+public class HedgeLoadBalancerLifecycle implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+        // 选择实例之前无需处理
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        HedgeContext hedgeContext = HedgeContext.from(request);
+        if (hedgeContext != null && lbResponse.hasServer()) {
+            hedgeContext.setInstance(lbResponse.getServer());
+        }
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        // 请求结束后无需处理
+    }
+}
@@ -0,0 +1,174 @@
+package com.wangguangwu.nacosconsumerdemo.lifecycle;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+/**
+ * 单次请求的在途请求作用域。
+ * <p>
+ * 由拦截器或过滤器在发起请求前创建，{@link ConnectionCountingLoadBalancerLifecycle} 在其中
+ * 登记负载均衡器实际选中并计数的实例。请求成功时计数交由作用域的持有者释放：
+ * 阻塞调用在响应体关闭时释放，响应式调用在收到响应时释放。
+ * <p>
+ * 阻塞调用（RestTemplate）通过 {@link #open()} 绑定到当前线程；
+ * 响应式调用（WebClient）通过 {@link #create()} 创建，并放入请求属性 {@link #ATTRIBUTE} 中传递。
+ *
+ * @author wangguangwu
+ */
+public final class InFlightRequestScope {
+
+    /**
+     * 响应式调用中保存作用域的请求属性名
+     */
+    public static final String ATTRIBUTE = InFlightRequestScope.class.getName();
+
+    private static final ThreadLocal<InFlightRequestScope> CURRENT = new ThreadLocal<>();
+
+    /**
+     * 外层作用域，支持同一线程内的嵌套调用
+     */
+    private final InFlightRequestScope previous;
+
+    /**
+     * 已计数、尚未释放的服务实例
+     */
+    private ServiceInstance trackedInstance;
+
+    /**
+     * 已登记实例的请求开始时间，单位纳秒
+     */
+    private long startNanos;
+
+    /**
+     * 计数是否已移交给作用域持有者延迟释放
+     */
+    private boolean deferred;
+
+    /**
+     * 请求是否已被取消，取消后不再登记新的实例
+     */
+    private boolean cancelled;
+
+    private InFlightRequestScope(InFlightRequestScope previous) {
+        this.previous = previous;
+    }
+
+    /**
+     * 在当前线程上打开一个新的作用域。
+     *
+     * @return 新的作用域
+     */
+    public static InFlightRequestScope open() {
+        InFlightRequestScope scope = new InFlightRequestScope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * 创建一个不绑定线程的作用域，供响应式调用通过请求属性传递。
+     *
+     * @return 新的作用域
+     */
+    public static InFlightRequestScope create() {
+        return new InFlightRequestScope(null);
+    }
+
+    /**
+     * 获取当前线程上的作用域。
+     *
+     * @return 当前作用域，不存在时返回 null
+     */
+    public static InFlightRequestScope current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 关闭作用域，恢复外层作用域。
+     */
+    public void close() {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * 登记一个已计数的服务实例。
+     *
+     * @param instance   服务实例
+     * @param startNanos 请求开始时间，单位纳秒
+     * @return 登记成功返回 true；请求已取消时返回 false，计数应由调用方立即释放
+     */
+    synchronized boolean track(ServiceInstance instance, long startNanos) {
+        if (cancelled) {
+            return false;
+        }
+        this.trackedInstance = instance;
+        this.startNanos = startNanos;
+        this.deferred = false;
+        return true;
+    }
+
+    /**
+     * 将已登记实例的计数移交给作用域持有者延迟释放。
+     *
+     * @param instance 服务实例
+     * @return 移交成功返回 true，实例未在本作用域登记时返回 false
+     */
+    synchronized boolean defer(ServiceInstance instance) {
+        if (trackedInstance != instance) {
+            return false;
+        }
+        this.deferred = true;
+        return true;
+    }
+
+    /**
+     * 请求失败时撤销登记，计数由生命周期回调直接释放。
+     *
+     * @param instance 服务实例
+     * @return 实例仍由本作用域登记时返回 true，此时调用方负责释放计数
+     */
+    synchronized boolean untrack(ServiceInstance instance) {
+        if (trackedInstance != instance) {
+            return false;
+        }
+        this.trackedInstance = null;
+        this.deferred = false;
+        return true;
+    }
+
+    /**
+     * 获取最近一次登记的请求开始时间。
+     *
+     * @return 请求开始时间，单位纳秒
+     */
+    public synchronized long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * 取出需要延迟释放的服务实例。
+     *
+     * @return 需要由作用域持有者释放计数的实例，没有则返回 null
+     */
+    public synchronized ServiceInstance takeDeferredInstance() {
+        ServiceInstance instance = deferred ? trackedInstance : null;
+        this.trackedInstance = null;
+        this.deferred = false;
+        return instance;
+    }
+
+    /**
+     * 取消请求，取出所有尚未释放计数的实例。
+     *
+     * @return 已计数但尚未释放的实例，没有则返回 null
+     */
+    public synchronized ServiceInstance cancel() {
+        ServiceInstance instance = trackedInstance;
+        this.cancelled = true;
+        this.trackedInstance = null;
+        this.deferred = false;
+        return instance;
+    }
+}
@@ -0,0 +1,75 @@
+package com.wangguangwu.nacosconsumerdemo.lifecycle;
+
+import com.wangguangwu.nacosconsumerdemo.constant.ServerLoadHeaderConstants;
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.ServerLoadAwareLoadBalancer;
+import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounterManager;
+import com.wangguangwu.nacosconsumerdemo.manager.ServerLoad;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+
+/**
+ * 读取服务提供者在响应头中上报的负载，记录到对应实例的连接计数槽中，
+ * 供 {@link ServerLoadAwareLoadBalancer} 使用。
+ *
+ * @author wangguangwu
+ */
+@Component
+public class ServerLoadFeedbackLoadBalancerLifecycle implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    /**
+     * 连接计数器管理类
+     */
+    @Resource
+    private ConnectionCounterManager connectionCounterManager;
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+        // 选择实例之前无需处理
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        // 发送请求之前无需处理
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        if (completionContext.status() != CompletionContext.Status.SUCCESS
+                || !(completionContext.getClientResponse() instanceof ResponseData)) {
+            return;
+        }
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        HttpHeaders headers = ((ResponseData) completionContext.getClientResponse()).getHeaders();
+        if (lbResponse == null || !lbResponse.hasServer() || headers == null) {
+            return;
+        }
+        String inFlight = headers.getFirst(ServerLoadHeaderConstants.IN_FLIGHT);
+        if (inFlight == null) {
+            return;
+        }
+        try {
+            String utilization = headers.getFirst(ServerLoadHeaderConstants.UTILIZATION);
+            String p99Millis = headers.getFirst(ServerLoadHeaderConstants.P99_MILLIS);
+            ServerLoad serverLoad = new ServerLoad(Integer.parseInt(inFlight),
+                    utilization == null ? 0.0 : Double.parseDouble(utilization),
+                    p99Millis == null ? 0L : Long.parseLong(p99Millis),
+                    System.nanoTime());
+            connectionCounterManager.getConnectionCounter(lbResponse.getServer()).setServerLoad(serverLoad);
+        } catch (NumberFormatException e) {
+            // 忽略格式错误的负载信息
+        }
+    }
+}
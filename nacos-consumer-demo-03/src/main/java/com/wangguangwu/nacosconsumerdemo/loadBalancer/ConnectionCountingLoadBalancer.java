@@ -0,0 +1,14 @@
+package com.wangguangwu.nacosconsumerdemo.loadBalancer;
+
+import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounterManager;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+
+/**
+ * 依赖在途请求数选择实例的负载均衡器。
+ * <p>
+ * 使用此类负载均衡器的服务，请求会在负载均衡生命周期中通过 {@link ConnectionCounterManager} 计数。
+ *
+ * @author wangguangwu
+ */
+public interface ConnectionCountingLoadBalancer extends ReactorServiceInstanceLoadBalancer {
+}
@@ -1,11 +1,11 @@
 package com.wangguangwu.nacosconsumerdemo.loadBalancer;
 
 import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounterManager;
+import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounterTable;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.cloud.client.ServiceInstance;
-import org.springframework.cloud.client.loadbalancer.DefaultResponse;
 import org.springframework.cloud.client.loadbalancer.EmptyResponse;
 import org.springframework.cloud.client.loadbalancer.Request;
 import org.springframework.cloud.client.loadbalancer.Response;
@@ -23,10 +23,15 @@ import java.util.List;
  *
  * @author wangguangwu
  */
-public class LeastConnectionsRoutingLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+public class LeastConnectionsRoutingLoadBalancer implements ConnectionCountingLoadBalancer {
 
     private static final Log log = LogFactory.getLog(LeastConnectionsRoutingLoadBalancer.class);
 
+    /**
+     * 指标中的策略名
+     */
+    public static final String STRATEGY = "leastConnections";
+
     /**
      * 服务 Id，用于标识当前的服务实例
      */
@@ -80,7 +85,9 @@ public class LeastConnectionsRoutingLoadBalancer implements ReactorServiceInstan
      */
     private Response<ServiceInstance> processInstanceResponse(ServiceInstanceListSupplier supplier,
                                                               List<ServiceInstance> serviceInstances) {
+        long startNanos = System.nanoTime();
         Response<ServiceInstance> serviceInstanceResponse = getInstanceResponse(serviceInstances);
+        connectionCounterManager.recordChoose(serviceId, STRATEGY, serviceInstanceResponse, System.nanoTime() - startNanos);
         if (supplier instanceof SelectedInstanceCallback && serviceInstanceResponse.hasServer()) {
             ((SelectedInstanceCallback) supplier).selectedServiceInstance(serviceInstanceResponse.getServer());
         }
@@ -89,25 +96,31 @@ public class LeastConnectionsRoutingLoadBalancer implements ReactorServiceInstan
 
     /**
      * 从服务实例列表中选择连接数量最少的实例。
+     * <p>
+     * 实例列表未变化时复用已有的连接计数表，整个选择过程不分配对象。
      *
      * @param instances 服务实例列表
      * @return 包含选择的服务实例的响应
      */
-    private Response<ServiceInstance> getInstanceResponse(List<ServiceInstance> instances) {
+    Response<ServiceInstance> getInstanceResponse(List<ServiceInstance> instances) {
         if (instances.isEmpty()) {
             if (log.isWarnEnabled()) {
                 log.warn("No servers available for service: " + serviceId);
             }
             return new EmptyResponse();
         }
-        // 初始化连接数
-        connectionCounterManager.init(instances);
+        ConnectionCounterTable table = connectionCounterManager.getView(serviceId, instances);
 
         // 找到连接数最少的实例
-        ServiceInstance chosenInstance = instances.stream()
-                .min(connectionCounterManager::compare)
-                .orElse(instances.get(0));
-
-        return new DefaultResponse(chosenInstance);
+        int chosen = 0;
+        int leastConnections = table.getCounter(0).get();
+        for (int slot = 1; slot < table.size(); slot++) {
+            int connections = table.getCounter(slot).get();
+            if (connections < leastConnections) {
+                leastConnections = connections;
+                chosen = slot;
+            }
+        }
+        return table.getResponse(chosen);
     }
 }
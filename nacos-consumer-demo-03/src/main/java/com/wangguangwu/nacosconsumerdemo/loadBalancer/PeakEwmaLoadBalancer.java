@@ -0,0 +1,164 @@
+package com.wangguangwu.nacosconsumerdemo.loadBalancer;
+
+import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounter;
+import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounterManager;
+import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounterTable;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 自定义负载均衡策略实现，基于响应时间的峰值指数加权移动平均（Peak EWMA）选择服务实例。
+ * <p>
+ * 每个实例的得分为“响应时间均值 ×（在途请求数 + 1）”，选择得分最低的实例。
+ * 尚无响应时间样本但已有在途请求的实例排在其他实例之后，彼此之间按在途请求数比较，
+ * 避免首个样本返回前把所有请求都压到新实例上。
+ * 响应时间样本来自负载均衡生命周期，与连接计数使用同一个请求钩子。
+ * 与只看在途请求数的 {@link LeastConnectionsRoutingLoadBalancer} 相比，
+ * 能更快地避开同名服务中明显偏慢的实例。
+ *
+ * @author wangguangwu
+ */
+public class PeakEwmaLoadBalancer implements ConnectionCountingLoadBalancer, ResponseTimeAwareLoadBalancer {
+
+    private static final Log log = LogFactory.getLog(PeakEwmaLoadBalancer.class);
+
+    /**
+     * 指标中的策略名
+     */
+    public static final String STRATEGY = "peakEwma";
+
+    /**
+     * 服务 Id，用于标识当前的服务实例
+     */
+    private final String serviceId;
+
+    /**
+     * 提供服务实例列表的供应者
+     */
+    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+
+    /**
+     * 连接计数器管理类
+     */
+    private final ConnectionCounterManager connectionCounterManager;
+
+    /**
+     * 响应时间均值的衰减窗口，单位纳秒
+     */
+    private final long decayNanos;
+
+    /**
+     * 构造函数，初始化负载均衡器。
+     *
+     * @param serviceInstanceListSupplierProvider 服务实例列表的供应者
+     * @param serviceId                           服务标识符
+     * @param connectionCounterManager            连接计数器管理类
+     * @param decayWindow                         响应时间均值的衰减窗口
+     */
+    public PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                                String serviceId,
+                                ConnectionCounterManager connectionCounterManager,
+                                Duration decayWindow) {
+        this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.serviceId = serviceId;
+        this.connectionCounterManager = connectionCounterManager;
+        this.decayNanos = Math.max(decayWindow.toNanos(), 1L);
+    }
+
+    /**
+     * 选择一个得分最低的服务实例。
+     *
+     * @param request 当前的负载均衡请求
+     * @return 包含选择的服务实例的响应
+     */
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider
+                .getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next()
+                .map(serviceInstances -> processInstanceResponse(supplier, serviceInstances));
+    }
+
+    /**
+     * 记录一次成功请求的往返耗时，更新实例的响应时间均值。
+     *
+     * @param instance          被调用的服务实例
+     * @param responseTimeNanos 往返耗时，单位纳秒
+     */
+    @Override
+    public void recordResponseTime(ServiceInstance instance, long responseTimeNanos) {
+        connectionCounterManager.getConnectionCounter(instance).getPeakEwma()
+                .observe(responseTimeNanos, System.nanoTime(), decayNanos);
+    }
+
+    /**
+     * 处理服务实例列表，返回得分最低的服务实例。
+     *
+     * @param supplier         服务实例列表供应者
+     * @param serviceInstances 服务实例列表
+     * @return 包含选择的服务实例的响应
+     */
+    private Response<ServiceInstance> processInstanceResponse(ServiceInstanceListSupplier supplier,
+                                                              List<ServiceInstance> serviceInstances) {
+        long startNanos = System.nanoTime();
+        Response<ServiceInstance> serviceInstanceResponse = getInstanceResponse(serviceInstances);
+        connectionCounterManager.recordChoose(serviceId, STRATEGY, serviceInstanceResponse, System.nanoTime() - startNanos);
+        if (supplier instanceof SelectedInstanceCallback && serviceInstanceResponse.hasServer()) {
+            ((SelectedInstanceCallback) supplier).selectedServiceInstance(serviceInstanceResponse.getServer());
+        }
+        return serviceInstanceResponse;
+    }
+
+    /**
+     * 从服务实例列表中选择得分最低的实例。
+     * <p>
+     * 从随机位置开始扫描，得分相同时不会总是落在列表中的第一个实例上。
+     *
+     * @param instances 服务实例列表
+     * @return 包含选择的服务实例的响应
+     */
+    Response<ServiceInstance> getInstanceResponse(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            if (log.isWarnEnabled()) {
+                log.warn("No servers available for service: " + serviceId);
+            }
+            return new EmptyResponse();
+        }
+        ConnectionCounterTable table = connectionCounterManager.getView(serviceId, instances);
+        int size = table.size();
+        long now = System.nanoTime();
+        int offset = size == 1 ? 0 : ThreadLocalRandom.current().nextInt(size);
+
+        int chosen = -1;
+        boolean chosenCold = false;
+        double lowestScore = 0.0;
+        for (int i = 0; i < size; i++) {
+            int slot = (offset + i) % size;
+            ConnectionCounter counter = table.getCounter(slot);
+            int inFlight = counter.get();
+            double cost = counter.getPeakEwma().getCost(now, decayNanos);
+            // 无样本且有在途请求的实例单独成一档，档内只比较在途请求数
+            boolean cold = cost == 0.0 && inFlight > 0;
+            double score = cold ? inFlight : cost * (inFlight + 1);
+            if (chosen < 0 || (cold == chosenCold ? score < lowestScore : chosenCold)) {
+                chosen = slot;
+                chosenCold = cold;
+                lowestScore = score;
+            }
+        }
+        return table.getResponse(chosen);
+    }
+}
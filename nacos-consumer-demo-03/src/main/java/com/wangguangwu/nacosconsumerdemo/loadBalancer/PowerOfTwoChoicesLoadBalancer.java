@@ -0,0 +1,129 @@
+package com.wangguangwu.nacosconsumerdemo.loadBalancer;
+
+import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounterManager;
+import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounterTable;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 自定义负载均衡策略实现，基于“二选一”（Power of Two Choices）选择服务实例。
+ * <p>
+ * 每次请求随机抽取两个不同的实例，选择其中在途请求数较少的一个。
+ * 与 {@link LeastConnectionsRoutingLoadBalancer} 扫描全部实例不同，每次选择的代价是常数，
+ * 与实例数量无关；随机抽样也避免了并发请求读到相同计数后同时涌向同一个“最空闲”实例。
+ *
+ * @author wangguangwu
+ */
+public class PowerOfTwoChoicesLoadBalancer implements ConnectionCountingLoadBalancer {
+
+    private static final Log log = LogFactory.getLog(PowerOfTwoChoicesLoadBalancer.class);
+
+    /**
+     * 指标中的策略名
+     */
+    public static final String STRATEGY = "powerOfTwoChoices";
+
+    /**
+     * 服务 Id，用于标识当前的服务实例
+     */
+    private final String serviceId;
+
+    /**
+     * 提供服务实例列表的供应者
+     */
+    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+
+    /**
+     * 连接计数器管理类
+     */
+    private final ConnectionCounterManager connectionCounterManager;
+
+    /**
+     * 构造函数，初始化负载均衡器。
+     *
+     * @param serviceInstanceListSupplierProvider 服务实例列表的供应者
+     * @param serviceId                           服务标识符
+     * @param connectionCounterManager            连接计数器管理类
+     */
+    public PowerOfTwoChoicesLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                                         String serviceId,
+                                         ConnectionCounterManager connectionCounterManager) {
+        this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.serviceId = serviceId;
+        this.connectionCounterManager = connectionCounterManager;
+    }
+
+    /**
+     * 从随机抽取的两个实例中选择连接数较少的一个。
+     *
+     * @param request 当前的负载均衡请求
+     * @return 包含选择的服务实例的响应
+     */
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider
+                .getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next()
+                .map(serviceInstances -> processInstanceResponse(supplier, serviceInstances));
+    }
+
+    /**
+     * 处理服务实例列表，返回选中的服务实例。
+     *
+     * @param supplier         服务实例列表供应者
+     * @param serviceInstances 服务实例列表
+     * @return 包含选择的服务实例的响应
+     */
+    private Response<ServiceInstance> processInstanceResponse(ServiceInstanceListSupplier supplier,
+                                                              List<ServiceInstance> serviceInstances) {
+        long startNanos = System.nanoTime();
+        Response<ServiceInstance> serviceInstanceResponse = getInstanceResponse(serviceInstances);
+        connectionCounterManager.recordChoose(serviceId, STRATEGY, serviceInstanceResponse, System.nanoTime() - startNanos);
+        if (supplier instanceof SelectedInstanceCallback && serviceInstanceResponse.hasServer()) {
+            ((SelectedInstanceCallback) supplier).selectedServiceInstance(serviceInstanceResponse.getServer());
+        }
+        return serviceInstanceResponse;
+    }
+
+    /**
+     * 随机抽取两个不同的实例，返回连接数较少的一个，连接数相同时取第一个。
+     *
+     * @param instances 服务实例列表
+     * @return 包含选择的服务实例的响应
+     */
+    Response<ServiceInstance> getInstanceResponse(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            if (log.isWarnEnabled()) {
+                log.warn("No servers available for service: " + serviceId);
+            }
+            return new EmptyResponse();
+        }
+        ConnectionCounterTable table = connectionCounterManager.getView(serviceId, instances);
+        int size = table.size();
+        if (size == 1) {
+            return table.getResponse(0);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        // 在剩余的 size - 1 个实例中抽取第二个，保证两者不同
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        int chosen = table.getCounter(second).get() < table.getCounter(first).get() ? second : first;
+        return table.getResponse(chosen);
+    }
+}
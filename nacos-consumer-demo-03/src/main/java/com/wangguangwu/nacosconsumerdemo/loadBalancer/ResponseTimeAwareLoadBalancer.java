@@ -0,0 +1,22 @@
+package com.wangguangwu.nacosconsumerdemo.loadBalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+
+/**
+ * 依赖实测响应时间选择实例的负载均衡器。
+ * <p>
+ * 请求结束时，负载均衡生命周期会把该请求的往返耗时回传给负载均衡器。
+ *
+ * @author wangguangwu
+ */
+public interface ResponseTimeAwareLoadBalancer extends ReactorServiceInstanceLoadBalancer {
+
+    /**
+     * 记录一次成功请求的往返耗时。
+     *
+     * @param instance          被调用的服务实例
+     * @param responseTimeNanos 往返耗时，单位纳秒
+     */
+    void recordResponseTime(ServiceInstance instance, long responseTimeNanos);
+}
@@ -0,0 +1,39 @@
+package com.wangguangwu.nacosconsumerdemo.loadBalancer;
+
+/**
+ * 可在运行时切换的负载均衡策略，见 {@link SwitchableLoadBalancer}。
+ *
+ * @author wangguangwu
+ */
+public enum RoutingStrategy {
+
+    /**
+     * Spring Cloud LoadBalancer 默认的轮询
+     */
+    ROUND_ROBIN,
+
+    /**
+     * 随机
+     */
+    RANDOM,
+
+    /**
+     * 最小连接数，见 {@link LeastConnectionsRoutingLoadBalancer}
+     */
+    LEAST_CONNECTIONS,
+
+    /**
+     * 两次随机选择，见 {@link PowerOfTwoChoicesLoadBalancer}
+     */
+    POWER_OF_TWO_CHOICES,
+
+    /**
+     * Peak EWMA，见 {@link PeakEwmaLoadBalancer}
+     */
+    PEAK_EWMA,
+
+    /**
+     * 服务端负载反馈，见 {@link ServerLoadAwareLoadBalancer}
+     */
+    SERVER_LOAD_AWARE
+}
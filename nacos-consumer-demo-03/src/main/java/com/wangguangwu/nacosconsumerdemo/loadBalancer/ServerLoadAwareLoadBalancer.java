@@ -0,0 +1,166 @@
+package com.wangguangwu.nacosconsumerdemo.loadBalancer;
+
+import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounter;
+import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounterManager;
+import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounterTable;
+import com.wangguangwu.nacosconsumerdemo.manager.ServerLoad;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 自定义负载均衡策略实现，结合本地在途请求数与服务提供者上报的负载选择服务实例。
+ * <p>
+ * 本地计数只包含当前消费者发出的请求，消费者有多个副本时无法看到其他副本的压力；
+ * 提供者在响应头中上报的在途请求数则包含所有消费者的请求。每个实例的得分为：
+ * <pre>
+ * (max(本地在途请求数, 上报在途请求数 × 衰减) + 1) × (1 + 线程池使用率 × 衰减)
+ * </pre>
+ * 衰减按上报的时效以半衰期指数衰减，长时间没有上报的实例逐渐退回只看本地计数。
+ * 得分相同时选择上报 P99 较低的实例。
+ *
+ * @author wangguangwu
+ */
+public class ServerLoadAwareLoadBalancer implements ConnectionCountingLoadBalancer {
+
+    private static final Log log = LogFactory.getLog(ServerLoadAwareLoadBalancer.class);
+
+    /**
+     * 指标中的策略名
+     */
+    public static final String STRATEGY = "serverLoadAware";
+
+    private static final double LN_2 = Math.log(2);
+
+    /**
+     * 服务 Id，用于标识当前的服务实例
+     */
+    private final String serviceId;
+
+    /**
+     * 提供服务实例列表的供应者
+     */
+    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+
+    /**
+     * 连接计数器管理类
+     */
+    private final ConnectionCounterManager connectionCounterManager;
+
+    /**
+     * 上报负载的半衰期，单位纳秒
+     */
+    private final double halfLifeNanos;
+
+    /**
+     * 构造函数，初始化负载均衡器。
+     *
+     * @param serviceInstanceListSupplierProvider 服务实例列表的供应者
+     * @param serviceId                           服务标识符
+     * @param connectionCounterManager            连接计数器管理类
+     * @param halfLife                            上报负载的半衰期
+     */
+    public ServerLoadAwareLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                                       String serviceId,
+                                       ConnectionCounterManager connectionCounterManager,
+                                       Duration halfLife) {
+        this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.serviceId = serviceId;
+        this.connectionCounterManager = connectionCounterManager;
+        this.halfLifeNanos = Math.max(halfLife.toNanos(), 1L);
+    }
+
+    /**
+     * 选择一个负载最低的服务实例。
+     *
+     * @param request 当前的负载均衡请求
+     * @return 包含选择的服务实例的响应
+     */
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider
+                .getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next()
+                .map(serviceInstances -> processInstanceResponse(supplier, serviceInstances));
+    }
+
+    /**
+     * 处理服务实例列表，返回负载最低的服务实例。
+     *
+     * @param supplier         服务实例列表供应者
+     * @param serviceInstances 服务实例列表
+     * @return 包含选择的服务实例的响应
+     */
+    private Response<ServiceInstance> processInstanceResponse(ServiceInstanceListSupplier supplier,
+                                                              List<ServiceInstance> serviceInstances) {
+        long startNanos = System.nanoTime();
+        Response<ServiceInstance> serviceInstanceResponse = getInstanceResponse(serviceInstances);
+        connectionCounterManager.recordChoose(serviceId, STRATEGY, serviceInstanceResponse, System.nanoTime() - startNanos);
+        if (supplier instanceof SelectedInstanceCallback && serviceInstanceResponse.hasServer()) {
+            ((SelectedInstanceCallback) supplier).selectedServiceInstance(serviceInstanceResponse.getServer());
+        }
+        return serviceInstanceResponse;
+    }
+
+    /**
+     * 从服务实例列表中选择得分最低的实例，从随机位置开始扫描。
+     *
+     * @param instances 服务实例列表
+     * @return 包含选择的服务实例的响应
+     */
+    Response<ServiceInstance> getInstanceResponse(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            if (log.isWarnEnabled()) {
+                log.warn("No servers available for service: " + serviceId);
+            }
+            return new EmptyResponse();
+        }
+        ConnectionCounterTable table = connectionCounterManager.getView(serviceId, instances);
+        int size = table.size();
+        long now = System.nanoTime();
+        int offset = size == 1 ? 0 : ThreadLocalRandom.current().nextInt(size);
+
+        int chosen = offset;
+        double lowestScore = score(table.getCounter(offset), now);
+        for (int i = 1; i < size; i++) {
+            int slot = (offset + i) % size;
+            double score = score(table.getCounter(slot), now);
+            if (score < lowestScore || score == lowestScore && p99Of(table.getCounter(slot)) < p99Of(table.getCounter(chosen))) {
+                lowestScore = score;
+                chosen = slot;
+            }
+        }
+        return table.getResponse(chosen);
+    }
+
+    /**
+     * 计算实例得分，见类注释。
+     */
+    private double score(ConnectionCounter counter, long now) {
+        int local = counter.get();
+        ServerLoad serverLoad = counter.getServerLoad();
+        if (serverLoad == null) {
+            return local + 1;
+        }
+        double weight = Math.exp(-(now - serverLoad.getReceivedNanos()) * LN_2 / halfLifeNanos);
+        double remote = serverLoad.getInFlight() * weight;
+        return (Math.max(local, remote) + 1) * (1 + serverLoad.getUtilization() * weight);
+    }
+
+    private static long p99Of(ConnectionCounter counter) {
+        ServerLoad serverLoad = counter.getServerLoad();
+        return serverLoad == null ? 0L : serverLoad.getP99Millis();
+    }
+}
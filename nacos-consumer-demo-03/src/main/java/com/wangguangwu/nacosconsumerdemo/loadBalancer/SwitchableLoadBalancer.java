@@ -0,0 +1,63 @@
+package com.wangguangwu.nacosconsumerdemo.loadBalancer;
+
+import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounterManager;
+import com.wangguangwu.nacosconsumerdemo.manager.RoutingStrategyManager;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import reactor.core.publisher.Mono;
+
+/**
+ * 可在运行时切换策略的负载均衡器，把选择实例委托给当前策略对应的负载均衡器，
+ * 由 {@link RoutingStrategyManager} 在配置变更时整体替换。
+ * <p>
+ * 在途请求数、响应时间均值等状态都保存在 {@link ConnectionCounterManager} 中，不随策略切换丢失。
+ * 无论当前策略是否依赖连接计数，请求都会被计数，切换前后发出的请求在结束时都能正确释放计数。
+ *
+ * @author wangguangwu
+ */
+public class SwitchableLoadBalancer implements ConnectionCountingLoadBalancer, ResponseTimeAwareLoadBalancer {
+
+    private final String serviceId;
+
+    /**
+     * 当前策略对应的负载均衡器
+     */
+    private volatile ReactorServiceInstanceLoadBalancer delegate;
+
+    public SwitchableLoadBalancer(String serviceId, ReactorServiceInstanceLoadBalancer delegate) {
+        this.serviceId = serviceId;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        return delegate.choose(request);
+    }
+
+    @Override
+    public void recordResponseTime(ServiceInstance instance, long responseTimeNanos) {
+        ReactorServiceInstanceLoadBalancer current = delegate;
+        if (current instanceof ResponseTimeAwareLoadBalancer) {
+            ((ResponseTimeAwareLoadBalancer) current).recordResponseTime(instance, responseTimeNanos);
+        }
+    }
+
+    /**
+     * 切换到新的负载均衡器，之后的选择都由它完成。
+     *
+     * @param delegate 新策略对应的负载均衡器
+     */
+    public void switchTo(ReactorServiceInstanceLoadBalancer delegate) {
+        this.delegate = delegate;
+    }
+
+    public ReactorServiceInstanceLoadBalancer getDelegate() {
+        return delegate;
+    }
+
+    public String getServiceId() {
+        return serviceId;
+    }
+}
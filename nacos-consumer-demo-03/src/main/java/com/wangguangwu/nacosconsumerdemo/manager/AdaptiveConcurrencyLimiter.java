@@ -0,0 +1,163 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import com.wangguangwu.nacosconsumerdemo.config.ConcurrencyLimitProperties;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 单个下游服务的自适应并发限制，采用梯度算法根据响应时间调整并发上限。
+ * <p>
+ * 长期响应时间为样本的指数移动平均，短期响应时间为最近一次样本。
+ * 梯度 = 容忍倍数 × 长期响应时间 / 短期响应时间，限制在 [0.5, 1] 之间：
+ * 响应时间没有明显上升时梯度为 1，上限按 sqrt(上限) 缓慢增长；
+ * 响应时间上升说明下游开始排队，上限按梯度收缩。请求超时或 IO 异常时上限按固定比例收缩。
+ * <p>
+ * 在途请求达到上限后，新请求在有界队列中等待一小段时间，仍无额度则被拒绝。
+ *
+ * @author wangguangwu
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final ConcurrencyLimitProperties properties;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition released = lock.newCondition();
+
+    /**
+     * 被拒绝的请求数
+     */
+    private final AtomicLong rejections = new AtomicLong();
+
+    /**
+     * 当前并发上限
+     */
+    private volatile int limit;
+
+    /**
+     * 在途请求数
+     */
+    private volatile int inFlight;
+
+    /**
+     * 排队等待的请求数
+     */
+    private int waiting;
+
+    /**
+     * 未取整的并发上限估计值
+     */
+    private double estimatedLimit;
+
+    /**
+     * 长期响应时间，单位纳秒
+     */
+    private double longRttNanos;
+
+    public AdaptiveConcurrencyLimiter(ConcurrencyLimitProperties properties) {
+        this.properties = properties;
+        this.estimatedLimit = properties.getInitialLimit();
+        this.limit = properties.getInitialLimit();
+    }
+
+    /**
+     * 获取一个并发额度，达到上限时在有界队列中等待。
+     *
+     * @return 获取成功时返回 true，被拒绝时返回 false
+     * @throws InterruptedException 等待时线程被中断
+     */
+    public boolean tryAcquire() throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight < limit) {
+                inFlight++;
+                return true;
+            }
+            if (waiting >= properties.getMaxQueueSize()) {
+                rejections.incrementAndGet();
+                return false;
+            }
+            waiting++;
+            try {
+                long remainingNanos = properties.getMaxQueueWait().toNanos();
+                while (inFlight >= limit) {
+                    if (remainingNanos <= 0L) {
+                        rejections.incrementAndGet();
+                        return false;
+                    }
+                    remainingNanos = released.awaitNanos(remainingNanos);
+                }
+                inFlight++;
+                return true;
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 归还并发额度并根据本次请求的结果调整上限。
+     *
+     * @param rttNanos 响应时间，单位纳秒
+     * @param dropped  请求是否超时或 IO 异常
+     */
+    public void release(long rttNanos, boolean dropped) {
+        lock.lock();
+        try {
+            int inFlightBeforeRelease = inFlight;
+            inFlight = Math.max(0, inFlight - 1);
+            if (dropped) {
+                estimatedLimit = Math.max(properties.getMinLimit(), estimatedLimit * properties.getBackoffRatio());
+            } else if (rttNanos > 0L) {
+                update(rttNanos, inFlightBeforeRelease);
+            }
+            limit = (int) estimatedLimit;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void update(long rttNanos, int inFlightBeforeRelease) {
+        double shortRtt = rttNanos;
+        longRttNanos = longRttNanos == 0 ? shortRtt : longRttNanos + (shortRtt - longRttNanos) / properties.getLongWindow();
+        // 下游恢复后长期响应时间远高于短期响应时间，加速回落以便上限尽快恢复增长
+        if (longRttNanos / shortRtt > 2) {
+            longRttNanos *= 0.95;
+        }
+        // 在途请求远低于上限时，响应时间不能反映上限是否合适
+        if (inFlightBeforeRelease < estimatedLimit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, properties.getRttTolerance() * longRttNanos / shortRtt));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        newLimit = estimatedLimit * (1 - properties.getSmoothing()) + newLimit * properties.getSmoothing();
+        estimatedLimit = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), newLimit));
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public long getRejections() {
+        return rejections.get();
+    }
+
+    /**
+     * 获取长期响应时间。
+     *
+     * @return 长期响应时间，单位毫秒
+     */
+    public double getLongRttMillis() {
+        return longRttNanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
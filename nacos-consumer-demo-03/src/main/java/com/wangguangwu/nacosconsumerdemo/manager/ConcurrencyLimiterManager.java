@@ -0,0 +1,85 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import com.wangguangwu.nacosconsumerdemo.config.ConcurrencyLimitProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按下游服务名管理 {@link AdaptiveConcurrencyLimiter}。
+ * <p>
+ * 每个服务的并发上限、在途请求数和被拒绝的请求数通过 Micrometer 指标
+ * {@code loadbalancer.concurrency.*} 暴露，以 {@code service} 标签区分。
+ *
+ * @author wangguangwu
+ */
+@Component
+public class ConcurrencyLimiterManager implements MeterBinder {
+
+    @Resource
+    private ConcurrencyLimitProperties concurrencyLimitProperties;
+
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    /**
+     * 指标注册表，尚未绑定时为 null
+     */
+    private volatile MeterRegistry meterRegistry;
+
+    /**
+     * 检查是否开启了自适应并发限制。
+     *
+     * @return 开启时返回 true
+     */
+    public boolean isEnabled() {
+        return concurrencyLimitProperties.isEnabled();
+    }
+
+    /**
+     * 获取指定服务的并发限制器，不存在时创建。
+     *
+     * @param serviceId 服务名
+     * @return 并发限制器
+     */
+    public AdaptiveConcurrencyLimiter getLimiter(String serviceId) {
+        AdaptiveConcurrencyLimiter limiter = limiters.get(serviceId);
+        if (limiter != null) {
+            return limiter;
+        }
+        return limiters.computeIfAbsent(serviceId, id -> {
+            AdaptiveConcurrencyLimiter created = new AdaptiveConcurrencyLimiter(concurrencyLimitProperties);
+            MeterRegistry registry = meterRegistry;
+            if (registry != null) {
+                bind(registry, id, created);
+            }
+            return created;
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.meterRegistry = registry;
+        limiters.forEach((serviceId, limiter) -> bind(registry, serviceId, limiter));
+    }
+
+    private static void bind(MeterRegistry registry, String serviceId, AdaptiveConcurrencyLimiter limiter) {
+        Gauge.builder("loadbalancer.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit")
+                .tag("service", serviceId)
+                .register(registry);
+        Gauge.builder("loadbalancer.concurrency.in.flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Requests currently in flight")
+                .tag("service", serviceId)
+                .register(registry);
+        FunctionCounter.builder("loadbalancer.concurrency.rejections", limiter, AdaptiveConcurrencyLimiter::getRejections)
+                .description("Requests rejected by the concurrency limit")
+                .tag("service", serviceId)
+                .register(registry);
+    }
+}
@@ -0,0 +1,156 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * 单个服务实例的连接计数槽。
+ * <p>
+ * 除在途请求数外，计数槽还持有该实例响应时间的 {@link PeakEwma}，以及提供者最近上报的 {@link ServerLoad}。
+ * <p>
+ * 计数值存放在一个带填充的 int 数组中间，前后各留出一个缓存行，
+ * 避免不同实例的计数器落在同一缓存行上产生伪共享。
+ * 增加、减少和读取都直接操作数组元素，不产生任何对象分配。
+ *
+ * @author wangguangwu
+ */
+public final class ConnectionCounter {
+
+    private static final VarHandle CELL = MethodHandles.arrayElementVarHandle(int[].class);
+
+    /**
+     * 计数值两侧的填充长度，16 个 int 即 64 字节
+     */
+    private static final int PADDING = 16;
+
+    /**
+     * 计数值所在的数组
+     */
+    private final int[] cell = new int[PADDING * 2 + 1];
+
+    /**
+     * 服务实例的唯一标识符
+     */
+    private final String key;
+
+    /**
+     * 服务实例的响应时间统计
+     */
+    private final PeakEwma peakEwma = new PeakEwma();
+
+    /**
+     * 提供者最近上报的负载，尚未上报时为 null
+     */
+    private volatile ServerLoad serverLoad;
+
+    /**
+     * 实例的指标，首次记录时创建
+     */
+    private volatile InstanceMeters instanceMeters;
+
+    /**
+     * 实例是否已从服务发现中下线，下线且计数归零后计数槽会被回收
+     */
+    private volatile boolean departed;
+
+    ConnectionCounter(String key) {
+        this.key = key;
+    }
+
+    /**
+     * 增加一次连接计数。
+     *
+     * @return 增加后的连接数
+     */
+    public int increment() {
+        return (int) CELL.getAndAdd(cell, PADDING, 1) + 1;
+    }
+
+    /**
+     * 减少一次连接计数，计数不会小于 0。
+     *
+     * @return 减少后的连接数
+     */
+    public int decrement() {
+        for (; ; ) {
+            int current = get();
+            if (current <= 0) {
+                return 0;
+            }
+            if (CELL.compareAndSet(cell, PADDING, current, current - 1)) {
+                return current - 1;
+            }
+        }
+    }
+
+    /**
+     * 获取当前连接数。
+     *
+     * @return 当前连接数
+     */
+    public int get() {
+        return (int) CELL.getVolatile(cell, PADDING);
+    }
+
+    /**
+     * 判断实例是否已下线。
+     *
+     * @return 已下线返回 true
+     */
+    public boolean isDeparted() {
+        return departed;
+    }
+
+    void setDeparted(boolean departed) {
+        this.departed = departed;
+    }
+
+    /**
+     * 获取服务实例的唯一标识符。
+     *
+     * @return 唯一标识符
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * 获取服务实例的响应时间统计。
+     *
+     * @return 响应时间统计
+     */
+    public PeakEwma getPeakEwma() {
+        return peakEwma;
+    }
+
+    /**
+     * 获取提供者最近上报的负载。
+     *
+     * @return 负载快照，尚未上报时返回 null
+     */
+    public ServerLoad getServerLoad() {
+        return serverLoad;
+    }
+
+    /**
+     * 记录提供者上报的负载。
+     *
+     * @param serverLoad 负载快照
+     */
+    public void setServerLoad(ServerLoad serverLoad) {
+        this.serverLoad = serverLoad;
+    }
+
+    InstanceMeters getInstanceMeters() {
+        return instanceMeters;
+    }
+
+    void setInstanceMeters(InstanceMeters instanceMeters) {
+        this.instanceMeters = instanceMeters;
+    }
+
+    @Override
+    public String toString() {
+        return key + "=" + get();
+    }
+}
@@ -1,17 +1,33 @@
 package com.wangguangwu.nacosconsumerdemo.manager;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 连接计数器管理类，用于管理和维护每个服务实例的当前连接数。
  * <p>
- * 该类确保在多实例情况下，连接计数的一致性和线程安全性。
+ * 每个服务实例对应一个固定的 {@link ConnectionCounter} 计数槽。
+ * 实例列表变化时为服务构建一张 {@link ConnectionCounterTable}，把实例预先解析到计数槽；
+ * 此后选择实例、增加和减少计数、比较连接数都只访问计数槽，不拼接字符串，也不分配对象。
+ * <p>
+ * 计数表只在服务发现返回的实例列表真正变化时增量调整：未变化的实例沿用原有计数槽，
+ * 新上线的实例才按唯一标识符解析；已下线实例的计数槽在在途请求全部结束后回收，
+ * 实例频繁扩缩容时内存占用不会无限增长。
+ * <p>
+ * 计数表只能用服务的完整实例列表对账（{@link #getTable}），由过滤之前的
+ * {@link com.wangguangwu.nacosconsumerdemo.supplier.InstanceReconcilingServiceInstanceListSupplier} 完成；
+ * 负载均衡器拿到的是经过同集群优先、异常摘除、对冲排除过滤的子集，通过 {@link #getView} 获取共用计数槽的只读视图。
+ * <p>
+ * 实例的指标同样挂在计数槽上，由 {@link LoadBalancerMetrics} 记录。
  *
  * @author wangguangwu
  */
@@ -20,18 +36,106 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class ConnectionCounterManager {
 
     /**
-     * 记录每个服务实例的当前连接数
+     * 按实例唯一标识符保存的计数槽，仅在解析新实例时访问
+     */
+    private final ConcurrentHashMap<String, ConnectionCounter> connectionCounters = new ConcurrentHashMap<>();
+
+    /**
+     * 每个服务当前的连接计数表
+     */
+    private final ConcurrentHashMap<String, ConnectionCounterTable> tables = new ConcurrentHashMap<>();
+
+    /**
+     * 每个服务最近一次为过滤后的实例列表构建的计数表视图
+     */
+    private final ConcurrentHashMap<String, ConnectionCounterTable> views = new ConcurrentHashMap<>();
+
+    /**
+     * 负载均衡指标
      */
-    private final ConcurrentHashMap<String, AtomicInteger> connectionCounts = new ConcurrentHashMap<>();
+    private final LoadBalancerMetrics loadBalancerMetrics;
+
+    public ConnectionCounterManager() {
+        this(new LoadBalancerMetrics());
+    }
+
+    @Autowired
+    public ConnectionCounterManager(LoadBalancerMetrics loadBalancerMetrics) {
+        this.loadBalancerMetrics = loadBalancerMetrics;
+    }
 
     /**
-     * 初始化指定服务实例的连接计数器。
-     * 如果实例的计数器不存在，则将其初始化为 0。
+     * 按服务的完整实例列表获取连接计数表。
+     * 实例列表未变化时直接返回已有的表，否则增量调整出新的表，不在列表中的实例视为已下线。
      *
-     * @param instances 要初始化计数器的服务实例
+     * @param serviceId 服务 Id
+     * @param instances 服务实例列表
+     * @return 连接计数表
      */
-    public void init(List<ServiceInstance> instances) {
-        instances.forEach(serviceInstance -> connectionCounts.putIfAbsent(getInstanceKey(serviceInstance), new AtomicInteger(0)));
+    public ConnectionCounterTable getTable(String serviceId, List<ServiceInstance> instances) {
+        ConnectionCounterTable table = tables.get(serviceId);
+        if (table != null && table.isBuiltFrom(instances)) {
+            return table;
+        }
+        return tables.compute(serviceId, (key, previous) -> {
+            if (previous != null && (previous.isBuiltFrom(instances) || previous.adoptIfUnchanged(instances))) {
+                return previous;
+            }
+            return reconcile(previous, instances);
+        });
+    }
+
+    /**
+     * 获取负载均衡器在过滤后的实例列表下使用的连接计数表。
+     * <p>
+     * 列表与完整实例列表包含相同的实例时直接返回计数表；是其子集时构建共用计数槽的只读视图，
+     * 被过滤掉的实例不会被标记为下线，在途请求结束后也不会回收其计数槽和指标。
+     * 列表中出现计数表尚未包含的实例时（过滤之前没有对账），按完整实例列表对账。
+     *
+     * @param serviceId 服务 Id
+     * @param instances 过滤后的服务实例列表
+     * @return 连接计数表或其视图
+     */
+    public ConnectionCounterTable getView(String serviceId, List<ServiceInstance> instances) {
+        ConnectionCounterTable table = tables.get(serviceId);
+        if (table == null) {
+            return getTable(serviceId, instances);
+        }
+        if (table.isBuiltFrom(instances) || table.adoptIfUnchanged(instances)) {
+            return table;
+        }
+        ConnectionCounterTable view = views.get(serviceId);
+        if (view != null && (view.isBuiltFrom(instances) || view.adoptIfUnchanged(instances))) {
+            return view;
+        }
+        ConnectionCounter[] counters = new ConnectionCounter[instances.size()];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = table.find(instances.get(i));
+            if (counters[i] == null) {
+                return getTable(serviceId, instances);
+            }
+        }
+        view = new ConnectionCounterTable(instances, counters);
+        views.put(serviceId, view);
+        return view;
+    }
+
+    /**
+     * 获取指定服务实例的计数槽。
+     * <p>
+     * 不属于任何计数表的实例返回一个临时计数槽，不会写入管理器，避免为已下线的实例重新建立计数。
+     *
+     * @param instance 服务实例
+     * @return 计数槽
+     */
+    public ConnectionCounter getConnectionCounter(ServiceInstance instance) {
+        ConnectionCounter counter = findConnectionCounter(instance);
+        if (counter != null) {
+            return counter;
+        }
+        String key = getInstanceKey(instance);
+        counter = connectionCounters.get(key);
+        return counter != null ? counter : new ConnectionCounter(key);
     }
 
     /**
@@ -40,19 +144,52 @@ public class ConnectionCounterManager {
      * @param instance 要增加连接计数的服务实例
      */
     public void incrementConnectionCount(ServiceInstance instance) {
-        connectionCounts.computeIfAbsent(getInstanceKey(instance), key -> new AtomicInteger(0)).incrementAndGet();
+        getConnectionCounter(instance).increment();
     }
 
     /**
      * 减少指定服务实例的连接计数。
+     * 实例已下线且计数归零时回收其计数槽。
      *
      * @param instance 要减少连接计数的服务实例
      */
     public void decrementConnectionCount(ServiceInstance instance) {
-        connectionCounts.computeIfPresent(getInstanceKey(instance), (key, count) -> {
-            count.decrementAndGet();
-            return count;
-        });
+        ConnectionCounter counter = getConnectionCounter(instance);
+        if (counter.decrement() == 0 && counter.isDeparted()) {
+            evictIfDrained(counter);
+        }
+    }
+
+    /**
+     * 记录一次选择实例的结果与耗时。
+     *
+     * @param serviceId 服务 Id
+     * @param strategy  负载均衡策略
+     * @param response  选择结果
+     * @param nanos     选择耗时，单位纳秒
+     */
+    public void recordChoose(String serviceId, String strategy, Response<ServiceInstance> response, long nanos) {
+        loadBalancerMetrics.recordChoose(serviceId, strategy, nanos);
+        if (response.hasServer()) {
+            ConnectionCounter counter = findConnectionCounter(response.getServer());
+            if (counter != null) {
+                loadBalancerMetrics.recordSelection(response.getServer(), counter, strategy);
+            }
+        }
+    }
+
+    /**
+     * 记录一次调用服务实例的耗时。
+     *
+     * @param instance 服务实例
+     * @param nanos    调用耗时，单位纳秒
+     * @param success  调用是否成功
+     */
+    public void recordLatency(ServiceInstance instance, long nanos, boolean success) {
+        ConnectionCounter counter = findConnectionCounter(instance);
+        if (counter != null) {
+            loadBalancerMetrics.recordLatency(instance, counter, nanos, success);
+        }
     }
 
     /**
@@ -64,10 +201,81 @@ public class ConnectionCounterManager {
      * @return 比较结果
      */
     public int compare(ServiceInstance instance1, ServiceInstance instance2) {
-        return Integer.compare(
-                connectionCounts.getOrDefault(getInstanceKey(instance1), new AtomicInteger(0)).get(),
-                connectionCounts.getOrDefault(getInstanceKey(instance2), new AtomicInteger(0)).get()
-        );
+        return Integer.compare(getConnectionCounter(instance1).get(), getConnectionCounter(instance2).get());
+    }
+
+    /**
+     * 在服务当前的计数表中按实例对象查找计数槽。
+     *
+     * @param instance 服务实例
+     * @return 计数槽，实例不在计数表中时返回 null
+     */
+    private ConnectionCounter findConnectionCounter(ServiceInstance instance) {
+        String serviceId = instance.getServiceId();
+        ConnectionCounterTable table = serviceId == null ? null : tables.get(serviceId);
+        return table == null ? null : table.find(instance);
+    }
+
+    /**
+     * 当前管理的计数槽数量。
+     *
+     * @return 计数槽数量
+     */
+    int size() {
+        return connectionCounters.size();
+    }
+
+    /**
+     * 根据上一张计数表和新的实例列表增量构建计数表。
+     * <p>
+     * 仍在上一张表中的实例对象直接沿用计数槽，其余实例按唯一标识符解析；
+     * 新表中不再出现的计数槽标记为已下线，计数已归零的立即回收。
+     */
+    private ConnectionCounterTable reconcile(ConnectionCounterTable previous, List<ServiceInstance> instances) {
+        ConnectionCounter[] counters = new ConnectionCounter[instances.size()];
+        Set<ConnectionCounter> retained = Collections.newSetFromMap(new IdentityHashMap<>(counters.length));
+        for (int i = 0; i < counters.length; i++) {
+            ServiceInstance instance = instances.get(i);
+            ConnectionCounter counter = previous == null ? null : previous.find(instance);
+            counters[i] = counter != null ? counter : attach(instance);
+            retained.add(counters[i]);
+        }
+        if (previous != null) {
+            for (int slot = 0; slot < previous.size(); slot++) {
+                ConnectionCounter counter = previous.getCounter(slot);
+                if (!retained.contains(counter)) {
+                    counter.setDeparted(true);
+                    evictIfDrained(counter);
+                }
+            }
+        }
+        return new ConnectionCounterTable(instances, counters);
+    }
+
+    /**
+     * 按唯一标识符解析新上线实例的计数槽，不存在时创建，已标记下线的恢复为在线。
+     */
+    private ConnectionCounter attach(ServiceInstance instance) {
+        return connectionCounters.compute(getInstanceKey(instance), (key, counter) -> {
+            ConnectionCounter attached = counter != null ? counter : new ConnectionCounter(key);
+            attached.setDeparted(false);
+            return attached;
+        });
+    }
+
+    /**
+     * 回收已下线且计数归零的计数槽。
+     * 与 {@link #attach} 在同一个 key 上互斥，实例重新上线时不会被误回收。
+     */
+    private void evictIfDrained(ConnectionCounter counter) {
+        boolean[] evicted = new boolean[1];
+        connectionCounters.computeIfPresent(counter.getKey(), (key, current) -> {
+            evicted[0] = current == counter && counter.isDeparted() && counter.get() == 0;
+            return evicted[0] ? null : current;
+        });
+        if (evicted[0]) {
+            loadBalancerMetrics.remove(counter);
+        }
     }
 
     /**
@@ -0,0 +1,140 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Response;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 某个服务在一份实例列表下的连接计数表。
+ * <p>
+ * 表在实例列表变化时构建一次，之后只读：每个下标对应一个实例、它的 {@link ConnectionCounter}
+ * 以及预先创建好的负载均衡响应，选择实例和增减计数时无需再拼接 key 或查找哈希表。
+ * <p>
+ * 实例列表对象变了、但其中的实例对象与顺序都未变化时，表会改为记录新的列表对象而不重建。
+ *
+ * @author wangguangwu
+ */
+public final class ConnectionCounterTable {
+
+    /**
+     * 最近一次确认与该表一致的实例列表，用于按引用判断列表是否变化
+     */
+    private volatile List<ServiceInstance> source;
+
+    /**
+     * 实例数组
+     */
+    private final ServiceInstance[] instances;
+
+    /**
+     * 与实例下标一一对应的计数槽
+     */
+    private final ConnectionCounter[] counters;
+
+    /**
+     * 与实例下标一一对应的负载均衡响应
+     */
+    private final Response<ServiceInstance>[] responses;
+
+    /**
+     * 按实例对象身份索引的计数槽
+     */
+    private final Map<ServiceInstance, ConnectionCounter> index;
+
+    @SuppressWarnings("unchecked")
+    ConnectionCounterTable(List<ServiceInstance> source, ConnectionCounter[] counters) {
+        int size = source.size();
+        this.source = source;
+        this.instances = source.toArray(new ServiceInstance[0]);
+        this.counters = counters;
+        this.responses = new Response[size];
+        this.index = new IdentityHashMap<>(size);
+        for (int i = 0; i < size; i++) {
+            responses[i] = new DefaultResponse(instances[i]);
+            index.put(instances[i], counters[i]);
+        }
+    }
+
+    /**
+     * 判断该表是否由指定的实例列表构建。
+     *
+     * @param instances 实例列表
+     * @return 是同一个列表对象时返回 true
+     */
+    public boolean isBuiltFrom(List<ServiceInstance> instances) {
+        return source == instances;
+    }
+
+    /**
+     * 判断指定的实例列表是否与该表包含相同的实例对象，且顺序一致。
+     * 相同时记录该列表对象，之后按引用即可判断。
+     *
+     * @param instances 实例列表
+     * @return 实例对象与顺序都相同时返回 true
+     */
+    boolean adoptIfUnchanged(List<ServiceInstance> instances) {
+        if (instances.size() != this.instances.length) {
+            return false;
+        }
+        for (int i = 0; i < this.instances.length; i++) {
+            if (instances.get(i) != this.instances[i]) {
+                return false;
+            }
+        }
+        this.source = instances;
+        return true;
+    }
+
+    /**
+     * 获取实例数量。
+     *
+     * @return 实例数量
+     */
+    public int size() {
+        return instances.length;
+    }
+
+    /**
+     * 获取指定下标的服务实例。
+     *
+     * @param slot 下标
+     * @return 服务实例
+     */
+    public ServiceInstance getInstance(int slot) {
+        return instances[slot];
+    }
+
+    /**
+     * 获取指定下标实例的计数槽。
+     *
+     * @param slot 下标
+     * @return 计数槽
+     */
+    public ConnectionCounter getCounter(int slot) {
+        return counters[slot];
+    }
+
+    /**
+     * 获取指定下标实例预先创建的负载均衡响应。
+     *
+     * @param slot 下标
+     * @return 负载均衡响应
+     */
+    public Response<ServiceInstance> getResponse(int slot) {
+        return responses[slot];
+    }
+
+    /**
+     * 按对象身份查找实例的计数槽。
+     *
+     * @param instance 服务实例
+     * @return 计数槽，实例不属于该表时返回 null
+     */
+    public ConnectionCounter find(ServiceInstance instance) {
+        return index.get(instance);
+    }
+}
@@ -0,0 +1,62 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对冲请求的令牌预算。
+ * <p>
+ * 每个请求存入 {@code budgetPercent / 100} 个令牌，每次对冲消耗一个令牌，
+ * 因此对冲请求不会超过总请求数的 {@code budgetPercent}%，过载时也不会成倍放大流量。
+ * 余额设有上限，避免长时间空闲后积累的令牌集中释放。
+ *
+ * @author wangguangwu
+ */
+class HedgeBudget {
+
+    /**
+     * 一个令牌对应的计量单位
+     */
+    private static final long TOKEN = 1000;
+
+    /**
+     * 令牌余额上限
+     */
+    private static final long MAX_BALANCE = 10 * TOKEN;
+
+    private final long depositPerRequest;
+
+    private final AtomicLong balance = new AtomicLong();
+
+    HedgeBudget(double budgetPercent) {
+        this.depositPerRequest = Math.round(budgetPercent / 100 * TOKEN);
+    }
+
+    /**
+     * 为一次请求存入令牌。
+     */
+    void deposit() {
+        long current;
+        do {
+            current = balance.get();
+            if (current >= MAX_BALANCE) {
+                return;
+            }
+        } while (!balance.compareAndSet(current, Math.min(MAX_BALANCE, current + depositPerRequest)));
+    }
+
+    /**
+     * 尝试消耗一个令牌。
+     *
+     * @return 余额充足时返回 true
+     */
+    boolean tryWithdraw() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < TOKEN) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+}
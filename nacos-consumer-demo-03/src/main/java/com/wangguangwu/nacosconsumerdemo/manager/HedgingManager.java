@@ -0,0 +1,109 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import com.wangguangwu.nacosconsumerdemo.config.HedgingProperties;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 对冲请求的状态管理类，按服务维护响应时间分位数与对冲预算。
+ *
+ * @author wangguangwu
+ */
+@Component
+public class HedgingManager {
+
+    @Resource
+    private HedgingProperties hedgingProperties;
+
+    /**
+     * 已开启对冲的服务状态
+     */
+    private final Map<String, HedgeState> states = new ConcurrentHashMap<>();
+
+    /**
+     * 检查指定服务是否开启了对冲请求。
+     *
+     * @param serviceId 服务名
+     * @return 开启时返回 true
+     */
+    public boolean isEnabled(String serviceId) {
+        return serviceId != null && hedgingProperties.getServices().containsKey(serviceId);
+    }
+
+    /**
+     * 登记一次请求，为对冲预算存入令牌。
+     *
+     * @param serviceId 服务名
+     */
+    public void onRequest(String serviceId) {
+        getState(serviceId).budget.deposit();
+    }
+
+    /**
+     * 获取发起对冲请求前的等待时间。
+     *
+     * @param serviceId 服务名
+     * @return 等待时间，单位纳秒；按分位数对冲且样本不足时返回 0，表示不发起对冲
+     */
+    public long getHedgeDelayNanos(String serviceId) {
+        HedgeState state = getState(serviceId);
+        return state.policy.getDelay() != null ? state.policy.getDelay().toNanos() : state.latencyTracker.getPercentileNanos();
+    }
+
+    /**
+     * 记录首次请求的响应时间，用于计算对冲等待时间。
+     *
+     * @param serviceId 服务名
+     * @param nanos     响应时间，单位纳秒
+     */
+    public void recordLatency(String serviceId, long nanos) {
+        getState(serviceId).latencyTracker.record(nanos);
+    }
+
+    /**
+     * 尝试从对冲预算中消耗一个令牌。
+     *
+     * @param serviceId 服务名
+     * @return 预算充足时返回 true
+     */
+    public boolean tryAcquireHedge(String serviceId) {
+        return getState(serviceId).budget.tryWithdraw();
+    }
+
+    /**
+     * 获取服务的对冲状态。配置刷新后对冲策略会被重新绑定，此时换用新策略，
+     * 分位数与预算比例未变时保留已有的响应时间样本和预算。
+     */
+    private HedgeState getState(String serviceId) {
+        HedgingProperties.Policy policy = hedgingProperties.getServices().get(serviceId);
+        HedgeState state = states.get(serviceId);
+        if (state != null && (state.policy == policy || policy == null)) {
+            return state;
+        }
+        return states.compute(serviceId, (id, current) ->
+                current != null && (current.policy == policy || policy == null) ? current : new HedgeState(policy, current));
+    }
+
+    /**
+     * 单个服务的对冲状态。
+     */
+    private static class HedgeState {
+
+        private final HedgingProperties.Policy policy;
+
+        private final LatencyTracker latencyTracker;
+
+        private final HedgeBudget budget;
+
+        HedgeState(HedgingProperties.Policy policy, HedgeState previous) {
+            this.policy = policy;
+            this.latencyTracker = previous != null && previous.policy.getPercentile() == policy.getPercentile()
+                    ? previous.latencyTracker : new LatencyTracker(policy.getPercentile());
+            this.budget = previous != null && previous.policy.getBudgetPercent() == policy.getBudgetPercent()
+                    ? previous.budget : new HedgeBudget(policy.getBudgetPercent());
+        }
+    }
+}
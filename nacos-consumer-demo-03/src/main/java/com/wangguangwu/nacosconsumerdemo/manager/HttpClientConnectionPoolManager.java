@@ -0,0 +1,307 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import com.wangguangwu.nacosconsumerdemo.config.HttpClientPoolProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.pool.PoolStats;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * 负载均衡 RestTemplate 使用的 HTTP 连接池管理类。
+ * <p>
+ * 基于 Apache HttpClient 的长连接池，每个服务实例对应连接池中的一个路由，并受单实例最大连接数限制。
+ * 后台线程定期执行以下清理：
+ * <ul>
+ *     <li>关闭超过存活时间或空闲时间的连接；</li>
+ *     <li>与 Nacos 当前上报的实例列表对账，关闭已下线实例的连接并移除其路由。
+ *     某个服务查询失败或返回空列表时沿用上一次的实例，不会因此关闭该服务的全部连接。</li>
+ * </ul>
+ * 对账结果同时通知 {@link #addReconcileListener 对账监听器}，按实例维护状态的其他组件据此回收已下线实例的状态。
+ * 连接池的使用情况通过 Micrometer 指标 {@code http.client.pool.*} 暴露。
+ *
+ * @author wangguangwu
+ */
+@Component
+public class HttpClientConnectionPoolManager implements MeterBinder {
+
+    private static final Log log = LogFactory.getLog(HttpClientConnectionPoolManager.class);
+
+    @Resource
+    private HttpClientPoolProperties httpClientPoolProperties;
+
+    @Resource
+    private DiscoveryClient discoveryClient;
+
+    /**
+     * 通过连接池调用过的服务名
+     */
+    private final Set<String> serviceIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 上一次对账时 Nacos 上报的实例地址，以服务名为键
+     */
+    private final Map<String, Set<String>> liveRoutes = new ConcurrentHashMap<>();
+
+    /**
+     * 对账监听器
+     */
+    private final List<BiConsumer<String, Set<String>>> reconcileListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 已下线、连接尚未全部关闭的实例地址
+     */
+    private final Set<String> departedRoutes = new HashSet<>();
+
+    private RouteAwareConnectionManager connectionManager;
+
+    private CloseableHttpClient httpClient;
+
+    private ScheduledExecutorService evictor;
+
+    @PostConstruct
+    public void init() {
+        HttpClientPoolProperties properties = httpClientPoolProperties;
+        connectionManager = new RouteAwareConnectionManager(properties.getTimeToLive().toMillis(), TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(properties.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(properties.getMaxConnectionsPerInstance());
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) properties.getConnectTimeout().toMillis())
+                .setSocketTimeout((int) properties.getReadTimeout().toMillis())
+                .setConnectionRequestTimeout((int) properties.getConnectionRequestTimeout().toMillis())
+                .build();
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .build();
+
+        evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "http-client-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getEvictionInterval().toMillis();
+        evictor.scheduleWithFixedDelay(this::evict, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() throws IOException {
+        evictor.shutdownNow();
+        httpClient.close();
+    }
+
+    /**
+     * 获取基于连接池的请求工厂。
+     *
+     * @return 请求工厂
+     */
+    public ClientHttpRequestFactory getRequestFactory() {
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+
+    /**
+     * 登记通过连接池调用的服务，对账时只关注这些服务的实例。
+     *
+     * @param serviceId 服务名
+     */
+    public void registerService(String serviceId) {
+        if (!serviceIds.contains(serviceId)) {
+            serviceIds.add(serviceId);
+        }
+    }
+
+    /**
+     * 登记对账监听器。某个服务对账完成后，以服务名和 Nacos 上报的实例地址（host:port）回调；
+     * 查询失败或返回空列表的服务不会回调。
+     *
+     * @param listener 对账监听器
+     */
+    public void addReconcileListener(BiConsumer<String, Set<String>> listener) {
+        reconcileListeners.add(listener);
+    }
+
+    /**
+     * 预先与服务实例建立连接并放回连接池，首批请求无需再建立 TCP（以及 TLS）连接。
+     * <p>
+     * 连接以空闲连接的形式保留，仍受空闲时间和存活时间的清理约束。
+     *
+     * @param instance    服务实例
+     * @param connections 建立的连接数，不超过单实例最大连接数
+     * @return 实际建立或复用的连接数
+     */
+    public int prewarm(ServiceInstance instance, int connections) {
+        HttpHost target = new HttpHost(instance.getHost(), instance.getPort(), instance.isSecure() ? "https" : "http");
+        HttpRoute route = new HttpRoute(target, null, instance.isSecure());
+        int count = Math.min(connections, httpClientPoolProperties.getMaxConnectionsPerInstance());
+        long connectTimeout = httpClientPoolProperties.getConnectTimeout().toMillis();
+        long requestTimeout = httpClientPoolProperties.getConnectionRequestTimeout().toMillis();
+        // 同时租出多个连接，否则每次都会复用同一个连接
+        List<HttpClientConnection> leased = new ArrayList<>(count);
+        int opened = 0;
+        try {
+            for (int i = 0; i < count; i++) {
+                ConnectionRequest request = connectionManager.requestConnection(route, null);
+                HttpClientConnection connection = request.get(requestTimeout, TimeUnit.MILLISECONDS);
+                leased.add(connection);
+                if (!connection.isOpen()) {
+                    HttpClientContext context = HttpClientContext.create();
+                    connectionManager.connect(connection, route, (int) connectTimeout, context);
+                    connectionManager.routeComplete(connection, route, context);
+                }
+                opened++;
+            }
+        } catch (IOException | ExecutionException e) {
+            log.warn("Failed to prewarm connections to " + getRouteKey(route), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            long idleTimeout = httpClientPoolProperties.getIdleTimeout().toMillis();
+            for (HttpClientConnection connection : leased) {
+                // 未能建立的连接不会作为可用连接放回
+                connectionManager.releaseConnection(connection, null, idleTimeout, TimeUnit.MILLISECONDS);
+            }
+        }
+        return opened;
+    }
+
+    /**
+     * 关闭过期、空闲的连接，并与 Nacos 上报的实例列表对账。
+     */
+    void evict() {
+        try {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(httpClientPoolProperties.getIdleTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            reconcile();
+        } catch (Exception e) {
+            log.warn("Failed to evict http client connections", e);
+        }
+    }
+
+    /**
+     * 与 Nacos 当前上报的实例列表对账。
+     * <p>
+     * 上一次对账时存在、本次不再上报的实例视为已下线，其空闲连接立即关闭；
+     * 仍在使用的连接会在归还后由后续的对账关闭，直到该路由从连接池中移除。
+     * 从未由 Nacos 上报过的路由（例如直接按地址调用）不受影响。
+     * <p>
+     * 服务查询失败或返回空列表通常意味着注册中心暂时不可用，而不是所有实例同时下线，
+     * 此时沿用该服务上一次的实例列表，不关闭任何连接。
+     */
+    private void reconcile() {
+        for (String serviceId : serviceIds) {
+            List<ServiceInstance> instances;
+            try {
+                instances = discoveryClient.getInstances(serviceId);
+            } catch (RuntimeException e) {
+                log.warn("Failed to get instances of service " + serviceId + ", keeping its pooled connections", e);
+                continue;
+            }
+            if (instances == null || instances.isEmpty()) {
+                if (log.isDebugEnabled()) {
+                    log.debug("No instances reported for service " + serviceId + ", skipping reconciliation");
+                }
+                continue;
+            }
+            Set<String> currentRoutes = new HashSet<>();
+            for (ServiceInstance instance : instances) {
+                currentRoutes.add(getRouteKey(instance.getHost(), instance.getPort()));
+            }
+            Set<String> previousRoutes = liveRoutes.put(serviceId, currentRoutes);
+            notifyReconcileListeners(serviceId, currentRoutes);
+            if (previousRoutes != null) {
+                for (String route : previousRoutes) {
+                    if (!currentRoutes.contains(route)) {
+                        departedRoutes.add(route);
+                        if (log.isInfoEnabled()) {
+                            log.info("Instance " + route + " is no longer reported by Nacos, closing its pooled connections");
+                        }
+                    }
+                }
+            }
+        }
+        for (Set<String> routes : liveRoutes.values()) {
+            departedRoutes.removeAll(routes);
+        }
+        if (departedRoutes.isEmpty()) {
+            return;
+        }
+
+        connectionManager.closeIdleConnections(route -> departedRoutes.contains(getRouteKey(route)));
+        Set<String> pooledRoutes = new HashSet<>();
+        for (HttpRoute route : connectionManager.getRoutes()) {
+            pooledRoutes.add(getRouteKey(route));
+        }
+        departedRoutes.retainAll(pooledRoutes);
+    }
+
+    private void notifyReconcileListeners(String serviceId, Set<String> routes) {
+        Set<String> liveInstances = Collections.unmodifiableSet(routes);
+        for (BiConsumer<String, Set<String>> listener : reconcileListeners) {
+            try {
+                listener.accept(serviceId, liveInstances);
+            } catch (RuntimeException e) {
+                log.warn("Reconcile listener failed for service " + serviceId, e);
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        gauge(registry, "http.client.pool.leased", "Connections currently in use", PoolStats::getLeased);
+        gauge(registry, "http.client.pool.available", "Idle connections kept alive in the pool", PoolStats::getAvailable);
+        gauge(registry, "http.client.pool.pending", "Requests waiting for a connection", PoolStats::getPending);
+        gauge(registry, "http.client.pool.max", "Maximum number of connections", PoolStats::getMax);
+        Gauge.builder("http.client.pool.routes", this, manager -> manager.connectionManager.getRoutes().size())
+                .description("Instances that currently have a sub-pool")
+                .register(registry);
+    }
+
+    private void gauge(MeterRegistry registry, String name, String description, ToIntFunction<PoolStats> value) {
+        Gauge.builder(name, this, manager -> value.applyAsInt(manager.connectionManager.getTotalStats()))
+                .description(description)
+                .register(registry);
+    }
+
+    private static String getRouteKey(HttpRoute route) {
+        HttpHost target = route.getTargetHost();
+        return getRouteKey(target.getHostName(), target.getPort());
+    }
+
+    private static String getRouteKey(String host, int port) {
+        return host + ":" + port;
+    }
+}
@@ -0,0 +1,134 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import java.util.Arrays;
+
+/**
+ * 单个服务实例的健康统计，供 {@link OutlierDetector} 使用。
+ * <p>
+ * 滑动窗口按时间分为 {@link #BUCKETS} 个桶，每个桶记录请求数、失败数与响应时间之和。
+ *
+ * @author wangguangwu
+ */
+class InstanceHealth {
+
+    /**
+     * 滑动窗口的桶数
+     */
+    private static final int BUCKETS = 10;
+
+    private final long bucketNanos;
+
+    private final long[] epochs = new long[BUCKETS];
+
+    private final int[] requests = new int[BUCKETS];
+
+    private final int[] failures = new int[BUCKETS];
+
+    private final long[] latencySums = new long[BUCKETS];
+
+    /**
+     * 连续失败次数
+     */
+    private int consecutiveFailures;
+
+    /**
+     * 已被摘除的次数，决定下一次摘除的时长
+     */
+    private int ejectionCount;
+
+    /**
+     * 摘除截止时间，未摘除时为 0
+     */
+    private volatile long ejectedUntilNanos;
+
+    InstanceHealth(long windowNanos) {
+        this.bucketNanos = Math.max(1, windowNanos / BUCKETS);
+    }
+
+    /**
+     * 记录一次请求结果。
+     *
+     * @param failure      是否失败
+     * @param latencyNanos 响应时间，单位纳秒
+     * @param nowNanos     当前时间
+     * @return 记录后的连续失败次数
+     */
+    synchronized int record(boolean failure, long latencyNanos, long nowNanos) {
+        int index = bucketOf(nowNanos);
+        requests[index]++;
+        latencySums[index] += latencyNanos;
+        if (failure) {
+            failures[index]++;
+            return ++consecutiveFailures;
+        }
+        consecutiveFailures = 0;
+        return 0;
+    }
+
+    /**
+     * 获取滑动窗口内的统计。
+     *
+     * @param nowNanos 当前时间
+     * @return 依次为请求数、失败数、响应时间之和
+     */
+    synchronized long[] snapshot(long nowNanos) {
+        long epoch = Math.floorDiv(nowNanos, bucketNanos);
+        long[] totals = new long[3];
+        for (int i = 0; i < BUCKETS; i++) {
+            if (epoch - epochs[i] < BUCKETS) {
+                totals[0] += requests[i];
+                totals[1] += failures[i];
+                totals[2] += latencySums[i];
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * 摘除实例，摘除时长从基础时长开始按次数翻倍。
+     * <p>
+     * 上一次摘除到期后每健康运行一个基础时长，摘除次数减一，长期稳定的实例逐步回到基础时长；
+     * 到期后很快再次出错的实例保持翻倍后的时长，不会因为达到上限而每个周期都回到基础时长。
+     *
+     * @param nowNanos  当前时间
+     * @param baseNanos 基础摘除时长
+     * @param maxNanos  最长摘除时长
+     * @return 摘除截止时间
+     */
+    synchronized long eject(long nowNanos, long baseNanos, long maxNanos) {
+        long healthyNanos = nowNanos - ejectedUntilNanos;
+        if (ejectionCount > 0 && healthyNanos > 0) {
+            ejectionCount = (int) Math.max(0L, ejectionCount - healthyNanos / Math.max(1L, baseNanos));
+        }
+        long duration = baseNanos << Math.min(ejectionCount, 30);
+        ejectionCount++;
+        ejectedUntilNanos = nowNanos + Math.min(Math.max(duration, baseNanos), maxNanos);
+        // 恢复后从头统计，避免摘除前的数据导致再次摘除
+        consecutiveFailures = 0;
+        Arrays.fill(requests, 0);
+        Arrays.fill(failures, 0);
+        Arrays.fill(latencySums, 0);
+        return ejectedUntilNanos;
+    }
+
+    boolean isEjected(long nowNanos) {
+        long until = ejectedUntilNanos;
+        return until != 0 && nowNanos - until < 0;
+    }
+
+    long getEjectedUntilNanos() {
+        return ejectedUntilNanos;
+    }
+
+    private int bucketOf(long nowNanos) {
+        long epoch = Math.floorDiv(nowNanos, bucketNanos);
+        int index = (int) Math.floorMod(epoch, (long) BUCKETS);
+        if (epochs[index] != epoch) {
+            epochs[index] = epoch;
+            requests[index] = 0;
+            failures[index] = 0;
+            latencySums[index] = 0;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,96 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个服务实例的指标，随 {@link ConnectionCounter} 一起保存，记录时无需重新构建标签。
+ *
+ * @author wangguangwu
+ */
+class InstanceMeters {
+
+    private final MeterRegistry registry;
+
+    private final String serviceId;
+
+    private final String instanceKey;
+
+    private final Gauge inFlight;
+
+    private final Timer successLatency;
+
+    private final Timer failureLatency;
+
+    /**
+     * 按负载均衡策略区分的被选中次数
+     */
+    private final Map<String, Counter> selections = new ConcurrentHashMap<>();
+
+    InstanceMeters(MeterRegistry registry, String serviceId, ConnectionCounter counter) {
+        this.registry = registry;
+        this.serviceId = serviceId;
+        this.instanceKey = counter.getKey();
+        this.inFlight = Gauge.builder("loadbalancer.instance.in.flight", counter, ConnectionCounter::get)
+                .description("Requests in flight to the service instance")
+                .tag("service", serviceId)
+                .tag("instance", instanceKey)
+                .register(registry);
+        this.successLatency = latencyTimer("SUCCESS");
+        this.failureLatency = latencyTimer("FAILURE");
+    }
+
+    /**
+     * 记录一次被负载均衡器选中。
+     *
+     * @param strategy 负载均衡策略
+     */
+    void recordSelection(String strategy) {
+        Counter counter = selections.get(strategy);
+        if (counter == null) {
+            counter = selections.computeIfAbsent(strategy, key -> Counter.builder("loadbalancer.selections")
+                    .description("Times the service instance was chosen")
+                    .tag("service", serviceId)
+                    .tag("instance", instanceKey)
+                    .tag("strategy", key)
+                    .register(registry));
+        }
+        counter.increment();
+    }
+
+    /**
+     * 记录一次调用耗时。
+     *
+     * @param nanos   调用耗时，单位纳秒
+     * @param success 调用是否成功
+     */
+    void recordLatency(long nanos, boolean success) {
+        (success ? successLatency : failureLatency).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 从注册表中移除该实例的所有指标。
+     */
+    void remove() {
+        registry.remove(inFlight);
+        registry.remove(successLatency);
+        registry.remove(failureLatency);
+        selections.values().forEach(registry::remove);
+    }
+
+    private Timer latencyTimer(String outcome) {
+        return Timer.builder("loadbalancer.client.requests")
+                .description("Client-side latency of calls to the service instance")
+                .tag("service", serviceId)
+                .tag("instance", instanceKey)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
@@ -0,0 +1,71 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import java.util.Arrays;
+
+/**
+ * 基于最近固定数量样本的响应时间分位数统计。
+ * <p>
+ * 分位数每记录 {@link #RECOMPUTE_INTERVAL} 个样本重新计算一次，读取时无需加锁。
+ *
+ * @author wangguangwu
+ */
+class LatencyTracker {
+
+    /**
+     * 保留的样本数
+     */
+    private static final int WINDOW = 256;
+
+    /**
+     * 重新计算分位数的样本间隔
+     */
+    private static final int RECOMPUTE_INTERVAL = 32;
+
+    private final double percentile;
+
+    private final long[] samples = new long[WINDOW];
+
+    private int next;
+
+    private int count;
+
+    private int sinceRecompute;
+
+    /**
+     * 最近一次计算出的分位数，单位纳秒，样本不足时为 0
+     */
+    private volatile long percentileNanos;
+
+    LatencyTracker(double percentile) {
+        this.percentile = percentile;
+    }
+
+    /**
+     * 记录一次响应时间。
+     *
+     * @param nanos 响应时间，单位纳秒
+     */
+    synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % WINDOW;
+        if (count < WINDOW) {
+            count++;
+        }
+        if (++sinceRecompute >= RECOMPUTE_INTERVAL) {
+            sinceRecompute = 0;
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * count) - 1;
+            percentileNanos = sorted[Math.max(0, Math.min(index, count - 1))];
+        }
+    }
+
+    /**
+     * 获取响应时间分位数。
+     *
+     * @return 分位数，单位纳秒，样本不足时返回 0
+     */
+    long getPercentileNanos() {
+        return percentileNanos;
+    }
+}
@@ -0,0 +1,132 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 负载均衡相关的 Micrometer 指标：
+ * <ul>
+ *     <li>{@code loadbalancer.choose}：选择实例的耗时，按服务和策略区分；</li>
+ *     <li>{@code loadbalancer.selections}：实例被选中的次数，按服务、实例和策略区分；</li>
+ *     <li>{@code loadbalancer.instance.in.flight}：实例的在途请求数；</li>
+ *     <li>{@code loadbalancer.client.requests}：调用实例的客户端耗时分布，按结果区分。</li>
+ * </ul>
+ * 实例指标保存在对应的 {@link ConnectionCounter} 上，计数槽回收时一并移除；
+ * 记录时只做 Map 查找，不重新构建标签，也不格式化字符串。指标注册表未绑定时所有记录都不生效。
+ *
+ * @author wangguangwu
+ */
+@Component
+public class LoadBalancerMetrics implements MeterBinder {
+
+    /**
+     * 指标注册表，尚未绑定时为 null
+     */
+    private volatile MeterRegistry registry;
+
+    /**
+     * 按服务名、策略保存的选择耗时
+     */
+    private final Map<String, Map<String, Timer>> chooseTimers = new ConcurrentHashMap<>();
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * 记录一次选择实例的耗时。
+     *
+     * @param serviceId 服务名
+     * @param strategy  负载均衡策略
+     * @param nanos     耗时，单位纳秒
+     */
+    public void recordChoose(String serviceId, String strategy, long nanos) {
+        MeterRegistry meterRegistry = registry;
+        if (meterRegistry == null) {
+            return;
+        }
+        Map<String, Timer> timers = chooseTimers.get(serviceId);
+        Timer timer = timers == null ? null : timers.get(strategy);
+        if (timer == null) {
+            timer = chooseTimers.computeIfAbsent(serviceId, key -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(strategy, key -> Timer.builder("loadbalancer.choose")
+                            .description("Time spent choosing a service instance")
+                            .tag("service", serviceId)
+                            .tag("strategy", strategy)
+                            .publishPercentileHistogram()
+                            .minimumExpectedValue(Duration.ofNanos(100))
+                            .maximumExpectedValue(Duration.ofMillis(100))
+                            .register(meterRegistry));
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录一次实例被选中。
+     *
+     * @param instance 服务实例
+     * @param counter  实例的计数槽
+     * @param strategy 负载均衡策略
+     */
+    void recordSelection(ServiceInstance instance, ConnectionCounter counter, String strategy) {
+        InstanceMeters meters = getInstanceMeters(instance, counter);
+        if (meters != null) {
+            meters.recordSelection(strategy);
+        }
+    }
+
+    /**
+     * 记录一次调用实例的耗时。
+     *
+     * @param instance 服务实例
+     * @param counter  实例的计数槽
+     * @param nanos    耗时，单位纳秒
+     * @param success  调用是否成功
+     */
+    void recordLatency(ServiceInstance instance, ConnectionCounter counter, long nanos, boolean success) {
+        InstanceMeters meters = getInstanceMeters(instance, counter);
+        if (meters != null) {
+            meters.recordLatency(nanos, success);
+        }
+    }
+
+    /**
+     * 移除已回收计数槽的实例指标。
+     *
+     * @param counter 已回收的计数槽
+     */
+    void remove(ConnectionCounter counter) {
+        InstanceMeters meters = counter.getInstanceMeters();
+        if (meters != null) {
+            meters.remove();
+        }
+    }
+
+    private InstanceMeters getInstanceMeters(ServiceInstance instance, ConnectionCounter counter) {
+        InstanceMeters meters = counter.getInstanceMeters();
+        if (meters != null) {
+            return meters;
+        }
+        MeterRegistry meterRegistry = registry;
+        if (meterRegistry == null) {
+            return null;
+        }
+        synchronized (counter) {
+            meters = counter.getInstanceMeters();
+            if (meters == null) {
+                meters = new InstanceMeters(meterRegistry, instance.getServiceId(), counter);
+                counter.setInstanceMeters(meters);
+            }
+            return meters;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import com.wangguangwu.nacosconsumerdemo.config.MicroBatchProperties;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerRequest;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 调用合并管理类，把发往同一服务实例的并发调用合并为对服务提供方批量接口的一次请求，见 {@link MicroBatcher}。
+ * <p>
+ * 每个逻辑调用先由负载均衡器选出实例，再加入该实例的批次；批量请求通过
+ * {@link LoadBalancerClient#execute(String, ServiceInstance, org.springframework.cloud.client.loadbalancer.LoadBalancerRequest)}
+ * 发出，连接计数、异常摘除等负载均衡生命周期按一次请求处理整批调用；批量请求携带 {@link RequestDataContext}，
+ * 生命周期据此记录请求耗时，延迟统计、Peak EWMA 等依赖响应时间的策略同样能看到批量请求。
+ * 批量请求发往批次封口时该地址最近一次被选中的实例对象，实例元数据更新后不会沿用旧对象。
+ * <p>
+ * 调用合并器按服务和实例地址维护，随连接池与 Nacos 的对账回收，见
+ * {@link HttpClientConnectionPoolManager#addReconcileListener}：实例下线后其合并器被移除，
+ * 已经发出的批次照常完成。
+ *
+ * @author wangguangwu
+ */
+@Component
+public class MicroBatchManager {
+
+    @Resource
+    private MicroBatchProperties microBatchProperties;
+
+    @Resource
+    private LoadBalancerClient loadBalancerClient;
+
+    @Resource
+    private HttpClientConnectionPoolManager httpClientConnectionPoolManager;
+
+    /**
+     * 按实例地址发送批量请求的 RestTemplate，不经过负载均衡拦截器
+     */
+    private RestTemplate restTemplate;
+
+    /**
+     * 服务实例对应的调用合并器，以服务名和实例的 host:port 为键
+     */
+    private final Map<String, Map<String, InstanceBatcher>> batchers = new ConcurrentHashMap<>();
+
+    private final AtomicLong callSequence = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        restTemplate = new RestTemplate(httpClientConnectionPoolManager.getRequestFactory());
+        httpClientConnectionPoolManager.addReconcileListener(this::retain);
+    }
+
+    /**
+     * 调用服务，与同一实例上的并发调用合并发送。
+     *
+     * @param serviceId 服务名
+     * @return 调用结果
+     * @throws IOException 批量请求失败
+     */
+    public String callService(String serviceId) throws IOException {
+        ServiceInstance instance = loadBalancerClient.choose(serviceId);
+        if (instance == null) {
+            throw new IllegalStateException("No instances available for " + serviceId);
+        }
+        // 登记到连接池的对账中，实例下线后回收其合并器
+        httpClientConnectionPoolManager.registerService(serviceId);
+        String instanceKey = instance.getHost() + ":" + instance.getPort();
+        InstanceBatcher batcher = batchers.computeIfAbsent(serviceId, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(instanceKey, k -> new InstanceBatcher(serviceId));
+        batcher.instance = instance;
+        return batcher.microBatcher.call(Long.toString(callSequence.incrementAndGet()));
+    }
+
+    /**
+     * 移除已下线实例的调用合并器。
+     *
+     * @param serviceId     服务名
+     * @param liveInstances Nacos 上报的实例地址（host:port）
+     */
+    void retain(String serviceId, Set<String> liveInstances) {
+        Map<String, InstanceBatcher> serviceBatchers = batchers.get(serviceId);
+        if (serviceBatchers != null) {
+            serviceBatchers.keySet().retainAll(liveInstances);
+        }
+    }
+
+    private List<String> send(String serviceId, ServiceInstance instance, List<String> callIds) throws IOException {
+        return loadBalancerClient.execute(serviceId, instance, new BatchRequest(serviceId, callIds));
+    }
+
+    /**
+     * 单个实例地址的调用合并器，以及该地址最近一次被选中的实例对象。
+     */
+    private final class InstanceBatcher {
+
+        private final MicroBatcher microBatcher;
+
+        private volatile ServiceInstance instance;
+
+        InstanceBatcher(String serviceId) {
+            this.microBatcher = new MicroBatcher(microBatchProperties.getMaxBatchSize(), microBatchProperties.getWindow().toNanos(),
+                    callIds -> send(serviceId, instance, callIds));
+        }
+    }
+
+    /**
+     * 一次批量请求。同时作为负载均衡请求传给 {@link LoadBalancerClient}，
+     * 携带的 {@link RequestDataContext} 由负载均衡生命周期写入请求开始时间。
+     */
+    private final class BatchRequest implements LoadBalancerRequest<List<String>>, Request<RequestDataContext> {
+
+        private final List<String> callIds;
+
+        private final RequestDataContext context;
+
+        BatchRequest(String serviceId, List<String> callIds) {
+            this.callIds = callIds;
+            this.context = new RequestDataContext(new RequestData(HttpMethod.POST,
+                    URI.create("http://" + serviceId + microBatchProperties.getPath()),
+                    new HttpHeaders(), new LinkedMultiValueMap<>(), new HashMap<>()));
+        }
+
+        @Override
+        public RequestDataContext getContext() {
+            return context;
+        }
+
+        @Override
+        public List<String> apply(ServiceInstance chosen) {
+            URI uri = URI.create(chosen.getUri() + microBatchProperties.getPath());
+            ResponseEntity<String[]> response = restTemplate.exchange(uri, HttpMethod.POST, new HttpEntity<>(callIds), String[].class);
+            String[] results = response.getBody();
+            return results == null ? null : Arrays.asList(results);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个服务实例的调用合并器，把并发到达的逻辑调用合并为一次批量请求。
+ * <p>
+ * 第一个到达的调用成为本批的发送者：它最多等待 {@code window}，期间到达的调用加入同一批；
+ * 批次凑满 {@code maxBatchSize} 时立即封口。封口后由发送者在自己的线程上发出批量请求，
+ * 再把结果按顺序分发给本批的每个调用，因此不需要额外的后台线程。
+ *
+ * @author wangguangwu
+ */
+public class MicroBatcher {
+
+    /**
+     * 批量请求的发送方式。
+     */
+    @FunctionalInterface
+    public interface BatchSender {
+
+        /**
+         * 发送一次批量请求。
+         *
+         * @param callIds 本批逻辑调用的标识
+         * @return 与 callIds 一一对应的结果
+         * @throws IOException 请求失败
+         */
+        List<String> send(List<String> callIds) throws IOException;
+    }
+
+    private final int maxBatchSize;
+
+    private final long windowNanos;
+
+    private final BatchSender sender;
+
+    /**
+     * 正在收集调用、尚未封口的批次
+     */
+    private Batch open;
+
+    public MicroBatcher(int maxBatchSize, long windowNanos, BatchSender sender) {
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.windowNanos = windowNanos;
+        this.sender = sender;
+    }
+
+    /**
+     * 发起一次逻辑调用，阻塞到所在批次返回。
+     *
+     * @param callId 逻辑调用的标识
+     * @return 本次调用的结果
+     * @throws IOException 批量请求失败或等待时被中断
+     */
+    public String call(String callId) throws IOException {
+        Batch batch;
+        int index;
+        boolean leader;
+        synchronized (this) {
+            leader = open == null;
+            if (leader) {
+                open = new Batch();
+            }
+            batch = open;
+            index = batch.callIds.size();
+            batch.callIds.add(callId);
+            if (batch.callIds.size() >= maxBatchSize) {
+                open = null;
+                notifyAll();
+            }
+        }
+        if (leader) {
+            awaitSealed(batch);
+            dispatch(batch);
+        }
+        return batch.get(index);
+    }
+
+    /**
+     * 等待批次凑满或窗口结束，结束时由发送者封口。
+     */
+    private synchronized void awaitSealed(Batch batch) {
+        long deadline = System.nanoTime() + windowNanos;
+        try {
+            while (open == batch) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        } catch (InterruptedException e) {
+            // 本批其他调用仍在等待，提前发送
+            Thread.currentThread().interrupt();
+        }
+        if (open == batch) {
+            open = null;
+        }
+    }
+
+    private void dispatch(Batch batch) {
+        try {
+            List<String> results = sender.send(batch.callIds);
+            if (results == null || results.size() != batch.callIds.size()) {
+                throw new IOException("Batch of " + batch.callIds.size() + " calls returned "
+                        + (results == null ? 0 : results.size()) + " results");
+            }
+            batch.results.complete(results);
+        } catch (IOException | RuntimeException e) {
+            batch.results.completeExceptionally(e);
+        } finally {
+            // 发送者抛出 Error 时异常照常向上抛出，本批其他调用同样失败，而不是一直阻塞
+            if (!batch.results.isDone()) {
+                batch.results.completeExceptionally(new IOException("Batch of " + batch.callIds.size() + " calls was not sent"));
+            }
+        }
+    }
+
+    /**
+     * 一次批量请求包含的调用。
+     */
+    private static class Batch {
+
+        private final List<String> callIds = new ArrayList<>();
+
+        private final CompletableFuture<List<String>> results = new CompletableFuture<>();
+
+        String get(int index) throws IOException {
+            try {
+                return results.get().get(index);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for batched call");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IOException(cause);
+            }
+        }
+    }
+}
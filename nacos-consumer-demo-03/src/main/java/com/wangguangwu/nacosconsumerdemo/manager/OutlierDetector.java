@@ -0,0 +1,267 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import com.wangguangwu.nacosconsumerdemo.config.OutlierDetectionProperties;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 被动异常实例检测，根据请求结果把持续出错或明显变慢的实例暂时摘除。
+ * <p>
+ * 摘除条件：
+ * <ul>
+ *     <li>连续失败（5xx 或 IO 异常）达到阈值，在记录结果时立即判断；</li>
+ *     <li>滑动窗口内的失败率达到阈值；</li>
+ *     <li>滑动窗口内的平均响应时间超过同服务各实例中位数的若干倍。</li>
+ * </ul>
+ * 后两项按固定间隔检查。摘除时长从基础时长开始按次数翻倍，并且同一服务同时摘除的实例不超过配置的百分比，
+ * 百分比按 {@link #retain} 传入的完整实例列表计算。
+ * 实例以 host:port 标识，服务发现刷新后返回的新实例对象仍对应同一份统计。
+ *
+ * @author wangguangwu
+ */
+@Component
+public class OutlierDetector {
+
+    private static final Log log = LogFactory.getLog(OutlierDetector.class);
+
+    private final OutlierDetectionProperties properties;
+
+    /**
+     * 按服务名保存的实例统计
+     */
+    private final Map<String, ServiceHealth> services = new ConcurrentHashMap<>();
+
+    public OutlierDetector(OutlierDetectionProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 检查是否开启了异常实例摘除。
+     *
+     * @return 开启时返回 true
+     */
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 记录一次请求结果。
+     *
+     * @param instance     服务实例
+     * @param failure      是否失败（5xx 或 IO 异常）
+     * @param latencyNanos 响应时间，单位纳秒
+     */
+    public void recordOutcome(ServiceInstance instance, boolean failure, long latencyNanos) {
+        recordOutcome(instance, failure, latencyNanos, System.nanoTime());
+    }
+
+    void recordOutcome(ServiceInstance instance, boolean failure, long latencyNanos, long nowNanos) {
+        ServiceHealth service = services.computeIfAbsent(instance.getServiceId(),
+                id -> new ServiceHealth(nowNanos + properties.getAnalysisInterval().toNanos()));
+        String key = getInstanceKey(instance);
+        InstanceHealth health = service.instances.computeIfAbsent(key,
+                k -> new InstanceHealth(properties.getWindow().toNanos()));
+        if (health.isEjected(nowNanos)) {
+            return;
+        }
+        int consecutiveFailures = health.record(failure, latencyNanos, nowNanos);
+        if (properties.getConsecutiveFailures() > 0 && consecutiveFailures >= properties.getConsecutiveFailures()) {
+            eject(instance.getServiceId(), service, key, health, nowNanos, "consecutive failures");
+        }
+        long next = service.nextAnalysisNanos.get();
+        if (nowNanos - next >= 0
+                && service.nextAnalysisNanos.compareAndSet(next, nowNanos + properties.getAnalysisInterval().toNanos())) {
+            analyze(instance.getServiceId(), service, nowNanos);
+        }
+    }
+
+    /**
+     * 检查实例当前是否被摘除。
+     *
+     * @param instance 服务实例
+     * @return 被摘除时返回 true
+     */
+    public boolean isEjected(ServiceInstance instance) {
+        return getEjectedUntilNanos(instance, System.nanoTime()) != 0L;
+    }
+
+    /**
+     * 获取实例的摘除截止时间。
+     *
+     * @param instance 服务实例
+     * @param nowNanos 当前时间
+     * @return 摘除截止时间，未被摘除时返回 0
+     */
+    public long getEjectedUntilNanos(ServiceInstance instance, long nowNanos) {
+        ServiceHealth service = services.get(instance.getServiceId());
+        InstanceHealth health = service == null ? null : service.instances.get(getInstanceKey(instance));
+        return health != null && health.isEjected(nowNanos) ? health.getEjectedUntilNanos() : 0L;
+    }
+
+    /**
+     * 获取服务中最晚的摘除截止时间，供调用方判断当前是否存在被摘除的实例。
+     *
+     * @param serviceId 服务名
+     * @return 最晚的摘除截止时间，从未摘除时为 0
+     */
+    public long getEjectionsActiveUntilNanos(String serviceId) {
+        ServiceHealth service = services.get(serviceId);
+        return service == null ? 0L : service.ejectionsActiveUntilNanos;
+    }
+
+    /**
+     * 获取服务的摘除版本号，每次摘除实例时递增。
+     *
+     * @param serviceId 服务名
+     * @return 摘除版本号
+     */
+    public long getEjectionVersion(String serviceId) {
+        ServiceHealth service = services.get(serviceId);
+        return service == null ? 0L : service.version;
+    }
+
+    /**
+     * 记录服务当前的实例数，并移除已不在服务实例列表中的实例统计。
+     * <p>
+     * 必须传入过滤之前的完整实例列表，否则被过滤掉的实例会丢失摘除状态。
+     *
+     * @param serviceId 服务名
+     * @param instances 当前的服务实例列表
+     */
+    public void retain(String serviceId, Collection<ServiceInstance> instances) {
+        ServiceHealth service = services.computeIfAbsent(serviceId,
+                id -> new ServiceHealth(System.nanoTime() + properties.getAnalysisInterval().toNanos()));
+        service.liveInstances = instances.size();
+        Set<String> keys = new HashSet<>(instances.size() * 2);
+        for (ServiceInstance instance : instances) {
+            keys.add(getInstanceKey(instance));
+        }
+        service.instances.keySet().retainAll(keys);
+    }
+
+    /**
+     * 按失败率与响应时间偏离程度检查服务的所有实例。
+     */
+    private void analyze(String serviceId, ServiceHealth service, long nowNanos) {
+        List<String> keys = new ArrayList<>();
+        List<long[]> snapshots = new ArrayList<>();
+        List<Double> meanLatencies = new ArrayList<>();
+        for (Map.Entry<String, InstanceHealth> entry : service.instances.entrySet()) {
+            if (entry.getValue().isEjected(nowNanos)) {
+                continue;
+            }
+            long[] snapshot = entry.getValue().snapshot(nowNanos);
+            if (snapshot[0] < properties.getMinimumRequests()) {
+                continue;
+            }
+            keys.add(entry.getKey());
+            snapshots.add(snapshot);
+            meanLatencies.add((double) snapshot[2] / snapshot[0]);
+        }
+        double medianLatency = median(meanLatencies);
+        for (int i = 0; i < keys.size(); i++) {
+            long[] snapshot = snapshots.get(i);
+            InstanceHealth health = service.instances.get(keys.get(i));
+            if (health == null) {
+                continue;
+            }
+            if (properties.getFailureRatePercent() > 0
+                    && snapshot[1] * 100 >= snapshot[0] * properties.getFailureRatePercent()) {
+                eject(serviceId, service, keys.get(i), health, nowNanos, "failure rate");
+            } else if (properties.getLatencyDeviationFactor() > 0 && keys.size() >= 3
+                    && meanLatencies.get(i) > medianLatency * properties.getLatencyDeviationFactor()) {
+                eject(serviceId, service, keys.get(i), health, nowNanos, "latency deviation");
+            }
+        }
+    }
+
+    /**
+     * 在不超过最大摘除比例的前提下摘除实例。
+     */
+    private void eject(String serviceId, ServiceHealth service, String key, InstanceHealth health, long nowNanos, String reason) {
+        synchronized (service) {
+            if (health.isEjected(nowNanos)) {
+                return;
+            }
+            int ejected = 0;
+            for (InstanceHealth instance : service.instances.values()) {
+                if (instance.isEjected(nowNanos)) {
+                    ejected++;
+                }
+            }
+            // 按实例列表中的实例数计算，没有请求结果的实例同样计入；尚未收到实例列表时按有统计的实例数计算。
+            // 向上取整，实例较少的服务也能摘除至少一个实例；全部被摘除时由实例列表回退到完整列表
+            int live = service.liveInstances > 0 ? service.liveInstances : service.instances.size();
+            int maxEjectionPercent = properties.getMaxEjectionPercent();
+            int maxEjected = maxEjectionPercent <= 0 ? 0
+                    : Math.max(1, (int) Math.ceil(live * maxEjectionPercent / 100.0));
+            if (ejected >= maxEjected) {
+                return;
+            }
+            long until = health.eject(nowNanos, properties.getBaseEjectionTime().toNanos(), properties.getMaxEjectionTime().toNanos());
+            if (service.ejectionsActiveUntilNanos == 0 || until - service.ejectionsActiveUntilNanos > 0) {
+                service.ejectionsActiveUntilNanos = until;
+            }
+            service.version++;
+            log.warn(String.format("Ejected instance %s of service %s for %d ms due to %s",
+                    key, serviceId, (until - nowNanos) / 1_000_000, reason));
+        }
+    }
+
+    private static double median(List<Double> values) {
+        if (values.isEmpty()) {
+            return 0;
+        }
+        List<Double> sorted = new ArrayList<>(values);
+        sorted.sort(null);
+        int middle = sorted.size() / 2;
+        return sorted.size() % 2 == 1 ? sorted.get(middle) : (sorted.get(middle - 1) + sorted.get(middle)) / 2;
+    }
+
+    private static String getInstanceKey(ServiceInstance instance) {
+        return instance.getHost() + ":" + instance.getPort();
+    }
+
+    /**
+     * 单个服务的实例统计。
+     */
+    private static class ServiceHealth {
+
+        private final Map<String, InstanceHealth> instances = new ConcurrentHashMap<>();
+
+        /**
+         * 最近一次实例列表中的实例数，未收到实例列表时为 0
+         */
+        private volatile int liveInstances;
+
+        /**
+         * 下一次检查失败率与响应时间的时间
+         */
+        private final AtomicLong nextAnalysisNanos;
+
+        /**
+         * 最晚的摘除截止时间
+         */
+        private volatile long ejectionsActiveUntilNanos;
+
+        /**
+         * 摘除版本号
+         */
+        private volatile long version;
+
+        ServiceHealth(long nextAnalysisNanos) {
+            this.nextAnalysisNanos = new AtomicLong(nextAnalysisNanos);
+        }
+    }
+}
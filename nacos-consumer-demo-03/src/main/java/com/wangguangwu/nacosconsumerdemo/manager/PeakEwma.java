@@ -0,0 +1,59 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+/**
+ * 单个服务实例响应时间的峰值指数加权移动平均（Peak EWMA）。
+ * <p>
+ * 新的样本大于当前均值时直接取该样本（峰值），否则按距上次更新的时间做指数衰减后加权。
+ * 读取时同样按经过的时间衰减，长时间未被选中的慢实例会逐渐恢复被选择的机会。
+ *
+ * @author wangguangwu
+ */
+public final class PeakEwma {
+
+    /**
+     * 当前的响应时间均值，单位纳秒
+     */
+    private volatile double costNanos;
+
+    /**
+     * 上次更新的时间戳，单位纳秒
+     */
+    private volatile long stampNanos;
+
+    PeakEwma() {
+    }
+
+    /**
+     * 记录一次响应时间样本。
+     *
+     * @param responseTimeNanos 响应时间，单位纳秒
+     * @param nowNanos          当前时间，单位纳秒
+     * @param decayNanos        衰减窗口，单位纳秒
+     */
+    public synchronized void observe(long responseTimeNanos, long nowNanos, long decayNanos) {
+        double sample = Math.max(responseTimeNanos, 0L);
+        double cost = costNanos;
+        if (sample > cost) {
+            costNanos = sample;
+        } else {
+            double weight = Math.exp(-Math.max(nowNanos - stampNanos, 0L) / (double) decayNanos);
+            costNanos = cost * weight + sample * (1.0 - weight);
+        }
+        stampNanos = nowNanos;
+    }
+
+    /**
+     * 获取衰减到当前时间的响应时间均值。
+     *
+     * @param nowNanos   当前时间，单位纳秒
+     * @param decayNanos 衰减窗口，单位纳秒
+     * @return 响应时间均值，单位纳秒；尚无样本时返回 0
+     */
+    public double getCost(long nowNanos, long decayNanos) {
+        double cost = costNanos;
+        if (cost == 0.0) {
+            return 0.0;
+        }
+        return cost * Math.exp(-Math.max(nowNanos - stampNanos, 0L) / (double) decayNanos);
+    }
+}
@@ -0,0 +1,205 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import com.wangguangwu.nacosconsumerdemo.config.ResponseCacheProperties;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个服务的响应缓存，以请求路径为键，按 {@link ResponseCacheProperties.Policy} 控制有效期与容量。
+ * <p>
+ * 除缓存条目外还记录正在进行的上游请求，同一路径的并发请求只发出一次（single-flight），
+ * 其余请求等待同一个结果。
+ *
+ * @author wangguangwu
+ */
+public class ResponseCache {
+
+    private final ResponseCacheProperties.Policy policy;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 正在进行的上游请求，结果为 null 表示响应不可缓存
+     */
+    private final Map<String, CompletableFuture<ClientHttpResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder staleHits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    public ResponseCache(ResponseCacheProperties.Policy policy) {
+        this.policy = policy.copy();
+    }
+
+    /**
+     * 判断该缓存是否按指定的缓存规则创建。
+     *
+     * @param policy 缓存规则
+     * @return 规则相同时返回 true
+     */
+    boolean isBuiltFrom(ResponseCacheProperties.Policy policy) {
+        return this.policy.equals(policy);
+    }
+
+    /**
+     * 获取缓存条目，连过期后可用的时长也已过去的条目视为不存在。
+     *
+     * @param key      请求路径
+     * @param nowNanos 当前时间
+     * @return 缓存条目，不存在时返回 null
+     */
+    public Entry get(String key, long nowNanos) {
+        Entry entry = entries.get(key);
+        return entry == null || entry.isExpired(nowNanos) ? null : entry;
+    }
+
+    /**
+     * 登记一次上游请求。
+     *
+     * @param key    请求路径
+     * @param future 本次请求的结果
+     * @return 已有的同路径请求的结果；返回 null 表示登记成功，调用方负责发出请求并完成 future
+     */
+    public CompletableFuture<ClientHttpResponse> register(String key, CompletableFuture<ClientHttpResponse> future) {
+        return inFlight.putIfAbsent(key, future);
+    }
+
+    /**
+     * 结束一次上游请求，可缓存的响应写入缓存。
+     *
+     * @param key      请求路径
+     * @param future   登记时的结果
+     * @param response 可缓存的响应，不可缓存时为 null
+     * @param nowNanos 当前时间
+     */
+    public void complete(String key, CompletableFuture<ClientHttpResponse> future, ClientHttpResponse response, long nowNanos) {
+        if (response != null) {
+            put(key, response, nowNanos);
+        }
+        inFlight.remove(key, future);
+        future.complete(response);
+    }
+
+    /**
+     * 上游请求失败，等待者收到同样的异常。
+     *
+     * @param key    请求路径
+     * @param future 登记时的结果
+     * @param cause  失败原因
+     */
+    public void fail(String key, CompletableFuture<ClientHttpResponse> future, Throwable cause) {
+        inFlight.remove(key, future);
+        future.completeExceptionally(cause);
+    }
+
+    private void put(String key, ClientHttpResponse response, long nowNanos) {
+        long freshUntil = nowNanos + policy.getTtl().toNanos();
+        entries.put(key, new Entry(response, nowNanos, freshUntil, freshUntil + policy.getStaleWhileRevalidate().toNanos()));
+        if (entries.size() > policy.getMaxEntries()) {
+            evict(nowNanos);
+        }
+    }
+
+    /**
+     * 超出容量时先清理过期条目，仍然超出时移除最早写入的条目。
+     */
+    private void evict(long nowNanos) {
+        entries.values().removeIf(entry -> entry.isExpired(nowNanos));
+        while (entries.size() > policy.getMaxEntries()) {
+            String oldestKey = null;
+            long oldestNanos = 0L;
+            for (Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String, Entry> candidate = it.next();
+                if (oldestKey == null || candidate.getValue().storedNanos - oldestNanos < 0) {
+                    oldestKey = candidate.getKey();
+                    oldestNanos = candidate.getValue().storedNanos;
+                }
+            }
+            if (oldestKey == null) {
+                return;
+            }
+            entries.remove(oldestKey);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void recordHit() {
+        hits.increment();
+    }
+
+    public void recordStaleHit() {
+        staleHits.increment();
+    }
+
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    public void recordCoalesced() {
+        coalesced.increment();
+    }
+
+    public double getHits() {
+        return hits.sum();
+    }
+
+    public double getStaleHits() {
+        return staleHits.sum();
+    }
+
+    public double getMisses() {
+        return misses.sum();
+    }
+
+    public double getCoalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * 缓存条目。
+     */
+    public static class Entry {
+
+        private final ClientHttpResponse response;
+
+        private final long storedNanos;
+
+        private final long freshUntilNanos;
+
+        private final long staleUntilNanos;
+
+        Entry(ClientHttpResponse response, long storedNanos, long freshUntilNanos, long staleUntilNanos) {
+            this.response = response;
+            this.storedNanos = storedNanos;
+            this.freshUntilNanos = freshUntilNanos;
+            this.staleUntilNanos = staleUntilNanos;
+        }
+
+        public ClientHttpResponse getResponse() {
+            return response;
+        }
+
+        /**
+         * 条目是否仍在有效期内。
+         */
+        public boolean isFresh(long nowNanos) {
+            return nowNanos - freshUntilNanos < 0;
+        }
+
+        boolean isExpired(long nowNanos) {
+            return nowNanos - staleUntilNanos >= 0;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import com.wangguangwu.nacosconsumerdemo.config.ResponseCacheProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 按下游服务名管理 {@link ResponseCache}，只为配置了缓存规则的服务创建。
+ * <p>
+ * 每个服务的缓存命中、过期命中、未命中与合并的请求数通过 Micrometer 指标
+ * {@code loadbalancer.response.cache.requests} 暴露，以 {@code service} 和 {@code result} 标签区分；
+ * 缓存条目数通过 {@code loadbalancer.response.cache.size} 暴露。
+ * <p>
+ * 配置刷新后，缓存规则发生变化的服务换用按新规则创建的缓存，规则被删除的服务不再缓存，
+ * 旧缓存的条目和指标一并移除。
+ *
+ * @author wangguangwu
+ */
+@Component
+public class ResponseCacheManager implements MeterBinder {
+
+    /**
+     * 缓存规则的前缀，与 {@link ResponseCacheProperties} 一致
+     */
+    private static final String RESPONSE_CACHE_PREFIX = "loadbalancer.response-cache";
+
+    private static final String REQUESTS_METER = "loadbalancer.response.cache.requests";
+
+    private static final String SIZE_METER = "loadbalancer.response.cache.size";
+
+    @Resource
+    private ResponseCacheProperties responseCacheProperties;
+
+    @Resource
+    private Environment environment;
+
+    private final Map<String, ResponseCache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * 指标注册表，尚未绑定时为 null
+     */
+    private volatile MeterRegistry meterRegistry;
+
+    /**
+     * 获取指定服务的响应缓存，已有缓存的规则与当前配置不一致时按当前配置重新创建。
+     *
+     * @param serviceId 服务名
+     * @return 响应缓存，服务未开启缓存时返回 null
+     */
+    public ResponseCache getCache(String serviceId) {
+        ResponseCacheProperties.Policy policy = responseCacheProperties.getServices().get(serviceId);
+        ResponseCache cache = caches.get(serviceId);
+        if (cache != null && policy != null && cache.isBuiltFrom(policy)) {
+            return cache;
+        }
+        if (policy == null) {
+            if (cache != null) {
+                evict(serviceId, cache);
+            }
+            return null;
+        }
+        return caches.compute(serviceId, (id, previous) -> {
+            if (previous != null && previous.isBuiltFrom(policy)) {
+                return previous;
+            }
+            MeterRegistry registry = meterRegistry;
+            if (registry != null && previous != null) {
+                unbind(registry, id);
+            }
+            ResponseCache created = new ResponseCache(policy);
+            if (registry != null) {
+                bind(registry, id, created);
+            }
+            return created;
+        });
+    }
+
+    /**
+     * 重新绑定缓存规则，移除规则已变化或已删除的服务的缓存，之后的 {@link #getCache} 按新规则创建。
+     * <p>
+     * 配置属性的重新绑定只会合并 Map，这里从 {@link Environment} 绑定一份新的规则整体替换，
+     * 配置中心删除的服务不会保留旧的规则。
+     */
+    public synchronized void refresh() {
+        ResponseCacheProperties fresh = Binder.get(environment)
+                .bind(RESPONSE_CACHE_PREFIX, ResponseCacheProperties.class)
+                .orElseGet(ResponseCacheProperties::new);
+        responseCacheProperties.setServices(fresh.getServices());
+        caches.forEach((serviceId, cache) -> {
+            ResponseCacheProperties.Policy policy = fresh.getServices().get(serviceId);
+            if (policy == null || !cache.isBuiltFrom(policy)) {
+                evict(serviceId, cache);
+            }
+        });
+    }
+
+    private void evict(String serviceId, ResponseCache cache) {
+        MeterRegistry registry = meterRegistry;
+        if (caches.remove(serviceId, cache) && registry != null) {
+            unbind(registry, serviceId);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.meterRegistry = registry;
+        caches.forEach((serviceId, cache) -> bind(registry, serviceId, cache));
+    }
+
+    private static void bind(MeterRegistry registry, String serviceId, ResponseCache cache) {
+        bindCounter(registry, serviceId, cache, "hit", ResponseCache::getHits);
+        bindCounter(registry, serviceId, cache, "stale", ResponseCache::getStaleHits);
+        bindCounter(registry, serviceId, cache, "miss", ResponseCache::getMisses);
+        bindCounter(registry, serviceId, cache, "coalesced", ResponseCache::getCoalesced);
+        Gauge.builder(SIZE_METER, cache, ResponseCache::size)
+                .description("Cached responses")
+                .tag("service", serviceId)
+                .register(registry);
+    }
+
+    private static void unbind(MeterRegistry registry, String serviceId) {
+        registry.find(REQUESTS_METER).tag("service", serviceId).meters().forEach(registry::remove);
+        registry.find(SIZE_METER).tag("service", serviceId).meters().forEach(registry::remove);
+    }
+
+    private static void bindCounter(MeterRegistry registry, String serviceId, ResponseCache cache, String result,
+                                    ToDoubleFunction<ResponseCache> count) {
+        FunctionCounter.builder(REQUESTS_METER, cache, count)
+                .description("Requests served through the response cache")
+                .tag("service", serviceId)
+                .tag("result", result)
+                .register(registry);
+    }
+}
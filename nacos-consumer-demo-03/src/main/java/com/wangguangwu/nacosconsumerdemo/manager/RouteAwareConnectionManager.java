@@ -0,0 +1,34 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * 支持按路由关闭空闲连接的连接池。
+ * <p>
+ * 路由下的连接全部关闭后，连接池会同时移除该路由的子池，已下线实例的子池因此不会持续堆积。
+ *
+ * @author wangguangwu
+ */
+class RouteAwareConnectionManager extends PoolingHttpClientConnectionManager {
+
+    RouteAwareConnectionManager(long timeToLive, TimeUnit timeUnit) {
+        super(timeToLive, timeUnit);
+    }
+
+    /**
+     * 关闭指定路由下的所有空闲连接，正在使用的连接归还后由下一次调用关闭。
+     *
+     * @param routeFilter 需要关闭连接的路由
+     */
+    void closeIdleConnections(Predicate<HttpRoute> routeFilter) {
+        enumAvailable(entry -> {
+            if (routeFilter.test(entry.getRoute())) {
+                entry.close();
+            }
+        });
+    }
+}
@@ -0,0 +1,223 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import com.wangguangwu.nacosconsumerdemo.config.PeakEwmaProperties;
+import com.wangguangwu.nacosconsumerdemo.config.RoutingStrategyProperties;
+import com.wangguangwu.nacosconsumerdemo.config.ServerLoadProperties;
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.LeastConnectionsRoutingLoadBalancer;
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.PeakEwmaLoadBalancer;
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.PowerOfTwoChoicesLoadBalancer;
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.RoutingStrategy;
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.ServerLoadAwareLoadBalancer;
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.SwitchableLoadBalancer;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.cloud.loadbalancer.core.RandomLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.RoundRobinLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 负载均衡策略管理类，为每个服务创建 {@link SwitchableLoadBalancer}，并在配置变更时切换策略。
+ * <p>
+ * 策略来自 {@link RoutingStrategyProperties}，调优参数来自各策略自己的配置项。配置中心推送变更后，
+ * 只有策略或其调优参数发生变化的服务才会换上新的负载均衡器；负载均衡子上下文、
+ * 实例列表缓存和连接计数都保持不变，也不需要重建 {@code RefreshScope} 中的 Bean。
+ * <p>
+ * 刷新时从 {@link Environment} 重新绑定一份策略配置并整体替换：配置属性的重新绑定只会合并 Map，
+ * 配置中心删除某个服务的策略后，该服务需要回到默认策略。
+ *
+ * @author wangguangwu
+ */
+@Component
+public class RoutingStrategyManager implements ApplicationListener<RefreshScopeRefreshedEvent> {
+
+    private static final Log log = LogFactory.getLog(RoutingStrategyManager.class);
+
+    /**
+     * 策略配置的前缀，与 {@link RoutingStrategyProperties} 一致
+     */
+    private static final String ROUTING_PREFIX = "loadbalancer.routing";
+
+    private final RoutingStrategyProperties routingStrategyProperties;
+
+    private final PeakEwmaProperties peakEwmaProperties;
+
+    private final ServerLoadProperties serverLoadProperties;
+
+    private final ConnectionCounterManager connectionCounterManager;
+
+    private final Environment environment;
+
+    /**
+     * 已创建的负载均衡器，按服务名索引
+     */
+    private final Map<String, Registration> registrations = new ConcurrentHashMap<>();
+
+    public RoutingStrategyManager(RoutingStrategyProperties routingStrategyProperties,
+                                  PeakEwmaProperties peakEwmaProperties,
+                                  ServerLoadProperties serverLoadProperties,
+                                  ConnectionCounterManager connectionCounterManager,
+                                  Environment environment) {
+        this.routingStrategyProperties = routingStrategyProperties;
+        this.peakEwmaProperties = peakEwmaProperties;
+        this.serverLoadProperties = serverLoadProperties;
+        this.connectionCounterManager = connectionCounterManager;
+        this.environment = environment;
+    }
+
+    /**
+     * 按当前配置为服务创建可切换策略的负载均衡器。
+     *
+     * @param serviceId                           服务名
+     * @param serviceInstanceListSupplierProvider 提供服务实例列表的供应者
+     * @return 可切换策略的负载均衡器
+     */
+    public synchronized SwitchableLoadBalancer create(String serviceId,
+                                                      ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider) {
+        Selection selection = select(serviceId);
+        SwitchableLoadBalancer loadBalancer = new SwitchableLoadBalancer(serviceId,
+                build(serviceId, serviceInstanceListSupplierProvider, selection));
+        registrations.put(serviceId, new Registration(loadBalancer, serviceInstanceListSupplierProvider, selection));
+        return loadBalancer;
+    }
+
+    /**
+     * 配置刷新后按最新配置切换策略。
+     */
+    @Override
+    public void onApplicationEvent(RefreshScopeRefreshedEvent event) {
+        refresh();
+    }
+
+    /**
+     * 重新绑定策略配置，检查每个服务的策略和调优参数，发生变化时换上新的负载均衡器。
+     */
+    public synchronized void refresh() {
+        reloadRoutingStrategies();
+        registrations.forEach((serviceId, registration) -> {
+            Selection selection = select(serviceId);
+            if (selection.equals(registration.selection)) {
+                return;
+            }
+            registration.loadBalancer.switchTo(build(serviceId, registration.serviceInstanceListSupplierProvider, selection));
+            if (log.isInfoEnabled()) {
+                log.info("Switched load balancing strategy of service " + serviceId + " from " + registration.selection + " to " + selection);
+            }
+            registration.selection = selection;
+        });
+    }
+
+    /**
+     * 以新绑定的配置替换策略配置，已删除的服务不再保留旧的策略。
+     */
+    private void reloadRoutingStrategies() {
+        RoutingStrategyProperties fresh = Binder.get(environment)
+                .bind(ROUTING_PREFIX, RoutingStrategyProperties.class)
+                .orElseGet(RoutingStrategyProperties::new);
+        routingStrategyProperties.setDefaultStrategy(fresh.getDefaultStrategy());
+        routingStrategyProperties.setServices(fresh.getServices());
+    }
+
+    private Selection select(String serviceId) {
+        RoutingStrategy strategy = routingStrategyProperties.getStrategy(serviceId);
+        switch (strategy) {
+            case PEAK_EWMA:
+                return new Selection(strategy, peakEwmaProperties.getDecayWindow(serviceId));
+            case SERVER_LOAD_AWARE:
+                return new Selection(strategy, serverLoadProperties.getHalfLife());
+            default:
+                return new Selection(strategy, null);
+        }
+    }
+
+    private ReactorServiceInstanceLoadBalancer build(String serviceId,
+                                                     ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                                                     Selection selection) {
+        switch (selection.strategy) {
+            case RANDOM:
+                return new RandomLoadBalancer(serviceInstanceListSupplierProvider, serviceId);
+            case LEAST_CONNECTIONS:
+                return new LeastConnectionsRoutingLoadBalancer(serviceInstanceListSupplierProvider, serviceId, connectionCounterManager);
+            case POWER_OF_TWO_CHOICES:
+                return new PowerOfTwoChoicesLoadBalancer(serviceInstanceListSupplierProvider, serviceId, connectionCounterManager);
+            case PEAK_EWMA:
+                return new PeakEwmaLoadBalancer(serviceInstanceListSupplierProvider, serviceId, connectionCounterManager, selection.tuning);
+            case SERVER_LOAD_AWARE:
+                return new ServerLoadAwareLoadBalancer(serviceInstanceListSupplierProvider, serviceId, connectionCounterManager, selection.tuning);
+            case ROUND_ROBIN:
+            default:
+                return new RoundRobinLoadBalancer(serviceInstanceListSupplierProvider, serviceId);
+        }
+    }
+
+    /**
+     * 服务当前使用的策略及其调优参数。
+     */
+    private static final class Selection {
+
+        private final RoutingStrategy strategy;
+
+        /**
+         * 策略的时间参数，如 Peak EWMA 的衰减窗口，没有时为 null
+         */
+        private final Duration tuning;
+
+        Selection(RoutingStrategy strategy, Duration tuning) {
+            this.strategy = strategy;
+            this.tuning = tuning;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Selection)) {
+                return false;
+            }
+            Selection other = (Selection) o;
+            return strategy == other.strategy && Objects.equals(tuning, other.tuning);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(strategy, tuning);
+        }
+
+        @Override
+        public String toString() {
+            return tuning == null ? strategy.name() : strategy.name() + "(" + tuning + ")";
+        }
+    }
+
+    /**
+     * 单个服务的负载均衡器及创建它所需的信息。
+     */
+    private static final class Registration {
+
+        private final SwitchableLoadBalancer loadBalancer;
+
+        private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+
+        private Selection selection;
+
+        Registration(SwitchableLoadBalancer loadBalancer,
+                     ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                     Selection selection) {
+            this.loadBalancer = loadBalancer;
+            this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+            this.selection = selection;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import com.wangguangwu.nacosconsumerdemo.config.HedgingProperties;
+import com.wangguangwu.nacosconsumerdemo.config.ResponseCacheProperties;
+import com.wangguangwu.nacosconsumerdemo.config.RoutingStrategyProperties;
+import com.wangguangwu.nacosconsumerdemo.constant.ServiceConstants;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按服务名预先解析的路由表，见 {@link ServiceRoute}。
+ * <p>
+ * 启动时为已知的服务（{@link ServiceConstants} 中的服务以及单独配置了负载均衡策略、响应缓存、对冲请求的服务）生成路由，
+ * 之后每次请求只需在不可变的路由表中查找一次，不再经过负载均衡子上下文的解析。
+ * 首次出现的服务在查找时生成路由并加入新表；配置刷新后重新生成全部路由。
+ * 路由表整体替换，读取方总能看到一份完整的路由表。
+ *
+ * @author wangguangwu
+ */
+@Component
+public class RoutingTableManager implements SmartInitializingSingleton, ApplicationListener<RefreshScopeRefreshedEvent> {
+
+    @Resource
+    private LoadBalancerManager loadBalancerManager;
+
+    @Resource
+    private ConcurrencyLimiterManager concurrencyLimiterManager;
+
+    @Resource
+    private ResponseCacheManager responseCacheManager;
+
+    @Resource
+    private ResponseCacheProperties responseCacheProperties;
+
+    @Resource
+    private HedgingProperties hedgingProperties;
+
+    @Resource
+    private RoutingStrategyProperties routingStrategyProperties;
+
+    /**
+     * 当前的路由表
+     */
+    private volatile Map<String, ServiceRoute> routes = Collections.emptyMap();
+
+    /**
+     * 获取指定服务的路由。
+     *
+     * @param serviceId 服务名
+     * @return 服务的路由
+     */
+    public ServiceRoute getRoute(String serviceId) {
+        ServiceRoute route = routes.get(serviceId);
+        return route != null ? route : addRoute(serviceId);
+    }
+
+    /**
+     * 获取路由表中的全部服务名。
+     *
+     * @return 服务名集合
+     */
+    public Set<String> getServiceIds() {
+        return routes.keySet();
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    /**
+     * 配置刷新后按最新配置重新生成路由，响应缓存先按最新的缓存规则更新。
+     */
+    @Override
+    public void onApplicationEvent(RefreshScopeRefreshedEvent event) {
+        responseCacheManager.refresh();
+        rebuild();
+    }
+
+    /**
+     * 重新生成已知服务的路由并整体替换路由表。
+     */
+    public synchronized void rebuild() {
+        Set<String> serviceIds = new LinkedHashSet<>();
+        serviceIds.add(ServiceConstants.SERVICE_C_NAME);
+        serviceIds.addAll(routingStrategyProperties.getServices().keySet());
+        serviceIds.addAll(responseCacheProperties.getServices().keySet());
+        serviceIds.addAll(hedgingProperties.getServices().keySet());
+        serviceIds.addAll(routes.keySet());
+        Map<String, ServiceRoute> rebuilt = new HashMap<>();
+        for (String serviceId : serviceIds) {
+            rebuilt.put(serviceId, compile(serviceId));
+        }
+        routes = Collections.unmodifiableMap(rebuilt);
+    }
+
+    private synchronized ServiceRoute addRoute(String serviceId) {
+        ServiceRoute route = routes.get(serviceId);
+        if (route != null) {
+            return route;
+        }
+        route = compile(serviceId);
+        Map<String, ServiceRoute> updated = new HashMap<>(routes);
+        updated.put(serviceId, route);
+        routes = Collections.unmodifiableMap(updated);
+        return route;
+    }
+
+    private ServiceRoute compile(String serviceId) {
+        return new ServiceRoute(serviceId,
+                loadBalancerManager.getLoadBalancer(serviceId),
+                concurrencyLimiterManager.isEnabled() ? concurrencyLimiterManager.getLimiter(serviceId) : null,
+                responseCacheManager.getCache(serviceId));
+    }
+}
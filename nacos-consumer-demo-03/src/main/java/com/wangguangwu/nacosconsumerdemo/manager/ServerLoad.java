@@ -0,0 +1,52 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+/**
+ * 服务提供者在响应中上报的一次负载快照。
+ *
+ * @author wangguangwu
+ */
+public final class ServerLoad {
+
+    /**
+     * 提供者正在处理的请求数
+     */
+    private final int inFlight;
+
+    /**
+     * 提供者工作线程池的使用率，0 ~ 1
+     */
+    private final double utilization;
+
+    /**
+     * 提供者最近请求的 P99 处理耗时，单位毫秒
+     */
+    private final long p99Millis;
+
+    /**
+     * 收到快照的时间，单位纳秒
+     */
+    private final long receivedNanos;
+
+    public ServerLoad(int inFlight, double utilization, long p99Millis, long receivedNanos) {
+        this.inFlight = inFlight;
+        this.utilization = utilization;
+        this.p99Millis = p99Millis;
+        this.receivedNanos = receivedNanos;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public double getUtilization() {
+        return utilization;
+    }
+
+    public long getP99Millis() {
+        return p99Millis;
+    }
+
+    public long getReceivedNanos() {
+        return receivedNanos;
+    }
+}
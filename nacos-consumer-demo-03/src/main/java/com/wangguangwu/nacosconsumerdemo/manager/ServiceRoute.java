@@ -0,0 +1,74 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.ConnectionCountingLoadBalancer;
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.ResponseTimeAwareLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+
+/**
+ * 单个服务的路由信息，由 {@link RoutingTableManager} 预先解析生成，创建后不可变。
+ * <p>
+ * 请求路径上需要的负载均衡策略、并发限制器和响应缓存都在这里直接取得，不再逐个查询各管理类。
+ *
+ * @author wangguangwu
+ */
+public final class ServiceRoute {
+
+    private final String serviceId;
+
+    private final ReactorServiceInstanceLoadBalancer loadBalancer;
+
+    private final boolean connectionCounting;
+
+    private final ResponseTimeAwareLoadBalancer responseTimeAware;
+
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    private final ResponseCache responseCache;
+
+    ServiceRoute(String serviceId, ReactorServiceInstanceLoadBalancer loadBalancer,
+                 AdaptiveConcurrencyLimiter concurrencyLimiter, ResponseCache responseCache) {
+        this.serviceId = serviceId;
+        this.loadBalancer = loadBalancer;
+        this.connectionCounting = loadBalancer instanceof ConnectionCountingLoadBalancer;
+        this.responseTimeAware = loadBalancer instanceof ResponseTimeAwareLoadBalancer
+                ? (ResponseTimeAwareLoadBalancer) loadBalancer : null;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.responseCache = responseCache;
+    }
+
+    public String getServiceId() {
+        return serviceId;
+    }
+
+    public ReactorServiceInstanceLoadBalancer getLoadBalancer() {
+        return loadBalancer;
+    }
+
+    /**
+     * 服务是否使用依赖连接计数的负载均衡器。
+     */
+    public boolean isConnectionCounting() {
+        return connectionCounting;
+    }
+
+    /**
+     * 需要回传响应时间的负载均衡器，不需要时为 null。
+     */
+    public ResponseTimeAwareLoadBalancer getResponseTimeAware() {
+        return responseTimeAware;
+    }
+
+    /**
+     * 并发限制器，未开启自适应并发限制时为 null。
+     */
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    /**
+     * 响应缓存，服务未开启缓存时为 null。
+     */
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+}
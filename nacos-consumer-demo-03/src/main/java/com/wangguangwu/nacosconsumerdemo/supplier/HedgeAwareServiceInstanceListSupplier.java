@@ -0,0 +1,50 @@
+package com.wangguangwu.nacosconsumerdemo.supplier;
+
+import com.wangguangwu.nacosconsumerdemo.lifecycle.HedgeContext;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.loadbalancer.core.DelegatingServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 为对冲请求排除首次请求已选中实例的服务实例列表供应者。
+ * <p>
+ * 排除后没有可用实例时返回原列表；非对冲请求原样返回委托者的列表，不影响列表缓存的复用。
+ *
+ * @author wangguangwu
+ */
+public class HedgeAwareServiceInstanceListSupplier extends DelegatingServiceInstanceListSupplier {
+
+    public HedgeAwareServiceInstanceListSupplier(ServiceInstanceListSupplier delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get() {
+        return delegate.get();
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get(Request request) {
+        HedgeContext hedgeContext = HedgeContext.from(request);
+        ServiceInstance excluded = hedgeContext == null ? null : hedgeContext.getExcludedInstance();
+        if (excluded == null) {
+            return delegate.get(request);
+        }
+        return delegate.get(request).map(instances -> exclude(instances, excluded));
+    }
+
+    private static List<ServiceInstance> exclude(List<ServiceInstance> instances, ServiceInstance excluded) {
+        List<ServiceInstance> remaining = new ArrayList<>(instances.size());
+        for (ServiceInstance instance : instances) {
+            if (!instance.equals(excluded)) {
+                remaining.add(instance);
+            }
+        }
+        return remaining.isEmpty() ? instances : remaining;
+    }
+}
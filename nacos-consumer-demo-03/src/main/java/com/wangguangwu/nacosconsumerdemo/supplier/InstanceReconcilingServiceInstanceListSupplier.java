@@ -0,0 +1,61 @@
+package com.wangguangwu.nacosconsumerdemo.supplier;
+
+import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounterManager;
+import com.wangguangwu.nacosconsumerdemo.manager.OutlierDetector;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.loadbalancer.core.DelegatingServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * 在任何过滤之前，按服务的完整实例列表对账按实例维护的状态。
+ * <p>
+ * 连接计数表与 {@link OutlierDetector} 的实例统计都在这里对账，外层的同集群优先、异常摘除和对冲排除
+ * 只改变负载均衡器看到的子集，见 {@link ConnectionCounterManager#getView}。被过滤掉的实例不会被当作已下线，
+ * 它们的连接计数、延迟统计、指标以及摘除状态和退避次数保持不变。
+ * <p>
+ * 实例列表对象不变时不重复对账；空列表通常意味着注册中心暂时不可用，不参与对账。
+ *
+ * @author wangguangwu
+ */
+public class InstanceReconcilingServiceInstanceListSupplier extends DelegatingServiceInstanceListSupplier {
+
+    private final ConnectionCounterManager connectionCounterManager;
+
+    private final OutlierDetector outlierDetector;
+
+    /**
+     * 最近一次对账的实例列表
+     */
+    private volatile List<ServiceInstance> reconciled;
+
+    public InstanceReconcilingServiceInstanceListSupplier(ServiceInstanceListSupplier delegate,
+                                                          ConnectionCounterManager connectionCounterManager,
+                                                          OutlierDetector outlierDetector) {
+        super(delegate);
+        this.connectionCounterManager = connectionCounterManager;
+        this.outlierDetector = outlierDetector;
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get() {
+        return delegate.get().map(this::reconcile);
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get(Request request) {
+        return delegate.get(request).map(this::reconcile);
+    }
+
+    private List<ServiceInstance> reconcile(List<ServiceInstance> instances) {
+        if (!instances.isEmpty() && instances != reconciled) {
+            connectionCounterManager.getTable(getServiceId(), instances);
+            outlierDetector.retain(getServiceId(), instances);
+            reconciled = instances;
+        }
+        return instances;
+    }
+}
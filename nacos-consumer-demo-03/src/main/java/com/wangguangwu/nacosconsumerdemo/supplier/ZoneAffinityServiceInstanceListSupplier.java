@@ -0,0 +1,158 @@
+package com.wangguangwu.nacosconsumerdemo.supplier;
+
+import com.wangguangwu.nacosconsumerdemo.config.ZoneAffinityProperties;
+import com.wangguangwu.nacosconsumerdemo.constant.NacosMetadataConstants;
+import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounterManager;
+import com.wangguangwu.nacosconsumerdemo.manager.OutlierDetector;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.loadbalancer.core.DelegatingServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 同集群优先的服务实例列表供应者，只返回与消费者处于同一 Nacos 集群（元数据 {@code nacos.cluster}）的实例，
+ * 对轮询、随机、最小连接数等所有负载均衡策略生效。
+ * <p>
+ * 出现以下情况时溢出，返回所有集群的实例：
+ * <ul>
+ *     <li>本地集群没有实例，或未被 {@link OutlierDetector} 摘除的本地实例占比低于阈值；</li>
+ *     <li>本地实例的平均在途请求数比其他集群高出阈值。在途请求数来自 {@link ConnectionCounterManager}，
+ *     只有使用计数类负载均衡器的服务才有数据。</li>
+ * </ul>
+ * 是否溢出按固定间隔重新评估，评估之间以及实例列表不变时返回同一个列表对象，
+ * 不影响外层供应者与负载均衡器按列表对象做的缓存。
+ *
+ * @author wangguangwu
+ */
+public class ZoneAffinityServiceInstanceListSupplier extends DelegatingServiceInstanceListSupplier {
+
+    private final String localCluster;
+
+    private final ZoneAffinityProperties properties;
+
+    private final OutlierDetector outlierDetector;
+
+    private final ConnectionCounterManager connectionCounterManager;
+
+    /**
+     * 最近一次的评估结果
+     */
+    private volatile Selection selection;
+
+    public ZoneAffinityServiceInstanceListSupplier(ServiceInstanceListSupplier delegate, String localCluster,
+                                                   ZoneAffinityProperties properties, OutlierDetector outlierDetector,
+                                                   ConnectionCounterManager connectionCounterManager) {
+        super(delegate);
+        this.localCluster = localCluster;
+        this.properties = properties;
+        this.outlierDetector = outlierDetector;
+        this.connectionCounterManager = connectionCounterManager;
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get() {
+        return delegate.get().map(this::select);
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get(Request request) {
+        return delegate.get(request).map(this::select);
+    }
+
+    private List<ServiceInstance> select(List<ServiceInstance> instances) {
+        if (!properties.isEnabled()) {
+            return instances;
+        }
+        long nowNanos = System.nanoTime();
+        Selection current = selection;
+        if (current != null && current.source == instances && nowNanos - current.validUntilNanos < 0) {
+            return current.instances;
+        }
+        List<ServiceInstance> local = current != null && current.source == instances ? current.local : filterLocal(instances);
+        List<ServiceInstance> result = shouldSpillOver(instances, local, nowNanos) ? instances : local;
+        selection = new Selection(instances, local, nowNanos + properties.getEvaluationInterval().toNanos(), result);
+        return result;
+    }
+
+    private List<ServiceInstance> filterLocal(List<ServiceInstance> instances) {
+        List<ServiceInstance> local = new ArrayList<>();
+        for (ServiceInstance instance : instances) {
+            if (localCluster.equals(getCluster(instance))) {
+                local.add(instance);
+            }
+        }
+        return local.size() == instances.size() ? instances : Collections.unmodifiableList(local);
+    }
+
+    /**
+     * 判断是否需要溢出到其他集群。
+     *
+     * @param instances 所有实例
+     * @param local     本地集群的实例
+     * @param nowNanos  当前时间
+     * @return 需要溢出时返回 true
+     */
+    private boolean shouldSpillOver(List<ServiceInstance> instances, List<ServiceInstance> local, long nowNanos) {
+        if (local.isEmpty()) {
+            return true;
+        }
+        if (local == instances) {
+            return false;
+        }
+        int localHealthy = 0;
+        long localInFlight = 0L;
+        for (ServiceInstance instance : local) {
+            if (isHealthy(instance, nowNanos)) {
+                localHealthy++;
+                localInFlight += connectionCounterManager.getConnectionCounter(instance).get();
+            }
+        }
+        if (localHealthy * 100 < local.size() * properties.getMinHealthyPercent()) {
+            return true;
+        }
+        int remoteHealthy = 0;
+        long remoteInFlight = 0L;
+        for (ServiceInstance instance : instances) {
+            if (!localCluster.equals(getCluster(instance)) && isHealthy(instance, nowNanos)) {
+                remoteHealthy++;
+                remoteInFlight += connectionCounterManager.getConnectionCounter(instance).get();
+            }
+        }
+        return remoteHealthy > 0
+                && (double) localInFlight / localHealthy - (double) remoteInFlight / remoteHealthy > properties.getSpilloverInFlightMargin();
+    }
+
+    private boolean isHealthy(ServiceInstance instance, long nowNanos) {
+        return !outlierDetector.isEnabled() || outlierDetector.getEjectedUntilNanos(instance, nowNanos) == 0L;
+    }
+
+    private static String getCluster(ServiceInstance instance) {
+        return instance.getMetadata() == null ? null : instance.getMetadata().get(NacosMetadataConstants.CLUSTER);
+    }
+
+    /**
+     * 评估结果及其有效期。
+     */
+    private static class Selection {
+
+        private final List<ServiceInstance> source;
+
+        private final List<ServiceInstance> local;
+
+        private final long validUntilNanos;
+
+        private final List<ServiceInstance> instances;
+
+        Selection(List<ServiceInstance> source, List<ServiceInstance> local, long validUntilNanos, List<ServiceInstance> instances) {
+            this.source = source;
+            this.local = local;
+            this.validUntilNanos = validUntilNanos;
+            this.instances = instances;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.wangguangwu.nacosconsumerdemo.filter;
+
+import com.wangguangwu.nacosconsumerdemo.lifecycle.ConnectionCountingLoadBalancerLifecycle;
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.LeastConnectionsRoutingLoadBalancer;
+import com.wangguangwu.nacosconsumerdemo.manager.AdaptiveConcurrencyLimiter;
+import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounterManager;
+import com.wangguangwu.nacosconsumerdemo.manager.ResponseCache;
+import com.wangguangwu.nacosconsumerdemo.manager.RoutingTableManager;
+import com.wangguangwu.nacosconsumerdemo.manager.ServiceRoute;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.BeanUtils;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+import org.springframework.cloud.loadbalancer.support.SimpleObjectProvider;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author wangguangwu
+ */
+class ConnectionCountingExchangeFilterFunctionTest {
+
+    private static final String SERVICE_ID = "nacos-provider-serviceC";
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final ServiceInstance instance = new DefaultServiceInstance("c-1", SERVICE_ID, "10.0.0.1", 8095, false);
+
+    private final ClientRequest request = ClientRequest.create(HttpMethod.GET, URI.create("http://" + SERVICE_ID + "/api/callService")).build();
+
+    private final ConnectionCounterManager connectionCounterManager = new ConnectionCounterManager();
+
+    private final ConnectionCountingLoadBalancerLifecycle lifecycle = new ConnectionCountingLoadBalancerLifecycle();
+
+    private final ConnectionCountingExchangeFilterFunction filter = new ConnectionCountingExchangeFilterFunction();
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        LeastConnectionsRoutingLoadBalancer loadBalancer = new LeastConnectionsRoutingLoadBalancer(
+                new SimpleObjectProvider<>(ServiceInstanceListSuppliers.from(SERVICE_ID, instance)), SERVICE_ID, connectionCounterManager);
+        ServiceRoute route = BeanUtils.instantiateClass(ServiceRoute.class.getDeclaredConstructor(String.class,
+                ReactorServiceInstanceLoadBalancer.class, AdaptiveConcurrencyLimiter.class, ResponseCache.class),
+                SERVICE_ID, loadBalancer, null, null);
+        RoutingTableManager routingTableManager = new RoutingTableManager() {
+            @Override
+            public ServiceRoute getRoute(String serviceId) {
+                return route;
+            }
+        };
+        ReflectionTestUtils.setField(lifecycle, "connectionCounterManager", connectionCounterManager);
+        ReflectionTestUtils.setField(lifecycle, "routingTableManager", routingTableManager);
+        ReflectionTestUtils.setField(filter, "connectionCountingLoadBalancerLifecycle", lifecycle);
+        connectionCounterManager.getTable(SERVICE_ID, List.of(instance));
+    }
+
+    @Test
+    void releasesWhenResponseArrivesEvenIfBodyIsNeverRead() {
+        ExchangeFunction exchange = attempt -> {
+            Request<Object> lbRequest = start(attempt);
+            complete(lbRequest, CompletionContext.Status.SUCCESS);
+            return Mono.just(ClientResponse.create(HttpStatus.OK).body("unread").build());
+        };
+
+        ClientResponse response = filter.filter(request, exchange).block(TIMEOUT);
+
+        assertThat(response).isNotNull();
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void releasesWhenCancelledBeforeResponse() {
+        ExchangeFunction exchange = attempt -> {
+            start(attempt);
+            return Mono.never();
+        };
+
+        Disposable subscription = filter.filter(request, exchange).subscribe();
+        assertThat(inFlight()).isEqualTo(1);
+        subscription.dispose();
+
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void failedRequestIsReleasedOnlyOnce() {
+        // 另一个请求仍在途中，重复释放会把它的计数一并扣掉
+        connectionCounterManager.incrementConnectionCount(instance);
+        ExchangeFunction exchange = attempt -> {
+            Request<Object> lbRequest = start(attempt);
+            complete(lbRequest, CompletionContext.Status.FAILED);
+            return Mono.error(new IOException("Connection reset"));
+        };
+
+        assertThatThrownBy(() -> filter.filter(request, exchange).block(TIMEOUT)).hasCauseInstanceOf(IOException.class);
+
+        assertThat(inFlight()).isEqualTo(1);
+    }
+
+    /**
+     * 模拟负载均衡过滤器选中实例后的生命周期回调。
+     */
+    private Request<Object> start(ClientRequest attempt) {
+        Request<Object> lbRequest = new DefaultRequest<>(new RequestDataContext(new RequestData(attempt)));
+        lifecycle.onStartRequest(lbRequest, new DefaultResponse(instance));
+        return lbRequest;
+    }
+
+    private void complete(Request<Object> lbRequest, CompletionContext.Status status) {
+        lifecycle.onComplete(new CompletionContext<>(status, lbRequest, new DefaultResponse(instance)));
+    }
+
+    private int inFlight() {
+        return connectionCounterManager.getConnectionCounter(instance).get();
+    }
+}
@@ -0,0 +1,133 @@
+package com.wangguangwu.nacosconsumerdemo.filter;
+
+import com.wangguangwu.nacosconsumerdemo.config.HedgingProperties;
+import com.wangguangwu.nacosconsumerdemo.lifecycle.HedgeContext;
+import com.wangguangwu.nacosconsumerdemo.manager.HedgingManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author wangguangwu
+ */
+class HedgingExchangeFilterFunctionTest {
+
+    private static final String SERVICE_ID = "nacos-provider-serviceC";
+
+    private static final Duration DELAY = Duration.ofMillis(100);
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final ClientRequest request = ClientRequest.create(HttpMethod.GET, URI.create("http://" + SERVICE_ID + "/api/callService")).build();
+
+    private final HedgingProperties.Policy policy = new HedgingProperties.Policy();
+
+    private final HedgingExchangeFilterFunction filter = new HedgingExchangeFilterFunction();
+
+    private final AtomicInteger hedges = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        policy.setDelay(DELAY);
+        policy.setBudgetPercent(100);
+        HedgingProperties hedgingProperties = new HedgingProperties();
+        hedgingProperties.getServices().put(SERVICE_ID, policy);
+        HedgingManager hedgingManager = new HedgingManager();
+        ReflectionTestUtils.setField(hedgingManager, "hedgingProperties", hedgingProperties);
+        ReflectionTestUtils.setField(filter, "hedgingManager", hedgingManager);
+    }
+
+    @Test
+    void hedgeFiresAfterDelayAndCancelsSlowPrimary() throws InterruptedException {
+        CountDownLatch primaryCancelled = new CountDownLatch(1);
+        AtomicLong hedgeAfterNanos = new AtomicLong();
+        long startNanos = System.nanoTime();
+        ExchangeFunction exchange = attempt -> {
+            if (isHedge(attempt)) {
+                hedges.incrementAndGet();
+                hedgeAfterNanos.set(System.nanoTime() - startNanos);
+                return Mono.just(ClientResponse.create(HttpStatus.ACCEPTED).build());
+            }
+            return Mono.<ClientResponse>never().doOnCancel(primaryCancelled::countDown);
+        };
+
+        ClientResponse response = filter.filter(request, exchange).block(TIMEOUT);
+
+        assertThat(response).isNotNull();
+        assertThat(response.statusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        assertThat(hedges).hasValue(1);
+        assertThat(hedgeAfterNanos.get()).isGreaterThanOrEqualTo(DELAY.toNanos());
+        // 落败的尝试在合并流的排空循环中取消，可能晚于响应返回
+        assertThat(primaryCancelled.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)).isTrue();
+    }
+
+    @Test
+    void fastPrimaryWinsWithoutHedging() {
+        ExchangeFunction exchange = attempt -> {
+            if (isHedge(attempt)) {
+                hedges.incrementAndGet();
+            }
+            return Mono.just(ClientResponse.create(HttpStatus.OK).build());
+        };
+
+        ClientResponse response = filter.filter(request, exchange).block(TIMEOUT);
+
+        assertThat(response).isNotNull();
+        assertThat(response.statusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(hedges).hasValue(0);
+    }
+
+    @Test
+    void exhaustedBudgetSkipsHedge() {
+        // 每个请求只存入半个令牌，第一个请求无法对冲，第二个请求攒够一个令牌
+        policy.setBudgetPercent(50);
+        ExchangeFunction exchange = attempt -> {
+            if (isHedge(attempt)) {
+                hedges.incrementAndGet();
+                return Mono.just(ClientResponse.create(HttpStatus.ACCEPTED).build());
+            }
+            return Mono.delay(DELAY.multipliedBy(3)).map(tick -> ClientResponse.create(HttpStatus.OK).build());
+        };
+
+        ClientResponse first = filter.filter(request, exchange).block(TIMEOUT);
+        assertThat(first).isNotNull();
+        assertThat(first.statusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(hedges).hasValue(0);
+
+        ClientResponse second = filter.filter(request, exchange).block(TIMEOUT);
+        assertThat(second).isNotNull();
+        assertThat(second.statusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        assertThat(hedges).hasValue(1);
+    }
+
+    @Test
+    void attemptsCompletingEmptyFailWithConcreteException() {
+        ExchangeFunction exchange = attempt -> Mono.empty();
+
+        assertThatThrownBy(() -> filter.filter(request, exchange).block(TIMEOUT))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining(SERVICE_ID);
+    }
+
+    private static boolean isHedge(ClientRequest attempt) {
+        return attempt.attribute(HedgeContext.ATTRIBUTE)
+                .map(context -> ((HedgeContext) context).isHedge())
+                .orElse(false);
+    }
+}
@@ -0,0 +1,78 @@
+package com.wangguangwu.nacosconsumerdemo.lifecycle;
+
+import com.wangguangwu.nacosconsumerdemo.constant.ServerLoadHeaderConstants;
+import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounterManager;
+import com.wangguangwu.nacosconsumerdemo.manager.ServerLoad;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.LinkedMultiValueMap;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author wangguangwu
+ */
+class ServerLoadFeedbackLoadBalancerLifecycleTest {
+
+    private static final String SERVICE_ID = "nacos-provider-serviceC";
+
+    private final ServiceInstance instance = new DefaultServiceInstance("c-1", SERVICE_ID, "10.0.0.1", 8095, false);
+
+    private final ConnectionCounterManager connectionCounterManager = new ConnectionCounterManager();
+
+    private final ServerLoadFeedbackLoadBalancerLifecycle lifecycle = new ServerLoadFeedbackLoadBalancerLifecycle();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(lifecycle, "connectionCounterManager", connectionCounterManager);
+        connectionCounterManager.getTable(SERVICE_ID, List.of(instance));
+    }
+
+    @Test
+    void recordsReportedLoad() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(ServerLoadHeaderConstants.IN_FLIGHT, "7");
+        headers.set(ServerLoadHeaderConstants.UTILIZATION, "0.35");
+        headers.set(ServerLoadHeaderConstants.P99_MILLIS, "120");
+        long before = System.nanoTime();
+
+        lifecycle.onComplete(completion(CompletionContext.Status.SUCCESS, headers));
+
+        ServerLoad serverLoad = connectionCounterManager.getConnectionCounter(instance).getServerLoad();
+        assertThat(serverLoad).isNotNull();
+        assertThat(serverLoad.getInFlight()).isEqualTo(7);
+        assertThat(serverLoad.getUtilization()).isEqualTo(0.35);
+        assertThat(serverLoad.getP99Millis()).isEqualTo(120L);
+        assertThat(serverLoad.getReceivedNanos()).isGreaterThanOrEqualTo(before);
+    }
+
+    @Test
+    void ignoresMissingMalformedAndFailedResponses() {
+        HttpHeaders malformed = new HttpHeaders();
+        malformed.set(ServerLoadHeaderConstants.IN_FLIGHT, "many");
+        HttpHeaders valid = new HttpHeaders();
+        valid.set(ServerLoadHeaderConstants.IN_FLIGHT, "3");
+
+        lifecycle.onComplete(completion(CompletionContext.Status.SUCCESS, new HttpHeaders()));
+        lifecycle.onComplete(completion(CompletionContext.Status.SUCCESS, malformed));
+        lifecycle.onComplete(completion(CompletionContext.Status.FAILED, valid));
+
+        assertThat(connectionCounterManager.getConnectionCounter(instance).getServerLoad()).isNull();
+    }
+
+    private CompletionContext<Object, ServiceInstance, Object> completion(CompletionContext.Status status, HttpHeaders headers) {
+        ResponseData responseData = new ResponseData(HttpStatus.OK, headers, new LinkedMultiValueMap<>(), null);
+        return new CompletionContext<>(status, new DefaultRequest<>(), new DefaultResponse(instance), responseData);
+    }
+}
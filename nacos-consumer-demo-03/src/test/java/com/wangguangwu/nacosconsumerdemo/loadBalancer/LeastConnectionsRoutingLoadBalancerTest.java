@@ -0,0 +1,140 @@
+package com.wangguangwu.nacosconsumerdemo.loadBalancer;
+
+import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounterManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+import org.springframework.cloud.loadbalancer.support.SimpleObjectProvider;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author wangguangwu
+ */
+class LeastConnectionsRoutingLoadBalancerTest {
+
+    private static final String SERVICE_ID = "nacos-provider-serviceC";
+
+    private static final int ITERATIONS = 200_000;
+
+    private final List<ServiceInstance> instances = List.of(
+            new DefaultServiceInstance("c-1", SERVICE_ID, "10.0.0.1", 8095, false),
+            new DefaultServiceInstance("c-2", SERVICE_ID, "10.0.0.2", 8096, false),
+            new DefaultServiceInstance("c-3", SERVICE_ID, "10.0.0.3", 8097, false));
+
+    private ConnectionCounterManager connectionCounterManager;
+
+    private LeastConnectionsRoutingLoadBalancer loadBalancer;
+
+    @BeforeEach
+    void setUp() {
+        connectionCounterManager = new ConnectionCounterManager();
+        loadBalancer = new LeastConnectionsRoutingLoadBalancer(
+                new SimpleObjectProvider<>(ServiceInstanceListSuppliers.from(SERVICE_ID, instances.toArray(new ServiceInstance[0]))),
+                SERVICE_ID, connectionCounterManager);
+    }
+
+    @Test
+    void choosesInstanceWithLeastConnections() {
+        connectionCounterManager.getTable(SERVICE_ID, instances);
+        connectionCounterManager.incrementConnectionCount(instances.get(0));
+        connectionCounterManager.incrementConnectionCount(instances.get(1));
+
+        Response<ServiceInstance> response = loadBalancer.choose(new DefaultRequest<>()).block();
+
+        assertThat(response).isNotNull();
+        assertThat(response.getServer()).isSameAs(instances.get(2));
+    }
+
+    @Test
+    void decrementNeverGoesBelowZero() {
+        connectionCounterManager.getTable(SERVICE_ID, instances);
+        connectionCounterManager.decrementConnectionCount(instances.get(0));
+        connectionCounterManager.incrementConnectionCount(instances.get(1));
+
+        assertThat(connectionCounterManager.getConnectionCounter(instances.get(0)).get()).isZero();
+        assertThat(connectionCounterManager.compare(instances.get(0), instances.get(1))).isNegative();
+    }
+
+    /**
+     * 选择实例、记录指标、增加计数、比较和释放计数的整条路径不应分配对象。
+     * <p>
+     * 与 {@code choose} 在 Reactor 流水线中对每个实例列表做的处理相同，Reactor 自身的分配不在此列。
+     */
+    @Test
+    void chooseAndCountingAllocateNothing() {
+        com.sun.management.ThreadMXBean threadMXBean = threadMXBean();
+
+        // 预热，构建连接计数表并触发 JIT 编译
+        runChooseLoop();
+
+        long before = threadMXBean.getCurrentThreadAllocatedBytes();
+        long checksum = runChooseLoop();
+        long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - before;
+
+        assertThat(checksum).isNotZero();
+        // 每次选择哪怕只分配一个最小的对象，总量也会达到 ITERATIONS * 16 字节
+        assertThat(allocated).as("bytes allocated by %d selections", ITERATIONS).isLessThan(16 * 1024L);
+    }
+
+    /**
+     * 通过 {@code choose} 的完整调用只有 Reactor 组装和订阅 Mono 的固定开销（JDK 17 上约 200 ~ 250 字节），
+     * 不随实例数增长；实例数取 100，每次复制实例列表或为每个实例分配对象都会超出上限。
+     */
+    @Test
+    void chooseAllocationDoesNotGrowWithInstances() {
+        com.sun.management.ThreadMXBean threadMXBean = threadMXBean();
+        ServiceInstance[] many = new ServiceInstance[100];
+        for (int i = 0; i < many.length; i++) {
+            many[i] = new DefaultServiceInstance("c-" + i, SERVICE_ID, "10.0.1." + i, 8095, false);
+        }
+        LeastConnectionsRoutingLoadBalancer manyLoadBalancer = new LeastConnectionsRoutingLoadBalancer(
+                new SimpleObjectProvider<>(ServiceInstanceListSuppliers.from(SERVICE_ID, many)), SERVICE_ID, connectionCounterManager);
+        DefaultRequest<Object> request = new DefaultRequest<>();
+
+        runChooseLoop(manyLoadBalancer, request);
+
+        long before = threadMXBean.getCurrentThreadAllocatedBytes();
+        long checksum = runChooseLoop(manyLoadBalancer, request);
+        long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - before;
+
+        assertThat(checksum).isNotZero();
+        assertThat(allocated).as("bytes allocated by %d choose() calls", ITERATIONS).isLessThan(ITERATIONS * 512L);
+    }
+
+    private long runChooseLoop() {
+        long checksum = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            Response<ServiceInstance> response = loadBalancer.getInstanceResponse(instances);
+            connectionCounterManager.recordChoose(SERVICE_ID, LeastConnectionsRoutingLoadBalancer.STRATEGY, response, i);
+            ServiceInstance chosen = response.getServer();
+            connectionCounterManager.incrementConnectionCount(chosen);
+            checksum += connectionCounterManager.compare(chosen, instances.get(0)) + chosen.getPort();
+            connectionCounterManager.decrementConnectionCount(chosen);
+        }
+        return checksum;
+    }
+
+    private long runChooseLoop(LeastConnectionsRoutingLoadBalancer chooser, DefaultRequest<Object> request) {
+        long checksum = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            Response<ServiceInstance> response = chooser.choose(request).block();
+            checksum += response == null ? 0 : response.getServer().getPort();
+        }
+        return checksum;
+    }
+
+    private static com.sun.management.ThreadMXBean threadMXBean() {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assertThat(threadMXBean.isThreadAllocatedMemorySupported()).isTrue();
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        return threadMXBean;
+    }
+}
@@ -0,0 +1,100 @@
+package com.wangguangwu.nacosconsumerdemo.loadBalancer;
+
+import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounterManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+import org.springframework.cloud.loadbalancer.support.SimpleObjectProvider;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author wangguangwu
+ */
+class PeakEwmaLoadBalancerTest {
+
+    private static final String SERVICE_ID = "nacos-provider-serviceC";
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final List<ServiceInstance> instances = List.of(
+            new DefaultServiceInstance("c-1", SERVICE_ID, "10.0.0.1", 8095, false),
+            new DefaultServiceInstance("c-2", SERVICE_ID, "10.0.0.2", 8096, false),
+            new DefaultServiceInstance("c-3", SERVICE_ID, "10.0.0.3", 8097, false));
+
+    private ConnectionCounterManager connectionCounterManager;
+
+    private PeakEwmaLoadBalancer loadBalancer;
+
+    @BeforeEach
+    void setUp() {
+        connectionCounterManager = new ConnectionCounterManager();
+        loadBalancer = new PeakEwmaLoadBalancer(
+                new SimpleObjectProvider<>(ServiceInstanceListSuppliers.from(SERVICE_ID, instances.toArray(new ServiceInstance[0]))),
+                SERVICE_ID, connectionCounterManager, Duration.ofSeconds(10));
+        connectionCounterManager.getTable(SERVICE_ID, instances);
+    }
+
+    @Test
+    void latencySpikeMovesTrafficAway() {
+        for (ServiceInstance instance : instances) {
+            loadBalancer.recordResponseTime(instance, 10 * MILLIS);
+        }
+        loadBalancer.recordResponseTime(instances.get(0), 500 * MILLIS);
+        loadBalancer.recordResponseTime(instances.get(1), 20 * MILLIS);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(choose()).isSameAs(instances.get(2));
+        }
+    }
+
+    @Test
+    void busyColdInstancesRankAfterSampledOnesByInFlight() {
+        // 只有第一个实例有样本，且响应较慢、在途请求较多
+        loadBalancer.recordResponseTime(instances.get(0), 500 * MILLIS);
+        increment(instances.get(0), 5);
+        increment(instances.get(1), 3);
+        increment(instances.get(2), 1);
+        assertThat(choose()).isSameAs(instances.get(0));
+
+        // 没有样本的实例之间仍按在途请求数比较，不会因惩罚分过大而失去精度
+        connectionCounterManager.getTable(SERVICE_ID, instances.subList(1, 3));
+        PeakEwmaLoadBalancer coldOnly = new PeakEwmaLoadBalancer(
+                new SimpleObjectProvider<>(ServiceInstanceListSuppliers.from(SERVICE_ID, instances.get(1), instances.get(2))),
+                SERVICE_ID, connectionCounterManager, Duration.ofSeconds(10));
+        for (int i = 0; i < 20; i++) {
+            Response<ServiceInstance> response = coldOnly.choose(new DefaultRequest<>()).block();
+            assertThat(response).isNotNull();
+            assertThat(response.getServer()).isSameAs(instances.get(2));
+        }
+    }
+
+    @Test
+    void idleColdInstanceIsPreferred() {
+        for (int i = 0; i < 2; i++) {
+            loadBalancer.recordResponseTime(instances.get(i), MILLIS);
+        }
+
+        assertThat(choose()).isSameAs(instances.get(2));
+    }
+
+    private ServiceInstance choose() {
+        Response<ServiceInstance> response = loadBalancer.choose(new DefaultRequest<>()).block();
+        assertThat(response).isNotNull();
+        return response.getServer();
+    }
+
+    private void increment(ServiceInstance instance, int times) {
+        for (int i = 0; i < times; i++) {
+            connectionCounterManager.incrementConnectionCount(instance);
+        }
+    }
+}
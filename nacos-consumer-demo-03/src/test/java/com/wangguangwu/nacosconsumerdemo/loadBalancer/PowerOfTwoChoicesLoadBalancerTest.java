@@ -0,0 +1,83 @@
+package com.wangguangwu.nacosconsumerdemo.loadBalancer;
+
+import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounterManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+import org.springframework.cloud.loadbalancer.support.SimpleObjectProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * @author wangguangwu
+ */
+class PowerOfTwoChoicesLoadBalancerTest {
+
+    private static final String SERVICE_ID = "nacos-provider-serviceC";
+
+    private static final int INSTANCES = 5;
+
+    private static final int ITERATIONS = 30_000;
+
+    private final List<ServiceInstance> instances = new ArrayList<>();
+
+    private ConnectionCounterManager connectionCounterManager;
+
+    private PowerOfTwoChoicesLoadBalancer loadBalancer;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < INSTANCES; i++) {
+            instances.add(new DefaultServiceInstance("c-" + i, SERVICE_ID, "10.0.0." + (i + 1), 8095, false));
+        }
+        connectionCounterManager = new ConnectionCounterManager();
+        loadBalancer = new PowerOfTwoChoicesLoadBalancer(
+                new SimpleObjectProvider<>(ServiceInstanceListSuppliers.from(SERVICE_ID, instances.toArray(new ServiceInstance[0]))),
+                SERVICE_ID, connectionCounterManager);
+        connectionCounterManager.getTable(SERVICE_ID, instances);
+    }
+
+    @Test
+    void neverPicksTheMoreLoadedOfTwoSamples() {
+        // 第 i 个实例有 i 个在途请求，负载互不相同
+        for (int i = 0; i < INSTANCES; i++) {
+            for (int j = 0; j < i; j++) {
+                connectionCounterManager.incrementConnectionCount(instances.get(i));
+            }
+        }
+
+        int[] chosen = new int[INSTANCES];
+        for (int i = 0; i < ITERATIONS; i++) {
+            Response<ServiceInstance> response = loadBalancer.choose(new DefaultRequest<>()).block();
+            assertThat(response).isNotNull();
+            chosen[instances.indexOf(response.getServer())]++;
+        }
+
+        // 负载排第 r 低的实例只有与更忙的实例一起被抽中时才会被选择，概率为 2 (n - 1 - r) / (n (n - 1))
+        for (int rank = 0; rank < INSTANCES; rank++) {
+            double expected = 2.0 * (INSTANCES - 1 - rank) / (INSTANCES * (INSTANCES - 1));
+            assertThat((double) chosen[rank] / ITERATIONS).isCloseTo(expected, within(0.02));
+        }
+        assertThat(chosen[INSTANCES - 1]).isZero();
+    }
+
+    @Test
+    void singleInstanceIsAlwaysChosen() {
+        PowerOfTwoChoicesLoadBalancer single = new PowerOfTwoChoicesLoadBalancer(
+                new SimpleObjectProvider<>(ServiceInstanceListSuppliers.from(SERVICE_ID, instances.get(0))),
+                SERVICE_ID, connectionCounterManager);
+
+        Response<ServiceInstance> response = single.choose(new DefaultRequest<>()).block();
+
+        assertThat(response).isNotNull();
+        assertThat(response.getServer()).isSameAs(instances.get(0));
+    }
+}
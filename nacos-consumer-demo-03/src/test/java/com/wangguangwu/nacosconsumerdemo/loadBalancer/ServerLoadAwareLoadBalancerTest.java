@@ -0,0 +1,92 @@
+package com.wangguangwu.nacosconsumerdemo.loadBalancer;
+
+import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounterManager;
+import com.wangguangwu.nacosconsumerdemo.manager.ServerLoad;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+import org.springframework.cloud.loadbalancer.support.SimpleObjectProvider;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author wangguangwu
+ */
+class ServerLoadAwareLoadBalancerTest {
+
+    private static final String SERVICE_ID = "nacos-provider-serviceC";
+
+    private final List<ServiceInstance> instances = List.of(
+            new DefaultServiceInstance("c-1", SERVICE_ID, "10.0.0.1", 8095, false),
+            new DefaultServiceInstance("c-2", SERVICE_ID, "10.0.0.2", 8096, false),
+            new DefaultServiceInstance("c-3", SERVICE_ID, "10.0.0.3", 8097, false));
+
+    private ConnectionCounterManager connectionCounterManager;
+
+    private ServerLoadAwareLoadBalancer loadBalancer;
+
+    @BeforeEach
+    void setUp() {
+        connectionCounterManager = new ConnectionCounterManager();
+        loadBalancer = new ServerLoadAwareLoadBalancer(
+                new SimpleObjectProvider<>(ServiceInstanceListSuppliers.from(SERVICE_ID, instances.toArray(new ServiceInstance[0]))),
+                SERVICE_ID, connectionCounterManager, Duration.ofSeconds(2));
+        connectionCounterManager.getTable(SERVICE_ID, instances);
+    }
+
+    @Test
+    void reportedLoadOutweighsLocalCount() {
+        // 本地没有请求，但提供者上报了其他消费者的 10 个在途请求
+        report(instances.get(0), 10, 0.5, 10L, System.nanoTime());
+        increment(instances.get(1), 2);
+        increment(instances.get(2), 3);
+
+        assertThat(choose()).isSameAs(instances.get(1));
+    }
+
+    @Test
+    void staleReportFallsBackToLocalCount() {
+        report(instances.get(0), 10, 1.0, 10L, System.nanoTime() - TimeUnit.MINUTES.toNanos(1));
+        increment(instances.get(1), 1);
+        increment(instances.get(2), 1);
+
+        assertThat(choose()).isSameAs(instances.get(0));
+    }
+
+    @Test
+    void equalScoresPreferLowerP99() {
+        long now = System.nanoTime();
+        report(instances.get(0), 2, 0.5, 100L, now);
+        report(instances.get(1), 2, 0.5, 10L, now);
+        report(instances.get(2), 2, 0.5, 50L, now);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(choose()).isSameAs(instances.get(1));
+        }
+    }
+
+    private ServiceInstance choose() {
+        Response<ServiceInstance> response = loadBalancer.choose(new DefaultRequest<>()).block();
+        assertThat(response).isNotNull();
+        return response.getServer();
+    }
+
+    private void report(ServiceInstance instance, int inFlight, double utilization, long p99Millis, long receivedNanos) {
+        connectionCounterManager.getConnectionCounter(instance)
+                .setServerLoad(new ServerLoad(inFlight, utilization, p99Millis, receivedNanos));
+    }
+
+    private void increment(ServiceInstance instance, int times) {
+        for (int i = 0; i < times; i++) {
+            connectionCounterManager.incrementConnectionCount(instance);
+        }
+    }
+}
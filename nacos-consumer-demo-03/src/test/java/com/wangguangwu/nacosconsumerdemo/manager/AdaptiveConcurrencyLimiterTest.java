@@ -0,0 +1,67 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import com.wangguangwu.nacosconsumerdemo.config.ConcurrencyLimitProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author wangguangwu
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    void rejectsWhenLimitReachedAndQueueIsFull() throws InterruptedException {
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(2);
+        properties.setMaxQueueSize(0);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.getRejections()).isEqualTo(1);
+    }
+
+    @Test
+    void growsWhileLatencyIsStableAndShrinksWhenItRises() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(new ConcurrencyLimitProperties());
+
+        saturate(limiter, RTT, 50);
+        int grown = limiter.getLimit();
+        assertThat(grown).isGreaterThan(20);
+
+        // 下游排队，响应时间上升到原来的 5 倍
+        saturate(limiter, RTT * 5, 1);
+        assertThat(limiter.getLimit()).isLessThan(grown);
+    }
+
+    @Test
+    void backsOffOnDrops() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(new ConcurrencyLimitProperties());
+
+        limiter.tryAcquire();
+        limiter.release(RTT, true);
+
+        assertThat(limiter.getLimit()).isEqualTo(18);
+    }
+
+    /**
+     * 以当前上限的并发发出若干轮请求。
+     */
+    private static void saturate(AdaptiveConcurrencyLimiter limiter, long rttNanos, int rounds) throws InterruptedException {
+        for (int round = 0; round < rounds; round++) {
+            int acquired = 0;
+            while (limiter.getInFlight() < limiter.getLimit() && limiter.tryAcquire()) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++) {
+                limiter.release(rttNanos, false);
+            }
+        }
+    }
+}
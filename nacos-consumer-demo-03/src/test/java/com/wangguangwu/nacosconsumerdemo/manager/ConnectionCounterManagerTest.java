@@ -0,0 +1,77 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author wangguangwu
+ */
+class ConnectionCounterManagerTest {
+
+    private static final String SERVICE_ID = "nacos-provider-serviceC";
+
+    private final ConnectionCounterManager connectionCounterManager = new ConnectionCounterManager();
+
+    @Test
+    void reusesTableWhenInstancesAreUnchanged() {
+        List<ServiceInstance> instances = List.of(instance(1), instance(2));
+
+        ConnectionCounterTable table = connectionCounterManager.getTable(SERVICE_ID, instances);
+
+        assertThat(connectionCounterManager.getTable(SERVICE_ID, instances)).isSameAs(table);
+        assertThat(connectionCounterManager.getTable(SERVICE_ID, new ArrayList<>(instances))).isSameAs(table);
+    }
+
+    @Test
+    void keepsCountsOfRemainingInstancesAcrossChanges() {
+        ServiceInstance first = instance(1);
+        connectionCounterManager.getTable(SERVICE_ID, List.of(first, instance(2)));
+        connectionCounterManager.incrementConnectionCount(first);
+
+        // 服务发现刷新后返回了新的实例对象
+        ServiceInstance refreshed = instance(1);
+        ConnectionCounterTable table = connectionCounterManager.getTable(SERVICE_ID, List.of(refreshed, instance(3)));
+
+        assertThat(table.find(refreshed).get()).isEqualTo(1);
+        assertThat(table.find(refreshed)).isSameAs(connectionCounterManager.getConnectionCounter(first));
+    }
+
+    @Test
+    void evictsDepartedInstancesOnceDrained() {
+        ServiceInstance busy = instance(1);
+        ServiceInstance idle = instance(2);
+        connectionCounterManager.getTable(SERVICE_ID, List.of(busy, idle));
+        connectionCounterManager.incrementConnectionCount(busy);
+
+        connectionCounterManager.getTable(SERVICE_ID, List.of(instance(3)));
+
+        // 空闲实例立即回收，仍有在途请求的实例等计数归零后回收
+        assertThat(connectionCounterManager.size()).isEqualTo(2);
+        connectionCounterManager.decrementConnectionCount(busy);
+        assertThat(connectionCounterManager.size()).isEqualTo(1);
+    }
+
+    @Test
+    void departedInstanceThatRejoinsKeepsItsCounter() {
+        ServiceInstance busy = instance(1);
+        connectionCounterManager.getTable(SERVICE_ID, List.of(busy));
+        connectionCounterManager.incrementConnectionCount(busy);
+
+        connectionCounterManager.getTable(SERVICE_ID, List.of(instance(2)));
+        ConnectionCounterTable table = connectionCounterManager.getTable(SERVICE_ID, List.of(instance(1), instance(2)));
+        connectionCounterManager.decrementConnectionCount(busy);
+
+        assertThat(table.getCounter(0).isDeparted()).isFalse();
+        assertThat(connectionCounterManager.size()).isEqualTo(2);
+    }
+
+    private static ServiceInstance instance(int index) {
+        return new DefaultServiceInstance("c-" + index, SERVICE_ID, "10.0.0." + index, 8095, false);
+    }
+}
@@ -0,0 +1,57 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author wangguangwu
+ */
+class HedgeBudgetTest {
+
+    @Test
+    void hedgesStayWithinBudgetPercent() {
+        HedgeBudget budget = new HedgeBudget(10);
+
+        int hedges = 0;
+        for (int i = 0; i < 100; i++) {
+            budget.deposit();
+            if (budget.tryWithdraw()) {
+                hedges++;
+            }
+        }
+        assertThat(hedges).isEqualTo(10);
+        assertThat(budget.tryWithdraw()).isFalse();
+    }
+
+    @Test
+    void idleBalanceIsCapped() {
+        HedgeBudget budget = new HedgeBudget(100);
+        for (int i = 0; i < 1000; i++) {
+            budget.deposit();
+        }
+
+        int hedges = 0;
+        while (budget.tryWithdraw()) {
+            hedges++;
+        }
+        // 空闲期间最多积累 10 个令牌
+        assertThat(hedges).isEqualTo(10);
+    }
+
+    @Test
+    void percentileIsRecomputedFromRecentSamples() {
+        LatencyTracker tracker = new LatencyTracker(0.95);
+        for (int i = 1; i < 32; i++) {
+            tracker.record(i);
+        }
+        // 样本不足一个计算间隔时不发起对冲
+        assertThat(tracker.getPercentileNanos()).isZero();
+
+        for (int i = 32; i <= 64; i++) {
+            tracker.record(i);
+        }
+        // 第 64 个样本触发重新计算：ceil(0.95 * 64) = 61
+        assertThat(tracker.getPercentileNanos()).isEqualTo(61);
+    }
+}
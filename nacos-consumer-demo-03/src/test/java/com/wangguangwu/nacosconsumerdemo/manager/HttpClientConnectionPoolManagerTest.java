@@ -0,0 +1,105 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import com.wangguangwu.nacosconsumerdemo.config.HttpClientPoolProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author wangguangwu
+ */
+class HttpClientConnectionPoolManagerTest {
+
+    private static final String SERVICE_ID = "nacos-provider-serviceC";
+
+    private final AtomicReference<List<ServiceInstance>> reported = new AtomicReference<>(Collections.emptyList());
+
+    private final HttpClientConnectionPoolManager poolManager = new HttpClientConnectionPoolManager();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private ServerSocket server;
+
+    private ServiceInstance instance;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // 连接只需完成 TCP 握手，由操作系统的 backlog 接受，无需真正处理请求
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        instance = new DefaultServiceInstance("c-1", SERVICE_ID, "127.0.0.1", server.getLocalPort(), false);
+
+        HttpClientPoolProperties properties = new HttpClientPoolProperties();
+        properties.setEvictionInterval(Duration.ofHours(1));
+        ReflectionTestUtils.setField(poolManager, "httpClientPoolProperties", properties);
+        ReflectionTestUtils.setField(poolManager, "discoveryClient", new DiscoveryClient() {
+            @Override
+            public String description() {
+                return "test";
+            }
+
+            @Override
+            public List<ServiceInstance> getInstances(String serviceId) {
+                return reported.get();
+            }
+
+            @Override
+            public List<String> getServices() {
+                return List.of(SERVICE_ID);
+            }
+        });
+        poolManager.init();
+        poolManager.bindTo(registry);
+        poolManager.registerService(SERVICE_ID);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        poolManager.destroy();
+        server.close();
+    }
+
+    @Test
+    void emptyDiscoveryResultKeepsPooledConnections() {
+        reported.set(List.of(instance));
+        assertThat(poolManager.prewarm(instance, 2)).isEqualTo(2);
+        poolManager.evict();
+
+        // 注册中心暂时返回空列表
+        reported.set(Collections.emptyList());
+        poolManager.evict();
+
+        assertThat(available()).isEqualTo(2);
+    }
+
+    @Test
+    void departedInstanceConnectionsAreClosed() {
+        reported.set(List.of(instance));
+        assertThat(poolManager.prewarm(instance, 2)).isEqualTo(2);
+        poolManager.evict();
+
+        reported.set(List.of(new DefaultServiceInstance("c-2", SERVICE_ID, "127.0.0.1", server.getLocalPort() + 1, false)));
+        poolManager.evict();
+
+        assertThat(available()).isZero();
+        assertThat(registry.get("http.client.pool.routes").gauge().value()).isZero();
+    }
+
+    private double available() {
+        return registry.get("http.client.pool.available").gauge().value();
+    }
+}
@@ -0,0 +1,103 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import com.wangguangwu.nacosconsumerdemo.config.InstanceSnapshotProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author wangguangwu
+ */
+class InstanceSnapshotManagerTest {
+
+    private static final String SERVICE_ID = "nacos-provider-serviceC";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void savedInstancesAreLoadedOnNextStartup() {
+        Path file = dir.resolve("instances.snapshot");
+        ServiceInstance instance = new DefaultServiceInstance("10.0.0.1#8080", SERVICE_ID, "10.0.0.1", 8080, false,
+                Map.of("nacos.cluster", "DEFAULT", "zone", "a"));
+
+        InstanceSnapshotManager first = newManager(file);
+        first.save(SERVICE_ID, List.of(instance));
+        // 关闭时写入尚未落盘的快照
+        first.destroy();
+        assertThat(file).exists();
+
+        InstanceSnapshotManager second = newManager(file);
+        List<ServiceInstance> instances = second.getInstances(SERVICE_ID);
+        second.destroy();
+
+        assertThat(instances).hasSize(1);
+        ServiceInstance loaded = instances.get(0);
+        assertThat(loaded.getInstanceId()).isEqualTo("10.0.0.1#8080");
+        assertThat(loaded.getServiceId()).isEqualTo(SERVICE_ID);
+        assertThat(loaded.getHost()).isEqualTo("10.0.0.1");
+        assertThat(loaded.getPort()).isEqualTo(8080);
+        assertThat(loaded.isSecure()).isFalse();
+        assertThat(loaded.getMetadata()).containsEntry("nacos.cluster", "DEFAULT").containsEntry("zone", "a");
+    }
+
+    @Test
+    void corruptSnapshotIsIgnored() throws Exception {
+        Path file = dir.resolve("instances.snapshot");
+        Files.write(file, new byte[]{1, 2, 3});
+
+        InstanceSnapshotManager manager = newManager(file);
+        assertThat(manager.getInstances(SERVICE_ID)).isEmpty();
+        manager.destroy();
+    }
+
+    @Test
+    void truncatedOrOversizedSnapshotIsIgnored() throws Exception {
+        ServiceInstance instance = new DefaultServiceInstance("10.0.0.1#8080", SERVICE_ID, "10.0.0.1", 8080, false,
+                Map.of("zone", "a"));
+        byte[] valid = InstanceSnapshotManager.encode(Map.of(SERVICE_ID, List.of(instance)));
+        Path file = dir.resolve("instances.snapshot");
+
+        // 截断在实例记录中间
+        Files.write(file, Arrays.copyOf(valid, valid.length - 6));
+        InstanceSnapshotManager truncated = newManager(file);
+        assertThat(truncated.getInstances(SERVICE_ID)).isEmpty();
+        truncated.destroy();
+
+        // 文件头之后的服务数远超文件大小，不能按该数量分配内存
+        ByteBuffer header = ByteBuffer.wrap(Arrays.copyOf(valid, 16));
+        header.putInt(8, Integer.MAX_VALUE);
+        Files.write(file, header.array());
+        InstanceSnapshotManager oversizedCount = newManager(file);
+        assertThat(oversizedCount.getInstances(SERVICE_ID)).isEmpty();
+        oversizedCount.destroy();
+
+        // 服务名长度远超文件大小
+        ByteBuffer length = ByteBuffer.wrap(valid.clone());
+        length.putInt(12, Integer.MAX_VALUE - 1);
+        Files.write(file, length.array());
+        InstanceSnapshotManager oversizedString = newManager(file);
+        assertThat(oversizedString.getInstances(SERVICE_ID)).isEmpty();
+        oversizedString.destroy();
+    }
+
+    private InstanceSnapshotManager newManager(Path file) {
+        InstanceSnapshotProperties properties = new InstanceSnapshotProperties();
+        properties.setFile(file.toString());
+        properties.setWriteDelay(Duration.ofMinutes(1));
+        InstanceSnapshotManager manager = new InstanceSnapshotManager(properties);
+        manager.init();
+        return manager;
+    }
+}
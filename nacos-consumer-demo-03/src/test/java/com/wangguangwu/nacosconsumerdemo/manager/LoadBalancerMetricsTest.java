@@ -0,0 +1,70 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author wangguangwu
+ */
+class LoadBalancerMetricsTest {
+
+    private static final String SERVICE_ID = "nacos-provider-serviceC";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final LoadBalancerMetrics loadBalancerMetrics = new LoadBalancerMetrics();
+
+    private final ConnectionCounterManager connectionCounterManager = new ConnectionCounterManager(loadBalancerMetrics);
+
+    @Test
+    void recordsChoicesAndInFlightPerInstance() {
+        loadBalancerMetrics.bindTo(registry);
+        ServiceInstance instance = instance(1);
+        connectionCounterManager.getTable(SERVICE_ID, List.of(instance, instance(2)));
+
+        connectionCounterManager.recordChoose(SERVICE_ID, "leastConnections", new DefaultResponse(instance), 1_000L);
+        connectionCounterManager.recordChoose(SERVICE_ID, "leastConnections", new DefaultResponse(instance), 1_000L);
+        connectionCounterManager.incrementConnectionCount(instance);
+
+        assertThat(registry.get("loadbalancer.choose").tag("strategy", "leastConnections").timer().count()).isEqualTo(2);
+        assertThat(registry.get("loadbalancer.selections").tag("instance", "10.0.0.1:8095").counter().count()).isEqualTo(2);
+        assertThat(registry.get("loadbalancer.instance.in.flight").tag("instance", "10.0.0.1:8095").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void removesInstanceMetersOnceCounterIsEvicted() {
+        loadBalancerMetrics.bindTo(registry);
+        ServiceInstance instance = instance(1);
+        connectionCounterManager.getTable(SERVICE_ID, List.of(instance));
+        connectionCounterManager.incrementConnectionCount(instance);
+        connectionCounterManager.recordLatency(instance, 5_000_000L, true);
+
+        connectionCounterManager.getTable(SERVICE_ID, List.of(instance(2)));
+        assertThat(registry.find("loadbalancer.client.requests").tag("instance", "10.0.0.1:8095").timer()).isNotNull();
+        connectionCounterManager.decrementConnectionCount(instance);
+
+        assertThat(registry.find("loadbalancer.client.requests").tag("instance", "10.0.0.1:8095").timer()).isNull();
+        assertThat(registry.find("loadbalancer.instance.in.flight").tag("instance", "10.0.0.1:8095").gauge()).isNull();
+    }
+
+    @Test
+    void recordsNothingBeforeRegistryIsBound() {
+        ServiceInstance instance = instance(1);
+        connectionCounterManager.getTable(SERVICE_ID, List.of(instance));
+
+        connectionCounterManager.recordChoose(SERVICE_ID, "leastConnections", new DefaultResponse(instance), 1_000L);
+
+        assertThat(connectionCounterManager.getConnectionCounter(instance).getInstanceMeters()).isNull();
+    }
+
+    private static ServiceInstance instance(int index) {
+        return new DefaultServiceInstance("c-" + index, SERVICE_ID, "10.0.0." + index, 8095, false);
+    }
+}
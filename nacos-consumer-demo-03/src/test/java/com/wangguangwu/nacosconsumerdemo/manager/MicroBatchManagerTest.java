@@ -0,0 +1,184 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import com.wangguangwu.nacosconsumerdemo.config.HttpClientPoolProperties;
+import com.wangguangwu.nacosconsumerdemo.config.MicroBatchProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerRequest;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author wangguangwu
+ */
+class MicroBatchManagerTest {
+
+    private static final String SERVICE_ID = "nacos-provider-serviceC";
+
+    private final ServiceInstance first = new DefaultServiceInstance("c-1", SERVICE_ID, "10.0.0.1", 8095, false);
+
+    private final ServiceInstance second = new DefaultServiceInstance("c-2", SERVICE_ID, "10.0.0.2", 8095, false);
+
+    private final AtomicReference<List<ServiceInstance>> reported = new AtomicReference<>(Collections.emptyList());
+
+    private final HttpClientConnectionPoolManager poolManager = new HttpClientConnectionPoolManager();
+
+    private final MicroBatchManager microBatchManager = new MicroBatchManager();
+
+    private final RoundRobinClient loadBalancerClient = new RoundRobinClient(List.of(first, second));
+
+    @BeforeEach
+    void setUp() {
+        HttpClientPoolProperties poolProperties = new HttpClientPoolProperties();
+        poolProperties.setEvictionInterval(Duration.ofHours(1));
+        ReflectionTestUtils.setField(poolManager, "httpClientPoolProperties", poolProperties);
+        ReflectionTestUtils.setField(poolManager, "discoveryClient", new DiscoveryClient() {
+            @Override
+            public String description() {
+                return "test";
+            }
+
+            @Override
+            public List<ServiceInstance> getInstances(String serviceId) {
+                return reported.get();
+            }
+
+            @Override
+            public List<String> getServices() {
+                return List.of(SERVICE_ID);
+            }
+        });
+        poolManager.init();
+
+        MicroBatchProperties batchProperties = new MicroBatchProperties();
+        batchProperties.setMaxBatchSize(1);
+        ReflectionTestUtils.setField(microBatchManager, "microBatchProperties", batchProperties);
+        ReflectionTestUtils.setField(microBatchManager, "loadBalancerClient", loadBalancerClient);
+        ReflectionTestUtils.setField(microBatchManager, "httpClientConnectionPoolManager", poolManager);
+        microBatchManager.init();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        poolManager.destroy();
+    }
+
+    @Test
+    void batcherOfDepartedInstanceIsEvicted() throws IOException {
+        microBatchManager.callService(SERVICE_ID);
+        microBatchManager.callService(SERVICE_ID);
+        assertThat(batchers()).containsOnlyKeys("10.0.0.1:8095", "10.0.0.2:8095");
+
+        reported.set(List.of(first, second));
+        poolManager.evict();
+        assertThat(batchers()).hasSize(2);
+
+        reported.set(List.of(first));
+        poolManager.evict();
+        assertThat(batchers()).containsOnlyKeys("10.0.0.1:8095");
+    }
+
+    @Test
+    void emptyDiscoveryResultKeepsBatchers() throws IOException {
+        microBatchManager.callService(SERVICE_ID);
+        microBatchManager.callService(SERVICE_ID);
+
+        // 注册中心暂不可用时不回收任何合并器
+        poolManager.evict();
+        assertThat(batchers()).hasSize(2);
+    }
+
+    @Test
+    void batchRequestCarriesTimedContext() throws IOException {
+        microBatchManager.callService(SERVICE_ID);
+
+        // 生命周期从请求上下文读写开始时间，没有上下文时无法记录批量请求的耗时
+        assertThat(loadBalancerClient.executed.get()).isInstanceOf(Request.class);
+        assertThat(((Request<?>) loadBalancerClient.executed.get()).getContext()).isInstanceOf(TimedRequestContext.class);
+    }
+
+    @Test
+    void batchIsSentToLatestInstanceOfAddress() throws IOException {
+        ServiceInstance updated = new DefaultServiceInstance("c-1", SERVICE_ID, "10.0.0.1", 8095, false,
+                Map.of("nacos.weight", "2"));
+        microBatchManager.callService(SERVICE_ID);
+        assertThat(loadBalancerClient.sentTo.get()).isSameAs(first);
+
+        loadBalancerClient.instances = List.of(updated);
+        microBatchManager.callService(SERVICE_ID);
+
+        // 同一地址沿用原来的合并器，批量请求发往最近一次选中的实例对象
+        assertThat(batchers()).containsOnlyKeys("10.0.0.1:8095");
+        assertThat(loadBalancerClient.sentTo.get()).isSameAs(updated);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, ?> batchers() {
+        Map<String, Map<String, ?>> batchers =
+                (Map<String, Map<String, ?>>) ReflectionTestUtils.getField(microBatchManager, "batchers");
+        return batchers.getOrDefault(SERVICE_ID, Collections.emptyMap());
+    }
+
+    /**
+     * 轮流返回实例的负载均衡客户端，批量请求不发出网络请求，直接返回一个结果
+     */
+    private static final class RoundRobinClient implements LoadBalancerClient {
+
+        private volatile List<ServiceInstance> instances;
+
+        private final AtomicInteger position = new AtomicInteger();
+
+        private final AtomicReference<ServiceInstance> sentTo = new AtomicReference<>();
+
+        private final AtomicReference<LoadBalancerRequest<?>> executed = new AtomicReference<>();
+
+        private RoundRobinClient(List<ServiceInstance> instances) {
+            this.instances = instances;
+        }
+
+        @Override
+        public ServiceInstance choose(String serviceId) {
+            return instances.get(position.getAndIncrement() % instances.size());
+        }
+
+        @Override
+        public <T> ServiceInstance choose(String serviceId, Request<T> request) {
+            return choose(serviceId);
+        }
+
+        @Override
+        public <T> T execute(String serviceId, LoadBalancerRequest<T> request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T execute(String serviceId, ServiceInstance serviceInstance, LoadBalancerRequest<T> request) {
+            sentTo.set(serviceInstance);
+            executed.set(request);
+            return (T) List.of("ok");
+        }
+
+        @Override
+        public URI reconstructURI(ServiceInstance instance, URI original) {
+            return original;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author wangguangwu
+ */
+class MicroBatcherTest {
+
+    private static final long WINDOW = TimeUnit.SECONDS.toNanos(5);
+
+    @Test
+    void fullBatchIsSentOnceAndFannedOut() throws Exception {
+        List<List<String>> sent = new CopyOnWriteArrayList<>();
+        MicroBatcher batcher = new MicroBatcher(4, WINDOW, callIds -> {
+            sent.add(new ArrayList<>(callIds));
+            return callIds.stream().map(id -> "result-" + id).collect(Collectors.toList());
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<CompletableFuture<String>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                String callId = Integer.toString(i);
+                results.add(CompletableFuture.supplyAsync(() -> call(batcher, callId), executor));
+            }
+            for (int i = 0; i < 4; i++) {
+                // 凑满后立即发送，不等待窗口结束
+                assertThat(results.get(i).get(1, TimeUnit.SECONDS)).isEqualTo("result-" + i);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(sent).hasSize(1);
+        assertThat(sent.get(0)).containsExactlyInAnyOrder("0", "1", "2", "3");
+    }
+
+    @Test
+    void partialBatchIsSentWhenWindowEnds() throws IOException {
+        MicroBatcher batcher = new MicroBatcher(4, TimeUnit.MILLISECONDS.toNanos(1), callIds -> callIds);
+
+        assertThat(batcher.call("a")).isEqualTo("a");
+        assertThat(batcher.call("b")).isEqualTo("b");
+    }
+
+    @Test
+    void failurePropagatesToCaller() {
+        MicroBatcher batcher = new MicroBatcher(1, WINDOW, callIds -> {
+            throw new IOException("connection refused");
+        });
+
+        assertThatThrownBy(() -> batcher.call("a")).isInstanceOf(IOException.class).hasMessage("connection refused");
+    }
+
+    @Test
+    void errorInSenderDoesNotStrandOtherCalls() {
+        MicroBatcher batcher = new MicroBatcher(2, WINDOW, callIds -> {
+            throw new Error("sender crashed");
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<CompletableFuture<String>> results = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                String callId = Integer.toString(i);
+                results.add(CompletableFuture.supplyAsync(() -> call(batcher, callId), executor));
+            }
+            for (CompletableFuture<String> result : results) {
+                // 发送者抛出 Error 后，本批的另一个调用同样失败，而不是一直阻塞
+                assertThatThrownBy(() -> result.get(1, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String call(MicroBatcher batcher, String callId) {
+        try {
+            return batcher.call(callId);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import com.wangguangwu.nacosconsumerdemo.config.OutlierDetectionProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author wangguangwu
+ */
+class OutlierDetectorTest {
+
+    private static final String SERVICE_ID = "nacos-provider-serviceC";
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final OutlierDetector outlierDetector = new OutlierDetector(new OutlierDetectionProperties());
+
+    @Test
+    void ejectsAfterConsecutiveFailuresWithGrowingBackOff() {
+        ServiceInstance failing = instance(1);
+        outlierDetector.recordOutcome(instance(2), false, MILLIS, 0);
+        outlierDetector.recordOutcome(instance(3), false, MILLIS, 0);
+
+        failTimes(failing, 5, 0);
+        assertThat(outlierDetector.getEjectedUntilNanos(failing, 0)).isEqualTo(TimeUnit.SECONDS.toNanos(5));
+
+        // 摘除到期后再次连续失败，摘除时长翻倍
+        long returned = TimeUnit.SECONDS.toNanos(6);
+        assertThat(outlierDetector.getEjectedUntilNanos(failing, returned)).isZero();
+        failTimes(failing, 5, returned);
+        assertThat(outlierDetector.getEjectedUntilNanos(failing, returned)).isEqualTo(returned + TimeUnit.SECONDS.toNanos(10));
+    }
+
+    @Test
+    void successResetsConsecutiveFailures() {
+        ServiceInstance flaky = instance(1);
+        outlierDetector.recordOutcome(instance(2), false, MILLIS, 0);
+
+        failTimes(flaky, 4, 0);
+        outlierDetector.recordOutcome(flaky, false, MILLIS, 0);
+        failTimes(flaky, 4, 0);
+
+        assertThat(outlierDetector.getEjectedUntilNanos(flaky, 0)).isZero();
+    }
+
+    @Test
+    void neverEjectsMoreThanMaxPercent() {
+        ServiceInstance first = instance(1);
+        ServiceInstance second = instance(2);
+        outlierDetector.recordOutcome(second, false, MILLIS, 0);
+
+        failTimes(first, 5, 0);
+        failTimes(second, 5, 0);
+
+        // 两个实例最多摘除 50%，即一个
+        assertThat(outlierDetector.getEjectedUntilNanos(first, 0)).isNotZero();
+        assertThat(outlierDetector.getEjectedUntilNanos(second, 0)).isZero();
+    }
+
+    @Test
+    void smallServiceCanStillEjectOneInstance() {
+        OutlierDetectionProperties properties = new OutlierDetectionProperties();
+        properties.setMaxEjectionPercent(10);
+        OutlierDetector detector = new OutlierDetector(properties);
+        ServiceInstance failing = instance(1);
+        ServiceInstance other = instance(2);
+        detector.recordOutcome(instance(3), false, MILLIS, 0);
+        detector.recordOutcome(other, false, MILLIS, 0);
+
+        for (int i = 0; i < 5; i++) {
+            detector.recordOutcome(failing, true, MILLIS, 0);
+            detector.recordOutcome(other, true, MILLIS, 0);
+        }
+
+        // 三个实例的 10% 向上取整为一个
+        assertThat(detector.getEjectedUntilNanos(failing, 0)).isNotZero();
+        assertThat(detector.getEjectedUntilNanos(other, 0)).isZero();
+    }
+
+    @Test
+    void cappedBackOffDecaysOnlyWhileHealthy() {
+        OutlierDetectionProperties properties = new OutlierDetectionProperties();
+        properties.setMaxEjectionTime(Duration.ofSeconds(20));
+        OutlierDetector detector = new OutlierDetector(properties);
+        ServiceInstance failing = instance(1);
+
+        // 每次摘除到期后立即再次出错：5s、10s、20s，之后保持在上限，不会回到基础时长
+        long nowNanos = 0;
+        long[] expected = {5, 10, 20, 20, 20};
+        for (long seconds : expected) {
+            failTimes(detector, failing, 5, nowNanos);
+            long until = detector.getEjectedUntilNanos(failing, nowNanos);
+            assertThat(until - nowNanos).isEqualTo(TimeUnit.SECONDS.toNanos(seconds));
+            nowNanos = until;
+        }
+
+        // 健康运行 4 个基础时长后摘除次数从 5 降为 1，下一次摘除为 10s
+        nowNanos += TimeUnit.SECONDS.toNanos(20);
+        failTimes(detector, failing, 5, nowNanos);
+        assertThat(detector.getEjectedUntilNanos(failing, nowNanos) - nowNanos).isEqualTo(TimeUnit.SECONDS.toNanos(10));
+    }
+
+    @Test
+    void maxEjectedCountsInstancesWithoutOutcomes() {
+        ServiceInstance first = instance(1);
+        ServiceInstance second = instance(2);
+        outlierDetector.retain(SERVICE_ID, List.of(first, second, instance(3), instance(4)));
+
+        failTimes(first, 5, 0);
+        failTimes(second, 5, 0);
+
+        // 四个实例最多摘除 50%，即两个，没有请求结果的实例同样计入
+        assertThat(outlierDetector.getEjectedUntilNanos(first, 0)).isNotZero();
+        assertThat(outlierDetector.getEjectedUntilNanos(second, 0)).isNotZero();
+    }
+
+    private void failTimes(ServiceInstance instance, int times, long nowNanos) {
+        failTimes(outlierDetector, instance, times, nowNanos);
+    }
+
+    private static void failTimes(OutlierDetector detector, ServiceInstance instance, int times, long nowNanos) {
+        for (int i = 0; i < times; i++) {
+            detector.recordOutcome(instance, true, MILLIS, nowNanos);
+        }
+    }
+
+    private static ServiceInstance instance(int index) {
+        return new DefaultServiceInstance(SERVICE_ID + "-" + index, SERVICE_ID, "10.0.0." + index, 8080, false);
+    }
+}
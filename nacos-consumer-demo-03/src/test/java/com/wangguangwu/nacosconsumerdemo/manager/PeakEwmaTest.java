@@ -0,0 +1,47 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * @author wangguangwu
+ */
+class PeakEwmaTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final long DECAY = TimeUnit.SECONDS.toNanos(10);
+
+    private final PeakEwma peakEwma = new PeakEwma();
+
+    @Test
+    void slowerSampleIsTakenImmediately() {
+        peakEwma.observe(10 * MILLIS, 0, DECAY);
+        peakEwma.observe(200 * MILLIS, 1, DECAY);
+
+        assertThat(peakEwma.getCost(1, DECAY)).isCloseTo(200 * MILLIS, within((double) MILLIS));
+    }
+
+    @Test
+    void fasterSamplesBlendInByElapsedTime() {
+        peakEwma.observe(200 * MILLIS, 0, DECAY);
+        // 经过一个衰减窗口，旧均值的权重为 e^-1
+        peakEwma.observe(10 * MILLIS, DECAY, DECAY);
+
+        double expected = 200 * MILLIS * Math.exp(-1) + 10 * MILLIS * (1 - Math.exp(-1));
+        assertThat(peakEwma.getCost(DECAY, DECAY)).isCloseTo(expected, within(1.0));
+    }
+
+    @Test
+    void costDecaysWhileIdle() {
+        assertThat(peakEwma.getCost(0, DECAY)).isZero();
+        peakEwma.observe(100 * MILLIS, 0, DECAY);
+
+        assertThat(peakEwma.getCost(DECAY, DECAY)).isCloseTo(100 * MILLIS * Math.exp(-1), within(1.0));
+        assertThat(peakEwma.getCost(10 * DECAY, DECAY)).isLessThan(MILLIS);
+    }
+}
@@ -0,0 +1,98 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import com.wangguangwu.nacosconsumerdemo.config.ResponseCacheProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author wangguangwu
+ */
+class ResponseCacheManagerTest {
+
+    private static final String SERVICE_ID = "nacos-provider-serviceC";
+
+    private static final String CONFIG_SOURCE = "nacos-consumer-serviceC-loadbalancer.properties";
+
+    private static final String POLICY_PREFIX = "loadbalancer.response-cache.services." + SERVICE_ID;
+
+    private final ResponseCacheProperties responseCacheProperties = new ResponseCacheProperties();
+
+    private final StandardEnvironment environment = new StandardEnvironment();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final ResponseCacheManager responseCacheManager = new ResponseCacheManager();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(responseCacheManager, "responseCacheProperties", responseCacheProperties);
+        ReflectionTestUtils.setField(responseCacheManager, "environment", environment);
+        responseCacheManager.bindTo(registry);
+    }
+
+    @Test
+    void unchangedPolicyKeepsCache() {
+        publish(Map.of(POLICY_PREFIX + ".ttl", "1s"));
+        ResponseCache cache = responseCacheManager.getCache(SERVICE_ID);
+        assertThat(cache).isNotNull();
+
+        publish(Map.of(POLICY_PREFIX + ".ttl", "1s"));
+        assertThat(responseCacheManager.getCache(SERVICE_ID)).isSameAs(cache);
+    }
+
+    @Test
+    void changedPolicyReplacesCacheAndMeters() {
+        publish(Map.of(POLICY_PREFIX + ".ttl", "1s", POLICY_PREFIX + ".max-entries", "1000"));
+        ResponseCache cache = responseCacheManager.getCache(SERVICE_ID);
+
+        publish(Map.of(POLICY_PREFIX + ".ttl", "5s", POLICY_PREFIX + ".max-entries", "10"));
+        ResponseCache rebuilt = responseCacheManager.getCache(SERVICE_ID);
+
+        ResponseCacheProperties.Policy expected = new ResponseCacheProperties.Policy();
+        expected.setTtl(Duration.ofSeconds(5));
+        expected.setMaxEntries(10);
+        assertThat(rebuilt).isNotSameAs(cache);
+        assertThat(rebuilt.isBuiltFrom(expected)).isTrue();
+        // 指标跟随新的缓存，而不是继续读取旧缓存
+        rebuilt.recordHit();
+        FunctionCounter hits = registry.find("loadbalancer.response.cache.requests")
+                .tags("service", SERVICE_ID, "result", "hit").functionCounter();
+        assertThat(hits).isNotNull();
+        assertThat(hits.count()).isEqualTo(1.0D);
+    }
+
+    @Test
+    void removedPolicyDropsCache() {
+        publish(Map.of(POLICY_PREFIX + ".ttl", "1s"));
+        assertThat(responseCacheManager.getCache(SERVICE_ID)).isNotNull();
+
+        publish(Map.of());
+        assertThat(responseCacheManager.getCache(SERVICE_ID)).isNull();
+        assertThat(responseCacheProperties.getServices()).doesNotContainKey(SERVICE_ID);
+        assertThat(registry.find("loadbalancer.response.cache.requests").tag("service", SERVICE_ID).meters()).isEmpty();
+    }
+
+    /**
+     * 替换配置来源后在原对象上重新绑定配置项并刷新，与配置中心推送变更后的流程一致。
+     * 原对象上的重新绑定只会合并 Map，删除的服务仍留在其中，由刷新负责整体替换。
+     */
+    private void publish(Map<String, Object> properties) {
+        environment.getPropertySources().remove(CONFIG_SOURCE);
+        environment.getPropertySources().addFirst(new MapPropertySource(CONFIG_SOURCE, new HashMap<>(properties)));
+        Binder.get(environment).bind("loadbalancer.response-cache", Bindable.ofInstance(responseCacheProperties));
+        responseCacheManager.refresh();
+    }
+}
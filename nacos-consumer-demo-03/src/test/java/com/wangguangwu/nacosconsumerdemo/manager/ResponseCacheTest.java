@@ -0,0 +1,66 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import com.wangguangwu.nacosconsumerdemo.config.ResponseCacheProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author wangguangwu
+ */
+class ResponseCacheTest {
+
+    private static final long SECONDS = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void entryTurnsStaleThenExpires() {
+        ResponseCacheProperties.Policy policy = new ResponseCacheProperties.Policy();
+        policy.setStaleWhileRevalidate(Duration.ofSeconds(2));
+        ResponseCache cache = new ResponseCache(policy);
+
+        store(cache, "/a", 0);
+        assertThat(cache.get("/a", 0).isFresh(0)).isTrue();
+        assertThat(cache.get("/a", 2 * SECONDS).isFresh(2 * SECONDS)).isFalse();
+        assertThat(cache.get("/a", 3 * SECONDS)).isNull();
+    }
+
+    @Test
+    void concurrentMissesShareOneRequest() {
+        ResponseCache cache = new ResponseCache(new ResponseCacheProperties.Policy());
+        CompletableFuture<ClientHttpResponse> leader = new CompletableFuture<>();
+        assertThat(cache.register("/a", leader)).isNull();
+        assertThat(cache.register("/a", new CompletableFuture<>())).isSameAs(leader);
+
+        ClientHttpResponse response = new MockClientHttpResponse(new byte[0], HttpStatus.OK);
+        cache.complete("/a", leader, response, 0);
+        assertThat(leader.join()).isSameAs(response);
+        assertThat(cache.register("/a", new CompletableFuture<>())).isNull();
+    }
+
+    @Test
+    void evictsOldestEntryWhenFull() {
+        ResponseCacheProperties.Policy policy = new ResponseCacheProperties.Policy();
+        policy.setMaxEntries(2);
+        ResponseCache cache = new ResponseCache(policy);
+
+        store(cache, "/a", 0);
+        store(cache, "/b", 1);
+        store(cache, "/c", 2);
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("/a", 2)).isNull();
+        assertThat(cache.get("/c", 2)).isNotNull();
+    }
+
+    private static void store(ResponseCache cache, String key, long nowNanos) {
+        CompletableFuture<ClientHttpResponse> future = new CompletableFuture<>();
+        cache.register(key, future);
+        cache.complete(key, future, new MockClientHttpResponse(new byte[0], HttpStatus.OK), nowNanos);
+    }
+}
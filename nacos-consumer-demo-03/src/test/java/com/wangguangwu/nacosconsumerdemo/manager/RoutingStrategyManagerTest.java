@@ -0,0 +1,119 @@
+package com.wangguangwu.nacosconsumerdemo.manager;
+
+import com.wangguangwu.nacosconsumerdemo.config.PeakEwmaProperties;
+import com.wangguangwu.nacosconsumerdemo.config.RoutingStrategyProperties;
+import com.wangguangwu.nacosconsumerdemo.config.ServerLoadProperties;
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.LeastConnectionsRoutingLoadBalancer;
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.PeakEwmaLoadBalancer;
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.SwitchableLoadBalancer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.RandomLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.support.ResourcePropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author wangguangwu
+ */
+class RoutingStrategyManagerTest {
+
+    private static final String SERVICE_ID = "nacos-provider-serviceC";
+
+    private static final String CONFIG_SOURCE = "nacos-consumer-serviceC-loadbalancer.properties";
+
+    @TempDir
+    Path configDir;
+
+    private final RoutingStrategyProperties routingStrategyProperties = new RoutingStrategyProperties();
+
+    private final PeakEwmaProperties peakEwmaProperties = new PeakEwmaProperties();
+
+    private final ConnectionCounterManager connectionCounterManager = new ConnectionCounterManager();
+
+    private final StandardEnvironment environment = new StandardEnvironment();
+
+    private final RoutingStrategyManager routingStrategyManager = new RoutingStrategyManager(routingStrategyProperties,
+            peakEwmaProperties, new ServerLoadProperties(), connectionCounterManager, environment);
+
+    @Test
+    void switchesStrategyWithoutLosingInFlightCounts() throws IOException {
+        publish("loadbalancer.routing.services." + SERVICE_ID + "=least-connections");
+        SwitchableLoadBalancer loadBalancer = create();
+        assertThat(loadBalancer.getDelegate()).isInstanceOf(LeastConnectionsRoutingLoadBalancer.class);
+
+        ServiceInstance instance = new DefaultServiceInstance("instance-1", SERVICE_ID, "10.0.0.1", 8080, false);
+        connectionCounterManager.getTable(SERVICE_ID, List.of(instance));
+        connectionCounterManager.incrementConnectionCount(instance);
+
+        publish("loadbalancer.routing.services." + SERVICE_ID + "=peak-ewma");
+        assertThat(loadBalancer.getDelegate()).isInstanceOf(PeakEwmaLoadBalancer.class);
+        assertThat(connectionCounterManager.getConnectionCounter(instance).get()).isEqualTo(1);
+    }
+
+    @Test
+    void keepsLoadBalancerWhenConfigurationIsUnchanged() throws IOException {
+        publish("loadbalancer.routing.services." + SERVICE_ID + "=peak-ewma");
+        SwitchableLoadBalancer loadBalancer = create();
+        ReactorServiceInstanceLoadBalancer delegate = loadBalancer.getDelegate();
+
+        publish("loadbalancer.routing.services." + SERVICE_ID + "=peak-ewma");
+        assertThat(loadBalancer.getDelegate()).isSameAs(delegate);
+    }
+
+    @Test
+    void rebuildsLoadBalancerWhenTuningChanges() throws IOException {
+        publish("loadbalancer.routing.services." + SERVICE_ID + "=peak-ewma");
+        SwitchableLoadBalancer loadBalancer = create();
+        ReactorServiceInstanceLoadBalancer delegate = loadBalancer.getDelegate();
+
+        publish("loadbalancer.routing.services." + SERVICE_ID + "=peak-ewma\n"
+                + "loadbalancer.peak-ewma.service-decay-windows." + SERVICE_ID + "=30s");
+        assertThat(loadBalancer.getDelegate()).isNotSameAs(delegate).isInstanceOf(PeakEwmaLoadBalancer.class);
+    }
+
+    @Test
+    void removedServiceFallsBackToDefaultStrategy() throws IOException {
+        publish("loadbalancer.routing.services." + SERVICE_ID + "=least-connections");
+        SwitchableLoadBalancer loadBalancer = create();
+        assertThat(loadBalancer.getDelegate()).isInstanceOf(LeastConnectionsRoutingLoadBalancer.class);
+
+        publish("loadbalancer.routing.default-strategy=random");
+        assertThat(loadBalancer.getDelegate()).isInstanceOf(RandomLoadBalancer.class);
+        assertThat(routingStrategyProperties.getServices()).doesNotContainKey(SERVICE_ID);
+    }
+
+    private SwitchableLoadBalancer create() {
+        return routingStrategyManager.create(SERVICE_ID,
+                new StaticListableBeanFactory().getBeanProvider(ServiceInstanceListSupplier.class));
+    }
+
+    /**
+     * 以本地文件代替 Nacos 配置：替换配置来源后重新绑定配置项并刷新，与配置中心推送变更后的流程一致。
+     * 配置项在原对象上重新绑定，Map 只会合并，与 Spring Cloud 的重新绑定行为相同。
+     */
+    private void publish(String content) throws IOException {
+        Path file = configDir.resolve("nacos-consumer-serviceC-loadbalancer.properties");
+        Files.writeString(file, content);
+        environment.getPropertySources().remove(CONFIG_SOURCE);
+        environment.getPropertySources().addFirst(new ResourcePropertySource(CONFIG_SOURCE, new FileSystemResource(file)));
+        Binder binder = Binder.get(environment);
+        binder.bind("loadbalancer.routing", Bindable.ofInstance(routingStrategyProperties));
+        binder.bind("loadbalancer.peak-ewma", Bindable.ofInstance(peakEwmaProperties));
+        routingStrategyManager.refresh();
+    }
+}
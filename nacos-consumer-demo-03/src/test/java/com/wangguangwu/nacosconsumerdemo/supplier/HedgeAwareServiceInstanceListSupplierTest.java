@@ -0,0 +1,107 @@
+package com.wangguangwu.nacosconsumerdemo.supplier;
+
+import com.wangguangwu.nacosconsumerdemo.lifecycle.HedgeContext;
+import com.wangguangwu.nacosconsumerdemo.config.OutlierDetectionProperties;
+import com.wangguangwu.nacosconsumerdemo.lifecycle.HedgeLoadBalancerLifecycle;
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.LeastConnectionsRoutingLoadBalancer;
+import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounter;
+import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounterManager;
+import com.wangguangwu.nacosconsumerdemo.manager.OutlierDetector;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+import org.springframework.cloud.loadbalancer.support.SimpleObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.LinkedMultiValueMap;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author wangguangwu
+ */
+class HedgeAwareServiceInstanceListSupplierTest {
+
+    private static final String SERVICE_ID = "nacos-provider-serviceC";
+
+    private final ServiceInstance first = new DefaultServiceInstance("c-1", SERVICE_ID, "10.0.0.1", 8095, false);
+
+    private final ServiceInstance second = new DefaultServiceInstance("c-2", SERVICE_ID, "10.0.0.2", 8096, false);
+
+    private final HedgeLoadBalancerLifecycle lifecycle = new HedgeLoadBalancerLifecycle();
+
+    @Test
+    void hedgeExcludesInstanceChosenByPrimary() {
+        HedgeAwareServiceInstanceListSupplier supplier = new HedgeAwareServiceInstanceListSupplier(
+                ServiceInstanceListSuppliers.from(SERVICE_ID, first, second));
+        HedgeContext primary = HedgeContext.primary();
+        Request<Object> primaryRequest = request(primary);
+
+        assertThat(supplier.get(primaryRequest).blockFirst()).containsExactly(first, second);
+        lifecycle.onStartRequest(primaryRequest, new DefaultResponse(first));
+
+        assertThat(supplier.get(request(primary.hedge())).blockFirst()).containsExactly(second);
+    }
+
+    @Test
+    void keepsOnlyInstanceWhenNothingElseIsLeft() {
+        HedgeAwareServiceInstanceListSupplier supplier = new HedgeAwareServiceInstanceListSupplier(
+                ServiceInstanceListSuppliers.from(SERVICE_ID, first));
+        HedgeContext primary = HedgeContext.primary();
+        lifecycle.onStartRequest(request(primary), new DefaultResponse(first));
+
+        assertThat(supplier.get(request(primary.hedge())).blockFirst()).containsExactly(first);
+    }
+
+    @Test
+    void primaryCounterSurvivesHedgeWhileInFlight() {
+        ConnectionCounterManager connectionCounterManager = new ConnectionCounterManager();
+        HedgeAwareServiceInstanceListSupplier supplier = new HedgeAwareServiceInstanceListSupplier(
+                new InstanceReconcilingServiceInstanceListSupplier(
+                        ServiceInstanceListSuppliers.from(SERVICE_ID, first, second), connectionCounterManager,
+                        new OutlierDetector(new OutlierDetectionProperties())));
+        LeastConnectionsRoutingLoadBalancer loadBalancer = new LeastConnectionsRoutingLoadBalancer(
+                new SimpleObjectProvider<>(supplier), SERVICE_ID, connectionCounterManager);
+
+        HedgeContext primary = HedgeContext.primary();
+        Request<Object> primaryRequest = request(primary);
+        Response<ServiceInstance> primaryResponse = loadBalancer.choose(primaryRequest).block();
+        assertThat(primaryResponse).isNotNull();
+        assertThat(primaryResponse.getServer()).isSameAs(first);
+        lifecycle.onStartRequest(primaryRequest, primaryResponse);
+        connectionCounterManager.incrementConnectionCount(first);
+        ConnectionCounter counter = connectionCounterManager.getConnectionCounter(first);
+
+        Response<ServiceInstance> hedgeResponse = loadBalancer.choose(request(primary.hedge())).block();
+        assertThat(hedgeResponse).isNotNull();
+        assertThat(hedgeResponse.getServer()).isSameAs(second);
+
+        // 对冲请求的列表不含首次请求的实例，但首次请求结束时它的计数槽不能被当作已下线回收
+        connectionCounterManager.decrementConnectionCount(first);
+        assertThat(counter.isDeparted()).isFalse();
+        assertThat(connectionCounterManager.getConnectionCounter(first)).isSameAs(counter);
+
+        loadBalancer.choose(request(HedgeContext.primary())).block();
+        assertThat(connectionCounterManager.getConnectionCounter(first)).isSameAs(counter);
+    }
+
+    private static Request<Object> request(HedgeContext hedgeContext) {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(HedgeContext.ATTRIBUTE, hedgeContext);
+        RequestData requestData = new RequestData(HttpMethod.GET, URI.create("http://" + SERVICE_ID + "/api/callService"),
+                new HttpHeaders(), new LinkedMultiValueMap<>(), attributes);
+        return new DefaultRequest<>(new RequestDataContext(requestData));
+    }
+}
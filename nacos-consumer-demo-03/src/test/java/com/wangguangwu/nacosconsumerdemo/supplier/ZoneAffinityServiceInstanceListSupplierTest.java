@@ -0,0 +1,142 @@
+package com.wangguangwu.nacosconsumerdemo.supplier;
+
+import com.wangguangwu.nacosconsumerdemo.config.OutlierDetectionProperties;
+import com.wangguangwu.nacosconsumerdemo.config.ZoneAffinityProperties;
+import com.wangguangwu.nacosconsumerdemo.constant.NacosMetadataConstants;
+import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounterManager;
+import com.wangguangwu.nacosconsumerdemo.manager.OutlierDetector;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author wangguangwu
+ */
+class ZoneAffinityServiceInstanceListSupplierTest {
+
+    private static final String SERVICE_ID = "nacos-provider-serviceC";
+
+    private final ServiceInstance local1 = instance(1, "hz");
+
+    private final ServiceInstance local2 = instance(2, "hz");
+
+    private final ServiceInstance remote = instance(3, "sh");
+
+    private final List<ServiceInstance> instances = List.of(local1, local2, remote);
+
+    private final ZoneAffinityProperties properties = new ZoneAffinityProperties();
+
+    private final OutlierDetector outlierDetector = new OutlierDetector(new OutlierDetectionProperties());
+
+    private final ConnectionCounterManager connectionCounterManager = new ConnectionCounterManager();
+
+    private final ZoneAffinityServiceInstanceListSupplier supplier = new ZoneAffinityServiceInstanceListSupplier(
+            new FixedSupplier(instances), "hz", properties, outlierDetector, connectionCounterManager);
+
+    ZoneAffinityServiceInstanceListSupplierTest() {
+        properties.setEvaluationInterval(Duration.ZERO);
+    }
+
+    @Test
+    void prefersLocalClusterAndKeepsListIdentity() {
+        List<ServiceInstance> selected = supplier.get().blockFirst();
+
+        assertThat(selected).containsExactly(local1, local2);
+        assertThat(supplier.get().blockFirst()).isSameAs(selected);
+    }
+
+    @Test
+    void spillsOverWhenLocalHealthyCapacityIsTooLow() {
+        outlierDetector.recordOutcome(local2, false, 1_000_000L);
+        outlierDetector.recordOutcome(remote, false, 1_000_000L);
+        for (int i = 0; i < 5; i++) {
+            outlierDetector.recordOutcome(local1, true, 1_000_000L);
+        }
+
+        assertThat(supplier.get().blockFirst()).isSameAs(instances);
+    }
+
+    @Test
+    void spillsOverWhenLocalInFlightExceedsRemote() {
+        connectionCounterManager.getTable(SERVICE_ID, instances);
+        for (int i = 0; i < 6; i++) {
+            connectionCounterManager.incrementConnectionCount(local1);
+            connectionCounterManager.incrementConnectionCount(local2);
+        }
+
+        assertThat(supplier.get().blockFirst()).isSameAs(instances);
+
+        for (int i = 0; i < 6; i++) {
+            connectionCounterManager.decrementConnectionCount(local1);
+        }
+        assertThat(supplier.get().blockFirst()).containsExactly(local1, local2);
+    }
+
+    @Test
+    void remoteEjectionSurvivesSwitchingBetweenLocalAndSpillOver() {
+        ServiceInstance remote2 = instance(4, "sh");
+        List<ServiceInstance> all = List.of(local1, local2, remote, remote2);
+        ServiceInstanceListSupplier chain = new OutlierEjectingServiceInstanceListSupplier(
+                new ZoneAffinityServiceInstanceListSupplier(
+                        new InstanceReconcilingServiceInstanceListSupplier(new FixedSupplier(all), connectionCounterManager, outlierDetector),
+                        "hz", properties, outlierDetector, connectionCounterManager),
+                outlierDetector);
+        for (int i = 0; i < 5; i++) {
+            outlierDetector.recordOutcome(remote, true, 1_000_000L);
+        }
+        assertThat(outlierDetector.isEjected(remote)).isTrue();
+
+        connectionCounterManager.getTable(SERVICE_ID, all);
+        for (int i = 0; i < 6; i++) {
+            connectionCounterManager.incrementConnectionCount(local1);
+            connectionCounterManager.incrementConnectionCount(local2);
+        }
+        assertThat(chain.get().blockFirst()).containsExactly(local1, local2, remote2);
+
+        for (int i = 0; i < 6; i++) {
+            connectionCounterManager.decrementConnectionCount(local1);
+            connectionCounterManager.decrementConnectionCount(local2);
+        }
+        assertThat(chain.get().blockFirst()).containsExactly(local1, local2);
+
+        // 回到本地集群后再次溢出，其他集群中被摘除的实例仍处于摘除状态
+        for (int i = 0; i < 6; i++) {
+            connectionCounterManager.incrementConnectionCount(local1);
+            connectionCounterManager.incrementConnectionCount(local2);
+        }
+        assertThat(chain.get().blockFirst()).containsExactly(local1, local2, remote2);
+        assertThat(outlierDetector.isEjected(remote)).isTrue();
+    }
+
+    private static ServiceInstance instance(int index, String cluster) {
+        return new DefaultServiceInstance("c-" + index, SERVICE_ID, "10.0.0." + index, 8095, false,
+                Map.of(NacosMetadataConstants.CLUSTER, cluster));
+    }
+
+    private static class FixedSupplier implements ServiceInstanceListSupplier {
+
+        private final List<ServiceInstance> instances;
+
+        FixedSupplier(List<ServiceInstance> instances) {
+            this.instances = instances;
+        }
+
+        @Override
+        public String getServiceId() {
+            return SERVICE_ID;
+        }
+
+        @Override
+        public Flux<List<ServiceInstance>> get() {
+            return Flux.just(instances);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.wangguangwu.nacosloadbalancerbenchmark;
+
+import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounterManager;
+import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounterTable;
+import com.wangguangwu.nacosloadbalancerbenchmark.support.ServiceInstances;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link ConnectionCounterManager} 的基准测试，度量连接计数热路径上的各项操作。
+ *
+ * @author wangguangwu
+ */
+@State(Scope.Benchmark)
+public class ConnectionCounterManagerBenchmark {
+
+    private static final String SERVICE_ID = "nacos-provider-serviceC";
+
+    @Param({"3", "100", "10000"})
+    private int instanceCount;
+
+    private List<ServiceInstance> instances;
+
+    private ConnectionCounterManager connectionCounterManager;
+
+    @Setup
+    public void setUp() {
+        instances = ServiceInstances.create(SERVICE_ID, instanceCount);
+        connectionCounterManager = new ConnectionCounterManager();
+        connectionCounterManager.getTable(SERVICE_ID, instances);
+    }
+
+    @Benchmark
+    public ConnectionCounterTable getTable() {
+        return connectionCounterManager.getTable(SERVICE_ID, instances);
+    }
+
+    @Benchmark
+    public void incrementAndDecrement() {
+        ServiceInstance instance = instances.get(ThreadLocalRandom.current().nextInt(instanceCount));
+        connectionCounterManager.incrementConnectionCount(instance);
+        connectionCounterManager.decrementConnectionCount(instance);
+    }
+
+    @Benchmark
+    public int compare() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return connectionCounterManager.compare(instances.get(random.nextInt(instanceCount)),
+                instances.get(random.nextInt(instanceCount)));
+    }
+}
@@ -0,0 +1,71 @@
+package com.wangguangwu.nacosloadbalancerbenchmark;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基准测试入口，依次以 1、2、4 …… 直到 CPU 核数个线程运行全部基准测试，
+ * 同时输出吞吐量、平均耗时和分配速率（gc profiler）。
+ * <p>
+ * 运行方式：
+ * <pre>
+ * mvn -pl nacos-loadbalancer-benchmark -am package -DskipTests
+ * java -jar nacos-loadbalancer-benchmark/target/benchmarks.jar
+ * </pre>
+ * 其余命令行参数按 JMH 的格式传入，例如 {@code -p instanceCount=100}；
+ * 结果以 JSON 格式写入当前目录下的 {@code jmh-result-<线程数>t.json}。
+ *
+ * @author wangguangwu
+ */
+public final class LoadBalancerBenchmarkRunner {
+
+    private LoadBalancerBenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        for (int threads : threadCounts(Runtime.getRuntime().availableProcessors())) {
+            Options options = new OptionsBuilder()
+                    .parent(commandLineOptions)
+                    .include(LoadBalancerBenchmarkRunner.class.getPackage().getName() + ".*Benchmark")
+                    .mode(Mode.Throughput)
+                    .mode(Mode.AverageTime)
+                    .timeUnit(TimeUnit.MICROSECONDS)
+                    .addProfiler(GCProfiler.class)
+                    .threads(threads)
+                    .forks(1)
+                    .warmupIterations(3)
+                    .warmupTime(TimeValue.seconds(1))
+                    .measurementIterations(5)
+                    .measurementTime(TimeValue.seconds(1))
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("jmh-result-" + threads + "t.json")
+                    .build();
+            new Runner(options).run();
+        }
+    }
+
+    /**
+     * 生成 1、2、4 …… 直到最大线程数的线程数序列。
+     */
+    private static List<Integer> threadCounts(int maxThreads) {
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads <<= 1) {
+            threadCounts.add(threads);
+        }
+        threadCounts.add(maxThreads);
+        return threadCounts;
+    }
+}
@@ -0,0 +1,118 @@
+package com.wangguangwu.nacosloadbalancerbenchmark;
+
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.LeastConnectionsRoutingLoadBalancer;
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.PeakEwmaLoadBalancer;
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.PowerOfTwoChoicesLoadBalancer;
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.ServerLoadAwareLoadBalancer;
+import com.wangguangwu.nacosconsumerdemo.manager.ConnectionCounterManager;
+import com.wangguangwu.nacosconsumerdemo.manager.ServerLoad;
+import com.wangguangwu.nacosloadbalancerbenchmark.support.FixedServiceInstanceListSupplier;
+import com.wangguangwu.nacosloadbalancerbenchmark.support.ServiceInstances;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.RandomLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.RoundRobinLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.SimpleObjectProvider;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 负载均衡策略的端到端基准测试，度量一次 {@code choose(Request)} 的开销。
+ * <p>
+ * RoundRobin 和 Random 按 nacos-consumer-demo-02 中的方式构建，
+ * 其余策略来自 nacos-consumer-demo-03。带连接计数的用例额外模拟负载均衡生命周期中的计数增减。
+ *
+ * @author wangguangwu
+ */
+@State(Scope.Benchmark)
+public class LoadBalancerChooseBenchmark {
+
+    private static final String SERVICE_ID = "nacos-provider-serviceC";
+
+    @Param({"3", "100", "10000"})
+    private int instanceCount;
+
+    @Param({"roundRobin", "random", "leastConnections", "powerOfTwoChoices", "peakEwma", "serverLoadAware"})
+    private String strategy;
+
+    private final Request<?> request = new DefaultRequest<>();
+
+    private ConnectionCounterManager connectionCounterManager;
+
+    private ReactorServiceInstanceLoadBalancer loadBalancer;
+
+    @Setup
+    public void setUp() {
+        List<ServiceInstance> instances = ServiceInstances.create(SERVICE_ID, instanceCount);
+        ObjectProvider<ServiceInstanceListSupplier> provider =
+                new SimpleObjectProvider<>(new FixedServiceInstanceListSupplier(SERVICE_ID, instances));
+        connectionCounterManager = new ConnectionCounterManager();
+        loadBalancer = createLoadBalancer(provider);
+
+        // 为依赖响应时间的策略预置样本
+        if (loadBalancer instanceof PeakEwmaLoadBalancer) {
+            PeakEwmaLoadBalancer peakEwmaLoadBalancer = (PeakEwmaLoadBalancer) loadBalancer;
+            for (ServiceInstance instance : instances) {
+                peakEwmaLoadBalancer.recordResponseTime(instance,
+                        TimeUnit.MILLISECONDS.toNanos(ThreadLocalRandom.current().nextInt(1, 100)));
+            }
+        }
+        // 为依赖提供者上报负载的策略预置负载
+        if (loadBalancer instanceof ServerLoadAwareLoadBalancer) {
+            connectionCounterManager.getTable(SERVICE_ID, instances);
+            for (ServiceInstance instance : instances) {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                connectionCounterManager.getConnectionCounter(instance).setServerLoad(new ServerLoad(
+                        random.nextInt(100), random.nextDouble(), random.nextInt(1, 100), System.nanoTime()));
+            }
+        }
+    }
+
+    private ReactorServiceInstanceLoadBalancer createLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> provider) {
+        switch (strategy) {
+            case "roundRobin":
+                return new RoundRobinLoadBalancer(provider, SERVICE_ID);
+            case "random":
+                return new RandomLoadBalancer(provider, SERVICE_ID);
+            case "leastConnections":
+                return new LeastConnectionsRoutingLoadBalancer(provider, SERVICE_ID, connectionCounterManager);
+            case "powerOfTwoChoices":
+                return new PowerOfTwoChoicesLoadBalancer(provider, SERVICE_ID, connectionCounterManager);
+            case "peakEwma":
+                return new PeakEwmaLoadBalancer(provider, SERVICE_ID, connectionCounterManager, Duration.ofSeconds(10));
+            case "serverLoadAware":
+                return new ServerLoadAwareLoadBalancer(provider, SERVICE_ID, connectionCounterManager, Duration.ofSeconds(2));
+            default:
+                throw new IllegalArgumentException("Unknown strategy: " + strategy);
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Response<ServiceInstance> choose() {
+        return loadBalancer.choose(request).block();
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Response<ServiceInstance> chooseWithConnectionCounting() {
+        Response<ServiceInstance> response = loadBalancer.choose(request).block();
+        ServiceInstance instance = response.getServer();
+        connectionCounterManager.incrementConnectionCount(instance);
+        connectionCounterManager.decrementConnectionCount(instance);
+        return response;
+    }
+}
@@ -0,0 +1,36 @@
+package com.wangguangwu.nacosloadbalancerbenchmark.support;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * 内存中的固定实例列表供应者。
+ * <p>
+ * 每次返回同一个列表对象，与生产环境中 {@code CachingServiceInstanceListSupplier} 缓存命中时的行为一致。
+ *
+ * @author wangguangwu
+ */
+public class FixedServiceInstanceListSupplier implements ServiceInstanceListSupplier {
+
+    private final String serviceId;
+
+    private final List<ServiceInstance> instances;
+
+    public FixedServiceInstanceListSupplier(String serviceId, List<ServiceInstance> instances) {
+        this.serviceId = serviceId;
+        this.instances = instances;
+    }
+
+    @Override
+    public String getServiceId() {
+        return serviceId;
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get() {
+        return Flux.just(instances);
+    }
+}
@@ -0,0 +1,35 @@
+package com.wangguangwu.nacosloadbalancerbenchmark.support;
+
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 基准测试用的服务实例生成工具。
+ *
+ * @author wangguangwu
+ */
+public final class ServiceInstances {
+
+    private ServiceInstances() {
+    }
+
+    /**
+     * 生成指定数量的服务实例，host 和 port 各不相同。
+     *
+     * @param serviceId 服务名
+     * @param count     实例数量
+     * @return 不可变的实例列表
+     */
+    public static List<ServiceInstance> create(String serviceId, int count) {
+        List<ServiceInstance> instances = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String host = "10." + (i >> 16 & 0xFF) + "." + (i >> 8 & 0xFF) + "." + (i & 0xFF);
+            instances.add(new DefaultServiceInstance(serviceId + "-" + i, serviceId, host, 8080 + i % 1000, false));
+        }
+        return Collections.unmodifiableList(instances);
+    }
+}
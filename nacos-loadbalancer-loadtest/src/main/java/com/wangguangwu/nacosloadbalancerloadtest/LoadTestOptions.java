@@ -0,0 +1,156 @@
+package com.wangguangwu.nacosloadbalancerloadtest;
+
+import com.wangguangwu.nacosloadbalancerloadtest.consumer.LoadBalancingStrategy;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 压测参数，从 {@code --key=value} 形式的命令行参数中解析，未指定的参数使用默认值。
+ *
+ * @author wangguangwu
+ */
+public class LoadTestOptions {
+
+    private static final Set<String> KEYS = Set.of("strategies", "endpoint", "rate", "warmup", "duration", "timeout",
+            "instances", "latency", "jitter", "slow-instances", "slow-latency", "output");
+
+    /**
+     * 依次压测的策略
+     */
+    private List<LoadBalancingStrategy> strategies = List.of(
+            LoadBalancingStrategy.ROUND_ROBIN, LoadBalancingStrategy.RANDOM, LoadBalancingStrategy.LEAST_CONNECTIONS);
+
+    /**
+     * 压测的消费者接口
+     */
+    private String endpoint = "/api/callService";
+
+    /**
+     * 目标速率，每秒请求数
+     */
+    private int rate = 200;
+
+    private Duration warmup = Duration.ofSeconds(5);
+
+    private Duration duration = Duration.ofSeconds(30);
+
+    private Duration timeout = Duration.ofSeconds(10);
+
+    /**
+     * 桩服务提供者实例数
+     */
+    private int instances = 4;
+
+    /**
+     * 普通实例的固定延迟与抖动
+     */
+    private Duration latency = Duration.ofMillis(20);
+
+    private Duration jitter = Duration.ofMillis(5);
+
+    /**
+     * 慢实例的数量与固定延迟，慢实例的抖动与普通实例相同
+     */
+    private int slowInstances = 1;
+
+    private Duration slowLatency = Duration.ofMillis(200);
+
+    /**
+     * JSON 结果的输出文件
+     */
+    private String output = "loadtest-result.json";
+
+    public static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --key=value but got: " + arg);
+            }
+            String key = arg.substring(2, separator);
+            if (!KEYS.contains(key)) {
+                throw new IllegalArgumentException("Unknown option: " + key + ", expected one of " + KEYS);
+            }
+            values.put(key, arg.substring(separator + 1));
+        }
+        LoadTestOptions options = new LoadTestOptions();
+        if (values.containsKey("strategies")) {
+            options.strategies = Arrays.stream(values.get("strategies").split(","))
+                    .map(String::trim)
+                    .map(LoadBalancingStrategy::of)
+                    .collect(Collectors.toList());
+        }
+        options.endpoint = values.getOrDefault("endpoint", options.endpoint);
+        options.rate = Integer.parseInt(values.getOrDefault("rate", String.valueOf(options.rate)));
+        options.warmup = duration(values, "warmup", options.warmup);
+        options.duration = duration(values, "duration", options.duration);
+        options.timeout = duration(values, "timeout", options.timeout);
+        options.instances = Integer.parseInt(values.getOrDefault("instances", String.valueOf(options.instances)));
+        options.latency = duration(values, "latency", options.latency);
+        options.jitter = duration(values, "jitter", options.jitter);
+        options.slowInstances = Integer.parseInt(values.getOrDefault("slow-instances", String.valueOf(options.slowInstances)));
+        options.slowLatency = duration(values, "slow-latency", options.slowLatency);
+        options.output = values.getOrDefault("output", options.output);
+        return options;
+    }
+
+    private static Duration duration(Map<String, String> values, String key, Duration defaultValue) {
+        String value = values.get(key);
+        return value == null ? defaultValue : DurationStyle.detectAndParse(value);
+    }
+
+    public List<LoadBalancingStrategy> getStrategies() {
+        return strategies;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public int getRate() {
+        return rate;
+    }
+
+    public Duration getWarmup() {
+        return warmup;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public int getInstances() {
+        return instances;
+    }
+
+    public Duration getLatency() {
+        return latency;
+    }
+
+    public Duration getJitter() {
+        return jitter;
+    }
+
+    public int getSlowInstances() {
+        return slowInstances;
+    }
+
+    public Duration getSlowLatency() {
+        return slowLatency;
+    }
+
+    public String getOutput() {
+        return output;
+    }
+}
@@ -0,0 +1,125 @@
+package com.wangguangwu.nacosloadbalancerloadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.wangguangwu.nacosconsumerdemo.constant.ServiceConstants;
+import com.wangguangwu.nacosloadbalancerloadtest.consumer.LoadBalancingStrategy;
+import com.wangguangwu.nacosloadbalancerloadtest.consumer.LoadTestConsumerApplication;
+import com.wangguangwu.nacosloadbalancerloadtest.generator.LoadResult;
+import com.wangguangwu.nacosloadbalancerloadtest.generator.OpenLoopLoadGenerator;
+import com.wangguangwu.nacosloadbalancerloadtest.provider.LatencyProfile;
+import com.wangguangwu.nacosloadbalancerloadtest.provider.StubProvider;
+import com.wangguangwu.nacosloadbalancerloadtest.report.LoadTestReport;
+import com.wangguangwu.nacosloadbalancerloadtest.report.StrategyReport;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * 负载均衡策略压测入口，完全离线运行，不依赖 Nacos 和真实的服务提供者。
+ * <p>
+ * 进程内启动若干个 {@link StubProvider 桩服务提供者}（其中部分为慢实例），然后对每个策略：
+ * <ol>
+ *     <li>启动一个新的 {@link LoadTestConsumerApplication 消费者}，实例列表由配置项静态提供；</li>
+ *     <li>用 {@link OpenLoopLoadGenerator} 按固定速率压测消费者接口；</li>
+ *     <li>记录吞吐量、p50/p99/p999 延迟以及各实例分到的请求数，然后关闭消费者。</li>
+ * </ol>
+ * 运行方式：
+ * <pre>
+ * mvn -pl nacos-loadbalancer-loadtest -am package -DskipTests
+ * java -jar nacos-loadbalancer-loadtest/target/loadtest.jar --rate=1000 --duration=60s
+ * </pre>
+ * 可用参数见 {@link LoadTestOptions}；汇总结果以 JSON 格式输出到标准输出和 {@code --output} 指定的文件。
+ *
+ * @author wangguangwu
+ */
+public final class LoadTestRunner {
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "stub-provider-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<StubProvider> providers = startProviders(options, scheduler);
+        try {
+            Map<String, String> instances = new LinkedHashMap<>();
+            providers.forEach(provider -> instances.put(provider.getInstanceId(), provider.getLatencyProfile().toString()));
+            LoadTestReport report = new LoadTestReport(options.getEndpoint(), options.getRate(),
+                    options.getDuration().getSeconds(), instances);
+            OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator(options.getTimeout());
+            for (LoadBalancingStrategy strategy : options.getStrategies()) {
+                report.add(runStrategy(strategy, options, providers, generator));
+            }
+
+            ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+            objectMapper.writeValue(new File(options.getOutput()), report);
+            System.out.println(objectMapper.writeValueAsString(report));
+        } finally {
+            providers.forEach(StubProvider::close);
+            scheduler.shutdownNow();
+        }
+    }
+
+    private static List<StubProvider> startProviders(LoadTestOptions options, ScheduledExecutorService scheduler) throws IOException {
+        List<StubProvider> providers = new ArrayList<>(options.getInstances());
+        for (int i = 0; i < options.getInstances(); i++) {
+            boolean slow = i < options.getSlowInstances();
+            LatencyProfile latencyProfile = new LatencyProfile(slow ? options.getSlowLatency() : options.getLatency(), options.getJitter());
+            providers.add(new StubProvider((slow ? "slow-" : "stub-") + i, latencyProfile, scheduler));
+        }
+        return providers;
+    }
+
+    private static StrategyReport runStrategy(LoadBalancingStrategy strategy, LoadTestOptions options,
+                                              List<StubProvider> providers, OpenLoopLoadGenerator generator) {
+        try (ConfigurableApplicationContext consumer = startConsumer(strategy, providers)) {
+            providers.forEach(StubProvider::takeRequests);
+            URI target = URI.create("http://127.0.0.1:" + consumer.getEnvironment().getProperty("local.server.port")
+                    + options.getEndpoint());
+            LoadResult result = generator.run(target, options.getRate(), options.getWarmup(), options.getDuration());
+            Map<String, Long> instanceRequests = new LinkedHashMap<>();
+            providers.forEach(provider -> instanceRequests.put(provider.getInstanceId(), provider.takeRequests()));
+            return new StrategyReport(strategy.getName(), result, instanceRequests);
+        }
+    }
+
+    private static ConfigurableApplicationContext startConsumer(LoadBalancingStrategy strategy, List<StubProvider> providers) {
+        List<String> args = new ArrayList<>();
+        args.add("--server.port=0");
+        args.add("--spring.cloud.nacos.discovery.enabled=false");
+        // 完全离线运行：offline profile 跳过 Nacos 配置导入并关闭配置中心客户端
+        args.add("--spring.profiles.active=offline");
+        args.add("--spring.cloud.service-registry.auto-registration.enabled=false");
+        // 只比较负载均衡策略本身，关闭限流与异常实例摘除
+        args.add("--loadbalancer.concurrency-limit.enabled=false");
+        args.add("--loadbalancer.outlier-detection.enabled=false");
+        // 每轮使用新的桩实例，不读写实例列表快照
+        args.add("--loadbalancer.instance-snapshot.enabled=false");
+        args.add("--logging.level.root=WARN");
+        args.add("--loadbalancer.routing.services." + ServiceConstants.SERVICE_C_NAME + "=" + strategy.getRoutingStrategy().name());
+        String instances = "--spring.cloud.discovery.client.simple.instances." + ServiceConstants.SERVICE_C_NAME;
+        for (int i = 0; i < providers.size(); i++) {
+            StubProvider provider = providers.get(i);
+            args.add(instances + "[" + i + "].instance-id=" + provider.getInstanceId());
+            args.add(instances + "[" + i + "].uri=http://127.0.0.1:" + provider.getPort());
+        }
+        return new SpringApplicationBuilder(LoadTestConsumerApplication.class)
+                .bannerMode(Banner.Mode.OFF)
+                .run(args.toArray(new String[0]));
+    }
+}
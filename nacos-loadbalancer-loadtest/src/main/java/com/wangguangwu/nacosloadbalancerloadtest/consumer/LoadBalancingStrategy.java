@@ -0,0 +1,72 @@
+package com.wangguangwu.nacosloadbalancerloadtest.consumer;
+
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.LeastConnectionsRoutingLoadBalancer;
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.PeakEwmaLoadBalancer;
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.PowerOfTwoChoicesLoadBalancer;
+import com.wangguangwu.nacosconsumerdemo.loadBalancer.RoutingStrategy;
+
+import java.util.Arrays;
+
+/**
+ * 压测中可选的负载均衡策略，对应 nacos-consumer-demo-03 中可切换的 {@link RoutingStrategy}。
+ *
+ * @author wangguangwu
+ */
+public enum LoadBalancingStrategy {
+
+    /**
+     * Spring Cloud LoadBalancer 默认的轮询策略
+     */
+    ROUND_ROBIN("roundRobin", RoutingStrategy.ROUND_ROBIN),
+
+    /**
+     * Spring Cloud LoadBalancer 自带的随机策略
+     */
+    RANDOM("random", RoutingStrategy.RANDOM),
+
+    /**
+     * {@link LeastConnectionsRoutingLoadBalancer}
+     */
+    LEAST_CONNECTIONS(LeastConnectionsRoutingLoadBalancer.STRATEGY, RoutingStrategy.LEAST_CONNECTIONS),
+
+    /**
+     * {@link PowerOfTwoChoicesLoadBalancer}
+     */
+    POWER_OF_TWO_CHOICES(PowerOfTwoChoicesLoadBalancer.STRATEGY, RoutingStrategy.POWER_OF_TWO_CHOICES),
+
+    /**
+     * {@link PeakEwmaLoadBalancer}
+     */
+    PEAK_EWMA(PeakEwmaLoadBalancer.STRATEGY, RoutingStrategy.PEAK_EWMA);
+
+    private final String name;
+
+    private final RoutingStrategy routingStrategy;
+
+    LoadBalancingStrategy(String name, RoutingStrategy routingStrategy) {
+        this.name = name;
+        this.routingStrategy = routingStrategy;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public RoutingStrategy getRoutingStrategy() {
+        return routingStrategy;
+    }
+
+    /**
+     * 按名称查找策略。
+     *
+     * @param name 策略名，例如 {@code leastConnections}
+     * @return 对应的策略
+     * @throws IllegalArgumentException 名称未知时抛出
+     */
+    public static LoadBalancingStrategy of(String name) {
+        return Arrays.stream(values())
+                .filter(strategy -> strategy.name.equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown load balancing strategy: " + name));
+    }
+}
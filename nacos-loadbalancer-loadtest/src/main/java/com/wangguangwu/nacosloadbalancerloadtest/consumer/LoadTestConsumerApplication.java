@@ -0,0 +1,26 @@
+package com.wangguangwu.nacosloadbalancerloadtest.consumer;
+
+import com.wangguangwu.nacosconsumerdemo.NacosConsumerDemo03Application;
+import com.wangguangwu.nacosconsumerdemo.constant.ServiceConstants;
+import com.wangguangwu.nacosconsumerdemo.manager.RoutingStrategyManager;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+
+/**
+ * 被压测的服务消费者，复用 nacos-consumer-demo-03 的全部组件。
+ * {@link ServiceConstants#SERVICE_C_NAME} 的负载均衡器同样由 {@link RoutingStrategyManager} 创建，
+ * 每轮压测通过 {@code loadbalancer.routing.services.*} 指定策略。
+ * <p>
+ * 服务实例由 Spring Cloud 的 {@code SimpleDiscoveryClient} 从配置项中提供，不依赖 Nacos。
+ *
+ * @author wangguangwu
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@ComponentScan(basePackageClasses = NacosConsumerDemo03Application.class,
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+                classes = NacosConsumerDemo03Application.class))
+public class LoadTestConsumerApplication {
+}
@@ -0,0 +1,43 @@
+package com.wangguangwu.nacosloadbalancerloadtest.generator;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 预分配容量的延迟记录器，记录时只做一次原子自增和数组写入。
+ *
+ * @author wangguangwu
+ */
+public class LatencyRecorder {
+
+    private final long[] samples;
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    public LatencyRecorder(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    /**
+     * 记录一次延迟，超出容量的样本被丢弃。
+     *
+     * @param nanos 延迟，单位纳秒
+     */
+    public void record(long nanos) {
+        int index = size.getAndIncrement();
+        if (index < samples.length) {
+            samples[index] = nanos;
+        }
+    }
+
+    /**
+     * 返回排好序的样本副本，应在所有记录完成后调用。
+     *
+     * @return 升序排列的延迟样本，单位纳秒
+     */
+    public long[] sortedSnapshot() {
+        long[] snapshot = Arrays.copyOf(samples, Math.min(size.get(), samples.length));
+        Arrays.sort(snapshot);
+        return snapshot;
+    }
+}
@@ -0,0 +1,66 @@
+package com.wangguangwu.nacosloadbalancerloadtest.generator;
+
+/**
+ * 一轮压测的原始结果。
+ *
+ * @author wangguangwu
+ */
+public class LoadResult {
+
+    /**
+     * 计入结果的请求数
+     */
+    private final long requests;
+
+    /**
+     * 失败、超时或未返回的请求数
+     */
+    private final long errors;
+
+    /**
+     * 计入结果的发送时长，单位纳秒
+     */
+    private final long elapsedNanos;
+
+    /**
+     * 成功请求的延迟，升序排列，单位纳秒
+     */
+    private final long[] latencies;
+
+    public LoadResult(long requests, long errors, long elapsedNanos, long[] latencies) {
+        this.requests = requests;
+        this.errors = errors;
+        this.elapsedNanos = elapsedNanos;
+        this.latencies = latencies;
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long[] getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * 按最近秩（nearest-rank）计算延迟分位数。
+     *
+     * @param quantile 分位数，取值 (0, 1]
+     * @return 延迟，单位纳秒；没有成功请求时返回 0
+     */
+    public long percentile(double quantile) {
+        if (latencies.length == 0) {
+            return 0L;
+        }
+        int rank = (int) Math.ceil(quantile * latencies.length);
+        return latencies[Math.max(0, Math.min(latencies.length, rank) - 1)];
+    }
+}
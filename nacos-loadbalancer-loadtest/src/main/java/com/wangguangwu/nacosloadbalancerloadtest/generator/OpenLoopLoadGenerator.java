@@ -0,0 +1,83 @@
+package com.wangguangwu.nacosloadbalancerloadtest.generator;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 开环（open-loop）负载生成器：按固定速率发送请求，发送时刻与之前请求是否返回无关。
+ * <p>
+ * 延迟从请求的计划发送时刻开始计算，而不是实际发送时刻，
+ * 因此生成器自身落后或被测系统排队时，等待时间同样计入延迟，避免协调遗漏（coordinated omission）。
+ * 预热阶段的请求照常发送，但不计入结果。
+ *
+ * @author wangguangwu
+ */
+public class OpenLoopLoadGenerator {
+
+    private final HttpClient httpClient;
+
+    private final Duration requestTimeout;
+
+    public OpenLoopLoadGenerator(Duration requestTimeout) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(requestTimeout)
+                .build();
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * 以固定速率压测指定地址。
+     *
+     * @param target        压测地址
+     * @param ratePerSecond 每秒请求数
+     * @param warmup        预热时长
+     * @param duration      计入结果的压测时长
+     * @return 压测结果
+     */
+    public LoadResult run(URI target, int ratePerSecond, Duration warmup, Duration duration) {
+        HttpRequest request = HttpRequest.newBuilder(target).timeout(requestTimeout).GET().build();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        long warmupRequests = warmup.toNanos() / intervalNanos;
+        long totalRequests = warmupRequests + duration.toNanos() / intervalNanos;
+        LatencyRecorder recorder = new LatencyRecorder((int) (totalRequests - warmupRequests));
+        AtomicLong errors = new AtomicLong();
+        AtomicLong completed = new AtomicLong();
+
+        long startNanos = System.nanoTime();
+        for (long i = 0; i < totalRequests; i++) {
+            long intendedNanos = startNanos + i * intervalNanos;
+            long waitNanos = intendedNanos - System.nanoTime();
+            if (waitNanos > 0L) {
+                LockSupport.parkNanos(waitNanos);
+            }
+            boolean measured = i >= warmupRequests;
+            httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, throwable) -> {
+                long latencyNanos = System.nanoTime() - intendedNanos;
+                if (measured) {
+                    if (throwable == null && response.statusCode() == 200) {
+                        recorder.record(latencyNanos);
+                    } else {
+                        errors.incrementAndGet();
+                    }
+                }
+                completed.incrementAndGet();
+            });
+        }
+        long measuredNanos = System.nanoTime() - startNanos - warmupRequests * intervalNanos;
+
+        // 等待在途请求结束，超时的请求由 HttpClient 以异常结束
+        long deadline = System.nanoTime() + requestTimeout.toNanos() + TimeUnit.SECONDS.toNanos(1);
+        while (completed.get() < totalRequests && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        long lost = totalRequests - completed.get();
+        return new LoadResult(totalRequests - warmupRequests, errors.get() + lost, measuredNanos, recorder.sortedSnapshot());
+    }
+}
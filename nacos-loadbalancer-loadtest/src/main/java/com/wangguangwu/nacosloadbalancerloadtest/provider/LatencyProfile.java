@@ -0,0 +1,35 @@
+package com.wangguangwu.nacosloadbalancerloadtest.provider;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 桩服务提供者的响应延迟分布：固定延迟加上 {@code [0, jitter)} 内的均匀抖动。
+ *
+ * @author wangguangwu
+ */
+public final class LatencyProfile {
+
+    private final long baseNanos;
+
+    private final long jitterNanos;
+
+    public LatencyProfile(Duration base, Duration jitter) {
+        this.baseNanos = base.toNanos();
+        this.jitterNanos = jitter.toNanos();
+    }
+
+    /**
+     * 为一次请求抽取响应延迟。
+     *
+     * @return 响应延迟，单位纳秒
+     */
+    public long nextDelayNanos() {
+        return jitterNanos == 0L ? baseNanos : baseNanos + ThreadLocalRandom.current().nextLong(jitterNanos);
+    }
+
+    @Override
+    public String toString() {
+        return Duration.ofNanos(baseNanos).toMillis() + "ms+" + Duration.ofNanos(jitterNanos).toMillis() + "ms";
+    }
+}
@@ -0,0 +1,94 @@
+package com.wangguangwu.nacosloadbalancerloadtest.provider;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程内的桩服务提供者，按 {@link LatencyProfile} 延迟后响应任意路径的请求。
+ * <p>
+ * 延迟由共享的调度线程池计时，等待期间不占用线程，单个实例即可承受远高于实际提供者的并发。
+ *
+ * @author wangguangwu
+ */
+public class StubProvider implements AutoCloseable {
+
+    static {
+        // 响应头和响应体分两次写出，开启 Nagle 算法时会与客户端的延迟确认叠加出约 40ms 的额外延迟
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final String instanceId;
+
+    private final LatencyProfile latencyProfile;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final HttpServer server;
+
+    /**
+     * 已处理的请求数
+     */
+    private final AtomicLong requests = new AtomicLong();
+
+    public StubProvider(String instanceId, LatencyProfile latencyProfile, ScheduledExecutorService scheduler) throws IOException {
+        this.instanceId = instanceId;
+        this.latencyProfile = latencyProfile;
+        this.scheduler = scheduler;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public LatencyProfile getLatencyProfile() {
+        return latencyProfile;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * 取出并清零已处理的请求数。
+     *
+     * @return 上次清零以来处理的请求数
+     */
+    public long takeRequests() {
+        return requests.getAndSet(0L);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) {
+        requests.incrementAndGet();
+        scheduler.schedule(() -> respond(exchange), latencyProfile.nextDelayNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private void respond(HttpExchange exchange) {
+        byte[] body = instanceId.getBytes(StandardCharsets.UTF_8);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            exchange.getResponseHeaders().set("Content-Type", "text/plain;charset=UTF-8");
+            exchange.sendResponseHeaders(200, body.length);
+            outputStream.write(body);
+        } catch (IOException e) {
+            // 客户端已断开连接
+        } finally {
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.wangguangwu.nacosloadbalancerloadtest.report;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 压测汇总结果，序列化为 JSON 输出。
+ *
+ * @author wangguangwu
+ */
+public class LoadTestReport {
+
+    /**
+     * 压测的消费者接口
+     */
+    private final String endpoint;
+
+    /**
+     * 目标速率，每秒请求数
+     */
+    private final int rate;
+
+    /**
+     * 每个策略计入结果的压测时长，单位秒
+     */
+    private final long durationSeconds;
+
+    /**
+     * 各服务实例的延迟分布
+     */
+    private final Map<String, String> instances;
+
+    private final List<StrategyReport> results = new ArrayList<>();
+
+    public LoadTestReport(String endpoint, int rate, long durationSeconds, Map<String, String> instances) {
+        this.endpoint = endpoint;
+        this.rate = rate;
+        this.durationSeconds = durationSeconds;
+        this.instances = instances;
+    }
+
+    public void add(StrategyReport report) {
+        results.add(report);
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public int getRate() {
+        return rate;
+    }
+
+    public long getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public Map<String, String> getInstances() {
+        return instances;
+    }
+
+    public List<StrategyReport> getResults() {
+        return results;
+    }
+}
@@ -0,0 +1,78 @@
+package com.wangguangwu.nacosloadbalancerloadtest.report;
+
+import com.wangguangwu.nacosloadbalancerloadtest.generator.LoadResult;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个负载均衡策略的压测结果。
+ *
+ * @author wangguangwu
+ */
+public class StrategyReport {
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final String strategy;
+
+    private final long requests;
+
+    private final long errors;
+
+    /**
+     * 每秒成功返回的请求数
+     */
+    private final double throughput;
+
+    /**
+     * 成功请求的延迟分位数，单位毫秒
+     */
+    private final Map<String, Double> latencyMillis = new LinkedHashMap<>();
+
+    /**
+     * 各服务实例处理的请求数，包含预热阶段
+     */
+    private final Map<String, Long> instanceRequests;
+
+    public StrategyReport(String strategy, LoadResult result, Map<String, Long> instanceRequests) {
+        this.strategy = strategy;
+        this.requests = result.getRequests();
+        this.errors = result.getErrors();
+        this.throughput = result.getLatencies().length * (double) TimeUnit.SECONDS.toNanos(1) / result.getElapsedNanos();
+        this.latencyMillis.put("p50", toMillis(result.percentile(0.5)));
+        this.latencyMillis.put("p99", toMillis(result.percentile(0.99)));
+        this.latencyMillis.put("p999", toMillis(result.percentile(0.999)));
+        this.latencyMillis.put("max", toMillis(result.percentile(1.0)));
+        this.instanceRequests = instanceRequests;
+    }
+
+    public String getStrategy() {
+        return strategy;
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public double getThroughput() {
+        return throughput;
+    }
+
+    public Map<String, Double> getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public Map<String, Long> getInstanceRequests() {
+        return instanceRequests;
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / NANOS_PER_MILLI * 1000) / 1000.0;
+    }
+}
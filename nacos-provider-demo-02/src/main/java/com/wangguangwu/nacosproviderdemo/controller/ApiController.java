@@ -2,9 +2,14 @@ package com.wangguangwu.nacosproviderdemo.controller;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * @author wangguangwu
  */
@@ -22,4 +27,15 @@ public class ApiController {
     public String callService() {
         return "Hello, I'm " + applicationName + ". I'm from port:" + serverPort;
     }
+
+    /**
+     * 批量版本的 {@link #callService()}，一次请求处理多个逻辑调用，按请求中的顺序返回每个调用的结果。
+     *
+     * @param callIds 逻辑调用的标识
+     * @return 与 callIds 一一对应的结果
+     */
+    @PostMapping("/batch/callService")
+    public List<String> callServiceBatch(@RequestBody List<String> callIds) {
+        return Collections.nCopies(callIds.size(), callService());
+    }
 }
@@ -0,0 +1,30 @@
+package com.wangguangwu.nacosproviderdemo.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 调度器配置类。
+ * <p>
+ * 异步接口在延迟结束后由共享的调度线程完成响应，等待期间不占用 Tomcat 工作线程，
+ * 少量线程即可同时挂起大量慢响应。
+ *
+ * @author wangguangwu
+ */
+@Configuration
+public class SchedulerConfig {
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService responseScheduler() {
+        AtomicInteger index = new AtomicInteger();
+        return Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "response-scheduler-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
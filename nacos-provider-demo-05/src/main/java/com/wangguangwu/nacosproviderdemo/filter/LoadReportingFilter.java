@@ -0,0 +1,264 @@
+package com.wangguangwu.nacosproviderdemo.filter;
+
+import org.apache.tomcat.util.threads.ThreadPoolExecutor;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 在每个响应上附带本实例的实时负载，供消费者的负载均衡器参考。
+ * <p>
+ * 响应头包括：
+ * <ul>
+ *     <li>{@link #IN_FLIGHT_HEADER}：正在处理的请求数，包括异步挂起的请求；</li>
+ *     <li>{@link #UTILIZATION_HEADER}：工作线程池的使用率，0 ~ 1。异步挂起的请求不占用工作线程，
+ *     因此按活跃线程数与正在处理的请求数中的较大值计算；</li>
+ *     <li>{@link #P99_HEADER}：最近请求的 P99 处理耗时，单位毫秒。</li>
+ * </ul>
+ * 负载在开始写响应体或提交响应时写入响应头，反映的是请求处理完成时的负载，而不是请求到达时的负载；
+ * 异步请求在异步分发中写入响应头，在异步处理完成后才计为结束。
+ * <p>
+ * nacos-provider-demo-05 与 nacos-provider-demo-06 中的本类内容完全相同。各示例模块独立运行、互不依赖，
+ * 因此按模块复制而不抽取公共模块；修改计算方式时需同步修改两个模块，
+ * 修改响应头名称时还需同步修改 nacos-consumer-demo-03 的 {@code ServerLoadHeaderConstants}。
+ *
+ * @author wangguangwu
+ */
+@Component
+public class LoadReportingFilter extends OncePerRequestFilter implements ApplicationListener<WebServerInitializedEvent> {
+
+    public static final String IN_FLIGHT_HEADER = "X-Server-In-Flight";
+
+    public static final String UTILIZATION_HEADER = "X-Server-Utilization";
+
+    public static final String P99_HEADER = "X-Server-P99-Ms";
+
+    /**
+     * 正在处理的请求数
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * 最近请求的处理耗时
+     */
+    private final LatencyWindow latencyWindow = new LatencyWindow();
+
+    /**
+     * Tomcat 工作线程池，Web 容器启动后获取。Tomcat 9.0.56 起使用自己的线程池实现，不再继承 JDK 的线程池
+     */
+    private volatile ThreadPoolExecutor workerPool;
+
+    @Override
+    public void onApplicationEvent(WebServerInitializedEvent event) {
+        if (event.getWebServer() instanceof TomcatWebServer) {
+            Executor executor = ((TomcatWebServer) event.getWebServer()).getTomcat().getConnector()
+                    .getProtocolHandler().getExecutor();
+            if (executor instanceof ThreadPoolExecutor) {
+                workerPool = (ThreadPoolExecutor) executor;
+            }
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        LoadReportingResponse reportingResponse = WebUtils.getNativeResponse(response, LoadReportingResponse.class);
+        if (isAsyncDispatch(request)) {
+            // 异步分发时请求仍在计数中，只需在写响应时附带负载
+            if (reportingResponse == null) {
+                reportingResponse = new LoadReportingResponse(response);
+            }
+            filterChain.doFilter(request, reportingResponse);
+            reportingResponse.writeLoadHeaders();
+            return;
+        }
+        long startNanos = System.nanoTime();
+        inFlight.incrementAndGet();
+        reportingResponse = new LoadReportingResponse(response);
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, reportingResponse);
+            async = isAsyncStarted(request);
+            if (!async) {
+                reportingResponse.writeLoadHeaders();
+            }
+        } finally {
+            if (async) {
+                request.getAsyncContext().addListener(new CompletionListener(startNanos));
+            } else {
+                complete(startNanos);
+            }
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    private void complete(long startNanos) {
+        inFlight.decrementAndGet();
+        latencyWindow.record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * 获取工作线程池的使用率，保留两位小数。
+     *
+     * @param current 正在处理的请求数
+     */
+    private double getUtilization(int current) {
+        ThreadPoolExecutor pool = workerPool;
+        if (pool == null || pool.getMaximumPoolSize() <= 0) {
+            return 0.0;
+        }
+        double utilization = (double) Math.max(pool.getActiveCount(), current) / pool.getMaximumPoolSize();
+        return Math.round(100.0 * Math.min(utilization, 1.0)) / 100.0;
+    }
+
+    /**
+     * 在响应提交前写入负载响应头，只写入一次。
+     */
+    private class LoadReportingResponse extends HttpServletResponseWrapper {
+
+        private boolean written;
+
+        LoadReportingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        void writeLoadHeaders() {
+            if (written || isCommitted()) {
+                return;
+            }
+            written = true;
+            int current = inFlight.get();
+            setHeader(IN_FLIGHT_HEADER, Integer.toString(current));
+            setHeader(UTILIZATION_HEADER, Double.toString(getUtilization(current)));
+            setHeader(P99_HEADER, Long.toString(latencyWindow.getP99Millis()));
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeLoadHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeLoadHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeLoadHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeLoadHeaders();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeLoadHeaders();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeLoadHeaders();
+            super.sendRedirect(location);
+        }
+    }
+
+    /**
+     * 异步请求完成时结束计数。
+     */
+    private class CompletionListener implements AsyncListener {
+
+        private final long startNanos;
+
+        CompletionListener(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            complete(startNanos);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // 超时后仍会回调 onComplete
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            // 出错后仍会回调 onComplete
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // 无需处理
+        }
+    }
+
+    /**
+     * 基于最近固定数量样本的 P99 统计，每记录一定数量的样本重新计算一次。
+     */
+    private static class LatencyWindow {
+
+        private static final int WINDOW = 1024;
+
+        private static final int RECOMPUTE_INTERVAL = 128;
+
+        private final long[] samples = new long[WINDOW];
+
+        private int next;
+
+        private int count;
+
+        private int sinceRecompute;
+
+        private volatile long p99Millis;
+
+        synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % WINDOW;
+            if (count < WINDOW) {
+                count++;
+            }
+            if (++sinceRecompute >= RECOMPUTE_INTERVAL || count < RECOMPUTE_INTERVAL) {
+                sinceRecompute = 0;
+                long[] sorted = Arrays.copyOf(samples, count);
+                Arrays.sort(sorted);
+                p99Millis = TimeUnit.NANOSECONDS.toMillis(sorted[(int) Math.ceil(0.99 * count) - 1]);
+            }
+        }
+
+        long getP99Millis() {
+            return p99Millis;
+        }
+    }
+}
@@ -2,9 +2,17 @@ package com.wangguangwu.nacosproviderdemo.controller;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.annotation.Resource;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -20,13 +28,52 @@ public class ApiController {
     @Value("${server.port}")
     private String serverPort;
 
+    /**
+     * 模拟的处理耗时
+     */
+    @Value("${provider.response-delay:3s}")
+    private Duration responseDelay;
+
+    @Resource
+    private ScheduledExecutorService responseScheduler;
+
     @GetMapping("/callService")
     public String callService() {
         try {
-            TimeUnit.SECONDS.sleep(3);
+            TimeUnit.MILLISECONDS.sleep(responseDelay.toMillis());
         } catch (InterruptedException e) {
             // ignore
         }
+        return getMessage();
+    }
+
+    /**
+     * 与 {@link #callService()} 耗时相同的异步版本，延迟结束后由调度线程完成响应，等待期间不占用 Tomcat 工作线程。
+     */
+    @GetMapping("/async/callService")
+    public CompletableFuture<String> callServiceAsync() {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        responseScheduler.schedule(() -> result.complete(getMessage()), responseDelay.toMillis(), TimeUnit.MILLISECONDS);
+        return result;
+    }
+
+    /**
+     * 批量版本的 {@link #callServiceAsync()}，一次请求处理多个逻辑调用，按请求中的顺序返回每个调用的结果。
+     * <p>
+     * 同一批调用共享一次处理耗时，模拟下游按批处理的场景。
+     *
+     * @param callIds 逻辑调用的标识
+     * @return 与 callIds 一一对应的结果
+     */
+    @PostMapping("/batch/callService")
+    public CompletableFuture<List<String>> callServiceBatch(@RequestBody List<String> callIds) {
+        CompletableFuture<List<String>> result = new CompletableFuture<>();
+        responseScheduler.schedule(() -> result.complete(Collections.nCopies(callIds.size(), getMessage())),
+                responseDelay.toMillis(), TimeUnit.MILLISECONDS);
+        return result;
+    }
+
+    private String getMessage() {
         return "Hello, I'm " + applicationName + ". I'm from port:" + serverPort;
     }
 }